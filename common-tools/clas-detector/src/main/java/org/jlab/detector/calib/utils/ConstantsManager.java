@@ -7,11 +7,19 @@ package org.jlab.detector.calib.utils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import org.jlab.utils.groups.ImmutableIndexedTable;
 import org.jlab.utils.groups.IndexedTable;
 
 /**
@@ -20,10 +28,50 @@ import org.jlab.utils.groups.IndexedTable;
  */
 public class ConstantsManager {
     
+    /**
+     * threads running the prefetch requests, shared by all managers.
+     */
+    private static final ExecutorService PREFETCH_SERVICE = Executors.newCachedThreadPool(new ThreadFactory(){
+        @Override
+        public Thread newThread(Runnable r){
+            Thread thread = new Thread(r, "ConstantsManager-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    
     private DatabaseConstantsDescriptor  defaultDescriptor = new DatabaseConstantsDescriptor();
-    private volatile Map<Integer,DatabaseConstantsDescriptor>  runConstants = new LinkedHashMap<Integer,DatabaseConstantsDescriptor>();
     private String   databaseVariation = "default";
     private String   timeStamp         = "";
+    private String   databaseAddress   = null;
+    
+    private volatile int  maxRuns = Integer.getInteger("constants.maxruns", 8);
+    private volatile ConstantsSnapshot  snapshot = ConstantsManager.defaultSnapshot();
+    
+    /**
+     * runs loaded, or being loaded, in least recently used order. Each run is
+     * loaded by the first thread that needs it (or by a prefetch thread), other
+     * threads asking for the same run wait for that load only. Runs still
+     * being loaded are not dropped, so the map can hold more than maxRuns
+     * runs while they load.
+     */
+    private final Map<Integer,FutureTask<DatabaseConstantsDescriptor>>  runConstants = 
+            new LinkedHashMap<Integer,FutureTask<DatabaseConstantsDescriptor>>(16, 0.75f, true){
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer,FutureTask<DatabaseConstantsDescriptor>> eldest){
+                    Iterator<FutureTask<DatabaseConstantsDescriptor>> it = values().iterator();
+                    while(size()>maxRuns&&it.hasNext()){
+                        if(it.next().isDone()==true) it.remove();
+                    }
+                    return false;
+                }
+            };
+    
+    /**
+     * descriptor of the last run returned, checked before taking the lock on
+     * runConstants, since consecutive events almost always have the same run.
+     */
+    private volatile DatabaseConstantsDescriptor  lastDescriptor = null;
     
     public ConstantsManager(){
         
@@ -33,6 +81,11 @@ public class ConstantsManager {
         this.databaseVariation = variation;
     }
     
+    private static ConstantsSnapshot defaultSnapshot(){
+        String dir = System.getProperty("constants.snapshot", System.getenv("CONSTANTS_SNAPSHOT"));
+        return dir==null ? null : new ConstantsSnapshot(dir);
+    }
+    
     public String getVariation(){
         return this.databaseVariation;
     }
@@ -45,6 +98,41 @@ public class ConstantsManager {
         this.timeStamp = timestamp;
     }
     
+    /**
+     * sets the database to read from (e.g. "sqlite:////path/to/ccdb.sqlite"),
+     * instead of the one given by the environment.
+     * @param address database connection string
+     */
+    public void setConnection(String address){
+        this.databaseAddress = address;
+    }
+    
+    /**
+     * sets the number of runs kept in memory, the least recently used run is
+     * dropped when a new one is loaded. The default is given by the system
+     * property constants.maxruns, or 8.
+     * @param max number of runs
+     */
+    public void setMaxRuns(int max){
+        this.maxRuns = Math.max(1, max);
+    }
+    
+    public int getMaxRuns(){
+        return this.maxRuns;
+    }
+    
+    /**
+     * sets the directory of the local snapshot of the tables: tables found
+     * there are not read from the database, and tables read from the database
+     * are saved there, separately for each database address. The default is
+     * given by the system property constants.snapshot or the environment
+     * variable CONSTANTS_SNAPSHOT, null disables the snapshot.
+     * @param directory snapshot directory, or null
+     */
+    public void setSnapshotDirectory(String directory){
+        this.snapshot = directory==null ? null : new ConstantsSnapshot(directory);
+    }
+    
     public synchronized void init(List<String>  tables){
         this.defaultDescriptor.addTables(tables);
     }
@@ -57,10 +145,7 @@ public class ConstantsManager {
     }
     
     public IndexedTable  getConstants(int run, String table){
-        if(this.runConstants.containsKey(run)==false){
-            this.loadConstantsForRun(run);
-        }
-        DatabaseConstantsDescriptor  descriptor = this.runConstants.get(run);
+        DatabaseConstantsDescriptor  descriptor = this.getDescriptor(run);
         if(descriptor.getMap().containsKey(table)==false){
             System.out.println("[getConstants] error ( run = " + run + " ) "
                     + " table not found with name : " + table);
@@ -68,47 +153,156 @@ public class ConstantsManager {
         return descriptor.getMap().get(table);
     }
     
-    private synchronized void loadConstantsForRun(int run){
-
-        if(this.runConstants.containsKey(run)==true) return;
+    /**
+     * returns the constants as a read-only columnar table, with primitive
+     * lookups and no allocation per access. The table is built from the
+     * IndexedTable once per run and shared between callers (and threads).
+     * @param run run number
+     * @param table table key
+     * @return the table or null if it was not loaded
+     */
+    public ImmutableIndexedTable  getImmutableConstants(int run, String table){
+        if(this.getConstants(run, table)==null) return null;
+        return this.getDescriptor(run).getImmutableTable(table);
+    }
+    
+    /**
+     * starts loading the tables for the run in the background, if they are
+     * not loaded yet, so that the first event of the run does not wait for
+     * the database. Does nothing for runs already loaded or being loaded.
+     * @param run run number
+     */
+    public void prefetch(int run){
+        FutureTask<DatabaseConstantsDescriptor> task = this.createTask(run);
+        if(task!=null) PREFETCH_SERVICE.execute(task);
+    }
+    
+    /**
+     * @return true if the run is in memory (loaded, or being loaded)
+     */
+    public boolean hasRun(int run){
+        synchronized(this.runConstants){
+            return this.runConstants.containsKey(run);
+        }
+    }
+    
+    /**
+     * @return a new load task, already registered for the run, or null if
+     * the run has one
+     */
+    private FutureTask<DatabaseConstantsDescriptor> createTask(final int run){
+        synchronized(this.runConstants){
+            if(this.runConstants.containsKey(run)==true) return null;
+            FutureTask<DatabaseConstantsDescriptor> task = new FutureTask<DatabaseConstantsDescriptor>(
+                    new Callable<DatabaseConstantsDescriptor>(){
+                        @Override
+                        public DatabaseConstantsDescriptor call(){
+                            return loadConstantsForRun(run);
+                        }
+                    });
+            this.runConstants.put(run, task);
+            return task;
+        }
+    }
+    
+    private DatabaseConstantsDescriptor getDescriptor(int run){
+        DatabaseConstantsDescriptor last = this.lastDescriptor;
+        if(last!=null&&last.getRunNumber()==run) return last;
         
-        System.out.println("[ConstantsManager] --->  loading table for run = " + run);
-        DatabaseConstantsDescriptor desc = defaultDescriptor.getCopy(run);
-        DatabaseConstantProvider provider = new DatabaseConstantProvider(run,
-                this.databaseVariation, this.timeStamp);
+        FutureTask<DatabaseConstantsDescriptor> task;
+        synchronized(this.runConstants){
+            task = this.runConstants.get(run);
+        }
+        if(task==null){
+            task = this.createTask(run);
+            if(task!=null){
+                task.run();
+            } else {
+                synchronized(this.runConstants){
+                    task = this.runConstants.get(run);
+                }
+                // evicted in between by other runs, load it here
+                if(task==null) return this.getDescriptor(run);
+            }
+        }
         
+        try {
+            DatabaseConstantsDescriptor desc = task.get();
+            this.lastDescriptor = desc;
+            return desc;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("[ConstantsManager] interrupted loading run " + run, ex);
+        } catch (ExecutionException ex) {
+            synchronized(this.runConstants){
+                if(this.runConstants.get(run)==task) this.runConstants.remove(run);
+            }
+            throw new IllegalStateException("[ConstantsManager] error loading run " + run, ex.getCause());
+        }
+    }
+    
+    private DatabaseConstantsDescriptor loadConstantsForRun(int run){
+        
+        System.out.println("[ConstantsManager] --->  loading table for run = " + run);
+        DatabaseConstantsDescriptor desc;
+        synchronized(this){
+            desc = defaultDescriptor.getCopy(run);
+        }
+        ConstantsSnapshot  snap = this.snapshot;
+        String address = this.databaseAddress==null ?
+                DatabaseConstantProvider.getDefaultAddress() : this.databaseAddress;
         
         List<String>   tn = new ArrayList<String>(desc.getTableNames());
         List<String>   tk = new ArrayList<String>(desc.getTableKeys());
         
-        //for(String tableName : desc.getTableNames())
+        DatabaseConstantProvider provider = null;
         
-        for(int i = 0; i < desc.getTableNames().size(); i++){                
+        for(int i = 0; i < tn.size(); i++){                
             String tableName = tn.get(i);
+            if(snap!=null){
+                IndexedTable  table = snap.read(address, databaseVariation, timeStamp, run, tableName);
+                if(table!=null){
+                    desc.getMap().put(tk.get(i), table);
+                    System.out.println(String.format("***** >>> adding : %14s / table = %s (snapshot)", tk.get(i),tableName));
+                    continue;
+                }
+            }
+            // the connection is only opened for tables missing from the snapshot
+            if(provider==null){
+                provider = new DatabaseConstantProvider(address, run, this.databaseVariation, this.timeStamp);
+            }
             try {
                 IndexedTable  table = provider.readTable(tableName);
                 desc.getMap().put(tk.get(i), table);
                 System.out.println(String.format("***** >>> adding : %14s / table = %s", tk.get(i),tableName));
-                //System.out.println("***** >>> adding : table " + tableName 
-                //        + "  key = " + tk.get(i));
+                if(snap!=null) snap.write(address, databaseVariation, timeStamp, run, tableName, table);
             } catch (Exception e) {
                 System.out.println("[ConstantsManager] ---> error reading table : "
                         + tableName);
             }
         }
-        provider.disconnect();
-        this.runConstants.put(run, desc);
-        //System.out.println(this.toString());
+        if(provider!=null) provider.disconnect();
+        return desc;
     }
     
     @Override
     public String toString(){
         StringBuilder str = new StringBuilder();
-        for(Map.Entry<Integer,DatabaseConstantsDescriptor> entry : runConstants.entrySet()){
+        List<FutureTask<DatabaseConstantsDescriptor>> tasks;
+        synchronized(this.runConstants){
+            tasks = new ArrayList<FutureTask<DatabaseConstantsDescriptor>>(runConstants.values());
+        }
+        for(FutureTask<DatabaseConstantsDescriptor> task : tasks){
+            if(task.isDone()==false) continue;
+            DatabaseConstantsDescriptor desc;
+            try {
+                desc = task.get();
+            } catch (InterruptedException | ExecutionException ex) {
+                continue;
+            }
             str.append("CONSTANTS SET FOR RUN = ");
-            str.append(entry.getKey());
+            str.append(desc.getRunNumber());
             str.append("\n");
-            DatabaseConstantsDescriptor desc = entry.getValue();
             for(Map.Entry<String,IndexedTable>  tables : desc.getMap().entrySet()){
                 str.append(String.format("TABLE : %s\n", tables.getKey()));
             }
@@ -130,6 +324,8 @@ public class ConstantsManager {
         
         Map<String,IndexedTable>  hashTables = new LinkedHashMap<String,IndexedTable>();
         
+        Map<String,ImmutableIndexedTable>  immutableTables = new LinkedHashMap<String,ImmutableIndexedTable>();
+        
         public DatabaseConstantsDescriptor(){
             
         }
@@ -177,6 +373,15 @@ public class ConstantsManager {
             return this.hashTables.get(table);
         }
         
+        public synchronized ImmutableIndexedTable  getImmutableTable(String table){
+            ImmutableIndexedTable immutable = this.immutableTables.get(table);
+            if(immutable==null&&this.hashTables.containsKey(table)==true){
+                immutable = new ImmutableIndexedTable(this.hashTables.get(table));
+                this.immutableTables.put(table, immutable);
+            }
+            return immutable;
+        }
+        
         public Set<String>  getTableNames(){
             return this.tableNames;
         }
@@ -188,6 +393,7 @@ public class ConstantsManager {
         public DatabaseConstantsDescriptor  getCopy(int run){
             DatabaseConstantsDescriptor desc = new DatabaseConstantsDescriptor();
             desc.addTables(this.getTableKeys(),this.getTableNames());
+            desc.setRunNumber(run);
             return desc;
         }
         
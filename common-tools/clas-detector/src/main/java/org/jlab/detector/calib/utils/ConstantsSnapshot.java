@@ -0,0 +1,205 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.jlab.detector.calib.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import org.jlab.utils.groups.IndexedList;
+import org.jlab.utils.groups.IndexedTable;
+
+/**
+ * Local binary copy of constants tables, used by ConstantsManager to avoid
+ * querying the database again for tables that were already read, by this
+ * job or by a previous one sharing the same directory.
+ *
+ * Files are stored as
+ * {@code <directory>/<database>/<variation>_<timestamp>/<run>/<table>.bin},
+ * with the characters of the database address and the slashes of the table
+ * name replaced by underscores, so that tables read from different databases
+ * are kept apart. A file holds the
+ * index and column names and types, followed by the rows. Files are written
+ * to a temporary name and renamed, so that concurrent jobs never read a
+ * partial file.
+ *
+ * The snapshot does not know when the database changes: a directory written
+ * without a time stamp should only be reused while the constants are not
+ * being updated, e.g. the scratch directory of a job.
+ */
+public class ConstantsSnapshot {
+
+    private static final int MAGIC   = 0x43434442;
+    private static final int VERSION = 1;
+
+    private final File directory;
+
+    public ConstantsSnapshot(String directory){
+        this.directory = new File(directory);
+    }
+
+    public File getDirectory(){
+        return this.directory;
+    }
+
+    private static String clean(String name){
+        String str = name.startsWith("/") ? name.substring(1) : name;
+        return str.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    /**
+     * @return the file holding the table for the given run
+     */
+    public File getFile(String database, String variation, String timestamp, int run, String table){
+        String stamp = (timestamp==null||timestamp.length()==0) ? "now" : timestamp;
+        File dir = new File(new File(new File(directory, clean(database)),
+                clean(variation) + "_" + clean(stamp)), Integer.toString(run));
+        return new File(dir, clean(table) + ".bin");
+    }
+
+    /**
+     * reads the table, if it was saved before.
+     * @return the table, or null if there is no (readable) snapshot
+     */
+    public IndexedTable read(String database, String variation, String timestamp, int run, String table){
+        File file = this.getFile(database, variation, timestamp, run, table);
+        if(file.isFile()==false) return null;
+        try {
+            return ConstantsSnapshot.read(file);
+        } catch (IOException e) {
+            System.out.println("[ConstantsSnapshot] ---> error reading snapshot : "
+                    + file.getPath());
+            return null;
+        }
+    }
+
+    /**
+     * saves the table; failures are reported and otherwise ignored.
+     */
+    public void write(String database, String variation, String timestamp, int run, String table, IndexedTable tt){
+        File file = this.getFile(database, variation, timestamp, run, table);
+        try {
+            ConstantsSnapshot.write(file, tt);
+        } catch (IOException e) {
+            System.out.println("[ConstantsSnapshot] ---> error writing snapshot : "
+                    + file.getPath());
+        }
+    }
+
+    public static void write(File file, IndexedTable table) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if(dir.isDirectory()==false&&dir.mkdirs()==false&&dir.isDirectory()==false){
+            throw new IOException("can not create directory " + dir);
+        }
+        File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+        try {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmp)));
+            try {
+                write(out, table);
+            } finally {
+                out.close();
+            }
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            tmp.delete();
+        }
+    }
+
+    public static IndexedTable read(File file) throws IOException {
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)));
+        try {
+            return read(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void write(DataOutputStream out, IndexedTable table) throws IOException {
+        int nindex   = table.getList().getIndexSize();
+        int ncolumns = table.getColumnCount() - nindex;
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(nindex);
+        for(int i = 0; i < nindex; i++){
+            out.writeUTF(i<3 ? table.getColumnName(i) : "A" + i);
+        }
+        boolean[] isDouble = new boolean[ncolumns];
+        out.writeInt(ncolumns);
+        for(int c = 0; c < ncolumns; c++){
+            isDouble[c] = "D".equals(table.getColumnType(nindex + c));
+            out.writeUTF(table.getColumnName(c + 3));
+            out.writeBoolean(isDouble[c]);
+        }
+
+        Map<Long,IndexedTable.IndexedEntry> entries = table.getList().getMap();
+        out.writeInt(entries.size());
+        for(Map.Entry<Long,IndexedTable.IndexedEntry> entry : entries.entrySet()){
+            for(int i = 0; i < nindex; i++){
+                out.writeInt(IndexedList.IndexGenerator.getIndex(entry.getKey(), i));
+            }
+            for(int c = 0; c < ncolumns; c++){
+                Number value = entry.getValue().getValue(c);
+                if(isDouble[c]==true){
+                    out.writeDouble(value.doubleValue());
+                } else {
+                    out.writeInt(value.intValue());
+                }
+            }
+        }
+    }
+
+    private static IndexedTable read(DataInputStream in) throws IOException {
+        if(in.readInt()!=MAGIC||in.readInt()!=VERSION){
+            throw new IOException("not a constants snapshot");
+        }
+        int nindex = in.readInt();
+        String[] indexNames = new String[nindex];
+        for(int i = 0; i < nindex; i++) indexNames[i] = in.readUTF();
+
+        int ncolumns = in.readInt();
+        String[]  format   = new String[ncolumns];
+        boolean[] isDouble = new boolean[ncolumns];
+        for(int c = 0; c < ncolumns; c++){
+            String name = in.readUTF();
+            isDouble[c] = in.readBoolean();
+            format[c]   = name + (isDouble[c] ? "/D" : "/I");
+        }
+
+        IndexedTable table = new IndexedTable(nindex, format);
+        for(int i = 0; i < nindex; i++) table.setIndexName(i, indexNames[i]);
+
+        int nrows = in.readInt();
+        int[] index = new int[nindex];
+        for(int r = 0; r < nrows; r++){
+            for(int i = 0; i < nindex; i++) index[i] = in.readInt();
+            table.addEntry(index);
+            IndexedTable.IndexedEntry entry = (IndexedTable.IndexedEntry) table.getList().getItem(index);
+            for(int c = 0; c < ncolumns; c++){
+                if(isDouble[c]==true){
+                    entry.setValue(c, in.readDouble());
+                } else {
+                    entry.setValue(c, in.readInt());
+                }
+            }
+        }
+        return table;
+    }
+}
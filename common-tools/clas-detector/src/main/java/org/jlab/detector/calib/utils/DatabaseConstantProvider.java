@@ -60,7 +60,7 @@ public class DatabaseConstantProvider implements ConstantProvider {
         
         String address = "mysql://clas12reader@clasdb.jlab.org/clas12";
         
-        String envAddress = this.getEnvironment();        
+        String envAddress = DatabaseConstantProvider.getEnvironment();        
         if(envAddress!=null) address = envAddress;
         this.initialize(address);
     }
@@ -73,7 +73,7 @@ public class DatabaseConstantProvider implements ConstantProvider {
         
         String address = "mysql://clas12reader@clasdb.jlab.org/clas12";
         
-        String envAddress = this.getEnvironment();        
+        String envAddress = DatabaseConstantProvider.getEnvironment();        
         if(envAddress!=null) address = envAddress;
         this.initialize(address);
     }
@@ -86,7 +86,7 @@ public class DatabaseConstantProvider implements ConstantProvider {
         
         String address = "mysql://clas12reader@clasdb.jlab.org/clas12";
         
-        String envAddress = this.getEnvironment();        
+        String envAddress = DatabaseConstantProvider.getEnvironment();        
         if(envAddress!=null) address = envAddress;
         if(timestamp.length()>8){
             this.setTimeStamp(timestamp);
@@ -94,6 +94,16 @@ public class DatabaseConstantProvider implements ConstantProvider {
         this.initialize(address);
     }
     
+    public DatabaseConstantProvider(String address, int run, String var, String timestamp){
+        this.loadTimeErrors = 0;
+        this.runNumber = run;
+        this.variation = var;
+        if(timestamp.length()>8){
+            this.setTimeStamp(timestamp);
+        }
+        this.initialize(address);
+    }
+
     public DatabaseConstantProvider(String address){
         this.initialize(address);
     }
@@ -113,7 +123,17 @@ public class DatabaseConstantProvider implements ConstantProvider {
         return entries;
     }
     
-    private String getEnvironment(){
+    /**
+     * @return the address of the database opened by the constructors
+     * without an address: CCDB_CONNECTION, or the SQLite file given by
+     * CLAS12DIR and CCDB_DATABASE, or the JLab MySQL server
+     */
+    public static String getDefaultAddress(){
+        String address = DatabaseConstantProvider.getEnvironment();
+        return address!=null ? address : "mysql://clas12reader@clasdb.jlab.org/clas12";
+    }
+    
+    private static String getEnvironment(){
         
         String envCCDB   = System.getenv("CCDB_DATABASE");
         String envCLAS12 = System.getenv("CLAS12DIR");
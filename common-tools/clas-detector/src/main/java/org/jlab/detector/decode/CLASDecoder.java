@@ -6,7 +6,15 @@
 package org.jlab.detector.decode;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.jlab.detector.base.DetectorType;
 import org.jlab.io.base.DataBank;
 import org.jlab.io.base.DataEvent;
@@ -476,6 +484,298 @@ public class CLASDecoder {
         return bank;
     }
     
+    /**
+     * decodes the EVIO files into the writer using a pool of decoders, each
+     * with its own CodaEventDecoder, translation tables and pulse fitters.
+     * A reader thread feeds raw events to the decoders, and a writer thread
+     * puts the decoded events back in input order before writing, so the
+     * output (including the event counter used in the header bank) is the
+     * same as for the single-threaded decoder. Serialization and compression
+     * of the records happen on the writer thread, overlapped with decoding.
+     * If a thread fails, the other threads are stopped and the error is
+     * rethrown by this method.
+     * @param inputList input EVIO files
+     * @param writer opened output writer, written through the same
+     * HipoDataSync as in the single-threaded decoder
+     * @param nthreads number of decoding threads
+     * @param developmentMode use development translation tables
+     * @param debug decoder debug mode
+     * @param nrun run number for the header bank (-1 means use CODA run)
+     * @param torus torus current for the header bank
+     * @param solenoid solenoid current for the header bank
+     * @param nevents maximum number of events to decode (-1 for all)
+     * @return number of events written
+     */
+    public static long decodeParallel(final List<String> inputList, final HipoDataSync writer, final int nthreads,
+            boolean developmentMode, int debug, final int nrun, final float torus, final float solenoid, final int nevents){
+        return CLASDecoder.decodeParallel(inputList, writer, nthreads, developmentMode, debug,
+                nrun, torus, solenoid, nevents, false);
+    }
+    
+    /**
+     * decodes the EVIO files into the writer using a pool of decoders, see
+     * above.
+     * @param zeroCopy read the raw events without copying them out of the
+     * memory mapped files
+     * @return number of events written
+     */
+    public static long decodeParallel(final List<String> inputList, final HipoDataSync writer, final int nthreads,
+            boolean developmentMode, int debug, final int nrun, final float torus, final float solenoid, final int nevents,
+            final boolean zeroCopy){
+        
+        int capacity = 4*nthreads;
+        final BlockingQueue<EventSlot>  inputQueue = new ArrayBlockingQueue<EventSlot>(capacity);
+        final BlockingQueue<EventSlot> outputQueue = new ArrayBlockingQueue<EventSlot>(capacity + nthreads);
+        // limits the number of events between the reader and the writer, so
+        // a slow event does not let the ordering buffer grow without bound.
+        final Semaphore inflight = new Semaphore(2*capacity);
+        final long[] written = new long[]{0L};
+        // first error thrown by one of the threads, the other threads are
+        // interrupted when it is set
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final List<Thread> pipeline = new ArrayList<Thread>();
+        
+        final List<CLASDecoder> decoders = new ArrayList<CLASDecoder>();
+        for(int i = 0; i < nthreads; i++){
+            CLASDecoder decoder = new CLASDecoder(developmentMode);
+            decoder.setDebugMode(debug);
+            if(nrun>0){
+                decoder.setRunNumber(nrun,true);
+            }
+            decoders.add(decoder);
+        }
+        
+        Thread readerThread = new Thread(new Runnable(){
+            @Override
+            public void run(){
+                // one event count over all the input files, as in the serial decoder
+                int index = 0;
+                try {
+                    for(String inputFile : inputList){
+                        if(nevents>0&&index>=nevents) break;
+                        EvioSource reader = new EvioSource();
+                        reader.setZeroCopy(zeroCopy);
+                        reader.open(inputFile);
+                        try {
+                            while(reader.hasEvent()==true&&(nevents<=0||index<nevents)){
+                                EvioDataEvent event = (EvioDataEvent) reader.getNextEvent();
+                                inflight.acquire();
+                                inputQueue.put(new EventSlot(index, event, null));
+                                index++;
+                            }
+                        } finally {
+                            reader.close();
+                        }
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (Throwable ex) {
+                    abortDecoding(failure, ex, pipeline);
+                } finally {
+                    for(int i = 0; i < nthreads; i++){
+                        try {
+                            inputQueue.put(EventSlot.END);
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }
+            }
+        },"CLASDecoder-reader");
+        
+        List<Thread> workers = new ArrayList<Thread>();
+        for(int i = 0; i < nthreads; i++){
+            final CLASDecoder decoder = decoders.get(i);
+            workers.add(new Thread(new Runnable(){
+                @Override
+                public void run(){
+                    try {
+                        while(true){
+                            EventSlot slot = inputQueue.take();
+                            if(slot==EventSlot.END) break;
+                            DataEvent decoded = null;
+                            try {
+                                decoded = decoder.getDataEvent(slot.raw);
+                                DataBank   header = decoder.createHeaderBank(decoded, nrun, slot.index, torus, solenoid);
+                                DataBank   trigger = decoder.createTriggerBank(decoded);
+                                decoded.appendBanks(header);
+                                decoded.appendBanks(trigger);
+                            } catch (Exception e) {
+                                decoded = null;
+                                // the slot is still passed on, so that the writer does not wait for it
+                                System.out.println(">>>> error : decoding event " + slot.index);
+                                e.printStackTrace();
+                            }
+                            outputQueue.put(new EventSlot(slot.index, null, decoded));
+                        }
+                        outputQueue.put(EventSlot.END);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    } catch (Throwable ex) {
+                        abortDecoding(failure, ex, pipeline);
+                    }
+                }
+            },"CLASDecoder-worker-" + i));
+        }
+        
+        Thread writerThread = new Thread(new Runnable(){
+            @Override
+            public void run(){
+                Map<Integer,EventSlot> pending = new HashMap<Integer,EventSlot>();
+                ProgressPrintout  progress = new ProgressPrintout();
+                int nextIndex = 0;
+                int finished  = 0;
+                try {
+                    while(finished<nthreads){
+                        EventSlot slot = outputQueue.take();
+                        if(slot==EventSlot.END){
+                            finished++;
+                            continue;
+                        }
+                        pending.put(slot.index, slot);
+                        while(pending.containsKey(nextIndex)==true){
+                            DataEvent decoded = pending.remove(nextIndex).decoded;
+                            if(decoded!=null){
+                                writer.writeEvent(decoded);
+                                written[0]++;
+                            }
+                            inflight.release();
+                            progress.updateStatus();
+                            nextIndex++;
+                        }
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (Throwable ex) {
+                    abortDecoding(failure, ex, pipeline);
+                }
+            }
+        },"CLASDecoder-writer");
+        
+        pipeline.add(readerThread);
+        pipeline.addAll(workers);
+        pipeline.add(writerThread);
+        readerThread.start();
+        for(Thread worker : workers) worker.start();
+        writerThread.start();
+        try {
+            readerThread.join();
+            for(Thread worker : workers) worker.join();
+            writerThread.join();
+        } catch (InterruptedException ex) {
+            Logger.getLogger(CLASDecoder.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        if(failure.get()!=null){
+            throw new RuntimeException(">>>> error : decoding stopped after "
+                    + written[0] + " events", failure.get());
+        }
+        return written[0];
+    }
+    
+    /**
+     * records the first error of the parallel decoder and interrupts the
+     * other threads, so that none of them waits on a queue that is no
+     * longer served.
+     */
+    private static void abortDecoding(AtomicReference<Throwable> failure, Throwable ex, List<Thread> pipeline){
+        if(failure.compareAndSet(null, ex)==true){
+            System.out.println(">>>> error : in thread "
+                    + Thread.currentThread().getName() + " : " + ex.getMessage());
+        }
+        for(Thread thread : pipeline){
+            if(thread!=Thread.currentThread()) thread.interrupt();
+        }
+    }
+    
+    /**
+     * decodes the same events with 1 to maxThreads threads, overwriting the
+     * output file each time, and prints the throughput and the speedup
+     * relative to one thread.
+     */
+    public static void scalingReport(List<String> inputList, String outputFile, int recordsize, int compression,
+            int maxThreads, boolean developmentMode, int debug, int nrun, float torus, float solenoid, int nevents){
+        double[] rate = new double[maxThreads+1];
+        long[]   counts = new long[maxThreads+1];
+        double[] times = new double[maxThreads+1];
+        for(int nthreads = 1; nthreads <= maxThreads; nthreads++){
+            HipoDataSync writer = new HipoDataSync(recordsize*1024*1024);
+            writer.setCompressionType(compression);
+            writer.open(outputFile);
+            long start = System.nanoTime();
+            counts[nthreads] = CLASDecoder.decodeParallel(inputList, writer, nthreads, developmentMode, debug,
+                    nrun, torus, solenoid, nevents);
+            writer.close();
+            times[nthreads] = (System.nanoTime()-start)*1.0e-9;
+            rate[nthreads]  = counts[nthreads]/times[nthreads];
+        }
+        System.out.println("\n decoder scaling report");
+        System.out.println(String.format(" %8s %10s %10s %12s %8s %10s", "threads","events","time (s)","events/sec","speedup","efficiency"));
+        for(int nthreads = 1; nthreads <= maxThreads; nthreads++){
+            double speedup = rate[nthreads]/rate[1];
+            System.out.println(String.format(" %8d %10d %10.2f %12.1f %8.2f %10.2f",
+                    nthreads, counts[nthreads], times[nthreads], rate[nthreads], speedup, speedup/nthreads));
+        }
+    }
+    
+    /**
+     * reads and decodes the EVIO files, once copying each raw event out of
+     * the memory mapped file and once decoding the events in place, and
+     * prints the decoding rate of both. Nothing is written.
+     */
+    public static void zeroCopyReport(List<String> inputList, boolean developmentMode, int debug, int nevents){
+        CLASDecoder decoder = new CLASDecoder(developmentMode);
+        decoder.setDebugMode(debug);
+        double[] rate  = new double[2];
+        long[]   count = new long[2];
+        // the first pass warms up the JIT and the file cache
+        for(int pass = 0; pass < 3; pass++){
+            boolean zeroCopy = pass%2==0;
+            long start = System.nanoTime();
+            long counter = 0;
+            for(String inputFile : inputList){
+                if(nevents>0&&counter>=nevents) break;
+                EvioSource reader = new EvioSource();
+                reader.setZeroCopy(zeroCopy);
+                reader.open(inputFile);
+                while(reader.hasEvent()==true&&(nevents<=0||counter<nevents)){
+                    EvioDataEvent event = (EvioDataEvent) reader.getNextEvent();
+                    decoder.getDataEvent(event);
+                    counter++;
+                }
+                reader.close();
+            }
+            double time = (System.nanoTime()-start)*1.0e-9;
+            if(pass>0){
+                rate[zeroCopy ? 1 : 0]  = counter/time;
+                count[zeroCopy ? 1 : 0] = counter;
+            }
+        }
+        System.out.println("\n decoder zero-copy report");
+        System.out.println(String.format(" %10s %10s %12s", "mode","events","events/sec"));
+        System.out.println(String.format(" %10s %10d %12.1f", "copy", count[0], rate[0]));
+        System.out.println(String.format(" %10s %10d %12.1f", "zero-copy", count[1], rate[1]));
+        System.out.println(String.format(" speedup : %.3f", rate[1]/rate[0]));
+    }
+    
+    /**
+     * raw or decoded event with its position in the input, used to pass
+     * events between the stages of the parallel decoder.
+     */
+    private static class EventSlot {
+        
+        static final EventSlot END = new EventSlot(-1, null, null);
+        
+        final int            index;
+        final EvioDataEvent  raw;
+        final DataEvent      decoded;
+        
+        EventSlot(int index, EvioDataEvent raw, DataEvent decoded){
+            this.index   = index;
+            this.raw     = raw;
+            this.decoded = decoded;
+        }
+    }
+    
     public static void main(String[] args){
         
         OptionParser parser = new OptionParser("decoder");
@@ -484,12 +784,17 @@ public class CLASDecoder {
         parser.addOption("-d", "0","debug mode, set >0 for more verbose output");
         parser.addOption("-m", "run","translation tables source (use -m devel for development tables)");
         parser.addOption("-b", "16","record buffer size in MB");
+        parser.addOption("-a", "0","asynchronous output, maximum number of events waiting to be written (0 - synchronous)");
         parser.addRequired("-o","output.hipo");
         
         
         parser.addOption("-r", "-1","run number in the header bank (-1 means use CODA run)");
         parser.addOption("-t", "-0.5","torus current in the header bank");
         parser.addOption("-s", "0.5","solenoid current in the header bank");
+        parser.addOption("-j", "1","number of decoding threads");
+        parser.addOption("-scaling", "0","decode with 1 to N threads and print a throughput report (0 - off)");
+        parser.addOption("-zc", "0","read the raw events without copying them [0 - no, 1 - yes]");
+        parser.addOption("-zcreport", "0","decode with and without copy of the raw events and print a throughput report (0 - off)");
         
         parser.parse(args);
         
@@ -521,16 +826,46 @@ public class CLASDecoder {
             int compression = parser.getOption("-c").intValue();
             int  recordsize = parser.getOption("-b").intValue();
             int debug = parser.getOption("-d").intValue();            
+            int nthreads = parser.getOption("-j").intValue();
+            int scaling  = parser.getOption("-scaling").intValue();
+            boolean zeroCopy = parser.getOption("-zc").intValue()>0;
+            
+            if(parser.getOption("-zcreport").intValue()>0){
+                CLASDecoder.zeroCopyReport(inputList, developmentMode, debug, parser.getOption("-n").intValue());
+                return;
+            }
+            
+            if(scaling>0){
+                CLASDecoder.scalingReport(inputList, outputFile, recordsize, compression, scaling,
+                        developmentMode, debug, parser.getOption("-r").intValue(),
+                        (float) parser.getOption("-t").doubleValue(), (float) parser.getOption("-s").doubleValue(),
+                        parser.getOption("-n").intValue());
+                return;
+            }
+            
+            if(nthreads>1){
+                HipoDataSync writer = new HipoDataSync(recordsize*1024*1024);
+                writer.setCompressionType(compression);
+                writer.setAsync(parser.getOption("-a").intValue());
+                writer.open(outputFile);
+                long start = System.nanoTime();
+                long nwritten = CLASDecoder.decodeParallel(inputList, writer, nthreads, developmentMode, debug,
+                        parser.getOption("-r").intValue(), (float) parser.getOption("-t").doubleValue(),
+                        (float) parser.getOption("-s").doubleValue(), parser.getOption("-n").intValue(), zeroCopy);
+                writer.close();
+                double time = (System.nanoTime()-start)*1.0e-9;
+                System.out.println(String.format(" decoded %d events with %d threads in %.2f sec (%.1f events/sec)",
+                        nwritten, nthreads, time, nwritten/time));
+                return;
+            }
             
             CLASDecoder decoder = new CLASDecoder(developmentMode);
             
             decoder.setDebugMode(debug);
             
-            //HipoDataSync writer = new HipoDataSync();
-            System.out.println(" OUTPUT WRITER CHANGED TO JNP HIPO");
-            HipoWriter writer = new HipoWriter(recordsize*1024*1024);
+            HipoDataSync writer = new HipoDataSync(recordsize*1024*1024);
             writer.setCompressionType(compression);
-            writer.appendSchemaFactoryFromDirectory("CLAS12DIR", "etc/bankdefs/hipo");
+            writer.setAsync(parser.getOption("-a").intValue());
             int nrun = parser.getOption("-r").intValue();
             double torus = parser.getOption("-t").doubleValue();
             double solenoid = parser.getOption("-s").doubleValue();
@@ -547,7 +882,9 @@ public class CLASDecoder {
             }
             
             for(String inputFile : inputList){
+                if(nevents>0&&counter>=nevents) break;
                 EvioSource reader = new EvioSource();
+                reader.setZeroCopy(zeroCopy);
                 reader.open(inputFile);
                 while(reader.hasEvent()==true){
                     EvioDataEvent event = (EvioDataEvent) reader.getNextEvent();
@@ -557,8 +894,7 @@ public class CLASDecoder {
                     decodedEvent.appendBanks(header);
                     decodedEvent.appendBanks(trigger);
 
-                    HipoDataEvent dhe = (HipoDataEvent) decodedEvent;
-                    writer.writeEvent(dhe.getHipoEvent());
+                    writer.writeEvent(decodedEvent);
                     
                     counter++;
                     progress.updateStatus();
@@ -38,6 +38,17 @@ public class DetectorEventDecoder {
     
     private  Boolean          useExtendedFitter   = false;
     
+    // per-run flat indices over the translation and fitter tables
+    private  int               indexRunNumber     = -1;
+    private  TranslationIndex  translationIndex   = null;
+    private  TranslationIndex  fitterIndex        = null;
+    private  DetectorType[]    typesTrans         = null;
+    private  DetectorType[]    typesFitter        = null;
+    private  double[][]        mvtConfig          = null;
+    
+    private static final int SECTOR = 0, LAYER = 1, COMPONENT = 2, ORDER = 3;
+    private static final int NSA = 0, NSB = 1, TET = 2, PEDESTAL = 3;
+    
     
     
     public DetectorEventDecoder(boolean development){
@@ -105,6 +116,40 @@ public class DetectorEventDecoder {
         });
         fitterManager.init(keysFitter, tablesFitter);
     }
+    /**
+     * (re)builds the flat crate/slot/channel indices of the translation and
+     * fitter tables when the run number changed since the last build.
+     */
+    private void updateIndex(){
+        if(translationIndex!=null && indexRunNumber==runNumber) return;
+        
+        translationIndex = new TranslationIndex("sector","layer","component","order");
+        typesTrans = new DetectorType[keysTrans.size()];
+        for(int t = 0; t < keysTrans.size(); t++){
+            typesTrans[t] = DetectorType.getType(keysTrans.get(t));
+            translationIndex.add(t, translationManager.getConstants(runNumber, keysTrans.get(t)));
+        }
+        
+        fitterIndex = new TranslationIndex("nsa","nsb","tet","pedestal");
+        typesFitter = new DetectorType[keysFitter.size()];
+        mvtConfig   = new double[keysFitter.size()][];
+        for(int t = 0; t < keysFitter.size(); t++){
+            String table = keysFitter.get(t);
+            IndexedTable daq = fitterManager.getConstants(runNumber, table);
+            typesFitter[t] = DetectorType.getType(table);
+            if(table.equals("BMT")||table.equals("FMT")||table.equals("FTTRK")){
+                mvtConfig[t] = new double[]{
+                    (short) daq.getDoubleValue("adc_offset", 0, 0, 0),
+                    (byte) daq.getDoubleValue("dream_clock", 0, 0, 0),
+                    (byte) daq.getDoubleValue("sampling_time", 0, 0, 0),
+                    daq.getIntValue("sparse", 0, 0 ,0)
+                };
+            }
+            fitterIndex.add(t, daq);
+        }
+        indexRunNumber = runNumber;
+    }
+    
     /**
      * Set the flag to use extended fitter instead of basic fitter
      * which simply integrates over given bins inside of the given
@@ -122,6 +167,8 @@ public class DetectorEventDecoder {
      */
     public void translate(List<DetectorDataDgtz>  detectorData){
         
+        this.updateIndex();
+        
         for(DetectorDataDgtz data : detectorData){
             
             int crate    = data.getDescriptor().getCrate();
@@ -131,31 +178,25 @@ public class DetectorEventDecoder {
 	    //System.out.println(" MVT " + crate + " " + slot + 
 	    //  "  " + channel);
 	// }
-            boolean hasBeenAssigned = false;
             
-            for(String table : keysTrans){
-                IndexedTable  tt = translationManager.getConstants(runNumber, table);
-                DetectorType  type = DetectorType.getType(table);
-
-                if(tt.hasEntry(crate,slot,channel)==true){
-                    int sector    = tt.getIntValue("sector", crate,slot,channel);
-                    int layer     = tt.getIntValue("layer", crate,slot,channel);
-                    int component = tt.getIntValue("component", crate,slot,channel);
-                    int order     = tt.getIntValue("order", crate,slot,channel);
-                    
-                    /*if(crate>60&&crate<64){
-                        System.out.println(" SVT " + sector + " " + layer + 
-                                "  " + component);
-                    }*/
-                    data.getDescriptor().setSectorLayerComponent(sector, layer, component);
-                    data.getDescriptor().setOrder(order);
-                    data.getDescriptor().setType(type);
-                    for(int i = 0; i < data.getADCSize(); i++) {
-                        data.getADCData(i).setOrder(order);
-                    }
-                    for(int i = 0; i < data.getTDCSize(); i++) {
-                        data.getTDCData(i).setOrder(order);
-                    }
+            // rows are chained in the order of keysTrans, the last table
+            // containing the channel wins
+            for(int row = translationIndex.getRow(crate, slot, channel); row>=0;
+                    row = translationIndex.getNext(row)){
+                int sector    = translationIndex.getValue(row, SECTOR);
+                int layer     = translationIndex.getValue(row, LAYER);
+                int component = translationIndex.getValue(row, COMPONENT);
+                int order     = translationIndex.getValue(row, ORDER);
+                DetectorType  type = typesTrans[translationIndex.getTable(row)];
+                
+                data.getDescriptor().setSectorLayerComponent(sector, layer, component);
+                data.getDescriptor().setOrder(order);
+                data.getDescriptor().setType(type);
+                for(int i = 0; i < data.getADCSize(); i++) {
+                    data.getADCData(i).setOrder(order);
+                }
+                for(int i = 0; i < data.getTDCSize(); i++) {
+                    data.getTDCData(i).setOrder(order);
                 }
             }
         }
@@ -163,22 +204,23 @@ public class DetectorEventDecoder {
     }
     
         public void fitPulses(List<DetectorDataDgtz>  detectorData){
+        this.updateIndex();
         for(DetectorDataDgtz data : detectorData){            
             int crate    = data.getDescriptor().getCrate();
             int slot     = data.getDescriptor().getSlot();
             int channel  = data.getDescriptor().getChannel();
+            DetectorType dataType = data.getDescriptor().getType();
             //System.out.println(" looking for " + crate + "  " 
             //       + slot + " " + channel);
-            for(String table : keysFitter){
+            int row = fitterIndex.getRow(crate, slot, channel);
+            for(int t = 0; t < typesFitter.length; t++){
                 //custom MM fitter
-            	if( ( (table.equals("BMT"))&&(data.getDescriptor().getType().getName().equals("BMT")) ) 
-                 || ( (table.equals("FMT"))&&(data.getDescriptor().getType().getName().equals("FMT")) ) 
-                 || ( (table.equals("FTTRK"))&&(data.getDescriptor().getType().getName().equals("FTTRK")) ) ){
-                    IndexedTable daq = fitterManager.getConstants(runNumber, table);
-                    short adcOffset = (short) daq.getDoubleValue("adc_offset", 0, 0, 0);
-                    double fineTimeStampResolution = (byte) daq.getDoubleValue("dream_clock", 0, 0, 0);
-                    double samplingTime = (byte) daq.getDoubleValue("sampling_time", 0, 0, 0);
-                    int sparseSample = daq.getIntValue("sparse", 0, 0 ,0);
+            	if( mvtConfig[t]!=null && dataType==typesFitter[t] ){
+                    double[] config = mvtConfig[t];
+                    short adcOffset = (short) config[0];
+                    double fineTimeStampResolution = config[1];
+                    double samplingTime = config[2];
+                    int sparseSample = (int) config[3];
                     if (data.getADCSize() > 0) {
                         ADCData adc = data.getADCData(0);
                         mvtFitter.fit(adcOffset, fineTimeStampResolution, samplingTime, adc.getPulseArray(), adc.getTimeStamp(), sparseSample);
@@ -188,18 +230,18 @@ public class DetectorEventDecoder {
                         adc.setTimeStamp(mvtFitter.timestamp);
                     }
                 } else {
-                    IndexedTable  daq = fitterManager.getConstants(runNumber, table);
-                    DetectorType  type = DetectorType.getType(table);
-                    if(daq.hasEntry(crate,slot,channel)==true){                    
+                    // rows of the channel are chained in table order
+                    while(row>=0 && fitterIndex.getTable(row)<t) row = fitterIndex.getNext(row);
+                    if(row>=0 && fitterIndex.getTable(row)==t){                    
                         //basicFitter.setPulse(0, 4).setPedestal(35, 70);
                         //for(int i = 0; i < data.getADCSize(); i++){
                         //    basicFitter.fit(data.getADCData(i));
                         //}
-                        int nsa = daq.getIntValue("nsa", crate,slot,channel);
-                        int nsb = daq.getIntValue("nsb", crate,slot,channel);
-                        int tet = daq.getIntValue("tet", crate,slot,channel);
+                        int nsa = fitterIndex.getValue(row, NSA);
+                        int nsb = fitterIndex.getValue(row, NSB);
+                        int tet = fitterIndex.getValue(row, TET);
                         int ped = 0;
-                        if(table.equals("RF")&&data.getDescriptor().getType().getName().equals("RF")) ped = daq.getIntValue("pedestal", crate,slot,channel);
+                        if(typesFitter[t]==DetectorType.RF&&dataType==DetectorType.RF) ped = fitterIndex.getValue(row, PEDESTAL);
                         if(data.getADCSize()>0){
                             for(int i = 0; i < data.getADCSize(); i++){
                                 ADCData adc = data.getADCData(i);
@@ -0,0 +1,140 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.jlab.detector.decode;
+
+import java.util.Arrays;
+import java.util.Map;
+import org.jlab.utils.groups.IndexedList;
+import org.jlab.utils.groups.IndexedTable;
+
+/**
+ * Flat crate/slot/channel index over a list of DAQ tables (translation
+ * or fitter tables). The integer columns requested at construction are
+ * copied out of every table into one array, and each crate/slot/channel
+ * points to its first row with a dense array lookup. When a channel
+ * appears in more than one table, the rows are chained in the order the
+ * tables were added, so callers see the same matches, in the same order,
+ * as when looping over the tables themselves.
+ *
+ * The index is built once per run and only read afterwards.
+ */
+public class TranslationIndex {
+
+    private final String[]  columns;
+
+    // [crate][slot][channel] -> row + 1, 0 when the channel is not in any table
+    private int[][][]  channels  = new int[0][][];
+
+    private int[]      rowTable  = new int[64];
+    private int[]      rowNext   = new int[64];
+    private int[]      rowValues;
+    private int        rows      = 0;
+
+    /**
+     * @param columns names of the integer columns to copy from the tables
+     */
+    public TranslationIndex(String... columns){
+        this.columns   = columns;
+        this.rowValues = new int[64*columns.length];
+    }
+
+    /**
+     * copies all entries of the table into the index. Entries are chained
+     * after the ones of tables added before.
+     * @param table index of the table, returned by getTable()
+     * @param tt the table, indexed by crate, slot and channel
+     */
+    public void add(int table, IndexedTable tt){
+        for(Long hash : ((Map<Long,?>) tt.getList().getMap()).keySet()){
+            int crate   = IndexedList.IndexGenerator.getIndex(hash, 0);
+            int slot    = IndexedList.IndexGenerator.getIndex(hash, 1);
+            int channel = IndexedList.IndexGenerator.getIndex(hash, 2);
+
+            int row = this.newRow(table);
+            for(int c = 0; c < columns.length; c++){
+                rowValues[row*columns.length+c] = tt.getIntValue(columns[c], crate, slot, channel);
+            }
+
+            int[] chan = this.channelArray(crate, slot, channel);
+            if(chan[channel]==0){
+                chan[channel] = row + 1;
+            } else {
+                int last = chan[channel] - 1;
+                while(rowNext[last]>=0) last = rowNext[last];
+                rowNext[last] = row;
+            }
+        }
+    }
+
+    private int newRow(int table){
+        if(rows==rowTable.length){
+            rowTable  = Arrays.copyOf(rowTable, 2*rows);
+            rowNext   = Arrays.copyOf(rowNext, 2*rows);
+            rowValues = Arrays.copyOf(rowValues, 2*rows*columns.length);
+        }
+        rowTable[rows] = table;
+        rowNext[rows]  = -1;
+        return rows++;
+    }
+
+    private int[] channelArray(int crate, int slot, int channel){
+        if(crate>=channels.length) channels = Arrays.copyOf(channels, crate+1);
+        if(channels[crate]==null) channels[crate] = new int[slot+1][];
+        if(slot>=channels[crate].length) channels[crate] = Arrays.copyOf(channels[crate], slot+1);
+        int[] chan = channels[crate][slot];
+        if(chan==null){
+            chan = new int[channel+1];
+        } else if(channel>=chan.length){
+            chan = Arrays.copyOf(chan, channel+1);
+        }
+        channels[crate][slot] = chan;
+        return chan;
+    }
+
+    /**
+     * @param crate
+     * @param slot
+     * @param channel
+     * @return the first row for the channel, or -1 if it is in none of the tables
+     */
+    public int getRow(int crate, int slot, int channel){
+        if(crate<0||crate>=channels.length) return -1;
+        int[][] slots = channels[crate];
+        if(slots==null||slot<0||slot>=slots.length) return -1;
+        int[] chan = slots[slot];
+        if(chan==null||channel<0||channel>=chan.length) return -1;
+        return chan[channel] - 1;
+    }
+
+    /**
+     * @param row
+     * @return the next row for the same channel (from a later table), or -1
+     */
+    public int getNext(int row){
+        return rowNext[row];
+    }
+
+    /**
+     * @param row
+     * @return the index of the table the row was read from
+     */
+    public int getTable(int row){
+        return rowTable[row];
+    }
+
+    /**
+     * @param row
+     * @param column index of the column in the list given at construction
+     * @return the value
+     */
+    public int getValue(int row, int column){
+        return rowValues[row*columns.length+column];
+    }
+
+    public int getRowCount(){
+        return rows;
+    }
+}
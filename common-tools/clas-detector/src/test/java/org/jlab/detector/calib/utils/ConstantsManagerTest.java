@@ -0,0 +1,163 @@
+package org.jlab.detector.calib.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import org.jlab.utils.groups.IndexedTable;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests of the constants snapshot and of the run cache of ConstantsManager.
+ * The snapshot directory is filled by hand, so that no database is needed;
+ * testDatabase() reads from a local SQLite CCDB file when one is given with
+ * -Dccdb.sqlite=/path/to/ccdb.sqlite.
+ */
+public class ConstantsManagerTest {
+
+    private static final String TABLE = "/test/fadc/ec";
+    private static final String DATABASE = "sqlite:////nonexistent/ccdb.sqlite";
+
+    private static IndexedTable createTable(int run){
+        IndexedTable table = new IndexedTable(3, "nsa/I:nsb/I:pedestal/D");
+        for(int sector = 1; sector <= 6; sector++){
+            for(int channel = 0; channel < 16; channel++){
+                table.addEntry(sector, 3, channel);
+                table.setIntValue(run, "nsa", sector, 3, channel);
+                table.setIntValue(channel, "nsb", sector, 3, channel);
+                table.setDoubleValue(0.5*sector + channel, "pedestal", sector, 3, channel);
+            }
+        }
+        return table;
+    }
+
+    private static File createDirectory() throws IOException {
+        File dir = Files.createTempDirectory("constants").toFile();
+        dir.deleteOnExit();
+        return dir;
+    }
+
+    @Test
+    public void testSnapshot() throws IOException {
+        File dir = createDirectory();
+        IndexedTable table = createTable(11);
+        File file = new File(dir, "table.bin");
+        ConstantsSnapshot.write(file, table);
+        IndexedTable copy = ConstantsSnapshot.read(file);
+        file.delete();
+
+        assertEquals(table.getRowCount(), copy.getRowCount());
+        assertEquals(table.getColumnCount(), copy.getColumnCount());
+        for(int c = 0; c < table.getColumnCount(); c++){
+            assertEquals(table.getColumnName(c), copy.getColumnName(c));
+            assertEquals(table.getColumnType(c), copy.getColumnType(c));
+        }
+        for(int sector = 1; sector <= 6; sector++){
+            for(int channel = 0; channel < 16; channel++){
+                assertEquals(11, copy.getIntValue("nsa", sector, 3, channel));
+                assertEquals(channel, copy.getIntValue("nsb", sector, 3, channel));
+                assertEquals(table.getDoubleValue("pedestal", sector, 3, channel),
+                        copy.getDoubleValue("pedestal", sector, 3, channel), 0.0);
+            }
+        }
+    }
+
+    private static ConstantsManager createManager(File dir, int runs) throws IOException {
+        ConstantsSnapshot snapshot = new ConstantsSnapshot(dir.getPath());
+        for(int run = 1; run <= runs; run++){
+            snapshot.write(DATABASE, "default", "", run, TABLE, createTable(run));
+        }
+        ConstantsManager manager = new ConstantsManager("default");
+        manager.setConnection(DATABASE);
+        manager.setSnapshotDirectory(dir.getPath());
+        manager.init(Arrays.asList(new String[]{TABLE}));
+        return manager;
+    }
+
+    @Test
+    public void testSnapshotDatabase() throws IOException {
+        File dir = createDirectory();
+        ConstantsSnapshot snapshot = new ConstantsSnapshot(dir.getPath());
+        String other = "mysql://clas12reader@clasdb.jlab.org/clas12";
+        snapshot.write(DATABASE, "default", "", 11, TABLE, createTable(11));
+
+        assertNotEquals(snapshot.getFile(DATABASE, "default", "", 11, TABLE),
+                snapshot.getFile(other, "default", "", 11, TABLE));
+        assertNotNull(snapshot.read(DATABASE, "default", "", 11, TABLE));
+        assertNull(snapshot.read(other, "default", "", 11, TABLE));
+        assertNull(snapshot.read(DATABASE, "rga_fall2018", "", 11, TABLE));
+        assertNull(snapshot.read(DATABASE, "default", "", 12, TABLE));
+    }
+
+    @Test
+    public void testRunCache() throws IOException {
+        ConstantsManager manager = createManager(createDirectory(), 4);
+        manager.setMaxRuns(2);
+
+        for(int run = 1; run <= 4; run++){
+            assertEquals(run, manager.getConstants(run, TABLE).getIntValue("nsa", 2, 3, 5));
+        }
+        assertFalse(manager.hasRun(1));
+        assertFalse(manager.hasRun(2));
+        assertTrue(manager.hasRun(3));
+        assertTrue(manager.hasRun(4));
+
+        // the most recently used run is kept
+        manager.getConstants(3, TABLE);
+        manager.prefetch(1);
+        assertTrue(manager.hasRun(1));
+        assertTrue(manager.hasRun(3));
+        assertFalse(manager.hasRun(4));
+        assertEquals(1, manager.getConstants(1, TABLE).getIntValue("nsa", 2, 3, 5));
+        assertEquals(1, manager.getImmutableConstants(1, TABLE).getIntValue("nsa", 2, 3, 5));
+    }
+
+    @Test(timeout = 60000)
+    public void testLoadingRunKept() throws IOException {
+        ConstantsManager manager = createManager(createDirectory(), 3);
+        manager.setMaxRuns(1);
+        // the prefetch of run 1 waits for the lock on the manager, taken by
+        // the loads, while this thread holds it and loads other runs
+        synchronized(manager){
+            manager.prefetch(1);
+            assertEquals(2, manager.getConstants(2, TABLE).getIntValue("nsa", 2, 3, 5));
+            assertEquals(3, manager.getConstants(3, TABLE).getIntValue("nsa", 2, 3, 5));
+            assertTrue(manager.hasRun(1));
+            assertFalse(manager.hasRun(2));
+            assertTrue(manager.hasRun(3));
+        }
+        assertEquals(1, manager.getConstants(1, TABLE).getIntValue("nsa", 2, 3, 5));
+        // once loaded, the runs are dropped again down to the limit
+        manager.getConstants(2, TABLE);
+        assertFalse(manager.hasRun(1));
+        assertFalse(manager.hasRun(3));
+        assertTrue(manager.hasRun(2));
+    }
+
+    @Test
+    public void testDatabase() throws IOException {
+        String sqlite = System.getProperty("ccdb.sqlite");
+        assumeTrue(sqlite!=null&&new File(sqlite).isFile());
+
+        File dir = createDirectory();
+        ConstantsManager manager = new ConstantsManager("default");
+        manager.setConnection("sqlite:///" + new File(sqlite).getAbsolutePath());
+        manager.setSnapshotDirectory(dir.getPath());
+        manager.init(Arrays.asList(new String[]{"/daq/fadc/ec"}));
+        IndexedTable table = manager.getConstants(11, "/daq/fadc/ec");
+        assertNotNull(table);
+
+        // a second manager reads the same table from the snapshot of this database
+        String address = "sqlite:///" + new File(sqlite).getAbsolutePath();
+        ConstantsSnapshot snapshot = new ConstantsSnapshot(dir.getPath());
+        assertTrue(snapshot.getFile(address, "default", "", 11, "/daq/fadc/ec").isFile());
+        ConstantsManager cached = new ConstantsManager("default");
+        cached.setConnection(address);
+        cached.setSnapshotDirectory(dir.getPath());
+        cached.init(Arrays.asList(new String[]{"/daq/fadc/ec"}));
+        assertEquals(table.getRowCount(), cached.getConstants(11, "/daq/fadc/ec").getRowCount());
+        assertNull(snapshot.read(DATABASE, "default", "", 11, "/daq/fadc/ec"));
+    }
+}
@@ -0,0 +1,59 @@
+package org.jlab.detector.decode;
+
+import org.jlab.utils.groups.IndexedTable;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that TranslationIndex returns, for every channel, the same
+ * entries as looking the channel up in each table in turn.
+ */
+public class TranslationIndexTest {
+
+    private static IndexedTable table(int[][] rows) {
+        IndexedTable tt = new IndexedTable(3, "sector/I:layer/I:component/I:order/I");
+        for (int[] r : rows) {
+            tt.addEntry(r[0], r[1], r[2]);
+            tt.setIntValue(r[3], "sector", r[0], r[1], r[2]);
+            tt.setIntValue(r[4], "layer", r[0], r[1], r[2]);
+            tt.setIntValue(r[5], "component", r[0], r[1], r[2]);
+            tt.setIntValue(r[6], "order", r[0], r[1], r[2]);
+        }
+        return tt;
+    }
+
+    @Test
+    public void testTranslationIndex() {
+        IndexedTable[] tables = {
+            table(new int[][]{{1, 3, 0, 1, 1, 1, 0}, {1, 3, 15, 1, 1, 16, 0}, {7, 10, 4, 2, 5, 9, 2}}),
+            table(new int[][]{{7, 10, 4, 6, 36, 112, 1}, {70, 19, 255, 3, 2, 1, 0}})
+        };
+        TranslationIndex index = new TranslationIndex("sector", "layer", "component", "order");
+        for (int t = 0; t < tables.length; t++) {
+            index.add(t, tables[t]);
+        }
+        assertEquals(5, index.getRowCount());
+
+        for (int crate = 0; crate < 80; crate++) {
+            for (int slot = 0; slot < 21; slot++) {
+                for (int channel = 0; channel < 260; channel++) {
+                    int row = index.getRow(crate, slot, channel);
+                    for (int t = 0; t < tables.length; t++) {
+                        if (tables[t].hasEntry(crate, slot, channel)) {
+                            assertTrue(row >= 0);
+                            assertEquals(t, index.getTable(row));
+                            assertEquals(tables[t].getIntValue("sector", crate, slot, channel), index.getValue(row, 0));
+                            assertEquals(tables[t].getIntValue("layer", crate, slot, channel), index.getValue(row, 1));
+                            assertEquals(tables[t].getIntValue("component", crate, slot, channel), index.getValue(row, 2));
+                            assertEquals(tables[t].getIntValue("order", crate, slot, channel), index.getValue(row, 3));
+                            row = index.getNext(row);
+                        }
+                    }
+                    assertEquals(-1, row);
+                }
+            }
+        }
+        assertEquals(-1, index.getRow(-1, 0, 0));
+        assertEquals(-1, index.getRow(1000, 0, 0));
+    }
+}
@@ -7,9 +7,7 @@ package org.jlab.eventmerger.bgmerger;
 
 import org.jlab.io.base.DataBank;
 import org.jlab.io.base.DataEvent;
-import org.jlab.io.hipo.HipoDataEvent;
 import org.jlab.io.hipo.HipoDataSync;
-import org.jlab.jnp.hipo.data.HipoEvent;
 /**
  *
  * @author ziegler
@@ -94,9 +92,7 @@ public class ADCTDCMerger {
         if(event.hasBank(TDCString)==true && bg.hasBank(TDCString)==false) {
             bank = event.getBank(TDCString);
             if(event.hasBank(TDCString)) { 
-                HipoDataEvent de = (HipoDataEvent) event;
-                HipoEvent dde = de.getHipoEvent();
-                dde.removeGroup(TDCString);
+                event.removeBank(TDCString);
             }
         }
         if(event.hasBank(TDCString)==false && bg.hasBank(TDCString)==true) {
@@ -136,10 +132,7 @@ public class ADCTDCMerger {
                 MgTDCs[4][TDCs[0].length+i] = BgTDCs[4][i];
             }
             if(event.hasBank(TDCString)) { 
-                HipoDataEvent de = (HipoDataEvent) event;
-                HipoEvent dde = de.getHipoEvent();
-                //HipoGroup group = dde.getGroup(TDCString);
-                dde.removeGroup(TDCString);
+                event.removeBank(TDCString);
             }
             bank = event.createBank(TDCString, TDCs[0].length+BgTDCs[0].length);
             for (int i = 0; i < TDCs[0].length; i++) {
@@ -168,9 +161,7 @@ public class ADCTDCMerger {
         if(event.hasBank(ADCString)==true && bg.hasBank(ADCString)==false) {
             bank = event.getBank(ADCString);
             if(event.hasBank(ADCString)) { 
-                HipoDataEvent de = (HipoDataEvent) event;
-                HipoEvent dde = de.getHipoEvent();
-                dde.removeGroup(ADCString);
+                event.removeBank(ADCString);
             }
         }
         if(event.hasBank(ADCString)==false && bg.hasBank(ADCString)==true) {
@@ -208,9 +199,7 @@ public class ADCTDCMerger {
             }
 
             if(event.hasBank(ADCString)) { 
-                    HipoDataEvent de = (HipoDataEvent) event;
-                    HipoEvent dde = de.getHipoEvent();
-                    dde.removeGroup(ADCString);
+                    event.removeBank(ADCString);
            }
 
             bank = event.createBank(ADCString, ADCs[0].length+BgADCs[0].length);
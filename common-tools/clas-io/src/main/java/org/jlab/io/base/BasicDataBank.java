@@ -532,6 +532,10 @@ public class BasicDataBank implements DataBank {
         return 0;
     }
 
+    public DataColumn getColumn(String path) {
+        return new DataColumn(this, path);
+    }
+
     public TableModel getTableModel(String mask) {
         
         String[] tokens = mask.split(":");
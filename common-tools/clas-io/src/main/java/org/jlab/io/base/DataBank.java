@@ -68,6 +68,16 @@ public interface DataBank {
     void setLong(String path, long[] arr);
     void setLong(String path, int row, long value);
     void appendLong(String path, long[] arr);
+    /**
+     * Returns a handle to the column with given name, to be used in
+     * loops over rows instead of the calls taking the column name.
+     * The handle is valid as long as the bank is not modified.
+     * @param path name of the column
+     * @return column handle
+     * @throws IllegalArgumentException if the bank has no such column
+     * (HIPO banks, the handle is bound to the column when it is created)
+     */
+    DataColumn getColumn(String path);
     /**
      * Returns the number of columns in the bank. columns are number of
      * variables.
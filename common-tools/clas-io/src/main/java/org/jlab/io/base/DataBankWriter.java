@@ -0,0 +1,151 @@
+package org.jlab.io.base;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Column layout of an output bank, built once (typically as a static
+ * field of the class writing the bank) and then used to fill the bank
+ * of each event through integer column slots:
+ * <pre>
+ *   static final DataBankWriter HITS = new DataBankWriter();
+ *   static final int HIT_ID   = HITS.column("id");
+ *   static final int HIT_DOCA = HITS.column("doca");
+ *   ...
+ *   DataBankWriter.Rows rows = HITS.create(event, "DC::hits", nhits);
+ *   rows.setShort(HIT_ID, i, (short) id);
+ *   rows.setFloat(HIT_DOCA, i, (float) doca);
+ *   event.appendBank(rows.getBank());
+ * </pre>
+ * The columns are resolved once per bank, the values are then written
+ * directly to the column handles without looking up the column name for
+ * every cell. The layout does not change once the columns are defined
+ * and can be shared by all threads, the Rows are per event.
+ */
+public class DataBankWriter {
+
+    private final List<String> columns = new ArrayList<String>();
+
+    /**
+     * Adds a column to the layout, to be called when the layout is built.
+     * @param name name of the column in the bank schema
+     * @return slot of the column, used in the Rows setters
+     */
+    public int column(String name) {
+        int slot = this.columns.indexOf(name);
+        if(slot<0){
+            this.columns.add(name);
+            slot = this.columns.size()-1;
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the name of the column in given slot.
+     * @param slot column slot
+     * @return column name
+     */
+    public String getColumnName(int slot) {
+        return this.columns.get(slot);
+    }
+
+    /**
+     * Creates the bank in the event and binds the columns of the layout.
+     * @param event event the bank is created for
+     * @param bankName name of the bank
+     * @param rows number of rows
+     * @return the rows to fill, or null if the bank could not be created
+     */
+    public Rows create(DataEvent event, String bankName, int rows) {
+        DataBank bank = event.createBank(bankName, rows);
+        if(bank==null) return null;
+        return new Rows(bank);
+    }
+
+    /**
+     * Bank of one event with the columns of the layout bound to it.
+     */
+    public class Rows {
+
+        private final DataBank     bank;
+        private final DataColumn[] handles;
+
+        Rows(DataBank bank) {
+            this.bank    = bank;
+            this.handles = new DataColumn[columns.size()];
+            DataDescriptor desc = bank.getDescriptor();
+            List<String> bankColumns = desc==null ? Arrays.asList(bank.getColumnList()) : null;
+            for(int i = 0; i < handles.length; i++){
+                // columns missing from the schema are left unbound
+                String name = columns.get(i);
+                if(desc==null ? bankColumns.contains(name) : desc.hasEntry(name)){
+                    handles[i] = bank.getColumn(name);
+                }
+            }
+        }
+
+        private DataColumn handle(int slot) {
+            DataColumn handle = this.handles[slot];
+            if(handle==null){
+                String bankName = bank.getDescriptor()==null ? "" : bank.getDescriptor().getName() + ".";
+                throw new IllegalArgumentException("[DataBankWriter] column not in the bank schema : "
+                        + bankName + getColumnName(slot) + ", check hasColumn() first");
+            }
+            return handle;
+        }
+
+        public DataBank getBank() {
+            return this.bank;
+        }
+
+        public int rows() {
+            return this.bank.rows();
+        }
+
+        /**
+         * Returns true if the column exists in the schema of the bank,
+         * used for columns that are not in every version of the schema.
+         * @param slot column slot
+         * @return true if the column can be filled
+         */
+        public boolean hasColumn(int slot) {
+            return this.handles[slot]!=null;
+        }
+
+        /**
+         * @param slot column slot
+         * @return the column handle, null if the column is not in the schema
+         */
+        public DataColumn getColumn(int slot) {
+            return this.handles[slot];
+        }
+
+        // the setters throw an IllegalArgumentException for a column that
+        // is not in the schema of the bank, see hasColumn()
+
+        public void setByte(int slot, int row, byte value) {
+            this.handle(slot).setByte(row, value);
+        }
+
+        public void setShort(int slot, int row, short value) {
+            this.handle(slot).setShort(row, value);
+        }
+
+        public void setInt(int slot, int row, int value) {
+            this.handle(slot).setInt(row, value);
+        }
+
+        public void setLong(int slot, int row, long value) {
+            this.handle(slot).setLong(row, value);
+        }
+
+        public void setFloat(int slot, int row, float value) {
+            this.handle(slot).setFloat(row, value);
+        }
+
+        public void setDouble(int slot, int row, double value) {
+            this.handle(slot).setDouble(row, value);
+        }
+    }
+}
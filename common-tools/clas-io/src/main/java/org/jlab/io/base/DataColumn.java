@@ -0,0 +1,74 @@
+package org.jlab.io.base;
+
+/**
+ * Handle to one column of a bank, resolved once with DataBank.getColumn()
+ * and then read or filled row by row without looking up the column by
+ * name again. This implementation simply forwards to the bank, the HIPO
+ * bank returns a handle bound to the column node.
+ */
+public class DataColumn {
+
+    private final DataBank bank;
+    private final String   name;
+
+    public DataColumn(DataBank bank, String name) {
+        this.bank = bank;
+        this.name = name;
+    }
+
+    /**
+     * Returns the name of the column.
+     * @return column name
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    public byte getByte(int row) {
+        return this.bank.getByte(this.name, row);
+    }
+
+    public short getShort(int row) {
+        return this.bank.getShort(this.name, row);
+    }
+
+    public int getInt(int row) {
+        return this.bank.getInt(this.name, row);
+    }
+
+    public long getLong(int row) {
+        return this.bank.getLong(this.name, row);
+    }
+
+    public float getFloat(int row) {
+        return this.bank.getFloat(this.name, row);
+    }
+
+    public double getDouble(int row) {
+        return this.bank.getDouble(this.name, row);
+    }
+
+    public void setByte(int row, byte value) {
+        this.bank.setByte(this.name, row, value);
+    }
+
+    public void setShort(int row, short value) {
+        this.bank.setShort(this.name, row, value);
+    }
+
+    public void setInt(int row, int value) {
+        this.bank.setInt(this.name, row, value);
+    }
+
+    public void setLong(int row, long value) {
+        this.bank.setLong(this.name, row, value);
+    }
+
+    public void setFloat(int row, float value) {
+        this.bank.setFloat(this.name, row, value);
+    }
+
+    public void setDouble(int row, double value) {
+        this.bank.setDouble(this.name, row, value);
+    }
+}
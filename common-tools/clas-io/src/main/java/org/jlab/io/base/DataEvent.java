@@ -17,6 +17,14 @@ public interface DataEvent {
     boolean  hasBank(String name);
     
     DataBank createBank(String bank_name, int rows);    
+    /**
+     * Returns the bank with given name. The HIPO event reads each bank once
+     * and returns the same instance until banks are appended or removed, so
+     * changes made to the returned bank are seen by the later calls; copy the
+     * values to modify them locally.
+     * @param bank_name name of the bank
+     * @return the bank, or null if the bank is not in the dictionary
+     */
     DataBank getBank(String bank_name);
     void     show();
     
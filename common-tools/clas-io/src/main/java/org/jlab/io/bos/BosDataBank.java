@@ -12,6 +12,7 @@ import java.util.Map;
 import javax.swing.table.TableModel;
 
 import org.jlab.io.base.DataBank;
+import org.jlab.io.base.DataColumn;
 import org.jlab.io.base.DataDescriptor;
 
 /**
@@ -227,6 +228,10 @@ public class BosDataBank implements DataBank {
             throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
         }
 
+	public DataColumn getColumn(String path) {
+		return new DataColumn(this, path);
+	}
+
 	public TableModel getTableModel(String mask) {
 		throw new UnsupportedOperationException("Not supported yet."); // To change body of generated methods, choose Tools | Templates.
 	}
@@ -72,9 +72,22 @@ public class EvioDataEvent implements DataEvent {
 	}
 
 	public EvioDataEvent(byte[] buffer, ByteOrder b_order, EvioDataDictionary dict) {
-		evioBuffer = ByteBuffer.wrap(buffer);
+		this(ByteBuffer.wrap(buffer), b_order, dict);
+	}
+
+	/**
+	 * Event on the data of the buffer, without copying it. The buffer can be
+	 * a slice of a memory mapped file, banks appended to the event are
+	 * written to a new buffer.
+	 * 
+	 * @param buffer event buffer, from its position to its limit
+	 * @param b_order byte order of the event
+	 * @param dict bank dictionary
+	 */
+	public EvioDataEvent(ByteBuffer buffer, ByteOrder b_order, EvioDataDictionary dict) {
+		evioBuffer = buffer.slice();
 		evioBuffer.order(b_order);
-		this.eventHandler = new EvioDataEventHandler(buffer, b_order);
+		this.eventHandler = new EvioDataEventHandler(evioBuffer, b_order);
 		/*
 		 * try { structure = new EvioCompactStructureHandler(evioBuffer,DataType.BANK); eventNodes = structure.getChildNodes(); } catch (EvioException ex) {
 		 * Logger.getLogger(EvioDataEvent.class.getName()).log(Level.SEVERE, null, ex); }
@@ -777,7 +790,18 @@ public class EvioDataEvent implements DataEvent {
 	}
 
 	public void copyEvent(EvioDataEvent event) {
-		byte[] eventBytes = event.getEventBuffer().array();
+		ByteBuffer buffer = event.getEventBuffer();
+		byte[] eventBytes;
+		if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.array().length == buffer.limit()) {
+			eventBytes = buffer.array();
+		} else {
+			// events read without copy are backed by the mapped file, or are
+			// a slice of a larger array
+			eventBytes = new byte[buffer.limit()];
+			ByteBuffer source = buffer.duplicate();
+			source.position(0);
+			source.get(eventBytes);
+		}
 		this.eventHandler = new EvioDataEventHandler(eventBytes, event.getByteOrder());
 	}
 
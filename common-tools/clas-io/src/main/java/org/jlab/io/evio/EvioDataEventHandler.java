@@ -28,7 +28,17 @@ public class EvioDataEventHandler {
     private List<EvioNode> eventNodes  = null;
    
     public EvioDataEventHandler(byte[] buffer, ByteOrder b_order){
-        evioBuffer = ByteBuffer.wrap(buffer);
+        this(ByteBuffer.wrap(buffer), b_order);
+    }
+    
+    /**
+     * Handler on the event in the buffer, without copying it. The buffer
+     * can be a slice of a memory mapped file.
+     * @param buffer event buffer, from its position to its limit
+     * @param b_order byte order of the event
+     */
+    public EvioDataEventHandler(ByteBuffer buffer, ByteOrder b_order){
+        evioBuffer = buffer.slice();
         evioBuffer.order(b_order);
          try {
             structure = new EvioCompactStructureHandler(evioBuffer,DataType.BANK);
@@ -23,6 +23,7 @@ public class EvioSource implements DataSource {
 	private int currentFileEntries;
 	private EvioDataDictionary dictionary = new EvioDataDictionary();
 	private String dictionaryPath = "some";
+	private boolean zeroCopy = false;
 
 	public EvioSource() {
 
@@ -90,6 +91,30 @@ public class EvioSource implements DataSource {
 		this.open(filename);
 	}
 
+	/**
+	 * Sets reading events without copying them. The events are then slices of
+	 * the memory mapped file, which stay valid while the source is open, and
+	 * getEventBuffer() of the events has no backing array.
+	 * 
+	 * @param flag true to read events without copy
+	 */
+	public void setZeroCopy(boolean flag) {
+		this.zeroCopy = flag;
+	}
+
+	public boolean isZeroCopy() {
+		return zeroCopy;
+	}
+
+	private EvioDataEvent createEvent(int index) throws EvioException {
+		if (zeroCopy == true) {
+			ByteBuffer evioBuffer = evioReader.getEventBuffer(index, false);
+			return new EvioDataEvent(evioBuffer, storeByteOrder, dictionary);
+		}
+		ByteBuffer evioBuffer = evioReader.getEventBuffer(index, true);
+		return new EvioDataEvent(evioBuffer.array(), storeByteOrder, dictionary);
+	}
+
 	public void open(File file) {
 		this.open(file.getAbsolutePath());
 	}
@@ -156,8 +181,7 @@ public class EvioSource implements DataSource {
 		try {
 			currentEvent--;
 			currentEvent--;
-			ByteBuffer evioBuffer = evioReader.getEventBuffer(currentEvent, true);
-			EvioDataEvent event = new EvioDataEvent(evioBuffer.array(), storeByteOrder, dictionary);
+			EvioDataEvent event = this.createEvent(currentEvent);
 			currentEvent++;
 			return event;
 		} catch (EvioException ex) {
@@ -170,8 +194,7 @@ public class EvioSource implements DataSource {
 		if (index <= 1 || index > currentFileEntries)
 			return null;
 		try {
-			ByteBuffer evioBuffer = evioReader.getEventBuffer(index, true);
-			EvioDataEvent event = new EvioDataEvent(evioBuffer.array(), storeByteOrder, dictionary);
+			EvioDataEvent event = this.createEvent(index);
 			currentEvent = index + 1;
 			return event;
 		} catch (EvioException ex) {
@@ -184,8 +207,13 @@ public class EvioSource implements DataSource {
 		if (currentEvent > currentFileEntries)
 			return null;
 		try {
-			ByteBuffer evioBuffer = evioReader.getEventBuffer(currentEvent, true);
-			EvioDataEventHandler event = new EvioDataEventHandler(evioBuffer.array(), storeByteOrder);
+			EvioDataEventHandler event;
+			if (zeroCopy == true) {
+				event = new EvioDataEventHandler(evioReader.getEventBuffer(currentEvent, false), storeByteOrder);
+			} else {
+				ByteBuffer evioBuffer = evioReader.getEventBuffer(currentEvent, true);
+				event = new EvioDataEventHandler(evioBuffer.array(), storeByteOrder);
+			}
 			currentEvent++;
 			return event;
 		} catch (EvioException ex) {
@@ -198,8 +226,7 @@ public class EvioSource implements DataSource {
 		if (currentEvent > currentFileEntries)
 			return null;
 		try {
-			ByteBuffer evioBuffer = evioReader.getEventBuffer(currentEvent, true);
-			EvioDataEvent event = new EvioDataEvent(evioBuffer.array(), storeByteOrder, dictionary);
+			EvioDataEvent event = this.createEvent(currentEvent);
 			currentEvent++;
 			return event;
 		} catch (EvioException ex) {
@@ -10,6 +10,7 @@ import java.util.Map;
 import javax.swing.table.TableModel;
 
 import org.jlab.io.base.DataBank;
+import org.jlab.io.base.DataColumn;
 import org.jlab.io.base.DataDescriptor;
 import org.jlab.jnp.hipo.data.HipoGroup;
 import org.jlab.jnp.hipo.data.HipoNode;
@@ -177,6 +178,22 @@ public class HipoDataBank implements DataBank  {
         throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
     }
 
+    /**
+     * Returns a handle bound to the node of the column, the name is
+     * looked up only once.
+     * @param path name of the column
+     * @return column handle
+     * @throws IllegalArgumentException if the bank has no such column
+     */
+    public DataColumn getColumn(String path) {
+        HipoNode node = this.hipoGroup.getNode(path);
+        if(node==null){
+            throw new IllegalArgumentException("[HipoDataBank] column not found : "
+                    + this.hipoGroup.getSchema().getName() + "." + path);
+        }
+        return new HipoDataColumn(this, path, node);
+    }
+
     public int columns() {
         return this.hipoGroup.getSchema().getEntries();
     }
@@ -202,4 +219,76 @@ public class HipoDataBank implements DataBank  {
         return null;
     }
     
+    /**
+     * Column handle reading and writing directly the HIPO node.
+     */
+    private static class HipoDataColumn extends DataColumn {
+
+        private final HipoNode node;
+
+        HipoDataColumn(DataBank bank, String name, HipoNode node) {
+            super(bank, name);
+            this.node = node;
+        }
+
+        @Override
+        public byte getByte(int row) {
+            return this.node.getByte(row);
+        }
+
+        @Override
+        public short getShort(int row) {
+            return this.node.getShort(row);
+        }
+
+        @Override
+        public int getInt(int row) {
+            return this.node.getInt(row);
+        }
+
+        @Override
+        public long getLong(int row) {
+            return this.node.getLong(row);
+        }
+
+        @Override
+        public float getFloat(int row) {
+            return this.node.getFloat(row);
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return this.node.getDouble(row);
+        }
+
+        @Override
+        public void setByte(int row, byte value) {
+            this.node.setByte(row, value);
+        }
+
+        @Override
+        public void setShort(int row, short value) {
+            this.node.setShort(row, value);
+        }
+
+        @Override
+        public void setInt(int row, int value) {
+            this.node.setInt(row, value);
+        }
+
+        @Override
+        public void setLong(int row, long value) {
+            this.node.setLong(row, value);
+        }
+
+        @Override
+        public void setFloat(int row, float value) {
+            this.node.setFloat(row, value);
+        }
+
+        @Override
+        public void setDouble(int row, double value) {
+            this.node.setDouble(row, value);
+        }
+    }
 }
@@ -8,6 +8,7 @@ package org.jlab.io.hipo;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.jlab.io.base.DataBank;
@@ -29,6 +30,12 @@ public class HipoDataEvent implements DataEvent {
     
     private HipoEvent hipoEvent = null;
     private DataEventType eventType = DataEventType.EVENT_ACCUMULATE;
+    /**
+     * banks already read from this event, cleared when banks are
+     * added or removed. getBank() returns the cached instance, so changes
+     * made to a bank are seen by the later getBank() calls.
+     */
+    private final Map<String,HipoDataBank> bankCache = new HashMap<String,HipoDataBank>();
     
     public HipoDataEvent(byte[] array, SchemaFactory factory){
         hipoEvent = new HipoEvent(array,factory);
@@ -41,6 +48,7 @@ public class HipoDataEvent implements DataEvent {
     public HipoEvent  getHipoEvent(){return this.hipoEvent;}
     
     public void initDictionary(SchemaFactory factory){
+        this.bankCache.clear();
         this.hipoEvent.getSchemaFactory().copy(factory);
     }
     
@@ -81,6 +89,7 @@ public class HipoDataEvent implements DataEvent {
         if(bank==null) return;
         if(bank instanceof HipoDataBank){
             HipoGroup group =  ((HipoDataBank) bank).getGroup();
+            this.bankCache.clear();
             hipoEvent.writeGroup(group);
         }
     }
@@ -98,11 +107,14 @@ public class HipoDataEvent implements DataEvent {
 
     @Override
     public DataBank getBank(String bank_name) {
+        HipoDataBank bank = this.bankCache.get(bank_name);
+        if(bank!=null) return bank;
         if(this.hipoEvent.getSchemaFactory().hasSchema(bank_name)==true){
             //Schema schema = this.hipoEvent.getSchemaFactory().getSchema(bank_name);
             //Map<Integer,HipoNode> map = this.hipoEvent.getGroup(schema.getGroup());
             HipoGroup group = hipoEvent.getGroup(bank_name);
-            HipoDataBank bank = new HipoDataBank(group.getNodesMap(),group.getSchema());
+            bank = new HipoDataBank(group.getNodesMap(),group.getSchema());
+            this.bankCache.put(bank_name, bank);
             return bank;
         }        
         //HipoDataBank bank = new HipoDataBank();
@@ -192,11 +204,17 @@ public class HipoDataEvent implements DataEvent {
     }
 
     public HipoNode getHipoNodeByPath(String path){
-        String[] bank_and_item = path.split("[.]+");
-        if(bank_and_item.length<2){
+        // bank.item, the separator may be repeated
+        int first = path.indexOf('.');
+        int last  = first;
+        while(last>=0 && last+1<path.length() && path.charAt(last+1)=='.') last++;
+        if(first<=0 || last+1>=path.length()){
             System.out.println("\n>>>>> error : syntax error in path name : " + path);
             return null;
         }
+        int end = path.indexOf('.', last+1);
+        String[] bank_and_item = new String[]{ path.substring(0, first),
+            end<0 ? path.substring(last+1) : path.substring(last+1, end) };
         Schema schema = this.hipoEvent.getSchemaFactory().getSchema(bank_and_item[0]);
         if(schema==null){
             System.out.println("\n>>>>> error : can not find schema with name : " 
@@ -266,6 +284,7 @@ public class HipoDataEvent implements DataEvent {
 
     @Override
     public void removeBank(String bankName) {
+        this.bankCache.clear();
         this.hipoEvent.removeGroup(bankName);
     }
 
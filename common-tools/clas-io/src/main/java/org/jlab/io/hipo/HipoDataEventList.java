@@ -0,0 +1,37 @@
+package org.jlab.io.hipo;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.jlab.io.base.DataEvent;
+import org.jlab.io.base.DataEventList;
+
+/**
+ * Batch of events returned by the getEventList() methods of the HIPO
+ * data sources.
+ */
+public class HipoDataEventList implements DataEventList {
+
+    private final List<DataEvent> events;
+
+    public HipoDataEventList(){
+        this.events = new ArrayList<DataEvent>();
+    }
+
+    public HipoDataEventList(List<DataEvent> events){
+        this.events = events;
+    }
+
+    public void addEvent(DataEvent event){
+        this.events.add(event);
+    }
+
+    @Override
+    public int getSize() {
+        return events.size();
+    }
+
+    @Override
+    public DataEvent getEvent(int i) {
+        return events.get(i);
+    }
+}
@@ -7,6 +7,10 @@ package org.jlab.io.hipo;
 
 import java.io.File;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import org.jlab.io.base.DataEvent;
 import org.jlab.io.base.DataEventList;
 import org.jlab.io.base.DataSource;
@@ -29,10 +33,47 @@ public class HipoDataSource implements DataSource {
     int                 minEventNumber     = 0;
     int                 numberOfEvent      = 0;
     
+    // banks and columns to read, all the banks if empty
+    private final Map<String,List<String>> projectionBanks = new LinkedHashMap<String,List<String>>();
+    private HipoEventProjection            projection      = null;
+    
     public HipoDataSource(){
         this.reader = new HipoReader();
     }
     
+    /**
+     * Reads only the given banks; the other banks of the events are skipped.
+     * To be called before open().
+     * @param banks names of the banks to read
+     */
+    public void setBanks(String... banks){
+        for(String bank : banks) this.projectionBanks.put(bank, null);
+    }
+    
+    /**
+     * Reads only the given columns of the bank. To be called before open(),
+     * with setBanks() for the banks read with all their columns.
+     * @param bank name of the bank
+     * @param columns names of the columns to read
+     */
+    public void setColumns(String bank, String... columns){
+        this.projectionBanks.put(bank, Arrays.asList(columns));
+    }
+    
+    /**
+     * @return the bank selection of the source, null if all banks are read
+     */
+    public HipoEventProjection getProjection(){
+        return this.projection;
+    }
+    
+    private HipoDataEvent createEvent(HipoEvent hipoEvent){
+        if(projection!=null){
+            return new HipoDataEvent(projection.project(hipoEvent));
+        }
+        return new HipoDataEvent(hipoEvent.getDataBuffer(),hipoEvent.getSchemaFactory());
+    }
+    
     @Override
     public boolean hasEvent() {
         return reader.hasNext();
@@ -58,6 +99,9 @@ public class HipoDataSource implements DataSource {
     public void open(String filename) {
         this.reader.open(filename);
         System.out.println("[DataSourceDump] --> opened file with events # " + this.reader.getEventCount());
+        if(projectionBanks.isEmpty()==false){
+            this.projection = new HipoEventProjection(reader.getSchemaFactory(), projectionBanks);
+        }
         //this.reader.getSchemaFactory().show();
         /*
         HipoRecord header = this.reader.getHeaderRecord();
@@ -89,14 +133,34 @@ public class HipoDataSource implements DataSource {
         return reader.getEventCount();
     }
 
+    /**
+     * reads the events with index from start to stop (excluded).
+     * @param start index of the first event
+     * @param stop index after the last event
+     * @return the events
+     */
     @Override
     public DataEventList getEventList(int start, int stop) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        HipoDataEventList list = new HipoDataEventList();
+        stop = Math.min(stop, this.getSize());
+        for(int index = Math.max(start, 0); index < stop; index++){
+            list.addEvent(this.gotoEvent(index));
+        }
+        return list;
     }
 
+    /**
+     * reads the next events.
+     * @param nevents maximum number of events to read
+     * @return the events, fewer than requested at the end of the file
+     */
     @Override
-    public DataEventList getEventList(int nrecords) {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+    public DataEventList getEventList(int nevents) {
+        HipoDataEventList list = new HipoDataEventList();
+        for(int i = 0; i < nevents && this.hasEvent()==true; i++){
+            list.addEvent(this.getNextEvent());
+        }
+        return list;
     }
 
     @Override
@@ -107,25 +171,20 @@ public class HipoDataSource implements DataSource {
                 hipoEvent.getSchemaFactory().getSchemaList().size() + "  EVENT LENGTH = "
                 + hipoEvent.getDataBuffer().length);
         hipoEvent.showNodes();*/
-        HipoDataEvent  evioEvent = new HipoDataEvent(hipoEvent.getDataBuffer(),hipoEvent.getSchemaFactory());
-        return evioEvent;
+        return this.createEvent(hipoEvent);
     }
 
     @Override
     public DataEvent getPreviousEvent() {
         HipoEvent  hipoEvent = reader.readPreviousEvent();
-        hipoEvent.getDataBuffer();
-        HipoDataEvent  evioEvent = new HipoDataEvent(hipoEvent.getDataBuffer(),hipoEvent.getSchemaFactory());
-        return evioEvent;
+        return this.createEvent(hipoEvent);
         
     }
 
     @Override
     public DataEvent gotoEvent(int index) {
         HipoEvent  hipoEvent = reader.readEvent(index);
-        hipoEvent.getDataBuffer();
-        HipoDataEvent  evioEvent = new HipoDataEvent(hipoEvent.getDataBuffer(),hipoEvent.getSchemaFactory());
-        return evioEvent;
+        return this.createEvent(hipoEvent);
     }
     
     @Override
@@ -5,6 +5,9 @@
  */
 package org.jlab.io.hipo;
 
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import org.jlab.io.base.DataEvent;
 import org.jlab.io.base.DataSync;
 
@@ -23,8 +26,28 @@ public class HipoDataSync implements DataSync {
     
     HipoWriter writer = null;
     
+    // asynchronous mode: events are passed to an I/O thread, which
+    // serializes, compresses and writes the records.
+    private int                       asyncEvents = 0;
+    private BlockingQueue<HipoEvent>  asyncQueue  = null;
+    private Thread                    asyncThread = null;
+    private volatile RuntimeException asyncError  = null;
+    private static final HipoEvent    END = new HipoEvent();
+    
+    // event index written next to the output, see setIndex()
+    private String[]       indexColumns = null;
+    private HipoEventIndex index        = null;
+    private String         indexFile    = null;
+    
     public HipoDataSync(){
-        this.writer = new HipoWriter();
+        this(-1);
+    }
+    
+    /**
+     * @param recordSize record size in bytes, -1 for the default size
+     */
+    public HipoDataSync(int recordSize){
+        this.writer = recordSize>0 ? new HipoWriter(recordSize) : new HipoWriter();
         this.writer.setCompressionType(2);
         writer.appendSchemaFactoryFromDirectory("CLAS12DIR", "etc/bankdefs/hipo");
         System.out.println("[HipoDataSync] ---> dictionary size = " + writer.getSchemaFactory().getSchemaList().size());
@@ -33,11 +56,50 @@ public class HipoDataSync implements DataSync {
     }
     
     public HipoDataSync(SchemaFactory factory){
-        this.writer = new HipoWriter();
+        this(factory,-1);
+    }
+    
+    /**
+     * @param factory schema factory of the output
+     * @param recordSize record size in bytes, -1 for the default size
+     */
+    public HipoDataSync(SchemaFactory factory, int recordSize){
+        this.writer = recordSize>0 ? new HipoWriter(recordSize) : new HipoWriter();
         this.writer.setCompressionType(2);
         writer.appendSchemaFactory(factory);
     }
     
+    /**
+     * Sets the asynchronous mode, to be called before open(). When the
+     * number of events is positive, writeEvent() copies the event and
+     * queues it for an I/O thread, which writes the events in order, so
+     * that building and compressing the records does not stall the caller.
+     * writeEvent() blocks when the given number of events are waiting to
+     * be written. The output is the same as in the synchronous mode.
+     * @param maxEvents maximum number of events waiting to be written, 0 for
+     * synchronous writing
+     */
+    public void setAsync(int maxEvents){
+        if(asyncThread!=null){
+            throw new IllegalStateException("[HipoDataSync] asynchronous mode must be set before opening the file");
+        }
+        this.asyncEvents = maxEvents;
+    }
+    
+    public boolean isAsync(){
+        return asyncEvents>0;
+    }
+    
+    /**
+     * Writes an event index next to the output file (see HipoEventIndex),
+     * to be called before open(). The index is saved by close().
+     * @param summaryColumns integer columns to store the values of in the
+     * index, as "bank.column", e.g. "REC::Particle.pid"
+     */
+    public void setIndex(String... summaryColumns){
+        this.indexColumns = summaryColumns;
+    }
+    
     @Override
     public void open(String file) {
         /*
@@ -48,6 +110,36 @@ public class HipoDataSync implements DataSync {
             this.writer.addHeader(descString);
         }*/
         this.writer.open(file);
+        if(indexColumns!=null){
+            this.index     = new HipoEventIndex(indexColumns);
+            this.indexFile = HipoEventIndex.getIndexFile(file);
+        }
+        if(asyncEvents>0){
+            this.asyncQueue  = new ArrayBlockingQueue<HipoEvent>(asyncEvents);
+            this.asyncThread = new Thread(new Runnable(){
+                @Override
+                public void run(){
+                    try {
+                        while(true){
+                            HipoEvent event = asyncQueue.take();
+                            if(event==END) break;
+                            // after an error the queue is only drained, so
+                            // that writeEvent() and close() do not block
+                            if(asyncError!=null) continue;
+                            try {
+                                writer.writeEvent(event);
+                            } catch (RuntimeException ex) {
+                                asyncError = ex;
+                            }
+                        }
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            },"HipoDataSync-writer");
+            this.asyncThread.setDaemon(true);
+            this.asyncThread.start();
+        }
     }
 
     @Override
@@ -55,12 +147,57 @@ public class HipoDataSync implements DataSync {
         //EvioDataEvent  evioEvent = (EvioDataEvent) event;
         if(event instanceof HipoDataEvent) {
             HipoDataEvent hipoEvent = (HipoDataEvent) event;
-            this.writer.writeEvent(hipoEvent.getHipoEvent());
+            if(asyncThread==null){
+                if(index!=null) index.addEvent(hipoEvent);
+                this.writer.writeEvent(hipoEvent.getHipoEvent());
+                return;
+            }
+            if(asyncError!=null) throw asyncError;
+            // the caller may modify or reuse the event once it is queued
+            byte[] buffer = hipoEvent.getHipoEvent().getDataBuffer();
+            HipoEvent copy = new HipoEvent(Arrays.copyOf(buffer, buffer.length),
+                    hipoEvent.getHipoEvent().getSchemaFactory());
+            try {
+                asyncQueue.put(copy);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("[HipoDataSync] interrupted while waiting to queue the event, the event was not written", ex);
+            }
+            if(index!=null) index.addEvent(hipoEvent);
         }
     }
 
     public void close() {
+        boolean interrupted = false;
+        if(asyncThread!=null){
+            try {
+                asyncQueue.put(END);
+            } catch (InterruptedException ex) {
+                interrupted = true;
+                asyncThread.interrupt();
+            }
+            // the writer is closed only once the I/O thread is done with it
+            while(asyncThread.isAlive()){
+                try {
+                    asyncThread.join();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                    asyncThread.interrupt();
+                }
+            }
+            asyncThread = null;
+            asyncQueue  = null;
+        }
         this.writer.close();
+        if(index!=null){
+            index.write(indexFile);
+            index = null;
+        }
+        if(asyncError!=null) throw asyncError;
+        if(interrupted){
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("[HipoDataSync] interrupted while closing, the events waiting to be written were dropped");
+        }
     }
     
     public void setCompressionType(int type){
@@ -0,0 +1,94 @@
+package org.jlab.io.hipo;
+
+import org.jlab.io.base.DataEvent;
+import org.jlab.utils.options.OptionParser;
+
+/**
+ * Measures the wall time saved by the asynchronous mode of HipoDataSync:
+ * the events of an input file are read and written to the output, once with
+ * the synchronous writer and once with the asynchronous writer, optionally
+ * with some processing time per event to mimic reconstruction.
+ */
+public class HipoDataSyncBenchmark {
+
+    /**
+     * copies the input file to the output file.
+     * @return wall time in seconds
+     */
+    public static double copyFile(String input, String output, int recordSize, int compression,
+            int asyncEvents, int nevents, int workMicros) {
+        HipoDataSource reader = new HipoDataSource();
+        reader.open(input);
+        HipoDataSync writer = new HipoDataSync(recordSize);
+        writer.setCompressionType(compression);
+        writer.setAsync(asyncEvents);
+
+        long start = System.nanoTime();
+        writer.open(output);
+        int counter = 0;
+        while(reader.hasEvent()==true){
+            if(nevents>0&&counter>=nevents) break;
+            DataEvent event = reader.getNextEvent();
+            HipoDataSyncBenchmark.work(workMicros);
+            writer.writeEvent(event);
+            counter++;
+        }
+        writer.close();
+        double time = (System.nanoTime()-start)*1.0e-9;
+        reader.close();
+        System.out.println(String.format("   %-12s : %8d events, %8.2f sec",
+                asyncEvents>0 ? "asynchronous" : "synchronous", counter, time));
+        return time;
+    }
+
+    /**
+     * busy wait, standing for the processing of one event.
+     */
+    private static void work(int micros) {
+        if(micros<=0) return;
+        long end = System.nanoTime() + micros*1000L;
+        while(System.nanoTime()<end) {}
+    }
+
+    public static void main(String[] args){
+
+        OptionParser parser = new OptionParser("hipo-write-benchmark");
+        parser.addRequired("-i","input.hipo");
+        parser.addRequired("-o","output.hipo");
+        parser.addOption("-b","-1","record size in MB (-1 - default)");
+        parser.addOption("-c","2","compression type");
+        parser.addOption("-a","1000","maximum number of events waiting to be written in asynchronous mode");
+        parser.addOption("-n","-1","number of events to write");
+        parser.addOption("-w","0","processing time per event in microseconds");
+        parser.addOption("-r","2","number of repetitions");
+        parser.parse(args);
+
+        if(parser.hasOption("-i")==true&&parser.hasOption("-o")==true){
+            String input  = parser.getOption("-i").stringValue();
+            String output = parser.getOption("-o").stringValue();
+            int recordSize  = parser.getOption("-b").intValue();
+            int compression = parser.getOption("-c").intValue();
+            int asyncEvents = parser.getOption("-a").intValue();
+            int nevents     = parser.getOption("-n").intValue();
+            int work        = parser.getOption("-w").intValue();
+            int repeat      = parser.getOption("-r").intValue();
+            if(recordSize>0) recordSize = recordSize*1024*1024;
+
+            // the first pass warms up the JIT and the file cache
+            double sync = 0, async = 0;
+            for(int i = 0; i <= repeat; i++){
+                double s = copyFile(input, output, recordSize, compression, 0, nevents, work);
+                double a = copyFile(input, output, recordSize, compression, asyncEvents, nevents, work);
+                if(i>0){
+                    sync  += s/repeat;
+                    async += a/repeat;
+                }
+            }
+            System.out.println("\n----->>> HipoDataSync benchmark:");
+            System.out.println(String.format("   synchronous  : %8.2f sec/file", sync));
+            System.out.println(String.format("   asynchronous : %8.2f sec/file", async));
+            System.out.println(String.format("   saved        : %8.2f sec/file (%.1f %%)",
+                    sync-async, sync>0 ? 100*(sync-async)/sync : 0.0));
+        }
+    }
+}
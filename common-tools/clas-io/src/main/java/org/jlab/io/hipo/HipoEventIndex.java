@@ -0,0 +1,441 @@
+package org.jlab.io.hipo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jlab.io.base.DataBank;
+import org.jlab.io.base.DataEvent;
+import org.jlab.jnp.hipo.data.HipoNodeType;
+import org.jlab.jnp.hipo.schema.Schema;
+import org.jlab.jnp.hipo.schema.Schema.SchemaEntry;
+import org.jlab.utils.options.OptionParser;
+
+/**
+ * Event index of a HIPO file, stored in a sidecar file next to it
+ * (file.hipo.idx).
+ *
+ * For each event, in file order, the index keeps the run and event numbers
+ * and the trigger bits from RUN::config, the number of rows of every bank
+ * and the values of selected integer columns, e.g. "REC::Particle.pid".
+ * All the quantities are stored by column, so that queries scan compact
+ * arrays only. The select() methods return the indices of the matching
+ * events, to be read with HipoDataSource.gotoEvent(), without reading the
+ * data file.
+ *
+ * The index is filled by HipoDataSync when enabled with setIndex(), or for
+ * an existing file with build().
+ */
+public class HipoEventIndex {
+
+    private static final int MAGIC   = 0x48494458; // HIDX
+    private static final int VERSION = 1;
+
+    /**
+     * selection of events, see select().
+     */
+    public interface Filter {
+        boolean accept(HipoEventIndex index, int event);
+    }
+
+    private int        nevents  = 0;
+    private int[]      runs     = new int[1024];
+    private int[]      numbers  = new int[1024];
+    private long[]     triggers = new long[1024];
+    // number of rows per bank, by bank name
+    private final Map<String,int[]>  rows    = new LinkedHashMap<String,int[]>();
+    // values of the summary columns, by "bank.column": the values of event
+    // i are values[offsets[i]] to values[offsets[i+1]-1]
+    private final Map<String,Column> columns = new LinkedHashMap<String,Column>();
+
+    private static class Column {
+        int[] offsets = new int[1025];
+        int[] values  = new int[1024];
+        int   size    = 0;
+    }
+
+    /**
+     * @param summaryColumns integer columns to store the values of, as
+     * "bank.column", e.g. "REC::Particle.pid"
+     */
+    public HipoEventIndex(String... summaryColumns){
+        for(String column : summaryColumns){
+            if(column.lastIndexOf('.')<0){
+                System.out.println("[HipoEventIndex] >>>>> warning : column must be bank.column : " + column);
+                continue;
+            }
+            this.columns.put(column, new Column());
+        }
+    }
+
+    /**
+     * @param dataFile name of the HIPO file
+     * @return name of its index file
+     */
+    public static String getIndexFile(String dataFile){
+        return dataFile + ".idx";
+    }
+
+    /**
+     * adds the next event of the file to the index.
+     */
+    public void addEvent(DataEvent event){
+        this.ensureCapacity(nevents+1);
+        int run = 0, number = 0;
+        long trigger = 0;
+        if(event.hasBank("RUN::config")==true){
+            DataBank config = event.getBank("RUN::config");
+            if(config.rows()>0){
+                run     = config.getInt("run", 0);
+                number  = config.getInt("event", 0);
+                trigger = config.getLong("trigger", 0);
+            }
+        }
+        runs[nevents]     = run;
+        numbers[nevents]  = number;
+        triggers[nevents] = trigger;
+
+        for(String bank : event.getBankList()){
+            int[] counts = rows.get(bank);
+            if(counts==null){
+                counts = new int[runs.length];
+                rows.put(bank, counts);
+            }
+            counts[nevents] = event.getBank(bank).rows();
+        }
+
+        for(Map.Entry<String,Column> entry : columns.entrySet()){
+            Column column = entry.getValue();
+            String name   = entry.getKey();
+            int    dot    = name.lastIndexOf('.');
+            String bank   = name.substring(0, dot);
+            if(event.hasBank(bank)==true){
+                DataBank data = event.getBank(bank);
+                String item = name.substring(dot+1);
+                HipoNodeType type = HipoEventIndex.getType(event, bank, item);
+                int nrows = type==null ? 0 : data.rows();
+                if(column.values.length<column.size+nrows){
+                    column.values = Arrays.copyOf(column.values, Math.max(2*column.values.length, column.size+nrows));
+                }
+                for(int row = 0; row < nrows; row++){
+                    int value;
+                    if(type==HipoNodeType.BYTE)       value = data.getByte(item, row);
+                    else if(type==HipoNodeType.SHORT) value = data.getShort(item, row);
+                    else                              value = data.getInt(item, row);
+                    column.values[column.size++] = value;
+                }
+            }
+            column.offsets[nevents+1] = column.size;
+        }
+        nevents++;
+    }
+
+    /**
+     * @return the type of the column if it is an integer column, null otherwise
+     */
+    private static HipoNodeType getType(DataEvent event, String bank, String item){
+        if(event instanceof HipoDataEvent==false) return HipoNodeType.INT;
+        Schema schema = ((HipoDataEvent) event).getHipoEvent().getSchemaFactory().getSchema(bank);
+        SchemaEntry entry = schema==null ? null : schema.getEntry(item);
+        if(entry==null) return null;
+        HipoNodeType type = entry.getType();
+        if(type==HipoNodeType.BYTE||type==HipoNodeType.SHORT||type==HipoNodeType.INT) return type;
+        return null;
+    }
+
+    private void ensureCapacity(int size){
+        if(size<=runs.length) return;
+        int capacity = Math.max(2*runs.length, size);
+        runs     = Arrays.copyOf(runs, capacity);
+        numbers  = Arrays.copyOf(numbers, capacity);
+        triggers = Arrays.copyOf(triggers, capacity);
+        for(Map.Entry<String,int[]> entry : rows.entrySet()){
+            entry.setValue(Arrays.copyOf(entry.getValue(), capacity));
+        }
+        for(Column column : columns.values()){
+            column.offsets = Arrays.copyOf(column.offsets, capacity+1);
+        }
+    }
+
+    public int getEventCount(){
+        return nevents;
+    }
+
+    public int getRunNumber(int event){
+        return runs[event];
+    }
+
+    public int getEventNumber(int event){
+        return numbers[event];
+    }
+
+    public long getTrigger(int event){
+        return triggers[event];
+    }
+
+    /**
+     * @return names of the banks present in at least one event
+     */
+    public List<String> getBankList(){
+        return new ArrayList<String>(rows.keySet());
+    }
+
+    /**
+     * @return names of the summary columns
+     */
+    public List<String> getColumnList(){
+        return new ArrayList<String>(columns.keySet());
+    }
+
+    /**
+     * @return number of rows of the bank in the event, 0 if the bank is absent
+     */
+    public int getRows(String bank, int event){
+        int[] counts = rows.get(bank);
+        return counts==null ? 0 : counts[event];
+    }
+
+    public boolean hasBank(String bank, int event){
+        return this.getRows(bank, event)>0;
+    }
+
+    /**
+     * @param column summary column, as "bank.column"
+     * @return values of the column in the event
+     */
+    public int[] getValues(String column, int event){
+        Column c = this.getColumn(column);
+        return Arrays.copyOfRange(c.values, c.offsets[event], c.offsets[event+1]);
+    }
+
+    /**
+     * @return number of rows of the event with the given value of the column
+     */
+    public int count(String column, int event, int value){
+        Column c = this.getColumn(column);
+        int counter = 0;
+        for(int i = c.offsets[event]; i < c.offsets[event+1]; i++){
+            if(c.values[i]==value) counter++;
+        }
+        return counter;
+    }
+
+    private Column getColumn(String column){
+        Column c = columns.get(column);
+        if(c==null){
+            throw new IllegalArgumentException("[HipoEventIndex] column not indexed : " + column);
+        }
+        return c;
+    }
+
+    /**
+     * @return indices of the events accepted by the filter
+     */
+    public int[] select(Filter filter){
+        int[] selected = new int[nevents];
+        int size = 0;
+        for(int i = 0; i < nevents; i++){
+            if(filter.accept(this, i)==true) selected[size++] = i;
+        }
+        return Arrays.copyOf(selected, size);
+    }
+
+    /**
+     * @return indices of the events having all the given banks
+     */
+    public int[] selectBanks(final String... banks){
+        return this.select(new Filter(){
+            @Override
+            public boolean accept(HipoEventIndex index, int event) {
+                for(String bank : banks){
+                    if(index.hasBank(bank, event)==false) return false;
+                }
+                return true;
+            }
+        });
+    }
+
+    /**
+     * @return indices of the events with at least the given number of rows
+     * in the bank
+     */
+    public int[] selectRows(final String bank, final int minRows){
+        return this.select(new Filter(){
+            @Override
+            public boolean accept(HipoEventIndex index, int event) {
+                return index.getRows(bank, event)>=minRows;
+            }
+        });
+    }
+
+    /**
+     * selects events having each of the values in the column, e.g.
+     * selectValues("REC::Particle.pid", 11, 2212) for the events with an
+     * electron and a proton. A value given n times must be found in at
+     * least n rows, e.g. selectValues("REC::Particle.pid", 11, 211, 211)
+     * for the events with an electron and two pi+.
+     * @return indices of the events
+     */
+    public int[] selectValues(final String column, int... values){
+        this.getColumn(column);
+        // distinct values and the number of rows required for each
+        int[] sorted = Arrays.copyOf(values, values.length);
+        Arrays.sort(sorted);
+        int ndistinct = 0;
+        final int[] distinct     = new int[sorted.length];
+        final int[] multiplicity = new int[sorted.length];
+        for(int i = 0; i < sorted.length; i++){
+            if(ndistinct==0 || distinct[ndistinct-1]!=sorted[i]){
+                distinct[ndistinct++] = sorted[i];
+            }
+            multiplicity[ndistinct-1]++;
+        }
+        final int size = ndistinct;
+        return this.select(new Filter(){
+            @Override
+            public boolean accept(HipoEventIndex index, int event) {
+                for(int i = 0; i < size; i++){
+                    if(index.count(column, event, distinct[i])<multiplicity[i]) return false;
+                }
+                return true;
+            }
+        });
+    }
+
+    /**
+     * @return indices of the events with any of the trigger bits of the mask
+     */
+    public int[] selectTrigger(final long mask){
+        return this.select(new Filter(){
+            @Override
+            public boolean accept(HipoEventIndex index, int event) {
+                return (index.getTrigger(event)&mask)!=0;
+            }
+        });
+    }
+
+    public void write(String filename){
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename), 1<<16));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(nevents);
+                for(int i = 0; i < nevents; i++) out.writeInt(runs[i]);
+                for(int i = 0; i < nevents; i++) out.writeInt(numbers[i]);
+                for(int i = 0; i < nevents; i++) out.writeLong(triggers[i]);
+                out.writeInt(rows.size());
+                for(Map.Entry<String,int[]> entry : rows.entrySet()){
+                    out.writeUTF(entry.getKey());
+                    int[] counts = entry.getValue();
+                    for(int i = 0; i < nevents; i++) out.writeInt(counts[i]);
+                }
+                out.writeInt(columns.size());
+                for(Map.Entry<String,Column> entry : columns.entrySet()){
+                    out.writeUTF(entry.getKey());
+                    Column column = entry.getValue();
+                    for(int i = 0; i <= nevents; i++) out.writeInt(column.offsets[i]);
+                    for(int i = 0; i < column.size; i++) out.writeInt(column.values[i]);
+                }
+            } finally {
+                out.close();
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("[HipoEventIndex] error writing index file " + filename, ex);
+        }
+        System.out.println("[HipoEventIndex] ---> wrote index of " + nevents + " events : " + filename);
+    }
+
+    public static HipoEventIndex read(String filename){
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filename), 1<<16));
+            try {
+                if(in.readInt()!=MAGIC || in.readInt()!=VERSION){
+                    throw new IllegalStateException("[HipoEventIndex] not an index file : " + filename);
+                }
+                HipoEventIndex index = new HipoEventIndex();
+                int n = in.readInt();
+                index.ensureCapacity(n);
+                index.nevents = n;
+                for(int i = 0; i < n; i++) index.runs[i] = in.readInt();
+                for(int i = 0; i < n; i++) index.numbers[i] = in.readInt();
+                for(int i = 0; i < n; i++) index.triggers[i] = in.readLong();
+                int nbanks = in.readInt();
+                for(int b = 0; b < nbanks; b++){
+                    String bank = in.readUTF();
+                    int[] counts = new int[index.runs.length];
+                    for(int i = 0; i < n; i++) counts[i] = in.readInt();
+                    index.rows.put(bank, counts);
+                }
+                int ncolumns = in.readInt();
+                for(int c = 0; c < ncolumns; c++){
+                    String name = in.readUTF();
+                    Column column = new Column();
+                    column.offsets = new int[index.runs.length+1];
+                    for(int i = 0; i <= n; i++) column.offsets[i] = in.readInt();
+                    column.size   = column.offsets[n];
+                    column.values = new int[Math.max(column.size, 1)];
+                    for(int i = 0; i < column.size; i++) column.values[i] = in.readInt();
+                    index.columns.put(name, column);
+                }
+                return index;
+            } finally {
+                in.close();
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("[HipoEventIndex] error reading index file " + filename, ex);
+        }
+    }
+
+    /**
+     * indexes an existing HIPO file.
+     * @param dataFile name of the HIPO file
+     * @param summaryColumns integer columns to store the values of
+     * @return the index, to be saved with write()
+     */
+    public static HipoEventIndex build(String dataFile, String... summaryColumns){
+        HipoEventIndex index = new HipoEventIndex(summaryColumns);
+        HipoDataSource reader = new HipoDataSource();
+        reader.open(dataFile);
+        while(reader.hasEvent()==true){
+            index.addEvent(reader.getNextEvent());
+        }
+        reader.close();
+        return index;
+    }
+
+    public static void main(String[] args){
+        OptionParser parser = new OptionParser("hipo-index");
+        parser.addRequired("-i","input.hipo");
+        parser.addOption("-c","REC::Particle.pid","summary columns, separated by ':'");
+        parser.addOption("-s","","print the number of events with all these values of the first column, separated by ':', a value repeated n times is required in n rows");
+        parser.parse(args);
+
+        if(parser.hasOption("-i")==true){
+            String input   = parser.getOption("-i").stringValue();
+            String columns = parser.getOption("-c").stringValue();
+            HipoEventIndex index = HipoEventIndex.build(input,
+                    columns.isEmpty() ? new String[0] : columns.split(":"));
+            index.write(HipoEventIndex.getIndexFile(input));
+
+            String values = parser.getOption("-s").stringValue();
+            if(values.isEmpty()==false && index.getColumnList().isEmpty()==false){
+                String[] tokens = values.split(":");
+                int[] selection = new int[tokens.length];
+                for(int i = 0; i < tokens.length; i++) selection[i] = Integer.parseInt(tokens[i]);
+                String column = index.getColumnList().get(0);
+                int[] events = index.selectValues(column, selection);
+                System.out.println("[HipoEventIndex] ---> events with " + column + " " + values
+                        + " : " + events.length + " / " + index.getEventCount());
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.jlab.io.hipo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jlab.jnp.hipo.data.HipoEvent;
+import org.jlab.jnp.hipo.data.HipoGroup;
+import org.jlab.jnp.hipo.data.HipoNode;
+import org.jlab.jnp.hipo.schema.Schema;
+import org.jlab.jnp.hipo.schema.Schema.SchemaEntry;
+import org.jlab.jnp.hipo.schema.SchemaFactory;
+
+/**
+ * Selection of banks, and optionally of columns of these banks, to read
+ * from HIPO events.
+ *
+ * The group and item numbers of the selection are resolved once from the
+ * schema factory of the file. project() then copies only the selected nodes
+ * of an event into a new, smaller event, without unpacking the other banks,
+ * and hasAny() tells whether an event contains one of the selected banks by
+ * looking up the group numbers only.
+ */
+public class HipoEventProjection {
+
+    private final SchemaFactory factory;
+    private final List<Schema>  schemas = new ArrayList<Schema>();
+    private final List<int[]>   items   = new ArrayList<int[]>();
+
+    /**
+     * @param factory schema factory of the file
+     * @param banks names of the banks to keep
+     */
+    public HipoEventProjection(SchemaFactory factory, Collection<String> banks) {
+        this(factory, HipoEventProjection.allColumns(banks));
+    }
+
+    /**
+     * @param factory schema factory of the file
+     * @param columns names of the banks to keep, with the names of the columns
+     * to keep for each, null or empty for all the columns
+     */
+    public HipoEventProjection(SchemaFactory factory, Map<String,List<String>> columns) {
+        this.factory = factory;
+        for(Map.Entry<String,List<String>> bank : columns.entrySet()){
+            if(factory.hasSchema(bank.getKey())==false){
+                System.out.println("[HipoEventProjection] >>>>> warning : bank not found : " + bank.getKey());
+                continue;
+            }
+            Schema schema = factory.getSchema(bank.getKey());
+            List<String> names = bank.getValue();
+            if(names==null || names.isEmpty()) names = schema.schemaEntryList();
+            List<Integer> ids = new ArrayList<Integer>();
+            for(String name : names){
+                SchemaEntry entry = schema.getEntry(name);
+                if(entry==null){
+                    System.out.println("[HipoEventProjection] >>>>> warning : column not found : "
+                            + bank.getKey() + "." + name);
+                    continue;
+                }
+                ids.add(entry.getId());
+            }
+            int[] array = new int[ids.size()];
+            for(int i = 0; i < array.length; i++) array[i] = ids.get(i);
+            schemas.add(schema);
+            items.add(array);
+        }
+    }
+
+    private static Map<String,List<String>> allColumns(Collection<String> banks) {
+        Map<String,List<String>> columns = new LinkedHashMap<String,List<String>>();
+        for(String bank : banks) columns.put(bank, null);
+        return columns;
+    }
+
+    public SchemaFactory getSchemaFactory() {
+        return factory;
+    }
+
+    /**
+     * @param event the event
+     * @return true if the event has at least one of the selected banks
+     */
+    public boolean hasAny(HipoEvent event) {
+        for(Schema schema : schemas){
+            if(event.hasGroup(schema.getGroup())==true) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param event the event
+     * @return a new event with the selected nodes of the event only
+     */
+    public HipoEvent project(HipoEvent event) {
+        HipoEvent projected = new HipoEvent();
+        projected.setSchemaFactory(factory, false);
+        for(int i = 0; i < schemas.size(); i++){
+            Schema schema = schemas.get(i);
+            int group = schema.getGroup();
+            if(event.hasGroup(group)==false) continue;
+            Map<Integer,HipoNode> nodes = new HashMap<Integer,HipoNode>();
+            for(int item : items.get(i)){
+                HipoNode node = event.getNode(group, item);
+                if(node!=null) nodes.put(item, node);
+            }
+            projected.writeGroup(new HipoGroup(nodes, schema));
+        }
+        return projected;
+    }
+}
@@ -0,0 +1,315 @@
+package org.jlab.io.hipo;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.jlab.io.base.DataEvent;
+import org.jlab.io.base.DataEventList;
+import org.jlab.io.base.DataSource;
+import org.jlab.io.base.DataSourceType;
+import org.jlab.jnp.hipo.data.HipoEvent;
+import org.jlab.jnp.hipo.io.HipoReader;
+import org.jlab.jnp.hipo.schema.SchemaFactory;
+
+/**
+ * HIPO data source reading ahead on background threads.
+ *
+ * The file is split in blocks of consecutive events. Each background thread
+ * has its own reader on the file and reads whole blocks, so decompressing the
+ * records and unpacking the events of the next blocks happens in parallel
+ * while the current block is consumed. At most maxBlocks blocks are read
+ * ahead. Events are returned in file order, as by HipoDataSource.
+ *
+ * The source itself is meant to be used by one consumer thread, e.g. the
+ * reader stage of a multi-threaded pipeline.
+ */
+public class HipoPrefetchSource implements DataSource {
+
+    private final int nthreads;
+    private final int blockSize;
+    private final int maxBlocks;
+
+    private HipoReader      reader = null;
+    private int             numberOfEvents = 0;
+    private ExecutorService pool = null;
+    private BlockingQueue<HipoReader> readers = null;
+    // all the readers of the background threads, closed by close()
+    private final List<HipoReader> threadReaders = new ArrayList<HipoReader>();
+    
+    // banks and columns to read, all the banks if empty
+    private final Map<String,List<String>> projectionBanks = new LinkedHashMap<String,List<String>>();
+    private HipoEventProjection            projection      = null;
+
+    // blocks submitted and not yet consumed, in file order
+    private final Deque<Future<List<DataEvent>>> pending = new ArrayDeque<Future<List<DataEvent>>>();
+    private int             nextBlockStart = 0;
+    private List<DataEvent> currentBlock = null;
+    private int             currentPosition = 0;
+    private int             currentEventNumber = 0;
+
+    public HipoPrefetchSource(){
+        this(2, 500, 8);
+    }
+
+    /**
+     * @param nthreads number of background reading threads
+     * @param blockSize number of events in a block
+     * @param maxBlocks maximum number of blocks read ahead
+     */
+    public HipoPrefetchSource(int nthreads, int blockSize, int maxBlocks){
+        this.nthreads  = Math.max(1, nthreads);
+        this.blockSize = Math.max(1, blockSize);
+        this.maxBlocks = Math.max(this.nthreads, maxBlocks);
+    }
+
+    /**
+     * Reads only the given banks, see HipoDataSource.setBanks().
+     */
+    public void setBanks(String... banks){
+        for(String bank : banks) this.projectionBanks.put(bank, null);
+    }
+    
+    /**
+     * Reads only the given columns of the bank, see HipoDataSource.setColumns().
+     */
+    public void setColumns(String bank, String... columns){
+        this.projectionBanks.put(bank, Arrays.asList(columns));
+    }
+
+    @Override
+    public void open(File file) {
+        this.open(file.getAbsolutePath());
+    }
+
+    @Override
+    public void open(String filename) {
+        this.close();
+        this.reader = new HipoReader();
+        this.reader.open(filename);
+        this.numberOfEvents = reader.getEventCount();
+        this.projection = projectionBanks.isEmpty() ? null :
+                new HipoEventProjection(reader.getSchemaFactory(), projectionBanks);
+        this.readers = new ArrayBlockingQueue<HipoReader>(nthreads);
+        for(int i = 0; i < nthreads; i++){
+            HipoReader r = new HipoReader();
+            r.open(filename);
+            readers.add(r);
+            threadReaders.add(r);
+        }
+        this.pool = Executors.newFixedThreadPool(nthreads, new ThreadFactory(){
+            int counter = 0;
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "HipoPrefetchSource-" + (counter++));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        System.out.println("[HipoPrefetchSource] --> opened file with events # " + numberOfEvents
+                + ", reading threads # " + nthreads);
+        this.seek(0);
+    }
+
+    @Override
+    public void open(ByteBuffer buff) {
+        throw new UnsupportedOperationException("Not supported yet.");
+    }
+
+    /**
+     * stops the background threads and closes the file readers.
+     */
+    @Override
+    public void close() {
+        if(pool!=null){
+            pool.shutdownNow();
+            // the readers are closed once no block is being read with them
+            try {
+                pool.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            pool = null;
+        }
+        for(HipoReader r : threadReaders) r.close();
+        threadReaders.clear();
+        readers = null;
+        if(reader!=null){
+            reader.close();
+            reader = null;
+        }
+        numberOfEvents = 0;
+        pending.clear();
+        currentBlock = null;
+    }
+
+    /**
+     * Creates a Writer class with Dictionary from the Reader.
+     * @return HipoDataSync object for writing an output.
+     */
+    public HipoDataSync createWriter(){
+        SchemaFactory factory = reader.getSchemaFactory();
+        return new HipoDataSync(factory);
+    }
+
+    @Override
+    public int getSize() {
+        return numberOfEvents;
+    }
+
+    @Override
+    public void waitForEvents() {
+
+    }
+
+    @Override
+    public boolean hasEvent() {
+        return currentEventNumber < numberOfEvents;
+    }
+
+    @Override
+    public DataEvent getNextEvent() {
+        if(this.hasEvent()==false) return null;
+        if(currentBlock==null || currentPosition>=currentBlock.size()){
+            this.nextBlock();
+        }
+        currentEventNumber++;
+        return currentBlock.get(currentPosition++);
+    }
+
+    /**
+     * reads the next events.
+     * @param nevents maximum number of events to read
+     * @return the events, fewer than requested at the end of the file
+     */
+    @Override
+    public DataEventList getEventList(int nevents) {
+        HipoDataEventList list = new HipoDataEventList();
+        for(int i = 0; i < nevents && this.hasEvent()==true; i++){
+            list.addEvent(this.getNextEvent());
+        }
+        return list;
+    }
+
+    /**
+     * reads the events with index from start to stop (excluded); the next
+     * event is then the one at index stop.
+     */
+    @Override
+    public DataEventList getEventList(int start, int stop) {
+        this.seek(Math.max(start, 0));
+        return this.getEventList(stop - Math.max(start, 0));
+    }
+
+    @Override
+    public DataEvent getPreviousEvent() {
+        if(currentEventNumber<2) return null;
+        return this.gotoEvent(currentEventNumber-2);
+    }
+
+    @Override
+    public DataEvent gotoEvent(int index) {
+        if(index<0 || index>=numberOfEvents) return null;
+        this.seek(index);
+        return this.getNextEvent();
+    }
+
+    @Override
+    public void reset() {
+        this.seek(0);
+    }
+
+    @Override
+    public int getCurrentIndex() {
+        return currentEventNumber;
+    }
+
+    @Override
+    public DataSourceType getType() {
+        return DataSourceType.FILE;
+    }
+
+    /**
+     * restarts reading ahead from the given event.
+     */
+    private void seek(int index) {
+        for(Future<List<DataEvent>> block : pending) block.cancel(false);
+        pending.clear();
+        currentBlock       = null;
+        currentPosition    = 0;
+        currentEventNumber = index;
+        nextBlockStart     = index;
+        while(pending.size()<maxBlocks && this.submitBlock()==true) {}
+    }
+
+    private boolean submitBlock() {
+        if(nextBlockStart>=numberOfEvents) return false;
+        final int start = nextBlockStart;
+        final int stop  = Math.min(start + blockSize, numberOfEvents);
+        nextBlockStart = stop;
+        pending.add(pool.submit(new Callable<List<DataEvent>>(){
+            @Override
+            public List<DataEvent> call() throws InterruptedException {
+                HipoReader r = readers.take();
+                try {
+                    List<DataEvent> events = new ArrayList<DataEvent>(stop-start);
+                    for(int index = start; index < stop; index++){
+                        HipoEvent hipoEvent = r.readEvent(index);
+                        if(projection!=null){
+                            events.add(new HipoDataEvent(projection.project(hipoEvent)));
+                        } else {
+                            events.add(new HipoDataEvent(hipoEvent.getDataBuffer(), hipoEvent.getSchemaFactory()));
+                        }
+                    }
+                    return events;
+                } finally {
+                    readers.put(r);
+                }
+            }
+        }));
+        return true;
+    }
+
+    private void nextBlock() {
+        Future<List<DataEvent>> block = pending.poll();
+        this.submitBlock();
+        try {
+            currentBlock = block.get();
+            currentPosition = 0;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("[HipoPrefetchSource] interrupted while reading", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("[HipoPrefetchSource] error reading events", ex.getCause());
+        }
+    }
+
+    public static void main(String[] args){
+        HipoPrefetchSource reader = new HipoPrefetchSource();
+        reader.open(args[0]);
+        long start = System.nanoTime();
+        int counter = 0;
+        while(reader.hasEvent()==true){
+            reader.getNextEvent();
+            counter++;
+        }
+        reader.close();
+        double time = (System.nanoTime()-start)*1.0e-9;
+        System.out.println(String.format("[HipoPrefetchSource] read %d events in %.2f sec (%.1f events/sec)",
+                counter, time, counter/time));
+    }
+}
@@ -0,0 +1,99 @@
+package org.jlab.io.base;
+
+import org.jlab.io.hipo.HipoDataSync;
+import org.jlab.jnp.hipo.schema.Schema;
+import org.jlab.jnp.hipo.schema.SchemaFactory;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that a bank filled through the column slots of DataBankWriter has
+ * the same content, cell by cell, as the bank filled with the setters taking
+ * the column name, and that the columns missing from the schema are reported.
+ */
+public class DataBankWriterTest {
+
+    private static final String BANK  = "TEST::hits";
+    private static final int    NROWS = 17;
+
+    private static final DataBankWriter HITS = new DataBankWriter();
+    private static final int ID      = HITS.column("id");
+    private static final int SECTOR  = HITS.column("sector");
+    private static final int TDC     = HITS.column("tdc");
+    private static final int TIME    = HITS.column("time");
+    private static final int DOCA    = HITS.column("doca");
+    private static final int STAMP   = HITS.column("timestamp");
+    // not in the schema
+    private static final int MISSING = HITS.column("missing");
+
+    private static DataEvent createEvent() throws Exception {
+        SchemaFactory factory = new SchemaFactory();
+        factory.addSchema(new Schema("{40," + BANK + "}[1,id,SHORT][2,sector,BYTE][3,tdc,INT][4,time,FLOAT][5,doca,DOUBLE][6,timestamp,LONG]"));
+        return new HipoDataSync(factory).createEvent();
+    }
+
+    @Test
+    public void testRowsAgainstNames() throws Exception {
+        DataEvent event = createEvent();
+        assertEquals(MISSING, HITS.column("missing"));
+        assertEquals("missing", HITS.getColumnName(MISSING));
+
+        DataBankWriter.Rows rows = HITS.create(event, BANK, NROWS);
+        DataBank expected = event.createBank(BANK, NROWS);
+        assertEquals(NROWS, rows.rows());
+        for (int row = 0; row < NROWS; row++) {
+            rows.setShort(ID, row, (short) (row + 1));
+            rows.setByte(SECTOR, row, (byte) (row % 6 + 1));
+            rows.setInt(TDC, row, 1000 * row - 7);
+            rows.setFloat(TIME, row, 0.25f * row);
+            rows.setDouble(DOCA, row, 0.01 * row * row);
+            rows.setLong(STAMP, row, 123456789012L + row);
+
+            expected.setShort("id", row, (short) (row + 1));
+            expected.setByte("sector", row, (byte) (row % 6 + 1));
+            expected.setInt("tdc", row, 1000 * row - 7);
+            expected.setFloat("time", row, 0.25f * row);
+            expected.setDouble("doca", row, 0.01 * row * row);
+            expected.setLong("timestamp", row, 123456789012L + row);
+        }
+
+        DataBank bank = rows.getBank();
+        assertEquals(expected.rows(), bank.rows());
+        for (int row = 0; row < NROWS; row++) {
+            assertEquals(expected.getShort("id", row), bank.getShort("id", row));
+            assertEquals(expected.getByte("sector", row), bank.getByte("sector", row));
+            assertEquals(expected.getInt("tdc", row), bank.getInt("tdc", row));
+            assertEquals(expected.getFloat("time", row), bank.getFloat("time", row), 0.0f);
+            assertEquals(expected.getDouble("doca", row), bank.getDouble("doca", row), 0.0);
+            assertEquals(expected.getLong("timestamp", row), bank.getLong("timestamp", row));
+            // and through the handles
+            assertEquals(expected.getInt("tdc", row), rows.getColumn(TDC).getInt(row));
+            assertEquals(expected.getFloat("time", row), rows.getColumn(TIME).getFloat(row), 0.0f);
+        }
+
+        // the bank is written and read back like any other bank
+        event.appendBank(bank);
+        assertTrue(event.hasBank(BANK));
+        assertEquals(NROWS, event.getBank(BANK).rows());
+        assertEquals(expected.getLong("timestamp", NROWS - 1), event.getBank(BANK).getLong("timestamp", NROWS - 1));
+    }
+
+    @Test
+    public void testMissingColumn() throws Exception {
+        DataBankWriter.Rows rows = HITS.create(createEvent(), BANK, 2);
+        assertTrue(rows.hasColumn(TIME));
+        assertFalse(rows.hasColumn(MISSING));
+        assertNull(rows.getColumn(MISSING));
+        try {
+            rows.setFloat(MISSING, 0, 1.0f);
+            fail("no exception for a column missing from the schema");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(BANK + ".missing"));
+        }
+    }
+
+    @Test
+    public void testMissingBank() throws Exception {
+        assertNull(HITS.create(createEvent(), "TEST::missing", 2));
+    }
+}
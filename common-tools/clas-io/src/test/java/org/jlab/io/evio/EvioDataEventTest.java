@@ -0,0 +1,147 @@
+package org.jlab.io.evio;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.jlab.coda.jevio.DataType;
+import org.jlab.coda.jevio.EventBuilder;
+import org.jlab.coda.jevio.EvioBank;
+import org.jlab.coda.jevio.EvioEvent;
+import org.jlab.io.base.DataBank;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Reads the banks of an event built on a direct buffer, without a backing
+ * array and starting after the position 0 of the buffer, and compares them
+ * with the banks of the same event built from a byte array.
+ */
+public class EvioDataEventTest {
+
+    private static final int NROWS = 13;
+    private static final int PADDING = 37;
+
+    private static EvioDataDictionary createDictionary() {
+        EvioDataDictionary dictionary = new EvioDataDictionary();
+        dictionary.addDescriptor(new EvioDataDescriptor(
+                "TEST:hits:1200:1201/id:1:int32/sector:2:int8/adc:3:int16/time:4:float32/doca:5:float64"));
+        dictionary.addDescriptor(new EvioDataDescriptor("TEST:other:1300:1301/id:1:int32"));
+        return dictionary;
+    }
+
+    /**
+     * bytes of an event with the banks TEST::hits and TEST::other.
+     */
+    private static byte[] createEventBytes(EvioDataDictionary dictionary) throws Exception {
+        EventBuilder builder = new EventBuilder(1, DataType.BANK, 0);
+        EvioEvent base = builder.getEvent();
+        builder.addChild(base, new EvioBank(10, DataType.ALSOBANK, 0));
+        ByteBuffer bb = ByteBuffer.allocate(base.getTotalBytes());
+        bb.order(ByteOrder.LITTLE_ENDIAN);
+        base.write(bb);
+        bb.flip();
+
+        EvioDataEvent event = new EvioDataEvent(bb, ByteOrder.LITTLE_ENDIAN, dictionary);
+        DataBank hits = event.createBank("TEST::hits", NROWS);
+        for (int row = 0; row < NROWS; row++) {
+            hits.setInt("id", row, row + 1);
+            hits.setByte("sector", row, (byte) (row % 6 + 1));
+            hits.setShort("adc", row, (short) (100 * row - 3));
+            hits.setFloat("time", row, 0.5f * row - 2.0f);
+            hits.setDouble("doca", row, 0.01 * row * row);
+        }
+        event.appendBank(hits);
+        DataBank other = event.createBank("TEST::other", 1);
+        other.setInt("id", 0, 42);
+        event.appendBank(other);
+
+        ByteBuffer buffer = event.getEventBuffer().duplicate();
+        buffer.position(0);
+        byte[] bytes = new byte[buffer.limit()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * direct buffer holding the event after PADDING bytes, positioned on it.
+     */
+    private static ByteBuffer createDirectBuffer(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(PADDING + bytes.length + PADDING);
+        for (int i = 0; i < buffer.capacity(); i++) {
+            buffer.put(i, (byte) 0x5A);
+        }
+        buffer.position(PADDING);
+        buffer.put(bytes);
+        buffer.position(PADDING);
+        buffer.limit(PADDING + bytes.length);
+        return buffer;
+    }
+
+    private static void assertSameBanks(EvioDataEvent expected, EvioDataEvent event) {
+        assertTrue(event.hasBank("TEST::hits"));
+        assertTrue(event.hasBank("TEST::other"));
+        DataBank e = expected.getBank("TEST::hits");
+        DataBank hits = event.getBank("TEST::hits");
+        assertNotNull(hits);
+        assertEquals(NROWS, e.rows());
+        assertEquals(e.rows(), hits.rows());
+        for (int row = 0; row < NROWS; row++) {
+            assertEquals(e.getInt("id", row), hits.getInt("id", row));
+            assertEquals(e.getByte("sector", row), hits.getByte("sector", row));
+            assertEquals(e.getShort("adc", row), hits.getShort("adc", row));
+            assertEquals(e.getFloat("time", row), hits.getFloat("time", row), 0.0f);
+            assertEquals(e.getDouble("doca", row), hits.getDouble("doca", row), 0.0);
+        }
+        assertEquals(42, event.getBank("TEST::other").getInt("id", 0));
+    }
+
+    @Test
+    public void testDirectBuffer() throws Exception {
+        EvioDataDictionary dictionary = createDictionary();
+        byte[] bytes = createEventBytes(dictionary);
+        EvioDataEvent expected = new EvioDataEvent(bytes, ByteOrder.LITTLE_ENDIAN, dictionary);
+        assertEquals(7, expected.getBank("TEST::hits").getInt("id", 6));
+        assertEquals(-0.5f, expected.getBank("TEST::hits").getFloat("time", 3), 0.0f);
+
+        ByteBuffer buffer = createDirectBuffer(bytes);
+        EvioDataEvent event = new EvioDataEvent(buffer, ByteOrder.LITTLE_ENDIAN, dictionary);
+        // the event reads the buffer in place, from its position
+        assertFalse(event.getEventBuffer().hasArray());
+        assertEquals(bytes.length, event.getEventBuffer().limit());
+        assertEquals(PADDING, buffer.position());
+        assertSameBanks(expected, event);
+        assertArrayEquals(expected.getByte(1201, 2), event.getByte(1201, 2));
+        assertArrayEquals(expected.getDouble(1201, 5), event.getDouble(1201, 5), 0.0);
+    }
+
+    @Test
+    public void testCopyDirectEvent() throws Exception {
+        EvioDataDictionary dictionary = createDictionary();
+        byte[] bytes = createEventBytes(dictionary);
+        EvioDataEvent expected = new EvioDataEvent(bytes, ByteOrder.LITTLE_ENDIAN, dictionary);
+        EvioDataEvent event = new EvioDataEvent(createDirectBuffer(bytes), ByteOrder.LITTLE_ENDIAN, dictionary);
+
+        EvioDataEvent copy = new EvioDataEvent(bytes.clone(), ByteOrder.LITTLE_ENDIAN, dictionary);
+        copy.copyEvent(event);
+        assertTrue(copy.getEventBuffer().hasArray());
+        assertEquals(bytes.length, copy.getEventBuffer().limit());
+        assertSameBanks(expected, copy);
+    }
+
+    @Test
+    public void testCopySlice() throws Exception {
+        EvioDataDictionary dictionary = createDictionary();
+        byte[] bytes = createEventBytes(dictionary);
+        EvioDataEvent expected = new EvioDataEvent(bytes, ByteOrder.LITTLE_ENDIAN, dictionary);
+
+        // an event on a part of a larger array
+        byte[] array = new byte[PADDING + bytes.length + PADDING];
+        System.arraycopy(bytes, 0, array, PADDING, bytes.length);
+        ByteBuffer buffer = ByteBuffer.wrap(array, PADDING, bytes.length);
+        EvioDataEvent event = new EvioDataEvent(buffer, ByteOrder.LITTLE_ENDIAN, dictionary);
+        assertSameBanks(expected, event);
+
+        EvioDataEvent copy = new EvioDataEvent(bytes.clone(), ByteOrder.LITTLE_ENDIAN, dictionary);
+        copy.copyEvent(event);
+        assertSameBanks(expected, copy);
+    }
+}
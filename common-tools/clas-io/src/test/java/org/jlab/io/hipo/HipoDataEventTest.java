@@ -0,0 +1,164 @@
+package org.jlab.io.hipo;
+
+import org.jlab.io.base.DataBank;
+import org.jlab.io.base.DataColumn;
+import org.jlab.io.base.DataEvent;
+import org.jlab.jnp.hipo.schema.Schema;
+import org.jlab.jnp.hipo.schema.SchemaFactory;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the banks returned by HipoDataEvent.getBank(): the same instance
+ * until the event is modified, and the values of the column handles of
+ * HipoDataBank against the setters and getters taking the column name.
+ */
+public class HipoDataEventTest {
+
+    private static final int NROWS = 11;
+
+    private static SchemaFactory createFactory() throws Exception {
+        SchemaFactory factory = new SchemaFactory();
+        factory.addSchema(new Schema("{40,TEST::hits}[1,id,SHORT][2,sector,BYTE][3,tdc,INT][4,time,FLOAT][5,doca,DOUBLE][6,timestamp,LONG]"));
+        factory.addSchema(new Schema("{41,TEST::other}[1,id,INT]"));
+        return factory;
+    }
+
+    private static DataBank createHits(DataEvent event, int offset) {
+        DataBank bank = event.createBank("TEST::hits", NROWS);
+        for (int row = 0; row < NROWS; row++) {
+            bank.setShort("id", row, (short) (row + offset));
+            bank.setByte("sector", row, (byte) (row % 6 + 1));
+            bank.setInt("tdc", row, 1000 * row - 7 + offset);
+            bank.setFloat("time", row, 0.25f * row + offset);
+            bank.setDouble("doca", row, 0.01 * row * row + offset);
+            bank.setLong("timestamp", row, 123456789012L + row + offset);
+        }
+        return bank;
+    }
+
+    private static DataEvent createEvent(int offset) throws Exception {
+        DataEvent event = new HipoDataSync(createFactory()).createEvent();
+        event.appendBank(createHits(event, offset));
+        return event;
+    }
+
+    @Test
+    public void testCachedBank() throws Exception {
+        DataEvent event = createEvent(0);
+        DataBank bank = event.getBank("TEST::hits");
+        assertSame(bank, event.getBank("TEST::hits"));
+        // changes made through the bank are seen by the next getBank()
+        bank.setInt("tdc", 3, -42);
+        assertEquals(-42, event.getBank("TEST::hits").getInt("tdc", 3));
+        assertNull(event.getBank("TEST::missing"));
+    }
+
+    @Test
+    public void testAppendInvalidates() throws Exception {
+        DataEvent event = createEvent(0);
+        DataBank bank = event.getBank("TEST::hits");
+
+        DataBank other = event.createBank("TEST::other", 1);
+        other.setInt("id", 0, 5);
+        event.appendBank(other);
+        DataBank again = event.getBank("TEST::hits");
+        assertNotSame(bank, again);
+        assertEquals(bank.rows(), again.rows());
+        assertEquals(bank.getLong("timestamp", NROWS - 1), again.getLong("timestamp", NROWS - 1));
+        assertEquals(5, event.getBank("TEST::other").getInt("id", 0));
+
+        // a bank written again is read with its new contents
+        event.removeBank("TEST::hits");
+        event.appendBank(createHits(event, 100));
+        DataBank replaced = event.getBank("TEST::hits");
+        assertNotSame(again, replaced);
+        assertEquals(100, replaced.getShort("id", 0));
+        assertEquals(1000 * 2 - 7 + 100, replaced.getInt("tdc", 2));
+    }
+
+    @Test
+    public void testRemoveInvalidates() throws Exception {
+        DataEvent event = createEvent(0);
+        event.appendBank(event.createBank("TEST::other", 1));
+        DataBank hits = event.getBank("TEST::hits");
+
+        event.removeBank("TEST::other");
+        assertFalse(event.hasBank("TEST::other"));
+        DataBank again = event.getBank("TEST::hits");
+        assertNotSame(hits, again);
+        assertEquals(hits.getInt("tdc", 4), again.getInt("tdc", 4));
+
+        event.removeBank("TEST::hits");
+        assertFalse(event.hasBank("TEST::hits"));
+    }
+
+    @Test
+    public void testInitDictionaryInvalidates() throws Exception {
+        HipoDataEvent event = (HipoDataEvent) createEvent(0);
+        DataBank bank = event.getBank("TEST::hits");
+        event.initDictionary(createFactory());
+        DataBank again = event.getBank("TEST::hits");
+        assertNotSame(bank, again);
+        assertEquals(bank.getDouble("doca", 5), again.getDouble("doca", 5), 0.0);
+    }
+
+    @Test
+    public void testColumnsAgainstNames() throws Exception {
+        DataEvent event = createEvent(0);
+        DataBank expected = event.getBank("TEST::hits");
+
+        // read through the handles
+        DataColumn id = expected.getColumn("id");
+        DataColumn sector = expected.getColumn("sector");
+        DataColumn tdc = expected.getColumn("tdc");
+        DataColumn time = expected.getColumn("time");
+        DataColumn doca = expected.getColumn("doca");
+        DataColumn stamp = expected.getColumn("timestamp");
+        assertEquals("tdc", tdc.getName());
+        for (int row = 0; row < NROWS; row++) {
+            assertEquals(expected.getShort("id", row), id.getShort(row));
+            assertEquals(expected.getByte("sector", row), sector.getByte(row));
+            assertEquals(expected.getInt("tdc", row), tdc.getInt(row));
+            assertEquals(expected.getFloat("time", row), time.getFloat(row), 0.0f);
+            assertEquals(expected.getDouble("doca", row), doca.getDouble(row), 0.0);
+            assertEquals(expected.getLong("timestamp", row), stamp.getLong(row));
+        }
+
+        // written through the handles, read with the names
+        DataBank bank = event.createBank("TEST::hits", NROWS);
+        for (int row = 0; row < NROWS; row++) {
+            bank.getColumn("id").setShort(row, expected.getShort("id", row));
+            bank.getColumn("sector").setByte(row, expected.getByte("sector", row));
+            bank.getColumn("tdc").setInt(row, expected.getInt("tdc", row));
+            bank.getColumn("time").setFloat(row, expected.getFloat("time", row));
+            bank.getColumn("doca").setDouble(row, expected.getDouble("doca", row));
+            bank.getColumn("timestamp").setLong(row, expected.getLong("timestamp", row));
+        }
+        for (int row = 0; row < NROWS; row++) {
+            assertEquals(expected.getShort("id", row), bank.getShort("id", row));
+            assertEquals(expected.getByte("sector", row), bank.getByte("sector", row));
+            assertEquals(expected.getInt("tdc", row), bank.getInt("tdc", row));
+            assertEquals(expected.getFloat("time", row), bank.getFloat("time", row), 0.0f);
+            assertEquals(expected.getDouble("doca", row), bank.getDouble("doca", row), 0.0);
+            assertEquals(expected.getLong("timestamp", row), bank.getLong("timestamp", row));
+        }
+
+        // a handle taken before a change by name sees the change
+        tdc.setInt(1, 77);
+        assertEquals(77, expected.getInt("tdc", 1));
+        expected.setFloat("time", 2, -1.5f);
+        assertEquals(-1.5f, time.getFloat(2), 0.0f);
+    }
+
+    @Test
+    public void testMissingColumn() throws Exception {
+        DataBank bank = createEvent(0).getBank("TEST::hits");
+        try {
+            bank.getColumn("missing");
+            fail("no exception for a column missing from the bank");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("TEST::hits.missing"));
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package org.jlab.io.hipo;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.jlab.io.base.DataBank;
+import org.jlab.io.base.DataEvent;
+import org.jlab.jnp.hipo.schema.Schema;
+import org.jlab.jnp.hipo.schema.SchemaFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the index written with the file, after a write and read round
+ * trip, against a full scan of the events: the event numbers, the rows of
+ * the banks, the values of the summary columns by event and the selections.
+ */
+public class HipoEventIndexTest {
+
+    private static final int    NEVENTS = 40;
+    private static final int[]  PIDS    = {11, 211, 2212, 211, 22, 11, -211};
+    private static final long   RARE    = 1L << 40;
+
+    private static File file;
+
+    // contents of the file, read back with a full scan
+    private static final List<int[]> pids    = new ArrayList<int[]>();
+    private static final List<int[]> layers  = new ArrayList<int[]>();
+    private static final List<long[]> config = new ArrayList<long[]>();
+
+    @BeforeClass
+    public static void createFile() throws Exception {
+        SchemaFactory factory = new SchemaFactory();
+        factory.addSchema(new Schema("{11,RUN::config}[1,run,INT][2,event,INT][4,trigger,LONG]"));
+        factory.addSchema(new Schema("{30,TEST::p}[1,pid,INT][2,px,FLOAT]"));
+        factory.addSchema(new Schema("{31,TEST::h}[1,layer,BYTE]"));
+
+        file = File.createTempFile("index", ".hipo");
+        HipoDataSync writer = new HipoDataSync(factory);
+        writer.setIndex("TEST::p.pid", "TEST::h.layer", "TEST::p.px");
+        writer.open(file.getAbsolutePath());
+        for (int i = 0; i < NEVENTS; i++) {
+            DataEvent event = writer.createEvent();
+            DataBank run = event.createBank("RUN::config", 1);
+            run.setInt("run", 0, 100 + i / 10);
+            run.setInt("event", 0, 1000 + i);
+            run.setLong("trigger", 0, (1L << (i % 5)) | (i % 7 == 0 ? RARE : 0));
+            event.appendBank(run);
+            int nrows = i % 4 == 3 ? 0 : i % 5;
+            if (nrows > 0) {
+                DataBank bank = event.createBank("TEST::p", nrows);
+                for (int row = 0; row < nrows; row++) {
+                    bank.setInt("pid", row, PIDS[(i + 2 * row) % PIDS.length]);
+                    bank.setFloat("px", row, 0.1f * row);
+                }
+                event.appendBank(bank);
+            }
+            if (i % 3 == 0) {
+                DataBank bank = event.createBank("TEST::h", 2);
+                for (int row = 0; row < 2; row++) {
+                    bank.setByte("layer", row, (byte) (i + row));
+                }
+                event.appendBank(bank);
+            }
+            writer.writeEvent(event);
+        }
+        writer.close();
+
+        HipoDataSource reader = new HipoDataSource();
+        reader.open(file.getAbsolutePath());
+        while (reader.hasEvent()) {
+            DataEvent event = reader.getNextEvent();
+            DataBank run = event.getBank("RUN::config");
+            config.add(new long[]{run.getInt("run", 0), run.getInt("event", 0), run.getLong("trigger", 0)});
+            pids.add(event.hasBank("TEST::p") ? column(event.getBank("TEST::p")) : new int[0]);
+            if (event.hasBank("TEST::h")) {
+                DataBank bank = event.getBank("TEST::h");
+                int[] values = new int[bank.rows()];
+                for (int row = 0; row < values.length; row++) {
+                    values[row] = bank.getByte("layer", row);
+                }
+                layers.add(values);
+            } else {
+                layers.add(new int[0]);
+            }
+        }
+        assertEquals(NEVENTS, pids.size());
+    }
+
+    private static int[] column(DataBank bank) {
+        int[] values = new int[bank.rows()];
+        for (int row = 0; row < values.length; row++) {
+            values[row] = bank.getInt("pid", row);
+        }
+        return values;
+    }
+
+    @AfterClass
+    public static void deleteFile() {
+        if (file != null) {
+            new File(HipoEventIndex.getIndexFile(file.getAbsolutePath())).delete();
+            file.delete();
+        }
+    }
+
+    private static int count(int[] values, int value) {
+        int n = 0;
+        for (int v : values) {
+            if (v == value) n++;
+        }
+        return n;
+    }
+
+    private static void checkIndex(HipoEventIndex index) {
+        assertEquals(NEVENTS, index.getEventCount());
+        assertTrue(index.getBankList().containsAll(Arrays.asList("RUN::config", "TEST::p", "TEST::h")));
+        assertEquals(Arrays.asList("TEST::p.pid", "TEST::h.layer", "TEST::p.px"), index.getColumnList());
+        for (int i = 0; i < NEVENTS; i++) {
+            assertEquals(config.get(i)[0], index.getRunNumber(i));
+            assertEquals(config.get(i)[1], index.getEventNumber(i));
+            assertEquals(config.get(i)[2], index.getTrigger(i));
+            assertEquals(1, index.getRows("RUN::config", i));
+            assertEquals(pids.get(i).length, index.getRows("TEST::p", i));
+            assertEquals(layers.get(i).length, index.getRows("TEST::h", i));
+            assertEquals(0, index.getRows("TEST::missing", i));
+            // values of each event, from the column offsets
+            assertArrayEquals(pids.get(i), index.getValues("TEST::p.pid", i));
+            assertArrayEquals(layers.get(i), index.getValues("TEST::h.layer", i));
+            // not an integer column
+            assertEquals(0, index.getValues("TEST::p.px", i).length);
+        }
+    }
+
+    private static void checkSelections(HipoEventIndex index) {
+        List<Integer> banks  = new ArrayList<Integer>();
+        List<Integer> pair   = new ArrayList<Integer>();
+        List<Integer> twoPip = new ArrayList<Integer>();
+        List<Integer> rows   = new ArrayList<Integer>();
+        List<Integer> rare   = new ArrayList<Integer>();
+        for (int i = 0; i < NEVENTS; i++) {
+            if (pids.get(i).length > 0 && layers.get(i).length > 0) banks.add(i);
+            if (count(pids.get(i), 11) > 0 && count(pids.get(i), 2212) > 0) pair.add(i);
+            if (count(pids.get(i), 11) > 0 && count(pids.get(i), 211) > 1) twoPip.add(i);
+            if (pids.get(i).length >= 3) rows.add(i);
+            if ((config.get(i)[2] & RARE) != 0) rare.add(i);
+        }
+        assertFalse(twoPip.isEmpty());
+        assertSelection(banks, index.selectBanks("TEST::p", "TEST::h"));
+        assertSelection(pair, index.selectValues("TEST::p.pid", 11, 2212));
+        assertSelection(pair, index.selectValues("TEST::p.pid", 2212, 11));
+        assertSelection(twoPip, index.selectValues("TEST::p.pid", 211, 11, 211));
+        assertSelection(rows, index.selectRows("TEST::p", 3));
+        assertSelection(rare, index.selectTrigger(RARE));
+        assertEquals(0, index.selectBanks("TEST::missing").length);
+        assertEquals(NEVENTS, index.selectValues("TEST::p.pid").length);
+    }
+
+    private static void assertSelection(List<Integer> expected, int[] selected) {
+        assertEquals(expected.size(), selected.length);
+        for (int i = 0; i < selected.length; i++) {
+            assertEquals(expected.get(i).intValue(), selected[i]);
+        }
+    }
+
+    @Test
+    public void testWrittenIndex() {
+        HipoEventIndex index = HipoEventIndex.read(HipoEventIndex.getIndexFile(file.getAbsolutePath()));
+        checkIndex(index);
+        checkSelections(index);
+    }
+
+    @Test
+    public void testBuildAndReadBack() throws Exception {
+        HipoEventIndex built = HipoEventIndex.build(file.getAbsolutePath(), "TEST::p.pid", "TEST::h.layer", "TEST::p.px");
+        checkIndex(built);
+        checkSelections(built);
+
+        File copy = File.createTempFile("index", ".idx");
+        try {
+            built.write(copy.getAbsolutePath());
+            HipoEventIndex index = HipoEventIndex.read(copy.getAbsolutePath());
+            checkIndex(index);
+            checkSelections(index);
+        } finally {
+            copy.delete();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownColumn() {
+        HipoEventIndex.build(file.getAbsolutePath(), "TEST::p.pid").selectValues("TEST::h.layer", 1);
+    }
+}
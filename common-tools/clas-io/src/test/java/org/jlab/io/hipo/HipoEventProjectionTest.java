@@ -0,0 +1,161 @@
+package org.jlab.io.hipo;
+
+import java.io.File;
+import java.util.Arrays;
+import org.jlab.io.base.DataBank;
+import org.jlab.io.base.DataEvent;
+import org.jlab.jnp.hipo.io.HipoReader;
+import org.jlab.jnp.hipo.schema.Schema;
+import org.jlab.jnp.hipo.schema.SchemaFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that reading a file with a bank or column selection keeps the
+ * selected banks with the same values as a full read, drops the other banks
+ * and returns every event of the file.
+ */
+public class HipoEventProjectionTest {
+
+    private static final int NEVENTS = 12;
+
+    private static File file;
+
+    // event i has TEST::a if i is even and TEST::b if i is a multiple of 3,
+    // events 1, 5, 7 and 11 have no bank
+    private static boolean hasA(int i) {
+        return i % 2 == 0;
+    }
+
+    private static boolean hasB(int i) {
+        return i % 3 == 0;
+    }
+
+    static SchemaFactory createFactory() throws Exception {
+        SchemaFactory factory = new SchemaFactory();
+        factory.addSchema(new Schema("{20,TEST::a}[1,id,INT][2,x,FLOAT]"));
+        factory.addSchema(new Schema("{21,TEST::b}[1,id,INT][2,y,FLOAT][3,z,FLOAT]"));
+        return factory;
+    }
+
+    static void writeFile(File output, SchemaFactory factory, int nevents) {
+        HipoDataSync writer = new HipoDataSync(factory);
+        writer.open(output.getAbsolutePath());
+        for (int i = 0; i < nevents; i++) {
+            DataEvent event = writer.createEvent();
+            if (hasA(i)) {
+                DataBank bank = event.createBank("TEST::a", 2);
+                for (int row = 0; row < 2; row++) {
+                    bank.setInt("id", row, 10 * i + row);
+                    bank.setFloat("x", row, 0.5f * i + row);
+                }
+                event.appendBank(bank);
+            }
+            if (hasB(i)) {
+                DataBank bank = event.createBank("TEST::b", 3);
+                for (int row = 0; row < 3; row++) {
+                    bank.setInt("id", row, 100 * i + row);
+                    bank.setFloat("y", row, 1.5f * i - row);
+                    bank.setFloat("z", row, -2.5f * i + row);
+                }
+                event.appendBank(bank);
+            }
+            writer.writeEvent(event);
+        }
+        writer.close();
+    }
+
+    @BeforeClass
+    public static void createFile() throws Exception {
+        file = File.createTempFile("projection", ".hipo");
+        writeFile(file, createFactory(), NEVENTS);
+    }
+
+    @AfterClass
+    public static void deleteFile() {
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testBankSelection() {
+        HipoDataSource full = new HipoDataSource();
+        full.open(file.getAbsolutePath());
+        HipoDataSource reader = new HipoDataSource();
+        reader.setBanks("TEST::b");
+        reader.open(file.getAbsolutePath());
+        assertNotNull(reader.getProjection());
+
+        int nevents = 0;
+        while (reader.hasEvent()) {
+            DataEvent event = reader.getNextEvent();
+            DataEvent reference = full.getNextEvent();
+            assertFalse(event.hasBank("TEST::a"));
+            assertEquals(hasA(nevents), reference.hasBank("TEST::a"));
+            assertEquals(hasB(nevents), event.hasBank("TEST::b"));
+            if (hasB(nevents)) {
+                DataBank bank = event.getBank("TEST::b");
+                DataBank expected = reference.getBank("TEST::b");
+                assertEquals(expected.rows(), bank.rows());
+                for (int row = 0; row < bank.rows(); row++) {
+                    assertEquals(expected.getInt("id", row), bank.getInt("id", row));
+                    assertEquals(expected.getFloat("y", row), bank.getFloat("y", row), 0.0f);
+                    assertEquals(expected.getFloat("z", row), bank.getFloat("z", row), 0.0f);
+                }
+            }
+            nevents++;
+        }
+        assertFalse(full.hasEvent());
+        assertEquals(NEVENTS, nevents);
+    }
+
+    @Test
+    public void testColumnSelection() {
+        HipoDataSource reader = new HipoDataSource();
+        reader.setBanks("TEST::a");
+        reader.setColumns("TEST::b", "y");
+        reader.open(file.getAbsolutePath());
+
+        int nevents = 0;
+        while (reader.hasEvent()) {
+            DataEvent event = reader.getNextEvent();
+            assertEquals(hasA(nevents), event.hasBank("TEST::a"));
+            assertEquals(hasB(nevents), event.hasBank("TEST::b"));
+            if (hasA(nevents)) {
+                DataBank bank = event.getBank("TEST::a");
+                assertEquals(2, bank.rows());
+                for (int row = 0; row < 2; row++) {
+                    assertEquals(10 * nevents + row, bank.getInt("id", row));
+                    assertEquals(0.5f * nevents + row, bank.getFloat("x", row), 0.0f);
+                }
+            }
+            if (hasB(nevents)) {
+                DataBank bank = event.getBank("TEST::b");
+                assertEquals(3, bank.rows());
+                for (int row = 0; row < 3; row++) {
+                    assertEquals(1.5f * nevents - row, bank.getFloat("y", row), 0.0f);
+                }
+                HipoDataEvent hipoEvent = (HipoDataEvent) event;
+                assertNull(hipoEvent.getHipoEvent().getNode(21, 1));
+                assertNull(hipoEvent.getHipoEvent().getNode(21, 3));
+            }
+            nevents++;
+        }
+        assertEquals(NEVENTS, nevents);
+    }
+
+    @Test
+    public void testHasAny() throws Exception {
+        HipoReader reader = new HipoReader();
+        reader.open(file.getAbsolutePath());
+        HipoEventProjection projection = new HipoEventProjection(reader.getSchemaFactory(),
+                Arrays.asList("TEST::b", "TEST::missing"));
+        assertEquals(NEVENTS, reader.getEventCount());
+        for (int i = 0; i < reader.getEventCount(); i++) {
+            assertEquals(hasB(i), projection.hasAny(reader.readEvent(i)));
+        }
+    }
+}
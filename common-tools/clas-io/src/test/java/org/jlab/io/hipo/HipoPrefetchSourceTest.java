@@ -0,0 +1,158 @@
+package org.jlab.io.hipo;
+
+import java.io.File;
+import org.jlab.io.base.DataEvent;
+import org.jlab.io.base.DataEventList;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Compares the events read by HipoPrefetchSource with the events read by
+ * HipoDataSource: in sequence, with gotoEvent() and with getEventList(),
+ * with blocks smaller than the file so that several threads read ahead.
+ */
+public class HipoPrefetchSourceTest {
+
+    private static final int NEVENTS   = 1037;
+    private static final int NTHREADS  = 3;
+    private static final int BLOCKSIZE = 50;
+    private static final int MAXBLOCKS = 4;
+
+    private static File file;
+
+    @BeforeClass
+    public static void createFile() throws Exception {
+        file = File.createTempFile("prefetch", ".hipo");
+        HipoEventProjectionTest.writeFile(file, HipoEventProjectionTest.createFactory(), NEVENTS);
+    }
+
+    @AfterClass
+    public static void deleteFile() {
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    private static HipoPrefetchSource openPrefetch() {
+        HipoPrefetchSource reader = new HipoPrefetchSource(NTHREADS, BLOCKSIZE, MAXBLOCKS);
+        reader.open(file.getAbsolutePath());
+        return reader;
+    }
+
+    private static void assertSameEvent(String message, DataEvent expected, DataEvent event) {
+        assertNotNull(message, event);
+        assertArrayEquals(message, ((HipoDataEvent) expected).getHipoEvent().getDataBuffer(),
+                ((HipoDataEvent) event).getHipoEvent().getDataBuffer());
+    }
+
+    private static int countPrefetchThreads() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().startsWith("HipoPrefetchSource-")) count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void testSequential() {
+        HipoDataSource expected = new HipoDataSource();
+        expected.open(file.getAbsolutePath());
+        HipoPrefetchSource reader = openPrefetch();
+        assertEquals(expected.getSize(), reader.getSize());
+
+        int nevents = 0;
+        while (reader.hasEvent()) {
+            assertTrue(expected.hasEvent());
+            assertEquals(nevents, reader.getCurrentIndex());
+            assertSameEvent("event " + nevents, expected.getNextEvent(), reader.getNextEvent());
+            nevents++;
+        }
+        assertFalse(expected.hasEvent());
+        assertEquals(NEVENTS, nevents);
+        assertNull(reader.getNextEvent());
+        reader.close();
+        expected.close();
+    }
+
+    @Test
+    public void testGotoEvent() {
+        HipoDataSource expected = new HipoDataSource();
+        expected.open(file.getAbsolutePath());
+        HipoPrefetchSource reader = openPrefetch();
+
+        // forward and backward, across and inside the blocks
+        int[] indices = {0, 1, 49, 50, 51, 500, 3, NEVENTS - 1, 250, 251, 252, 999, 10};
+        for (int index : indices) {
+            assertSameEvent("event " + index, expected.gotoEvent(index), reader.gotoEvent(index));
+            // reading goes on from the event after
+            if (index + 1 < NEVENTS) {
+                assertEquals(index + 1, reader.getCurrentIndex());
+                assertSameEvent("event " + (index + 1), expected.gotoEvent(index + 1), reader.getNextEvent());
+            }
+        }
+        assertNull(reader.gotoEvent(NEVENTS));
+        assertNull(reader.gotoEvent(-1));
+
+        reader.reset();
+        assertSameEvent("event 0 after reset", expected.gotoEvent(0), reader.getNextEvent());
+        reader.close();
+        expected.close();
+    }
+
+    @Test
+    public void testEventList() {
+        HipoDataSource expected = new HipoDataSource();
+        expected.open(file.getAbsolutePath());
+        HipoPrefetchSource reader = openPrefetch();
+
+        int[][] ranges = {{0, 10}, {45, 160}, {900, NEVENTS}, {1000, NEVENTS + 20}, {300, 300}};
+        for (int[] range : ranges) {
+            DataEventList list = reader.getEventList(range[0], range[1]);
+            DataEventList reference = expected.getEventList(range[0], range[1]);
+            assertEquals(reference.getSize(), list.getSize());
+            for (int i = 0; i < list.getSize(); i++) {
+                assertSameEvent("event " + (range[0] + i), reference.getEvent(i), list.getEvent(i));
+            }
+        }
+
+        // the next events in blocks, the last list is shorter
+        reader.reset();
+        int index = 0;
+        while (reader.hasEvent()) {
+            DataEventList list = reader.getEventList(100);
+            assertEquals(Math.min(100, NEVENTS - index), list.getSize());
+            for (int i = 0; i < list.getSize(); i++) {
+                assertSameEvent("event " + index, expected.gotoEvent(index), list.getEvent(i));
+                index++;
+            }
+        }
+        assertEquals(NEVENTS, index);
+        reader.close();
+        expected.close();
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        int before = countPrefetchThreads();
+        for (int i = 0; i < 20; i++) {
+            HipoPrefetchSource reader = openPrefetch();
+            reader.getNextEvent();
+            reader.gotoEvent(NEVENTS / 2);
+            reader.close();
+            assertFalse(reader.hasEvent());
+        }
+        // reopening the same source closes the previous file
+        HipoPrefetchSource reader = openPrefetch();
+        reader.open(file.getAbsolutePath());
+        assertEquals(NEVENTS, reader.getSize());
+        reader.close();
+        // the pool threads may end just after the pool is terminated
+        long timeout = System.currentTimeMillis() + 5000;
+        while (countPrefetchThreads() > before && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        assertEquals(before, countPrefetchThreads());
+    }
+}
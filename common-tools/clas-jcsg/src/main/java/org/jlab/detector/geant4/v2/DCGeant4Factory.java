@@ -330,6 +330,23 @@ final class Wire {
         center = leftend.plus(rightend).dividedBy(2.0);
     }
 
+    /**
+     * wire with the given (already transformed) points, used to restore a
+     * geometry snapshot
+     */
+    Wire(int isuper, int ilayer, int iwire, Vector3d midpoint, Vector3d center,
+            Vector3d direction, Vector3d leftend, Vector3d rightend) {
+        this.isuper = isuper;
+        this.ilayer = ilayer;
+        this.iwire = iwire;
+        this.ireg = isuper / 2;
+        this.midpoint = midpoint;
+        this.center = center;
+        this.direction = direction;
+        this.leftend = leftend;
+        this.rightend = rightend;
+    }
+
     private boolean isSensitiveWire(int isuper, int ilayer, int iwire) {
         return iwire>0 && iwire<=dbref.nsensewires() &&
                 ilayer>0 && ilayer<=dbref.nsenselayers(isuper);
@@ -486,6 +503,30 @@ public final class DCGeant4Factory extends Geant4Factory {
         }
     }
 
+    ///////////////////////////////////////////////////
+    /**
+     * Restores the wires and layer and region midpoints saved in a geometry
+     * snapshot. The detector volumes are not created.
+     */
+    DCGeant4Factory(Wire[][][][] wires, Vector3d[][][] layerMids, Vector3d[][] regionMids) {
+        motherVolume = new G4World("fc");
+        this.wires = wires;
+        this.layerMids = layerMids;
+        this.regionMids = regionMids;
+    }
+
+    Wire getWire(int isec, int isuper, int ilayer, int iwire) {
+        return wires[isec][isuper][ilayer][iwire];
+    }
+
+    public int getNumberOfLayers(int isec, int isuper) {
+        return wires[isec][isuper].length;
+    }
+
+    public int getNumberOfWires(int isec, int isuper, int ilayer) {
+        return wires[isec][isuper][ilayer].length;
+    }
+
     public Vector3d getWireMidpoint(int isec, int isuper, int ilayer, int iwire) {
         return wires[isec][isuper][ilayer][iwire].mid();
     }
@@ -498,6 +539,10 @@ public final class DCGeant4Factory extends Geant4Factory {
         return wires[isec][isuper][ilayer][iwire].right();
     }
 
+    public Vector3d getWireDirection(int isec, int isuper, int ilayer, int iwire) {
+        return wires[isec][isuper][ilayer][iwire].dir();
+    }
+
     public Vector3d getRegionMidpoint(int isec, int iregion) {
         return regionMids[isec][iregion].clone();
     }
@@ -0,0 +1,562 @@
+package org.jlab.detector.geant4.v2;
+
+import eu.mihosoft.vrl.v3d.Vector3d;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.jlab.detector.base.DetectorType;
+import org.jlab.detector.base.GeometryFactory;
+import org.jlab.detector.calib.utils.DatabaseConstantProvider;
+import org.jlab.geom.base.ConstantProvider;
+import org.jlab.geom.prim.Plane3D;
+import org.jlab.utils.options.OptionParser;
+
+/**
+ * Derived geometry of the forward detectors used by DC tracking: the DC
+ * wire end and mid points with the layer and region midpoints, the FTOF
+ * constants from which the paddle volumes are rebuilt, and the frontal planes
+ * of the FTOF panels, PCAL and EC.
+ *
+ * A snapshot is created once per run and variations in a JVM and shared by
+ * all the engines asking for it. If a directory is given, it is also saved
+ * there as a versioned binary file and read back by the next jobs, which then
+ * neither query the database nor build the DC, PCAL and EC volumes.
+ *
+ * The file records the run, variations, ministagger status and database
+ * address it was made for, and a snapshot read back is only used if they
+ * are those of the job; otherwise the geometry is built again and the file
+ * replaced. The hash of the geometry constants is recorded but not checked
+ * on load, since that needs the database queries the snapshot avoids: a
+ * directory should not be reused across changes of the geometry tables
+ * (main() with -check compares a file with the database).
+ */
+public class GeometrySnapshot {
+
+    private static final int MAGIC   = 0x47454f4d;
+    private static final int VERSION = 2;
+
+    private static final Map<String,GeometrySnapshot> snapshots = new HashMap<String,GeometrySnapshot>();
+
+    private final int     run;
+    private final String  dcVariation;
+    private final String  variation;
+    private final boolean ministagger;
+    private final String  database;
+    private final String  constantsHash;
+
+    private final DCGeant4Factory dcDetector;
+    private final Constants       dcConstants;
+    private final Constants       ftofConstants;
+    private FTOFGeant4Factory     ftofDetector = null;
+
+    private final Plane3D[][] ftofFaces;
+    private final Plane3D[]   pcalFaces;
+    private final Plane3D[]   ecFaces;
+
+    private GeometrySnapshot(int run, String dcVariation, String variation, boolean ministagger,
+            String database, String constantsHash, DCGeant4Factory dcDetector, Constants dcConstants, Constants ftofConstants,
+            Plane3D[][] ftofFaces, Plane3D[] pcalFaces, Plane3D[] ecFaces){
+        this.run           = run;
+        this.dcVariation   = dcVariation;
+        this.variation     = variation;
+        this.ministagger   = ministagger;
+        this.database      = database;
+        this.constantsHash = constantsHash;
+        this.dcDetector    = dcDetector;
+        this.dcConstants   = dcConstants;
+        this.ftofConstants = ftofConstants;
+        this.ftofFaces     = ftofFaces;
+        this.pcalFaces     = pcalFaces;
+        this.ecFaces       = ecFaces;
+    }
+
+    /**
+     * Returns the snapshot for the given run and variations, creating it on
+     * the first call in the JVM.
+     * @param run run number of the geometry constants
+     * @param dcVariation variation of the DC geometry
+     * @param variation variation of the FTOF and ECAL geometry
+     * @param ministagger DC ministagger status
+     * @param directory directory where snapshots are read from and saved,
+     * null to keep the snapshot in memory only
+     * @return the snapshot
+     */
+    public static GeometrySnapshot getInstance(int run, String dcVariation, String variation,
+            boolean ministagger, String directory){
+        String key = GeometrySnapshot.getKey(run, dcVariation, variation, ministagger);
+        synchronized(snapshots){
+            GeometrySnapshot snapshot = snapshots.get(key);
+            if(snapshot!=null) return snapshot;
+
+            File file = directory==null ? null : new File(directory, key + ".bin");
+            if(file!=null && file.isFile()){
+                try {
+                    long start = System.currentTimeMillis();
+                    snapshot = GeometrySnapshot.read(file);
+                    System.out.println("[GeometrySnapshot] ---> read " + file.getPath() + " in "
+                            + (System.currentTimeMillis()-start) + " ms, constants hash " + snapshot.getConstantsHash());
+                } catch (IOException e) {
+                    System.out.println("[GeometrySnapshot] ---> error reading snapshot : " + file.getPath());
+                    snapshot = null;
+                }
+                String mismatch = snapshot==null ? null : snapshot.getMismatch(run, dcVariation, variation,
+                        ministagger, DatabaseConstantProvider.getDefaultAddress());
+                if(mismatch!=null){
+                    System.out.println("[GeometrySnapshot] ---> snapshot " + file.getPath() + " was made for "
+                            + mismatch + ", ignored");
+                    snapshot = null;
+                }
+            }
+            if(snapshot==null){
+                long start = System.currentTimeMillis();
+                snapshot = GeometrySnapshot.create(run, dcVariation, variation, ministagger);
+                System.out.println("[GeometrySnapshot] ---> created geometry for " + key + " in "
+                        + (System.currentTimeMillis()-start) + " ms");
+                if(file!=null){
+                    try {
+                        snapshot.write(file);
+                    } catch (IOException e) {
+                        System.out.println("[GeometrySnapshot] ---> error writing snapshot : " + file.getPath());
+                    }
+                }
+            }
+            snapshots.put(key, snapshot);
+            return snapshot;
+        }
+    }
+
+    /**
+     * compares the configuration recorded in the snapshot with the given one.
+     * @return the first recorded setting that differs, as "name value
+     * (expected value)", or null if they all match
+     */
+    String getMismatch(int run, String dcVariation, String variation, boolean ministagger, String database){
+        if(this.run!=run) return "run " + this.run + " (expected " + run + ")";
+        if(this.dcVariation.equals(dcVariation)==false){
+            return "DC variation " + this.dcVariation + " (expected " + dcVariation + ")";
+        }
+        if(this.variation.equals(variation)==false){
+            return "variation " + this.variation + " (expected " + variation + ")";
+        }
+        if(this.ministagger!=ministagger){
+            return "ministagger " + this.ministagger + " (expected " + ministagger + ")";
+        }
+        if(this.database.equals(database)==false){
+            return "database " + this.database + " (expected " + database + ")";
+        }
+        return null;
+    }
+
+    private static String getKey(int run, String dcVariation, String variation, boolean ministagger){
+        String str = "geometry_" + run + "_" + dcVariation + "_" + variation + "_" + (ministagger ? "ms1" : "ms0");
+        return str.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    /**
+     * builds the geometry from the database.
+     */
+    public static GeometrySnapshot create(int run, String dcVariation, String variation, boolean ministagger){
+        ConstantProvider providerDC   = GeometryFactory.getConstants(DetectorType.DC, run, dcVariation);
+        ConstantProvider providerFTOF = GeometryFactory.getConstants(DetectorType.FTOF, run, variation);
+        ConstantProvider providerEC   = GeometryFactory.getConstants(DetectorType.ECAL, run, variation);
+        Constants dcConstants   = new Constants(providerDC);
+        Constants ftofConstants = new Constants(providerFTOF);
+        Constants ecConstants   = new Constants(providerEC);
+
+        DCGeant4Factory   dcDetector   = new DCGeant4Factory(dcConstants, ministagger);
+        FTOFGeant4Factory ftofDetector = new FTOFGeant4Factory(ftofConstants);
+        ECGeant4Factory   ecDetector   = new ECGeant4Factory(ecConstants);
+        PCALGeant4Factory pcalDetector = new PCALGeant4Factory(ecConstants);
+
+        Plane3D[][] ftofFaces = new Plane3D[6][3];
+        Plane3D[]   pcalFaces = new Plane3D[6];
+        Plane3D[]   ecFaces   = new Plane3D[6];
+        for(int sector = 1; sector <= 6; sector++){
+            for(int layer = 1; layer <= 3; layer++){
+                ftofFaces[sector-1][layer-1] = ftofDetector.getFrontalFace(sector, layer);
+            }
+            pcalFaces[sector-1] = pcalDetector.getFrontalFace(sector);
+            ecFaces[sector-1]   = ecDetector.getFrontalFace(sector);
+        }
+
+        GeometrySnapshot snapshot = new GeometrySnapshot(run, dcVariation, variation, ministagger,
+                DatabaseConstantProvider.getDefaultAddress(), Constants.hash(dcConstants, ftofConstants, ecConstants),
+                dcDetector, dcConstants, ftofConstants, ftofFaces, pcalFaces, ecFaces);
+        snapshot.ftofDetector = ftofDetector;
+        return snapshot;
+    }
+
+    public String getKey(){
+        return GeometrySnapshot.getKey(run, dcVariation, variation, ministagger);
+    }
+
+    /**
+     * @return address of the database the geometry constants were read from
+     */
+    public String getDatabase(){
+        return database;
+    }
+
+    /**
+     * @return hash of the DC, FTOF and ECAL geometry constants the snapshot
+     * was derived from
+     */
+    public String getConstantsHash(){
+        return constantsHash;
+    }
+
+    /**
+     * @return the DC geometry; for a snapshot read from a file only the
+     * wires and the layer and region midpoints are available, not the volumes
+     */
+    public DCGeant4Factory getDCDetector(){
+        return dcDetector;
+    }
+
+    /**
+     * @return the DC geometry constants
+     */
+    public ConstantProvider getDCConstants(){
+        return dcConstants;
+    }
+
+    /**
+     * @return the FTOF geometry, rebuilt from the saved constants on first use
+     */
+    public synchronized FTOFGeant4Factory getFTOFDetector(){
+        if(ftofDetector==null) ftofDetector = new FTOFGeant4Factory(ftofConstants);
+        return ftofDetector;
+    }
+
+    /**
+     * @param sector 1-6
+     * @param layer 1 (1a), 2 (1b) or 3 (2)
+     * @return the frontal face of the FTOF panel
+     */
+    public Plane3D getFTOFFrontalFace(int sector, int layer){
+        return new Plane3D(ftofFaces[sector-1][layer-1]);
+    }
+
+    /**
+     * @param sector 1-6
+     * @return the frontal face of the PCAL
+     */
+    public Plane3D getPCALFrontalFace(int sector){
+        return new Plane3D(pcalFaces[sector-1]);
+    }
+
+    /**
+     * @param sector 1-6
+     * @return the frontal face of the EC
+     */
+    public Plane3D getECFrontalFace(int sector){
+        return new Plane3D(ecFaces[sector-1]);
+    }
+
+    /**
+     * saves the snapshot, through a temporary file renamed at the end so that
+     * concurrent jobs never read a partial file.
+     */
+    public void write(File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if(dir.isDirectory()==false&&dir.mkdirs()==false&&dir.isDirectory()==false){
+            throw new IOException("can not create directory " + dir);
+        }
+        File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+        try {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmp)));
+            try {
+                this.write(out);
+            } finally {
+                out.close();
+            }
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            tmp.delete();
+        }
+    }
+
+    public static GeometrySnapshot read(File file) throws IOException {
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)));
+        try {
+            return GeometrySnapshot.read(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(run);
+        out.writeUTF(dcVariation);
+        out.writeUTF(variation);
+        out.writeBoolean(ministagger);
+        out.writeUTF(database);
+        out.writeUTF(constantsHash);
+
+        dcConstants.write(out);
+        ftofConstants.write(out);
+
+        int nsectors = dcDetector.dbref.nsectors();
+        int nsupers  = dcDetector.dbref.nsuperlayers();
+        int nregions = dcDetector.dbref.nregions();
+        out.writeInt(nsectors);
+        out.writeInt(nsupers);
+        out.writeInt(nregions);
+        for(int isec = 0; isec < nsectors; isec++){
+            for(int ireg = 0; ireg < nregions; ireg++){
+                writeVector(out, dcDetector.getRegionMidpoint(isec, ireg));
+            }
+            for(int isuper = 0; isuper < nsupers; isuper++){
+                int nlayers = dcDetector.getNumberOfLayers(isec, isuper);
+                out.writeInt(nlayers);
+                for(int ilayer = 0; ilayer < nlayers; ilayer++){
+                    writeVector(out, dcDetector.getLayerMidpoint(isec, isuper, ilayer));
+                    int nwires = dcDetector.getNumberOfWires(isec, isuper, ilayer);
+                    out.writeInt(nwires);
+                    for(int iwire = 0; iwire < nwires; iwire++){
+                        Wire wire = dcDetector.getWire(isec, isuper, ilayer, iwire);
+                        writeVector(out, wire.mid());
+                        writeVector(out, wire.center());
+                        writeVector(out, wire.dir());
+                        writeVector(out, wire.left());
+                        writeVector(out, wire.right());
+                    }
+                }
+            }
+        }
+
+        for(int isec = 0; isec < 6; isec++){
+            for(int layer = 0; layer < 3; layer++) writePlane(out, ftofFaces[isec][layer]);
+            writePlane(out, pcalFaces[isec]);
+            writePlane(out, ecFaces[isec]);
+        }
+    }
+
+    private static GeometrySnapshot read(DataInputStream in) throws IOException {
+        if(in.readInt()!=MAGIC||in.readInt()!=VERSION){
+            throw new IOException("not a geometry snapshot");
+        }
+        int     run           = in.readInt();
+        String  dcVariation   = in.readUTF();
+        String  variation     = in.readUTF();
+        boolean ministagger   = in.readBoolean();
+        String  database      = in.readUTF();
+        String  constantsHash = in.readUTF();
+
+        Constants dcConstants   = Constants.read(in);
+        Constants ftofConstants = Constants.read(in);
+
+        int nsectors = in.readInt();
+        int nsupers  = in.readInt();
+        int nregions = in.readInt();
+        Wire[][][][]   wires      = new Wire[nsectors][nsupers][][];
+        Vector3d[][][] layerMids  = new Vector3d[nsectors][nsupers][];
+        Vector3d[][]   regionMids = new Vector3d[nsectors][nregions];
+        for(int isec = 0; isec < nsectors; isec++){
+            for(int ireg = 0; ireg < nregions; ireg++){
+                regionMids[isec][ireg] = readVector(in);
+            }
+            for(int isuper = 0; isuper < nsupers; isuper++){
+                int nlayers = in.readInt();
+                wires[isec][isuper]     = new Wire[nlayers][];
+                layerMids[isec][isuper] = new Vector3d[nlayers];
+                for(int ilayer = 0; ilayer < nlayers; ilayer++){
+                    layerMids[isec][isuper][ilayer] = readVector(in);
+                    int nwires = in.readInt();
+                    wires[isec][isuper][ilayer] = new Wire[nwires];
+                    for(int iwire = 0; iwire < nwires; iwire++){
+                        Vector3d mid    = readVector(in);
+                        Vector3d center = readVector(in);
+                        Vector3d dir    = readVector(in);
+                        Vector3d left   = readVector(in);
+                        Vector3d right  = readVector(in);
+                        wires[isec][isuper][ilayer][iwire] = new Wire(isuper, ilayer+1, iwire+1,
+                                mid, center, dir, left, right);
+                    }
+                }
+            }
+        }
+
+        Plane3D[][] ftofFaces = new Plane3D[6][3];
+        Plane3D[]   pcalFaces = new Plane3D[6];
+        Plane3D[]   ecFaces   = new Plane3D[6];
+        for(int isec = 0; isec < 6; isec++){
+            for(int layer = 0; layer < 3; layer++) ftofFaces[isec][layer] = readPlane(in);
+            pcalFaces[isec] = readPlane(in);
+            ecFaces[isec]   = readPlane(in);
+        }
+
+        return new GeometrySnapshot(run, dcVariation, variation, ministagger, database, constantsHash,
+                new DCGeant4Factory(wires, layerMids, regionMids), dcConstants, ftofConstants,
+                ftofFaces, pcalFaces, ecFaces);
+    }
+
+    private static void writeVector(DataOutputStream out, Vector3d v) throws IOException {
+        out.writeDouble(v.x);
+        out.writeDouble(v.y);
+        out.writeDouble(v.z);
+    }
+
+    private static Vector3d readVector(DataInputStream in) throws IOException {
+        double x = in.readDouble();
+        double y = in.readDouble();
+        double z = in.readDouble();
+        return new Vector3d(x, y, z);
+    }
+
+    private static void writePlane(DataOutputStream out, Plane3D plane) throws IOException {
+        out.writeDouble(plane.point().x());
+        out.writeDouble(plane.point().y());
+        out.writeDouble(plane.point().z());
+        out.writeDouble(plane.normal().x());
+        out.writeDouble(plane.normal().y());
+        out.writeDouble(plane.normal().z());
+    }
+
+    private static Plane3D readPlane(DataInputStream in) throws IOException {
+        double[] v = new double[6];
+        for(int i = 0; i < 6; i++) v[i] = in.readDouble();
+        return new Plane3D(v[0], v[1], v[2], v[3], v[4], v[5]);
+    }
+
+    /**
+     * Constants of the geometry tables, copied from a database provider.
+     */
+    static class Constants implements ConstantProvider {
+
+        private final Map<String,double[]> values = new TreeMap<String,double[]>();
+
+        private Constants() {
+        }
+
+        Constants(ConstantProvider provider) {
+            if(provider instanceof DatabaseConstantProvider==false){
+                throw new IllegalArgumentException("can only copy constants from a DatabaseConstantProvider");
+            }
+            for(String name : ((DatabaseConstantProvider) provider).getEntrySet()){
+                double[] array = new double[provider.length(name)];
+                for(int i = 0; i < array.length; i++) array[i] = provider.getDouble(name, i);
+                values.put(name, array);
+            }
+        }
+
+        @Override
+        public boolean hasConstant(String name) {
+            return values.containsKey(name);
+        }
+
+        @Override
+        public int length(String name) {
+            double[] array = values.get(name);
+            return array==null ? 0 : array.length;
+        }
+
+        @Override
+        public double getDouble(String name, int row) {
+            double[] array = values.get(name);
+            return (array==null || row>=array.length) ? 0.0 : array[row];
+        }
+
+        @Override
+        public int getInteger(String name, int row) {
+            return (int) this.getDouble(name, row);
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(values.size());
+            for(Map.Entry<String,double[]> entry : values.entrySet()){
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().length);
+                for(double value : entry.getValue()) out.writeDouble(value);
+            }
+        }
+
+        static Constants read(DataInputStream in) throws IOException {
+            Constants constants = new Constants();
+            int size = in.readInt();
+            for(int n = 0; n < size; n++){
+                String name = in.readUTF();
+                double[] array = new double[in.readInt()];
+                for(int i = 0; i < array.length; i++) array[i] = in.readDouble();
+                constants.values.put(name, array);
+            }
+            return constants;
+        }
+
+        /**
+         * @return SHA-1 of the constants, in name order
+         */
+        static String hash(Constants... constants) {
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                for(Constants c : constants) c.write(out);
+                out.close();
+                byte[] digest = MessageDigest.getInstance("SHA-1").digest(bytes.toByteArray());
+                StringBuilder str = new StringBuilder();
+                for(byte b : digest) str.append(String.format("%02x", b));
+                return str.toString();
+            } catch (IOException | NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    public static void main(String[] args){
+        OptionParser parser = new OptionParser("geometry-snapshot");
+        parser.addRequired("-o", "snapshot directory");
+        parser.addOption("-r", "11", "run number");
+        parser.addOption("-dcvar", "default", "DC geometry variation");
+        parser.addOption("-var", "default", "FTOF and ECAL geometry variation");
+        parser.addOption("-ms", "1", "DC ministagger (0/1)");
+        parser.addOption("-check", "0", "compare the saved snapshot with the database (0/1)");
+        parser.parse(args);
+
+        String  directory   = parser.getOption("-o").stringValue();
+        int     run         = parser.getOption("-r").intValue();
+        String  dcVariation = parser.getOption("-dcvar").stringValue();
+        String  variation   = parser.getOption("-var").stringValue();
+        boolean ministagger = parser.getOption("-ms").intValue()==1;
+
+        if(parser.getOption("-check").intValue()==1){
+            File file = new File(directory, GeometrySnapshot.getKey(run, dcVariation, variation, ministagger) + ".bin");
+            try {
+                GeometrySnapshot saved = GeometrySnapshot.read(file);
+                String current = Constants.hash(
+                        new Constants(GeometryFactory.getConstants(DetectorType.DC, run, dcVariation)),
+                        new Constants(GeometryFactory.getConstants(DetectorType.FTOF, run, variation)),
+                        new Constants(GeometryFactory.getConstants(DetectorType.ECAL, run, variation)));
+                System.out.println("[GeometrySnapshot] ---> " + file.getPath() + " : "
+                        + (current.equals(saved.getConstantsHash()) ? "up to date" : "OUT OF DATE"));
+            } catch (IOException e) {
+                System.out.println("[GeometrySnapshot] ---> error reading snapshot : " + file.getPath());
+            }
+        } else {
+            GeometrySnapshot.getInstance(run, dcVariation, variation, ministagger, directory);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package org.jlab.clas.clas.math;
+
+/**
+ * Fixed-size 5x5 matrix kernel for the track fitters.
+ *
+ * The covariance matrices of the DC and CVT Kalman filters are 5x5; this class
+ * implements the handful of operations the fitters need (determinant, inverse,
+ * similarity transform and the measurement update) on plain double[5][5]
+ * arrays, such as the ones returned by Jama's Matrix.getArray(). All
+ * intermediate results are kept in work arrays owned by the instance, so that
+ * no memory is allocated per call. An instance is therefore not thread-safe
+ * and should be owned by a single fitter.
+ *
+ * The determinant and inverse use an LU decomposition with partial pivoting,
+ * the same algorithm as Jama, so that results agree with the Jama path to
+ * rounding.
+ */
+public class Kalman5x5 {
+
+    /** determinant below which a matrix is treated as singular by the fitters */
+    public static final double MIN_DET = 1.e-30;
+
+    private final double[][] lu  = new double[5][5];
+    private final double[][] tmp = new double[5][5];
+    private final int[]      piv = new int[5];
+    private int pivsign;
+
+    /**
+     * LU decomposes a (row-pivoted) into lu, leaving a untouched.
+     * @param a 5x5 matrix
+     */
+    private void decompose(double[][] a) {
+        for (int i = 0; i < 5; i++) {
+            double[] r = a[i];
+            double[] l = lu[i];
+            l[0] = r[0]; l[1] = r[1]; l[2] = r[2]; l[3] = r[3]; l[4] = r[4];
+            piv[i] = i;
+        }
+        pivsign = 1;
+        // Crout / Doolittle "left-looking" form, as in Jama's LUDecomposition
+        for (int j = 0; j < 5; j++) {
+            for (int i = 0; i < 5; i++) {
+                double[] row = lu[i];
+                int kmax = Math.min(i, j);
+                double s = 0.0;
+                for (int k = 0; k < kmax; k++) {
+                    s += row[k] * lu[k][j];
+                }
+                row[j] -= s;
+            }
+            int p = j;
+            for (int i = j + 1; i < 5; i++) {
+                if (Math.abs(lu[i][j]) > Math.abs(lu[p][j])) {
+                    p = i;
+                }
+            }
+            if (p != j) {
+                double[] t = lu[p]; lu[p] = lu[j]; lu[j] = t;
+                int k = piv[p]; piv[p] = piv[j]; piv[j] = k;
+                pivsign = -pivsign;
+            }
+            if (lu[j][j] != 0.0) {
+                for (int i = j + 1; i < 5; i++) {
+                    lu[i][j] /= lu[j][j];
+                }
+            }
+        }
+    }
+
+    private double luDet() {
+        return pivsign * lu[0][0] * lu[1][1] * lu[2][2] * lu[3][3] * lu[4][4];
+    }
+
+    /**
+     * Solves lu * out = P * I, i.e. writes the inverse of the decomposed matrix into out.
+     */
+    private void luInverse(double[][] out) {
+        // permuted identity
+        for (int i = 0; i < 5; i++) {
+            double[] o = out[i];
+            o[0] = 0; o[1] = 0; o[2] = 0; o[3] = 0; o[4] = 0;
+            o[piv[i]] = 1;
+        }
+        // forward substitution with L
+        for (int k = 0; k < 5; k++) {
+            double[] ok = out[k];
+            for (int i = k + 1; i < 5; i++) {
+                double l = lu[i][k];
+                double[] oi = out[i];
+                oi[0] -= ok[0] * l; oi[1] -= ok[1] * l; oi[2] -= ok[2] * l; oi[3] -= ok[3] * l; oi[4] -= ok[4] * l;
+            }
+        }
+        // back substitution with U
+        for (int k = 4; k >= 0; k--) {
+            double[] ok = out[k];
+            double d = lu[k][k];
+            ok[0] /= d; ok[1] /= d; ok[2] /= d; ok[3] /= d; ok[4] /= d;
+            for (int i = 0; i < k; i++) {
+                double u = lu[i][k];
+                double[] oi = out[i];
+                oi[0] -= ok[0] * u; oi[1] -= ok[1] * u; oi[2] -= ok[2] * u; oi[3] -= ok[3] * u; oi[4] -= ok[4] * u;
+            }
+        }
+    }
+
+    /**
+     * @param a 5x5 matrix
+     * @return the determinant of a
+     */
+    public double det(double[][] a) {
+        this.decompose(a);
+        return this.luDet();
+    }
+
+    /**
+     * @param a 5x5 matrix
+     * @return true if |det(a)| is at least MIN_DET
+     */
+    public boolean isNonsingular(double[][] a) {
+        return Math.abs(this.det(a)) >= MIN_DET;
+    }
+
+    /**
+     * Inverts a into out; out may be the same array as a.
+     * @param a 5x5 matrix
+     * @param out 5x5 matrix receiving the inverse
+     * @return false, leaving out untouched, if a is singular
+     */
+    public boolean invert(double[][] a, double[][] out) {
+        this.decompose(a);
+        if (Math.abs(this.luDet()) < MIN_DET) {
+            return false;
+        }
+        this.luInverse(out);
+        return true;
+    }
+
+    /**
+     * Computes out = F^T * C * F; out may be the same array as C.
+     * @param F 5x5 transport (Jacobian) matrix
+     * @param C 5x5 covariance matrix
+     * @param out 5x5 matrix receiving the result
+     */
+    public void similarity(double[][] F, double[][] C, double[][] out) {
+        // tmp = F^T * C
+        for (int i = 0; i < 5; i++) {
+            double[] t = tmp[i];
+            double f0 = F[0][i], f1 = F[1][i], f2 = F[2][i], f3 = F[3][i], f4 = F[4][i];
+            for (int j = 0; j < 5; j++) {
+                t[j] = f0 * C[0][j] + f1 * C[1][j] + f2 * C[2][j] + f3 * C[3][j] + f4 * C[4][j];
+            }
+        }
+        // out = tmp * F
+        for (int i = 0; i < 5; i++) {
+            double[] t = tmp[i];
+            double[] o = out[i];
+            for (int j = 0; j < 5; j++) {
+                o[j] = t[0] * F[0][j] + t[1] * F[1][j] + t[2] * F[2][j] + t[3] * F[3][j] + t[4] * F[4][j];
+            }
+        }
+    }
+
+    /**
+     * Kalman filter measurement update of the covariance, in the information form
+     * used by the fitters:  C' = (C^-1 + H^T H / V)^-1, K = C' H^T / V.
+     * C is overwritten with C'.
+     * @param C 5x5 covariance matrix, updated in place
+     * @param H projector; entries beyond H.length are zero
+     * @param V measurement variance
+     * @param K gain, filled with 5 entries
+     * @return false, leaving C and K untouched, if C or the updated information matrix is singular
+     */
+    public boolean filter(double[][] C, double[] H, double V, double[] K) {
+        int n = H.length;
+        // tmp = C^-1
+        this.decompose(C);
+        if (Math.abs(this.luDet()) < MIN_DET) {
+            return false;
+        }
+        this.luInverse(tmp);
+        // tmp += H^T H / V
+        for (int i = 0; i < n; i++) {
+            double[] t = tmp[i];
+            for (int j = 0; j < n; j++) {
+                t[j] += H[i] * H[j] / V;
+            }
+        }
+        // C = tmp^-1
+        this.decompose(tmp);
+        if (Math.abs(this.luDet()) < MIN_DET) {
+            return false;
+        }
+        this.luInverse(C);
+        for (int j = 0; j < 5; j++) {
+            double[] c = C[j];
+            double k = 0;
+            for (int i = 0; i < n; i++) {
+                k += H[i] * c[i];
+            }
+            K[j] = k / V;
+        }
+        return true;
+    }
+
+    /**
+     * Adds b to a in place.
+     * @param a 5x5 matrix, updated
+     * @param b 5x5 matrix
+     */
+    public static void add(double[][] a, double[][] b) {
+        for (int i = 0; i < 5; i++) {
+            double[] r = a[i];
+            double[] s = b[i];
+            r[0] += s[0]; r[1] += s[1]; r[2] += s[2]; r[3] += s[3]; r[4] += s[4];
+        }
+    }
+}
@@ -10,6 +10,7 @@ import org.jlab.geom.prim.Line3D;
 import org.jlab.geom.prim.Point3D;
 import org.jlab.geom.prim.Vector3D;
 import org.jlab.io.base.DataBank;
+import org.jlab.io.base.DataBankWriter;
 import org.jlab.io.base.DataEvent;
 
 /**
@@ -18,6 +19,82 @@ import org.jlab.io.base.DataEvent;
  * @author baltzell
  */
 public class DetectorData {
+
+    // column layouts of the particle, response and trajectory banks
+    private static final DataBankWriter PARTICLE = new DataBankWriter();
+    private static final int PART_PID     = PARTICLE.column("pid");
+    private static final int PART_CHARGE  = PARTICLE.column("charge");
+    private static final int PART_PX      = PARTICLE.column("px");
+    private static final int PART_PY      = PARTICLE.column("py");
+    private static final int PART_PZ      = PARTICLE.column("pz");
+    private static final int PART_VX      = PARTICLE.column("vx");
+    private static final int PART_VY      = PARTICLE.column("vy");
+    private static final int PART_VZ      = PARTICLE.column("vz");
+    private static final int PART_BETA    = PARTICLE.column("beta");
+    private static final int PART_STATUS  = PARTICLE.column("status");
+    private static final int PART_CHI2PID = PARTICLE.column("chi2pid");
+
+    private static final DataBankWriter CALORIMETER = new DataBankWriter();
+    private static final int CAL_INDEX    = CALORIMETER.column("index");
+    private static final int CAL_PINDEX   = CALORIMETER.column("pindex");
+    private static final int CAL_DETECTOR = CALORIMETER.column("detector");
+    private static final int CAL_SECTOR   = CALORIMETER.column("sector");
+    private static final int CAL_LAYER    = CALORIMETER.column("layer");
+    private static final int CAL_X        = CALORIMETER.column("x");
+    private static final int CAL_Y        = CALORIMETER.column("y");
+    private static final int CAL_Z        = CALORIMETER.column("z");
+    private static final int CAL_HX       = CALORIMETER.column("hx");
+    private static final int CAL_HY       = CALORIMETER.column("hy");
+    private static final int CAL_HZ       = CALORIMETER.column("hz");
+    private static final int CAL_LU       = CALORIMETER.column("lu");
+    private static final int CAL_LV       = CALORIMETER.column("lv");
+    private static final int CAL_LW       = CALORIMETER.column("lw");
+    private static final int CAL_DU       = CALORIMETER.column("du");
+    private static final int CAL_DV       = CALORIMETER.column("dv");
+    private static final int CAL_DW       = CALORIMETER.column("dw");
+    private static final int CAL_M2U      = CALORIMETER.column("m2u");
+    private static final int CAL_M2V      = CALORIMETER.column("m2v");
+    private static final int CAL_M2W      = CALORIMETER.column("m2w");
+    private static final int CAL_M3U      = CALORIMETER.column("m3u");
+    private static final int CAL_M3V      = CALORIMETER.column("m3v");
+    private static final int CAL_M3W      = CALORIMETER.column("m3w");
+    private static final int CAL_PATH     = CALORIMETER.column("path");
+    private static final int CAL_TIME     = CALORIMETER.column("time");
+    private static final int CAL_ENERGY   = CALORIMETER.column("energy");
+    private static final int CAL_CHI2     = CALORIMETER.column("chi2");
+    private static final int CAL_STATUS   = CALORIMETER.column("status");
+
+    private static final DataBankWriter SCINTILLATOR = new DataBankWriter();
+    private static final int SCI_INDEX     = SCINTILLATOR.column("index");
+    private static final int SCI_PINDEX    = SCINTILLATOR.column("pindex");
+    private static final int SCI_DETECTOR  = SCINTILLATOR.column("detector");
+    private static final int SCI_SECTOR    = SCINTILLATOR.column("sector");
+    private static final int SCI_LAYER     = SCINTILLATOR.column("layer");
+    private static final int SCI_COMPONENT = SCINTILLATOR.column("component");
+    private static final int SCI_X         = SCINTILLATOR.column("x");
+    private static final int SCI_Y         = SCINTILLATOR.column("y");
+    private static final int SCI_Z         = SCINTILLATOR.column("z");
+    private static final int SCI_HX        = SCINTILLATOR.column("hx");
+    private static final int SCI_HY        = SCINTILLATOR.column("hy");
+    private static final int SCI_HZ        = SCINTILLATOR.column("hz");
+    private static final int SCI_PATH      = SCINTILLATOR.column("path");
+    private static final int SCI_TIME      = SCINTILLATOR.column("time");
+    private static final int SCI_ENERGY    = SCINTILLATOR.column("energy");
+    private static final int SCI_CHI2      = SCINTILLATOR.column("chi2");
+    private static final int SCI_STATUS    = SCINTILLATOR.column("status");
+
+    private static final DataBankWriter TRAJECTORY = new DataBankWriter();
+    private static final int TRAJ_INDEX      = TRAJECTORY.column("index");
+    private static final int TRAJ_PINDEX     = TRAJECTORY.column("pindex");
+    private static final int TRAJ_DETID      = TRAJECTORY.column("detId");
+    private static final int TRAJ_PATHLENGTH = TRAJECTORY.column("pathlength");
+    private static final int TRAJ_X          = TRAJECTORY.column("x");
+    private static final int TRAJ_Y          = TRAJECTORY.column("y");
+    private static final int TRAJ_Z          = TRAJECTORY.column("z");
+    private static final int TRAJ_CX         = TRAJECTORY.column("cx");
+    private static final int TRAJ_CY         = TRAJECTORY.column("cy");
+    private static final int TRAJ_CZ         = TRAJECTORY.column("cz");
+
     /**
      * Read detector hits from the bank
      * @param event
@@ -167,22 +244,23 @@ public class DetectorData {
      * @return 
      */
     public static DataBank getDetectorParticleBank(List<DetectorParticle> particles, DataEvent event, String bank_name){
-        DataBank bank = event.createBank(bank_name, particles.size());
+        DataBankWriter.Rows bank = PARTICLE.create(event, bank_name, particles.size());
         for(int row = 0; row < particles.size(); row++){
-            bank.setInt("pid",row,particles.get(row).getPid());
-            bank.setByte("charge",row, (byte) particles.get(row).getCharge());
-            bank.setFloat("px", row, (float) particles.get(row).vector().x());
-            bank.setFloat("py", row, (float) particles.get(row).vector().y());
-            bank.setFloat("pz", row, (float) particles.get(row).vector().z());
-            bank.setFloat("vx", row, (float) particles.get(row).vertex().x());
-            bank.setFloat("vy", row, (float) particles.get(row).vertex().y());
-            bank.setFloat("vz", row, (float) particles.get(row).vertex().z());
+            DetectorParticle p = particles.get(row);
+            bank.setInt(PART_PID,row,p.getPid());
+            bank.setByte(PART_CHARGE,row, (byte) p.getCharge());
+            bank.setFloat(PART_PX, row, (float) p.vector().x());
+            bank.setFloat(PART_PY, row, (float) p.vector().y());
+            bank.setFloat(PART_PZ, row, (float) p.vector().z());
+            bank.setFloat(PART_VX, row, (float) p.vertex().x());
+            bank.setFloat(PART_VY, row, (float) p.vertex().y());
+            bank.setFloat(PART_VZ, row, (float) p.vertex().z());
 //            bank.setFloat("mass", row, (float) particles.get(row).getMass());
-            bank.setFloat("beta", row, (float) particles.get(row).getBeta());
-            bank.setShort("status", row, (short) particles.get(row).getStatus());
-            bank.setFloat("chi2pid", row, (float) particles.get(row).getPidQuality());
+            bank.setFloat(PART_BETA, row, (float) p.getBeta());
+            bank.setShort(PART_STATUS, row, (short) p.getStatus());
+            bank.setFloat(PART_CHI2PID, row, (float) p.getPidQuality());
         }
-        return bank;
+        return bank.getBank();
     }
     /**
      * creates a detector response bank
@@ -192,64 +270,64 @@ public class DetectorData {
      * @return 
      */
    public static DataBank getCalorimeterResponseBank(List<DetectorResponse> responses, DataEvent event, String bank_name){
-       DataBank bank = event.createBank(bank_name, responses.size());
+       DataBankWriter.Rows bank = CALORIMETER.create(event, bank_name, responses.size());
        for(int row = 0; row < responses.size(); row++){
            CalorimeterResponse r = (CalorimeterResponse)responses.get(row);
-           bank.setShort("index", row, (short) r.getHitIndex());
-           bank.setShort("pindex", row, (short) r.getAssociation());
-           bank.setByte("detector", row, (byte) r.getDescriptor().getType().getDetectorId());
-           bank.setByte("sector", row, (byte) r.getDescriptor().getSector());
-           bank.setByte("layer", row, (byte) r.getDescriptor().getLayer());
-           bank.setFloat("x", row, (float) r.getPosition().x());
-           bank.setFloat("y", row, (float) r.getPosition().y());
-           bank.setFloat("z", row, (float) r.getPosition().z());
-           bank.setFloat("hx", row, (float) r.getMatchedPosition().x());
-           bank.setFloat("hy", row, (float) r.getMatchedPosition().y());
-           bank.setFloat("hz", row, (float) r.getMatchedPosition().z());
-           bank.setFloat("lu", row, (float) r.getCoordUVW().x()); 
-           bank.setFloat("lv", row, (float) r.getCoordUVW().y()); 
-           bank.setFloat("lw", row, (float) r.getCoordUVW().z()); 
-           bank.setFloat("du", row, (float) r.getWidthUVW().x()); 
-           bank.setFloat("dv", row, (float) r.getWidthUVW().y()); 
-           bank.setFloat("dw", row, (float) r.getWidthUVW().z()); 
-           bank.setFloat("m2u", row, (float) r.getSecondMomentUVW().x()); 
-           bank.setFloat("m2v", row, (float) r.getSecondMomentUVW().y()); 
-           bank.setFloat("m2w", row, (float) r.getSecondMomentUVW().z()); 
-           bank.setFloat("m3u", row, (float) r.getThirdMomentUVW().x()); 
-           bank.setFloat("m3v", row, (float) r.getThirdMomentUVW().y()); 
-           bank.setFloat("m3w", row, (float) r.getThirdMomentUVW().z()); 
-           bank.setFloat("path", row, (float) r.getPath());
-           bank.setFloat("time", row, (float) r.getTime());
-           bank.setFloat("energy", row, (float) r.getEnergy());
-           bank.setFloat("chi2", row, (float) 0.0);
-           bank.setShort("status",row,(short) r.getStatus());
+           bank.setShort(CAL_INDEX, row, (short) r.getHitIndex());
+           bank.setShort(CAL_PINDEX, row, (short) r.getAssociation());
+           bank.setByte(CAL_DETECTOR, row, (byte) r.getDescriptor().getType().getDetectorId());
+           bank.setByte(CAL_SECTOR, row, (byte) r.getDescriptor().getSector());
+           bank.setByte(CAL_LAYER, row, (byte) r.getDescriptor().getLayer());
+           bank.setFloat(CAL_X, row, (float) r.getPosition().x());
+           bank.setFloat(CAL_Y, row, (float) r.getPosition().y());
+           bank.setFloat(CAL_Z, row, (float) r.getPosition().z());
+           bank.setFloat(CAL_HX, row, (float) r.getMatchedPosition().x());
+           bank.setFloat(CAL_HY, row, (float) r.getMatchedPosition().y());
+           bank.setFloat(CAL_HZ, row, (float) r.getMatchedPosition().z());
+           bank.setFloat(CAL_LU, row, (float) r.getCoordUVW().x()); 
+           bank.setFloat(CAL_LV, row, (float) r.getCoordUVW().y()); 
+           bank.setFloat(CAL_LW, row, (float) r.getCoordUVW().z()); 
+           bank.setFloat(CAL_DU, row, (float) r.getWidthUVW().x()); 
+           bank.setFloat(CAL_DV, row, (float) r.getWidthUVW().y()); 
+           bank.setFloat(CAL_DW, row, (float) r.getWidthUVW().z()); 
+           bank.setFloat(CAL_M2U, row, (float) r.getSecondMomentUVW().x()); 
+           bank.setFloat(CAL_M2V, row, (float) r.getSecondMomentUVW().y()); 
+           bank.setFloat(CAL_M2W, row, (float) r.getSecondMomentUVW().z()); 
+           bank.setFloat(CAL_M3U, row, (float) r.getThirdMomentUVW().x()); 
+           bank.setFloat(CAL_M3V, row, (float) r.getThirdMomentUVW().y()); 
+           bank.setFloat(CAL_M3W, row, (float) r.getThirdMomentUVW().z()); 
+           bank.setFloat(CAL_PATH, row, (float) r.getPath());
+           bank.setFloat(CAL_TIME, row, (float) r.getTime());
+           bank.setFloat(CAL_ENERGY, row, (float) r.getEnergy());
+           bank.setFloat(CAL_CHI2, row, (float) 0.0);
+           bank.setShort(CAL_STATUS,row,(short) r.getStatus());
        }
-       return bank;
+       return bank.getBank();
    }
    
    public static DataBank getScintillatorResponseBank(List<DetectorResponse> responses, DataEvent event, String bank_name){
-       DataBank bank = event.createBank(bank_name, responses.size());
+       DataBankWriter.Rows bank = SCINTILLATOR.create(event, bank_name, responses.size());
        for(int row = 0; row < responses.size(); row++){
            DetectorResponse r = responses.get(row);
-           bank.setShort("index",row,(short) r.getHitIndex());
-           bank.setShort("pindex", row, (short) r.getAssociation());
-           bank.setByte("detector", row, (byte) r.getDescriptor().getType().getDetectorId());
-           bank.setByte("sector", row, (byte) r.getDescriptor().getSector());
-           bank.setByte("layer", row, (byte) r.getDescriptor().getLayer());
-           bank.setShort("component", row, (short) r.getDescriptor().getComponent());
-           bank.setFloat("x", row, (float) r.getPosition().x());
-           bank.setFloat("y", row, (float) r.getPosition().y());
-           bank.setFloat("z", row, (float) r.getPosition().z());
-           bank.setFloat("hx", row, (float) r.getMatchedPosition().x());
-           bank.setFloat("hy", row, (float) r.getMatchedPosition().y());
-           bank.setFloat("hz", row, (float) r.getMatchedPosition().z());
-           bank.setFloat("path", row, (float) r.getPath());
-           bank.setFloat("time", row, (float) r.getTime());
-           bank.setFloat("energy", row, (float) r.getEnergy());
-           bank.setFloat("chi2", row, (float) 0.0);
-           bank.setShort("status",row,(short) r.getStatus());
+           bank.setShort(SCI_INDEX,row,(short) r.getHitIndex());
+           bank.setShort(SCI_PINDEX, row, (short) r.getAssociation());
+           bank.setByte(SCI_DETECTOR, row, (byte) r.getDescriptor().getType().getDetectorId());
+           bank.setByte(SCI_SECTOR, row, (byte) r.getDescriptor().getSector());
+           bank.setByte(SCI_LAYER, row, (byte) r.getDescriptor().getLayer());
+           bank.setShort(SCI_COMPONENT, row, (short) r.getDescriptor().getComponent());
+           bank.setFloat(SCI_X, row, (float) r.getPosition().x());
+           bank.setFloat(SCI_Y, row, (float) r.getPosition().y());
+           bank.setFloat(SCI_Z, row, (float) r.getPosition().z());
+           bank.setFloat(SCI_HX, row, (float) r.getMatchedPosition().x());
+           bank.setFloat(SCI_HY, row, (float) r.getMatchedPosition().y());
+           bank.setFloat(SCI_HZ, row, (float) r.getMatchedPosition().z());
+           bank.setFloat(SCI_PATH, row, (float) r.getPath());
+           bank.setFloat(SCI_TIME, row, (float) r.getTime());
+           bank.setFloat(SCI_ENERGY, row, (float) r.getEnergy());
+           bank.setFloat(SCI_CHI2, row, (float) 0.0);
+           bank.setShort(SCI_STATUS,row,(short) r.getStatus());
        }
-       return bank;
+       return bank.getBank();
    }
    
    public static DataBank getCherenkovResponseBank(List<DetectorResponse> responses, DataEvent event, String bank_name){
@@ -342,7 +420,7 @@ public class DetectorData {
      
    public static DataBank getTrajectoriesBank(List<DetectorParticle> particles, DataEvent event, String bank_name) {
 
-       DataBank bank=null;
+       DataBankWriter.Rows bank=null;
        if (bank_name!=null) {
            int nrows = 0;
            for(int i = 0 ; i < particles.size(); i++) {
@@ -352,30 +430,30 @@ public class DetectorData {
                }
            }
 
-           bank = event.createBank(bank_name, nrows);
+           bank = TRAJECTORY.create(event, bank_name, nrows);
            int row = 0;
            for(int i = 0 ; i < particles.size(); i++) {
                DetectorParticle p = particles.get(i);
                if(p.getTrackDetector()==DetectorType.DC.getDetectorId() ||
                   p.getTrackDetector()==DetectorType.CVT.getDetectorId() ) {
                    for (int detId : p.getTrackTrajectory().keySet()) {
-                       bank.setShort("index", row, (short) p.getTrackIndex());
-                       bank.setShort("pindex", row, (short) i);
-                       bank.setShort("detId", row, (byte) detId);
+                       bank.setShort(TRAJ_INDEX, row, (short) p.getTrackIndex());
+                       bank.setShort(TRAJ_PINDEX, row, (short) i);
+                       bank.setShort(TRAJ_DETID, row, (byte) detId);
                        DetectorTrack.TrajectoryPoint tp = p.getTrackTrajectory().get(detId);
-                       bank.setFloat("pathlength",row, tp.getPathLength());
-                       bank.setFloat("x",row, (float)tp.getCross().origin().x());
-                       bank.setFloat("y",row, (float)tp.getCross().origin().y());
-                       bank.setFloat("z",row, (float)tp.getCross().origin().z());
-                       bank.setFloat("cx",row, (float)tp.getCross().direction().x());
-                       bank.setFloat("cy",row, (float)tp.getCross().direction().y());
-                       bank.setFloat("cz",row, (float)tp.getCross().direction().z());
+                       bank.setFloat(TRAJ_PATHLENGTH,row, tp.getPathLength());
+                       bank.setFloat(TRAJ_X,row, (float)tp.getCross().origin().x());
+                       bank.setFloat(TRAJ_Y,row, (float)tp.getCross().origin().y());
+                       bank.setFloat(TRAJ_Z,row, (float)tp.getCross().origin().z());
+                       bank.setFloat(TRAJ_CX,row, (float)tp.getCross().direction().x());
+                       bank.setFloat(TRAJ_CY,row, (float)tp.getCross().direction().y());
+                       bank.setFloat(TRAJ_CZ,row, (float)tp.getCross().direction().z());
                        row = row + 1;
                    }
                }
            }
        }
-       return bank;
+       return bank==null ? null : bank.getBank();
    }
    
    public static DataBank getCovMatrixBank(List<DetectorParticle> particles, DataEvent event, String bank_name) {
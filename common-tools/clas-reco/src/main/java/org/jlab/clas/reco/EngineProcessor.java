@@ -5,14 +5,26 @@
  */
 package org.jlab.clas.reco;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.jlab.detector.calib.utils.ConstantsManager;
 import org.jlab.io.base.DataEvent;
+import org.jlab.io.base.DataSource;
+import org.jlab.io.base.DataSync;
 import org.jlab.io.hipo.HipoDataSource;
 import org.jlab.io.hipo.HipoDataSync;
+import org.jlab.io.hipo.HipoPrefetchSource;
 import org.jlab.utils.benchmark.ProgressPrintout;
 import org.jlab.utils.options.OptionParser;
 
@@ -25,6 +37,30 @@ public class EngineProcessor {
     private final Map<String,ReconstructionEngine>  processorEngines = new LinkedHashMap<String,ReconstructionEngine>();
     ReconstructionEngine  engineDummy = null;
     
+    /**
+     * per-thread engine timers (nanoseconds, in the order of processorEngines).
+     * every thread that calls processEvent gets its own array, all of them are
+     * kept in engineTimers so they can be summed up for the report.
+     */
+    private final List<long[]>        engineTimers = new CopyOnWriteArrayList<long[]>();
+    private final ThreadLocal<long[]> threadTimers = new ThreadLocal<long[]>(){
+        @Override
+        protected long[] initialValue(){
+            long[] timers = new long[processorEngines.size()];
+            engineTimers.add(timers);
+            return timers;
+        }
+    };
+
+    // number of read-ahead threads of the multi-threaded processing, 0 for none
+    private int inputReadThreads  = 0;
+    // output writer options, see setOutputOptions()
+    private int outputRecordSize  = -1;
+    private int outputCompression = 2;
+    private int outputAsyncEvents = 0;
+    // summary columns of the output event index, null for no index
+    private String[] outputIndexColumns = null;
+
     public EngineProcessor(){
         this.engineDummy = new DummyEngine();
     }
@@ -188,7 +224,10 @@ public class EngineProcessor {
      * @param event 
      */
     public void processEvent(DataEvent event){
+        long[] timers = threadTimers.get();
+        int    order  = 0;
         for(Map.Entry<String,ReconstructionEngine>  engine : this.processorEngines.entrySet()){
+            long start = System.nanoTime();
             try {
                 //System.out.println("processing engine : " + engine.getKey());
                 //System.out.println("processing event");
@@ -199,9 +238,120 @@ public class EngineProcessor {
                 System.out.println();
                 e.printStackTrace();
             }
+            if(order<timers.length) timers[order] += System.nanoTime() - start;
+            order++;
+        }
+    }
+    
+    /**
+     * starts loading the constants of the event's run for all engines that
+     * use a ConstantsManager, if the run is different from the previous one.
+     * Called by the reader, which is ahead of the workers, so that the tables
+     * are being read from the database while the previous run is processed.
+     * @param event event just read
+     * @param previous run number of the previous event
+     * @return run number of the event (previous if it has none)
+     */
+    private int prefetchConstants(DataEvent event, int previous){
+        if(event.hasBank("RUN::config")==false) return previous;
+        int run = event.getBank("RUN::config").getInt("run", 0);
+        if(run<=0||run==previous) return previous;
+        for(ReconstructionEngine engine : this.processorEngines.values()){
+            ConstantsManager manager = engine.getConstantsManager();
+            if(manager!=null) manager.prefetch(run);
+        }
+        return run;
+    }
+    
+    /**
+     * Returns the time spent in each engine summed over all the threads
+     * that processed events since the last call to resetTimers().
+     * @return map of engine name to time in seconds.
+     */
+    public Map<String,Double> getEngineTimes(){
+        Map<String,Double> times = new LinkedHashMap<String,Double>();
+        int order = 0;
+        for(String name : this.processorEngines.keySet()){
+            long total = 0L;
+            for(long[] timers : this.engineTimers){
+                if(order<timers.length) total += timers[order];
+            }
+            times.put(name, total*1.0e-9);
+            order++;
+        }
+        return times;
+    }
+    
+    /**
+     * Resets engine timers for all the threads.
+     */
+    public void resetTimers(){
+        for(long[] timers : this.engineTimers){
+            for(int i = 0; i < timers.length; i++) timers[i] = 0L;
         }
     }
     
+    /**
+     * prints the processing rate and time spent in each engine.
+     * @param nevents number of events processed
+     * @param seconds wall time in seconds
+     * @param nthreads number of processing threads
+     */
+    public void showTimers(long nevents, double seconds, int nthreads){
+        Map<String,Double> times = this.getEngineTimes();
+        double total = 0.0;
+        for(Double time : times.values()) total += time;
+        System.out.println("\n----->>> EngineProcessor benchmark:");
+        System.out.println(String.format("   threads : %d, events : %d, wall time : %.2f sec, rate : %.2f events/s",
+                nthreads, nevents, seconds, (seconds>0.0) ? nevents/seconds : 0.0));
+        for(Map.Entry<String,Double> entry : times.entrySet()){
+            double perEvent = (nevents>0) ? 1000.0*entry.getValue()/nevents : 0.0;
+            double fraction = (total>0.0) ? 100.0*entry.getValue()/total : 0.0;
+            System.out.println(String.format("   %-12s : %10.2f sec (cpu), %9.3f msec/event, %6.2f %%",
+                    entry.getKey(), entry.getValue(), perEvent, fraction));
+        }
+        System.out.println();
+    }
+    
+    /**
+     * sets the options of the output writer.
+     * @param recordSize record size in bytes, -1 for the default size
+     * @param compression compression type
+     * @param asyncEvents maximum number of events waiting to be written by the
+     * asynchronous writer, 0 to write on the calling thread
+     */
+    public void setOutputOptions(int recordSize, int compression, int asyncEvents){
+        this.outputRecordSize  = recordSize;
+        this.outputCompression = compression;
+        this.outputAsyncEvents = asyncEvents;
+    }
+    
+    /**
+     * writes an event index next to the output file, see HipoEventIndex.
+     * @param summaryColumns integer columns to store the values of in the
+     * index, as "bank.column"
+     */
+    public void setOutputIndex(String... summaryColumns){
+        this.outputIndexColumns = summaryColumns;
+    }
+    
+    /**
+     * sets the number of threads reading ahead the input file in the
+     * multi-threaded processing, 0 to read on the reader thread.
+     */
+    public void setInputReadThreads(int nthreads){
+        this.inputReadThreads = nthreads;
+    }
+    
+    private HipoDataSync createWriter(String output){
+        HipoDataSync writer = new HipoDataSync(outputRecordSize);
+        writer.setCompressionType(outputCompression);
+        writer.setAsync(outputAsyncEvents);
+        if(outputIndexColumns!=null) writer.setIndex(outputIndexColumns);
+        writer.open(output);
+        return writer;
+    }
+    
     public void processFile(String file, String output){
         this.processFile(file, output, -1);
     }
@@ -216,10 +366,10 @@ public class EngineProcessor {
             reader.open(file);
             
             int eventCounter = 0;
-            HipoDataSync   writer = new HipoDataSync();
-            writer.setCompressionType(2);
-            writer.open(output);
+            HipoDataSync   writer = this.createWriter(output);
             
+            this.resetTimers();
+            long startTime = System.nanoTime();
             ProgressPrintout  progress = new ProgressPrintout();            
             while(reader.hasEvent()==true){
                 DataEvent event = reader.getNextEvent();                
@@ -233,6 +383,205 @@ public class EngineProcessor {
             }
             progress.showStatus();
             writer.close();
+            this.showTimers(eventCounter, (System.nanoTime()-startTime)*1.0e-9, 1);
+        }
+    }
+    
+    /**
+     * process entire file through engine chain using a pipeline of one reader
+     * thread, nthreads worker threads and one writer thread. The engines are
+     * shared between the workers (in the same way CLARA shares them between
+     * its service threads), so they have to be initialized before calling this.
+     * @param file file name to process.
+     * @param output output file name.
+     * @param nevents number of events to process (-1 for all).
+     * @param nthreads number of worker threads.
+     * @param ordered if true the events are written in the same order as read,
+     * otherwise they are written as soon as they are processed.
+     */
+    public void processFile(String file, String output, int nevents, int nthreads, boolean ordered){
+        if(nthreads<=1){
+            this.processFile(file, output, nevents);
+            return;
+        }
+        if(file.endsWith(".hipo")==false) return;
+        
+        // with read-ahead threads the records are decompressed in the
+        // background, so the reader stage does not stall the workers
+        final DataSource reader = inputReadThreads>0 ? 
+                new HipoPrefetchSource(inputReadThreads, 500, 4*inputReadThreads) : new HipoDataSource();
+        reader.open(file);
+        
+        final HipoDataSync   writer = this.createWriter(output);
+        this.processPipeline(reader, writer, nevents, nthreads, ordered);
+    }
+    
+    /**
+     * runs the pipeline of processFile() on an opened source and output,
+     * and closes both. An error thrown by the reader, by a worker (an engine
+     * exception is only printed by processEvent(), an Error stops the
+     * processing) or by the writer stops all the threads, and is rethrown
+     * wrapped in a RuntimeException.
+     */
+    void processPipeline(final DataSource reader, final DataSync writer, final int nevents,
+            final int nthreads, final boolean ordered){
+        int capacity = 4*nthreads;
+        BlockingQueue<EventSlot>  inputQueue = new ArrayBlockingQueue<EventSlot>(capacity);
+        BlockingQueue<EventSlot> outputQueue = new ArrayBlockingQueue<EventSlot>(capacity + nthreads);
+        // limits the number of events between the reader and the writer, so
+        // a slow event does not let the ordering buffer grow without bound.
+        Semaphore inflight = new Semaphore(2*capacity);
+        AtomicLong processed = new AtomicLong(0L);
+        // first error thrown by the reader, a worker or the writer, the other
+        // threads of the pipeline are interrupted when it is set
+        AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        List<Thread> pipeline = new ArrayList<Thread>();
+        
+        this.resetTimers();
+        long startTime = System.nanoTime();
+        
+        Thread readerThread = new Thread(new Runnable(){
+            @Override
+            public void run(){
+                long index = 0;
+                int  run   = 0;
+                try {
+                    while(reader.hasEvent()==true){
+                        if(nevents>0&&index>=nevents) break;
+                        inflight.acquire();
+                        DataEvent event = reader.getNextEvent();
+                        run = prefetchConstants(event, run);
+                        inputQueue.put(new EventSlot(index, event));
+                        index++;
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (Throwable ex) {
+                    abortPipeline(failure, ex, pipeline);
+                } finally {
+                    for(int i = 0; i < nthreads; i++){
+                        try {
+                            inputQueue.put(EventSlot.END);
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }
+            }
+        },"EngineProcessor-reader");
+        
+        List<Thread> workers = new ArrayList<Thread>();
+        for(int i = 0; i < nthreads; i++){
+            workers.add(new Thread(new Runnable(){
+                @Override
+                public void run(){
+                    try {
+                        while(true){
+                            EventSlot slot = inputQueue.take();
+                            if(slot==EventSlot.END) break;
+                            processEvent(slot.event);
+                            outputQueue.put(slot);
+                        }
+                        outputQueue.put(EventSlot.END);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    } catch (Throwable ex) {
+                        abortPipeline(failure, ex, pipeline);
+                    }
+                }
+            },"EngineProcessor-worker-" + i));
+        }
+        
+        Thread writerThread = new Thread(new Runnable(){
+            @Override
+            public void run(){
+                Map<Long,EventSlot> pending = new HashMap<Long,EventSlot>();
+                ProgressPrintout  progress = new ProgressPrintout();
+                long nextIndex = 0;
+                int  finished  = 0;
+                try {
+                    while(finished<nthreads){
+                        EventSlot slot = outputQueue.take();
+                        if(slot==EventSlot.END){
+                            finished++;
+                            continue;
+                        }
+                        if(ordered==false){
+                            writer.writeEvent(slot.event);
+                            inflight.release();
+                            processed.incrementAndGet();
+                            progress.updateStatus();
+                            continue;
+                        }
+                        pending.put(slot.index, slot);
+                        while(pending.containsKey(nextIndex)==true){
+                            writer.writeEvent(pending.remove(nextIndex).event);
+                            inflight.release();
+                            processed.incrementAndGet();
+                            progress.updateStatus();
+                            nextIndex++;
+                        }
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (Throwable ex) {
+                    abortPipeline(failure, ex, pipeline);
+                }
+                progress.showStatus();
+            }
+        },"EngineProcessor-writer");
+        
+        pipeline.add(readerThread);
+        pipeline.addAll(workers);
+        pipeline.add(writerThread);
+        readerThread.start();
+        for(Thread worker : workers) worker.start();
+        writerThread.start();
+        try {
+            readerThread.join();
+            for(Thread worker : workers) worker.join();
+            writerThread.join();
+        } catch (InterruptedException ex) {
+            Logger.getLogger(EngineProcessor.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        reader.close();
+        writer.close();
+        if(failure.get()!=null){
+            throw new RuntimeException("[EngineProcessor] ---> processing stopped after "
+                    + processed.get() + " events", failure.get());
+        }
+        this.showTimers(processed.get(), (System.nanoTime()-startTime)*1.0e-9, nthreads);
+    }
+    
+    /**
+     * records the first failure of a pipeline thread and interrupts all the
+     * threads of the pipeline, so none of them stays blocked on a queue or
+     * on the in-flight semaphore waiting for the thread that died.
+     */
+    private static void abortPipeline(AtomicReference<Throwable> failure, Throwable ex, List<Thread> pipeline){
+        if(failure.compareAndSet(null, ex)==true){
+            System.out.println("[EngineProcessor] ---> error in thread "
+                    + Thread.currentThread().getName() + " : " + ex.getMessage());
+        }
+        for(Thread thread : pipeline){
+            if(thread!=Thread.currentThread()) thread.interrupt();
+        }
+    }
+    
+    /**
+     * event with its position in the input file, used to pass events
+     * between the stages of the pipeline.
+     */
+    private static class EventSlot {
+        
+        static final EventSlot END = new EventSlot(-1L, null);
+        
+        final long      index;
+        final DataEvent event;
+        
+        EventSlot(long index, DataEvent event){
+            this.index = index;
+            this.event = event;
         }
     }
     /**
@@ -253,6 +602,14 @@ public class EngineProcessor {
         parser.setRequiresInputList(false);
         parser.addOption("-c","0","use default configuration [0 - no, 1 - yes/default, 2 - all services] ");
         parser.addOption("-n","-1","number of events to process");
+        parser.addOption("-t","1","number of processing threads");
+        parser.addOption("-u","0","write events unordered when running multi-threaded [0 - no, 1 - yes]");
+        parser.addOption("-p","0","number of read-ahead threads when running multi-threaded");
+        parser.addOption("-b","-1","output record size in MB (-1 - default)");
+        parser.addOption("-z","2","output compression type");
+        parser.addOption("-a","0","asynchronous output, maximum number of events waiting to be written (0 - synchronous)");
+        parser.addOption("-x","0","write an event index next to the output [0 - no, 1 - yes]");
+        parser.addOption("-xc","REC::Particle.pid","summary columns of the event index, separated by ':'");
         
         parser.parse(args);
         
@@ -270,6 +627,8 @@ public class EngineProcessor {
             EngineProcessor proc = new EngineProcessor();
             int config  = parser.getOption("-c").intValue();
             int nevents = parser.getOption("-n").intValue();
+            int nthreads = parser.getOption("-t").intValue();
+            boolean ordered = parser.getOption("-u").intValue()==0;
             if(config>0){
                 if(config>2){
                     proc.initCaloDebug();
@@ -284,8 +643,15 @@ public class EngineProcessor {
                     proc.addEngine(engine);
                 }
             }
+            int recordSize = parser.getOption("-b").intValue();
+            proc.setOutputOptions(recordSize>0 ? recordSize*1024*1024 : -1,
+                    parser.getOption("-z").intValue(), parser.getOption("-a").intValue());
+            proc.setInputReadThreads(parser.getOption("-p").intValue());
+            if(parser.getOption("-x").intValue()>0){
+                proc.setOutputIndex(parser.getOption("-xc").stringValue().split(":"));
+            }
             proc.init();
-            proc.processFile(inputFile,outputFile,nevents);        
+            proc.processFile(inputFile,outputFile,nevents,nthreads,ordered);        
         }
     }
 }
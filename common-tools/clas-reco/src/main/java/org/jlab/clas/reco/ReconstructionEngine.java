@@ -264,9 +264,9 @@ public abstract class ReconstructionEngine implements Engine {
         if(mt.compareTo("binary/data-evio")==0){
             try {
                 ByteBuffer bb = (ByteBuffer) input.getData();
-                byte[] buffer = bb.array();
                 ByteOrder endianness = bb.order();
-                dataevent = new EvioDataEvent(buffer, endianness, EvioFactory.getDictionary());
+                // the event is read in place, the buffer can be direct
+                dataevent = new EvioDataEvent(bb, endianness, EvioFactory.getDictionary());
             } catch (Exception e) {
                 String msg = String.format("Error reading input event%n%n%s", ClaraUtil.reportException(e));
                 output.setStatus(EngineStatus.ERROR);
@@ -24,7 +24,6 @@ import org.jlab.io.evio.EvioFactory;
 import org.jlab.io.hipo.HipoDataSource;
 import org.jlab.io.hipo.HipoDataSync;
 import org.jlab.jnp.hipo.data.HipoEvent;
-import org.jlab.jnp.hipo.data.HipoGroup;
 import org.jlab.jnp.hipo.data.HipoNode;
 import org.jlab.jnp.hipo.data.HipoNodeBuilder;
 import org.jlab.jnp.hipo.io.HipoReader;
@@ -91,13 +90,20 @@ public class HipoFileUtils {
                  writerFactory.show();
                  //writeFactory.getSchemaEvent()
              }
+             // group numbers of the filter banks, resolved once per file so
+             // that the events are selected without unpacking their banks;
+             // with ANY, the events that have at least one bank are written
+             boolean any = filter.compareTo("ANY")==0;
+             List<Integer> filterGroups = new ArrayList<Integer>();
+             for(Schema schema : reader.getSchemaFactory().getSchemaList()){
+                 if(any==true || schema.getName().contains(filter)==true) filterGroups.add(schema.getGroup());
+             }
              int nEvents = reader.getEventCount();
              for(int nev = 0; nev < nEvents; nev++){
                  HipoEvent    event = reader.readEvent(nev);
                  boolean flag = false;
-                 for(HipoGroup group : event.getGroups()) {
-//                     System.out.println(group.getSchema().getName());
-                     if(group.getSchema().getName().contains(filter)==true || filter.compareTo("ANY")==0) flag = true;
+                 for(int g = 0; g < filterGroups.size() && flag==false; g++){
+                     if(event.hasGroup(filterGroups.get(g))==true) flag = true;
                  }
                  if(flag){
                  HipoEvent outEvent = writerFactory.getFilteredEvent(event);
@@ -0,0 +1,224 @@
+package org.jlab.clas.reco;
+
+import java.io.File;
+import org.jlab.io.base.DataBank;
+import org.jlab.io.base.DataEvent;
+import org.jlab.io.hipo.HipoDataEvent;
+import org.jlab.io.hipo.HipoDataSource;
+import org.jlab.io.hipo.HipoDataSync;
+import org.jlab.jnp.hipo.io.HipoReader;
+import org.jlab.jnp.hipo.schema.Schema;
+import org.jlab.jnp.hipo.schema.SchemaFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the multi-threaded processing of a file writes the same events,
+ * in the same order, as the single-threaded processing, and that an error of
+ * an engine or of the reader stops the pipeline and reaches the caller.
+ */
+public class EngineProcessorTest {
+
+    private static final int NEVENTS = 200;
+    private static final int NTHREADS = 4;
+
+    private static File input;
+    private static SchemaFactory factory;
+
+    /**
+     * appends TEST::b with a value computed from TEST::a, after a delay that
+     * depends on the event, so that the workers finish out of order. Throws
+     * an Error on the given event, which processEvent() does not catch.
+     */
+    private static class TestEngine extends ReconstructionEngine {
+
+        private final int failOn;
+
+        TestEngine(int failOn) {
+            super("TEST", "test", "1.0");
+            this.failOn = failOn;
+        }
+
+        @Override
+        public boolean init() {
+            return true;
+        }
+
+        @Override
+        public boolean processDataEvent(DataEvent event) {
+            int id = event.getBank("TEST::a").getInt("id", 0);
+            if (id == failOn) {
+                throw new Error("engine failure on event " + id);
+            }
+            try {
+                Thread.sleep((id * 7) % 3);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            DataBank bank = event.createBank("TEST::b", 1);
+            bank.setInt("id", 0, 3 * id + 1);
+            event.appendBank(bank);
+            return true;
+        }
+    }
+
+    /**
+     * source failing after the given number of events.
+     */
+    private static class FailingSource extends HipoDataSource {
+
+        private final int failAfter;
+        private int count = 0;
+
+        FailingSource(int failAfter) {
+            this.failAfter = failAfter;
+        }
+
+        @Override
+        public DataEvent getNextEvent() {
+            if (count++ == failAfter) {
+                throw new IllegalStateException("reader failure after " + failAfter + " events");
+            }
+            return super.getNextEvent();
+        }
+    }
+
+    @BeforeClass
+    public static void createFile() throws Exception {
+        factory = new SchemaFactory();
+        factory.addSchema(new Schema("{20,TEST::a}[1,id,INT]"));
+        factory.addSchema(new Schema("{21,TEST::b}[1,id,INT]"));
+        input = File.createTempFile("pipeline", ".hipo");
+        HipoDataSync writer = new HipoDataSync(factory);
+        writer.open(input.getAbsolutePath());
+        for (int i = 0; i < NEVENTS; i++) {
+            DataEvent event = writer.createEvent();
+            DataBank bank = event.createBank("TEST::a", 1);
+            bank.setInt("id", 0, i);
+            event.appendBank(bank);
+            writer.writeEvent(event);
+        }
+        writer.close();
+    }
+
+    @AfterClass
+    public static void deleteFile() {
+        if (input != null) {
+            input.delete();
+        }
+    }
+
+    private static EngineProcessor createProcessor(int failOn) {
+        EngineProcessor processor = new EngineProcessor();
+        processor.addEngine("TEST", new TestEngine(failOn));
+        return processor;
+    }
+
+    private static byte[][] readEvents(File file) {
+        HipoReader reader = new HipoReader();
+        reader.open(file.getAbsolutePath());
+        byte[][] events = new byte[reader.getEventCount()][];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = reader.readEvent(i).getDataBuffer();
+        }
+        return events;
+    }
+
+    @Test(timeout = 60000)
+    public void testOrderAgainstSerial() throws Exception {
+        File serial = File.createTempFile("serial", ".hipo");
+        File ordered = File.createTempFile("ordered", ".hipo");
+        File unordered = File.createTempFile("unordered", ".hipo");
+        try {
+            createProcessor(-1).processFile(input.getAbsolutePath(), serial.getAbsolutePath());
+            createProcessor(-1).processFile(input.getAbsolutePath(), ordered.getAbsolutePath(), -1, NTHREADS, true);
+            createProcessor(-1).processFile(input.getAbsolutePath(), unordered.getAbsolutePath(), -1, NTHREADS, false);
+
+            byte[][] expected = readEvents(serial);
+            byte[][] events = readEvents(ordered);
+            assertEquals(NEVENTS, expected.length);
+            assertEquals(expected.length, events.length);
+            for (int i = 0; i < NEVENTS; i++) {
+                assertArrayEquals("event " + i, expected[i], events[i]);
+                DataEvent event = new HipoDataEvent(events[i], factory);
+                assertEquals(i, event.getBank("TEST::a").getInt("id", 0));
+                assertEquals(3 * i + 1, event.getBank("TEST::b").getInt("id", 0));
+            }
+
+            // without ordering every event is written once
+            boolean[] found = new boolean[NEVENTS];
+            for (byte[] buffer : readEvents(unordered)) {
+                DataEvent event = new HipoDataEvent(buffer, factory);
+                int id = event.getBank("TEST::a").getInt("id", 0);
+                assertFalse("event " + id + " written twice", found[id]);
+                assertArrayEquals(expected[id], buffer);
+                found[id] = true;
+            }
+            for (int i = 0; i < NEVENTS; i++) {
+                assertTrue("event " + i + " not written", found[i]);
+            }
+        } finally {
+            serial.delete();
+            ordered.delete();
+            unordered.delete();
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testEngineFailure() throws Exception {
+        File output = File.createTempFile("engine", ".hipo");
+        try {
+            createProcessor(NEVENTS / 2).processFile(input.getAbsolutePath(), output.getAbsolutePath(), -1, NTHREADS, true);
+            fail("no exception for an engine failure");
+        } catch (RuntimeException e) {
+            assertNotNull(e.getCause());
+            assertEquals("engine failure on event " + NEVENTS / 2, e.getCause().getMessage());
+        } finally {
+            output.delete();
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testReaderFailure() throws Exception {
+        File output = File.createTempFile("reader", ".hipo");
+        try {
+            FailingSource reader = new FailingSource(NEVENTS / 4);
+            reader.open(input.getAbsolutePath());
+            HipoDataSync writer = new HipoDataSync(factory);
+            writer.open(output.getAbsolutePath());
+            try {
+                createProcessor(-1).processPipeline(reader, writer, -1, NTHREADS, true);
+                fail("no exception for a reader failure");
+            } catch (RuntimeException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+                assertEquals("reader failure after " + NEVENTS / 4 + " events", e.getCause().getMessage());
+            }
+            // the events written before the failure are in order
+            byte[][] events = readEvents(output);
+            assertTrue(events.length <= NEVENTS / 4);
+            for (int i = 0; i < events.length; i++) {
+                DataEvent event = new HipoDataEvent(events[i], factory);
+                assertEquals(i, event.getBank("TEST::a").getInt("id", 0));
+            }
+        } finally {
+            output.delete();
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testMaximumEvents() throws Exception {
+        File output = File.createTempFile("pipeline", ".hipo");
+        try {
+            HipoDataSource reader = new HipoDataSource();
+            reader.open(input.getAbsolutePath());
+            HipoDataSync writer = new HipoDataSync(factory);
+            writer.open(output.getAbsolutePath());
+            createProcessor(-1).processPipeline(reader, writer, NEVENTS / 2, NTHREADS, true);
+            assertEquals(NEVENTS / 2, readEvents(output).length);
+        } finally {
+            output.delete();
+        }
+    }
+}
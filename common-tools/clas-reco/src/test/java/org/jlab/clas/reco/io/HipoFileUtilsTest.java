@@ -0,0 +1,133 @@
+package org.jlab.clas.reco.io;
+
+import java.io.File;
+import java.util.Arrays;
+import org.jlab.io.base.DataBank;
+import org.jlab.io.base.DataEvent;
+import org.jlab.io.hipo.HipoDataSource;
+import org.jlab.io.hipo.HipoDataSync;
+import org.jlab.jnp.hipo.schema.Schema;
+import org.jlab.jnp.hipo.schema.SchemaFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the events and banks written by HipoFileUtils.writeHipo() for the
+ * bank filter and for ANY, which writes only the events with a bank.
+ */
+public class HipoFileUtilsTest {
+
+    private static final int NEVENTS = 12;
+
+    private static File input;
+
+    // event i has TEST::a if i is even and TEST::b if i is a multiple of 3
+    private static boolean hasA(int i) {
+        return i % 2 == 0;
+    }
+
+    private static boolean hasB(int i) {
+        return i % 3 == 0;
+    }
+
+    @BeforeClass
+    public static void createFile() throws Exception {
+        SchemaFactory factory = new SchemaFactory();
+        factory.addSchema(new Schema("{20,TEST::a}[1,id,INT]"));
+        factory.addSchema(new Schema("{21,TEST::b}[1,id,INT]"));
+        input = File.createTempFile("filter", ".hipo");
+        HipoDataSync writer = new HipoDataSync(factory);
+        writer.open(input.getAbsolutePath());
+        for (int i = 0; i < NEVENTS; i++) {
+            DataEvent event = writer.createEvent();
+            if (hasA(i)) {
+                DataBank bank = event.createBank("TEST::a", 1);
+                bank.setInt("id", 0, i);
+                event.appendBank(bank);
+            }
+            if (hasB(i)) {
+                DataBank bank = event.createBank("TEST::b", 1);
+                bank.setInt("id", 0, i);
+                event.appendBank(bank);
+            }
+            writer.writeEvent(event);
+        }
+        writer.close();
+    }
+
+    @AfterClass
+    public static void deleteFile() {
+        if (input != null) {
+            input.delete();
+        }
+    }
+
+    private static int[] filter(String keep, String filter, boolean[] selected) throws Exception {
+        File output = File.createTempFile("filtered", ".hipo");
+        try {
+            HipoFileUtils.writeHipo(output.getAbsolutePath(), 0, keep, filter, Arrays.asList(input.getAbsolutePath()));
+            HipoDataSource reader = new HipoDataSource();
+            reader.open(output.getAbsolutePath());
+            int[] banks = new int[3];
+            int nevents = 0;
+            int i = 0;
+            while (reader.hasEvent()) {
+                DataEvent event = reader.getNextEvent();
+                while (selected[i] == false) {
+                    i++;
+                }
+                if (event.hasBank("TEST::a")) {
+                    assertEquals(i, event.getBank("TEST::a").getInt("id", 0));
+                    banks[0]++;
+                }
+                if (event.hasBank("TEST::b")) {
+                    assertEquals(i, event.getBank("TEST::b").getInt("id", 0));
+                    banks[1]++;
+                }
+                nevents++;
+                i++;
+            }
+            banks[2] = nevents;
+            return banks;
+        } finally {
+            output.delete();
+        }
+    }
+
+    @Test
+    public void testFilterBank() throws Exception {
+        boolean[] selected = new boolean[NEVENTS];
+        int nselected = 0;
+        for (int i = 0; i < NEVENTS; i++) {
+            selected[i] = hasB(i);
+            if (selected[i]) nselected++;
+        }
+        int[] banks = filter("TEST::a", "TEST::b", selected);
+        assertEquals(nselected, banks[2]);
+        // events 0 and 6 have both banks, TEST::b is not kept
+        assertEquals(2, banks[0]);
+        assertEquals(0, banks[1]);
+    }
+
+    @Test
+    public void testFilterAny() throws Exception {
+        boolean[] selected = new boolean[NEVENTS];
+        int nselected = 0;
+        int na = 0;
+        int nb = 0;
+        for (int i = 0; i < NEVENTS; i++) {
+            selected[i] = hasA(i) || hasB(i);
+            if (selected[i]) nselected++;
+            if (hasA(i)) na++;
+            if (hasB(i)) nb++;
+        }
+        int[] banks = filter("ALL", "ANY", selected);
+        // the events without banks are not written
+        assertEquals(8, nselected);
+        assertEquals(nselected, banks[2]);
+        assertEquals(na, banks[0]);
+        assertEquals(nb, banks[1]);
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package org.jlab.utils.groups;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only, columnar copy of an IndexedTable for use in reconstruction.
+ *
+ * Rows are found through an open-addressing hash of the primitive long
+ * index (the same packing as IndexedList.IndexGenerator), and the values
+ * are stored per column in int[] and double[] arrays. Columns can be
+ * resolved once to an integer handle with getColumn(), so that a lookup
+ * is a hash probe plus an array access, with no allocation. The table is
+ * immutable after construction and can be shared between threads.
+ *
+ * Usage:
+ * <pre>
+ *   int gain = table.getColumn("gain");
+ *   ...
+ *   int row = table.getRow(sector, layer, component);
+ *   if(row>=0) value = table.getDouble(gain, row);
+ * </pre>
+ */
+public final class ImmutableIndexedTable {
+
+    private final int            indexSize;
+    private final List<String>   columnNames;
+    private final Map<String,Integer> columnMap = new LinkedHashMap<String,Integer>();
+
+    private final long[]     rowKeys;
+    private final double[][] doubleColumns;
+    private final int[][]    intColumns;
+
+    // open-addressing hash: packed index -> row + 1 (0 marks an empty slot)
+    private final long[]     hashKeys;
+    private final int[]      hashRows;
+    private final int        hashMask;
+
+    /**
+     * copies the content of the table.
+     * @param table indexed table to copy
+     */
+    public ImmutableIndexedTable(IndexedTable table){
+        Map<Long,IndexedTable.IndexedEntry> entries = table.getList().getMap();
+        int ncolumns = table.getColumnCount() - table.getList().getIndexSize();
+        int nrows    = entries.size();
+
+        this.indexSize = table.getList().getIndexSize();
+
+        List<String> names = new ArrayList<String>();
+        for(int c = 0; c < ncolumns; c++){
+            String name = table.getColumnName(c + 3);
+            names.add(name);
+            this.columnMap.put(name, c);
+        }
+        this.columnNames = Collections.unmodifiableList(names);
+
+        this.rowKeys       = new long[nrows];
+        this.doubleColumns = new double[ncolumns][nrows];
+        this.intColumns    = new int[ncolumns][nrows];
+
+        int capacity = 16;
+        while(capacity < 2*nrows) capacity <<= 1;
+        this.hashKeys = new long[capacity];
+        this.hashRows = new int[capacity];
+        this.hashMask = capacity - 1;
+
+        int row = 0;
+        for(Map.Entry<Long,IndexedTable.IndexedEntry> entry : entries.entrySet()){
+            long key = entry.getKey();
+            rowKeys[row] = key;
+            for(int c = 0; c < ncolumns; c++){
+                Number value = entry.getValue().getValue(c);
+                doubleColumns[c][row] = value.doubleValue();
+                intColumns[c][row]    = value.intValue();
+            }
+            int slot = slot(key);
+            while(hashRows[slot]!=0) slot = (slot + 1) & hashMask;
+            hashKeys[slot] = key;
+            hashRows[slot] = row + 1;
+            row++;
+        }
+    }
+
+    private int slot(long key){
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & hashMask;
+    }
+
+    private int find(long key){
+        int slot = slot(key);
+        while(true){
+            int r = hashRows[slot];
+            if(r==0) return -1;
+            if(hashKeys[slot]==key) return r - 1;
+            slot = (slot + 1) & hashMask;
+        }
+    }
+
+    private static long pack(int i0, int i1, int i2, int i3){
+        return ((((long) i0) & 0xFFFF) << 48) | ((((long) i1) & 0xFFFF) << 32)
+             | ((((long) i2) & 0xFFFF) << 16) | (((long) i3) & 0xFFFF);
+    }
+
+    public int getIndexSize(){
+        return this.indexSize;
+    }
+
+    public int getRowCount(){
+        return this.rowKeys.length;
+    }
+
+    public int getColumnCount(){
+        return this.columnNames.size();
+    }
+
+    public List<String> getColumnNames(){
+        return this.columnNames;
+    }
+
+    /**
+     * @param name column name
+     * @return the column handle to use with getDouble()/getInt(), or -1
+     * if the table has no such column
+     */
+    public int getColumn(String name){
+        Integer column = this.columnMap.get(name);
+        return column==null ? -1 : column;
+    }
+
+    /**
+     * @param i0 first index
+     * @return the row with the given index, or -1
+     */
+    public int getRow(int i0){
+        if(indexSize!=1) return -1;
+        return find(pack(i0, 0, 0, 0));
+    }
+
+    /**
+     * @return the row with the given indices, or -1
+     */
+    public int getRow(int i0, int i1){
+        if(indexSize!=2) return -1;
+        return find(pack(i0, i1, 0, 0));
+    }
+
+    /**
+     * @return the row with the given indices, or -1
+     */
+    public int getRow(int i0, int i1, int i2){
+        if(indexSize!=3) return -1;
+        return find(pack(i0, i1, i2, 0));
+    }
+
+    /**
+     * @return the row with the given indices, or -1
+     */
+    public int getRow(int i0, int i1, int i2, int i3){
+        if(indexSize!=4) return -1;
+        return find(pack(i0, i1, i2, i3));
+    }
+
+    /**
+     * @param row row number, between 0 and getRowCount()-1
+     * @param order position of the index (0 to getIndexSize()-1)
+     * @return the index value of the row
+     */
+    public int getIndex(int row, int order){
+        return IndexedList.IndexGenerator.getIndex(rowKeys[row], order);
+    }
+
+    public double getDouble(int column, int row){
+        return this.doubleColumns[column][row];
+    }
+
+    public int getInt(int column, int row){
+        return this.intColumns[column][row];
+    }
+
+    public boolean hasEntry(int i0, int i1, int i2){
+        return this.getRow(i0, i1, i2)>=0;
+    }
+
+    /**
+     * same as IndexedTable.getDoubleValue() for a table with three indices:
+     * returns 0 if the entry or the column does not exist.
+     */
+    public double getDoubleValue(String item, int i0, int i1, int i2){
+        int column = this.getColumn(item);
+        int row    = this.getRow(i0, i1, i2);
+        if(column<0||row<0) return 0;
+        return this.doubleColumns[column][row];
+    }
+
+    /**
+     * same as IndexedTable.getIntValue() for a table with three indices:
+     * returns 0 if the entry or the column does not exist.
+     */
+    public int getIntValue(String item, int i0, int i1, int i2){
+        int column = this.getColumn(item);
+        int row    = this.getRow(i0, i1, i2);
+        if(column<0||row<0) return 0;
+        return this.intColumns[column][row];
+    }
+}
@@ -266,6 +266,17 @@ public class IndexedTable extends DefaultTableModel {
     
     
     
+    /**
+     * returns the type of the column, "I" for integers (and for the index
+     * columns) and "D" for doubles.
+     * @param col
+     * @return
+     */
+    public String getColumnType(int col){
+        if(col<entries.getIndexSize()) return "I";
+        return this.entryTypes.get(this.entryNames.get(col-entries.getIndexSize()));
+    }
+
     @Override
     public int getColumnCount(){
         int ncolumns = 0;
@@ -0,0 +1,102 @@
+package org.jlab.utils.groups;
+
+import org.jlab.utils.benchmark.BenchmarkTimer;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that ImmutableIndexedTable returns the same values as the
+ * IndexedTable it was built from.
+ */
+public class ImmutableIndexedTableTest {
+
+    /**
+     * @return a table shaped like a TOF calibration table: sector, layer, component
+     */
+    private static IndexedTable createTable() {
+        IndexedTable table = new IndexedTable(3, "gain/D:offset/D:status/I");
+        for (int sector = 1; sector <= 6; sector++) {
+            for (int layer = 1; layer <= 3; layer++) {
+                for (int component = 1; component <= 62; component++) {
+                    table.addEntry(sector, layer, component);
+                    table.setDoubleValue(1.0 + 0.001 * component + 0.1 * layer, "gain", sector, layer, component);
+                    table.setDoubleValue(-0.5 * sector + 0.25 * component, "offset", sector, layer, component);
+                    table.setIntValue(component % 3, "status", sector, layer, component);
+                }
+            }
+        }
+        return table;
+    }
+
+    @Test
+    public void testSameValues() {
+        IndexedTable table = createTable();
+        ImmutableIndexedTable immutable = new ImmutableIndexedTable(table);
+
+        assertEquals(table.getRowCount(), immutable.getRowCount());
+        assertEquals(3, immutable.getIndexSize());
+        assertEquals(3, immutable.getColumnCount());
+        assertEquals(-1, immutable.getColumn("nonexistent"));
+
+        int gain = immutable.getColumn("gain");
+        int status = immutable.getColumn("status");
+        for (int sector = 0; sector <= 7; sector++) {
+            for (int layer = 0; layer <= 4; layer++) {
+                for (int component = 0; component <= 64; component++) {
+                    assertEquals(table.hasEntry(sector, layer, component), immutable.hasEntry(sector, layer, component));
+                    for (String item : new String[]{"gain", "offset", "status", "nonexistent"}) {
+                        assertEquals(table.getDoubleValue(item, sector, layer, component),
+                                immutable.getDoubleValue(item, sector, layer, component), 0.0);
+                        assertEquals(table.getIntValue(item, sector, layer, component),
+                                immutable.getIntValue(item, sector, layer, component));
+                    }
+                    int row = immutable.getRow(sector, layer, component);
+                    if (row >= 0) {
+                        assertEquals(sector, immutable.getIndex(row, 0));
+                        assertEquals(layer, immutable.getIndex(row, 1));
+                        assertEquals(component, immutable.getIndex(row, 2));
+                        assertEquals(table.getDoubleValue("gain", sector, layer, component), immutable.getDouble(gain, row), 0.0);
+                        assertEquals(table.getIntValue("status", sector, layer, component), immutable.getInt(status, row));
+                    }
+                }
+            }
+        }
+        // wrong number of indices never matches
+        assertEquals(-1, immutable.getRow(1, 1));
+    }
+
+    public static void main(String[] args) {
+        IndexedTable table = createTable();
+        ImmutableIndexedTable immutable = new ImmutableIndexedTable(table);
+        int gain = immutable.getColumn("gain");
+        int nloops = 20000;
+        double sum = 0;
+        BenchmarkTimer timerTable = new BenchmarkTimer("IndexedTable");
+        BenchmarkTimer timerImmutable = new BenchmarkTimer("Immutable");
+        for (int iter = 0; iter < 3; iter++) {
+            timerTable.reset();
+            timerImmutable.reset();
+            timerTable.resume();
+            for (int n = 0; n < nloops; n++) {
+                for (int sector = 1; sector <= 6; sector++) {
+                    for (int component = 1; component <= 62; component++) {
+                        sum += table.getDoubleValue("gain", sector, 2, component);
+                    }
+                }
+            }
+            timerTable.pause();
+            timerImmutable.resume();
+            for (int n = 0; n < nloops; n++) {
+                for (int sector = 1; sector <= 6; sector++) {
+                    for (int component = 1; component <= 62; component++) {
+                        sum += immutable.getDouble(gain, immutable.getRow(sector, 2, component));
+                    }
+                }
+            }
+            timerImmutable.pause();
+        }
+        System.out.println(timerTable.toString());
+        System.out.println(timerImmutable.toString());
+        System.out.println("checksum " + sum);
+    }
+}
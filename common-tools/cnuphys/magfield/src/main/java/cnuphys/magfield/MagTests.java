@@ -196,6 +196,70 @@ public class MagTests {
 	
 	
 	
+	// resident set size of this process in MB (linux only), or NaN
+	private static double residentMemory() {
+		try {
+			for (String line : java.nio.file.Files.readAllLines(java.nio.file.Paths.get("/proc/self/status"))) {
+				if (line.startsWith("VmRSS:")) {
+					return Double.parseDouble(line.substring(6).trim().split("\\s+")[0]) / 1024.;
+				}
+			}
+		} catch (Exception e) {
+		}
+		return Double.NaN;
+	}
+
+	// compare reading the torus into the heap with memory mapping it:
+	// startup time, memory, and sameness of the probe results
+	private static void memoryMapTest() {
+		String path = MagneticFields.getInstance().getTorusPath();
+		if (path == null) {
+			System.err.println("Memory map test needs a torus map");
+			return;
+		}
+		File file = new File(path);
+		boolean mapped = MagneticField.isMemoryMapped();
+		Torus torus[] = new Torus[2];
+
+		try {
+			for (int i = 0; i < 2; i++) {
+				MagneticField.setMemoryMapped(i == 1);
+				memoryReport(null);
+				double rss = residentMemory();
+				long time = System.nanoTime();
+				torus[i] = Torus.fromBinaryFile(file);
+				time = System.nanoTime() - time;
+				memoryReport((i == 0 ? "after heap read of " : "after memory map of ") + file.getName());
+				System.err.println(String.format("%s read time: %8.3f sec  RSS increase: %6.1f MB",
+						(i == 0 ? "  heap" : "mapped"), time / 1.0e9, residentMemory() - rss));
+			}
+		} catch (FileNotFoundException e) {
+			e.printStackTrace();
+			return;
+		} finally {
+			MagneticField.setMemoryMapped(mapped);
+		}
+
+		int num = 1000000;
+		Random rand = new Random(5347632765L);
+		TorusProbe probe0 = new TorusProbe(torus[0]);
+		TorusProbe probe1 = new TorusProbe(torus[1]);
+		float result0[] = new float[3];
+		float result1[] = new float[3];
+		int ndiff = 0;
+		for (int i = 0; i < num; i++) {
+			float z = 600 * rand.nextFloat() - 100;
+			float x = 400 * rand.nextFloat() - 200;
+			float y = 400 * rand.nextFloat() - 200;
+			probe0.field(x, y, z, result0);
+			probe1.field(x, y, z, result1);
+			if ((result0[0] != result1[0]) || (result0[1] != result1[1]) || (result0[2] != result1[2])) {
+				ndiff++;
+			}
+		}
+		System.err.println("Points with different field values (should be 0): " + ndiff + " of " + num);
+	}
+	
 	// sameness tests (overlap not overlap)
 	private static void mathTest() {
 		
@@ -485,6 +549,7 @@ public class MagTests {
 		final JMenuItem test4Item = new JMenuItem("Sameness Test");
 		final JMenuItem test5Item = new JMenuItem("MathLib Test");
 		final JMenuItem threadItem = new JMenuItem("Thread Test");
+		final JMenuItem mmapItem = new JMenuItem("Memory Mapped Torus Test");
 
 		ActionListener al1 = new ActionListener() {
 
@@ -500,6 +565,8 @@ public class MagTests {
 					mathTest();
 				} else if (e.getSource() == threadItem) {
 					threadTest(10000000, 8);
+				} else if (e.getSource() == mmapItem) {
+					memoryMapTest();
 				}
 			}
 
@@ -510,11 +577,13 @@ public class MagTests {
 		test4Item.addActionListener(al1);
 		test5Item.addActionListener(al1);
 		threadItem.addActionListener(al1);
+		mmapItem.addActionListener(al1);
 		testMenu.add(test0Item);
 		testMenu.add(test1Item);
 		testMenu.add(test4Item);
 		testMenu.add(test5Item);
 		testMenu.add(threadItem);
+		testMenu.add(mmapItem);
 		testMenu.addSeparator();
 
 		// now for rectangular grids
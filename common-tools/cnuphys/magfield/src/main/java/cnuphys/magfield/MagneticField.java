@@ -6,8 +6,10 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
 
 /**
  * For magnetic fields stored in a specific format.
@@ -126,6 +128,9 @@ public abstract class MagneticField implements IMagField {
 	// determine whether we use interpolation or nearest neighbor
 	protected static boolean _interpolate = true;		
 	
+	// determine whether field maps are memory mapped rather than read into the heap
+	protected static boolean _memoryMapped = Boolean.getBoolean("magfield.mmap");
+	
 	private static final double TINY = 1.0e-5;
 	/**
 	 * Scale the field.
@@ -425,7 +430,8 @@ public abstract class MagneticField implements IMagField {
 		// N23 = -1;
 
 		try {
-			DataInputStream dos = new DataInputStream(new FileInputStream(binaryFile));
+			FileInputStream fis = new FileInputStream(binaryFile);
+			DataInputStream dos = new DataInputStream(fis);
 
 			boolean swap = false;
 			int magicnum = dos.readInt(); // magic number
@@ -475,14 +481,27 @@ public abstract class MagneticField implements IMagField {
 			// now get the field values
 			int size = 3 * 4 * numFieldPoints;
 
-			byte bytes[] = new byte[size];
+			if (_memoryMapped) {
+				// map the values read-only: the pages come from the shared page cache,
+				// so several processes reading the same file hold a single copy
+				long offset = fis.getChannel().position();
+				RandomAccessFile raf = new RandomAccessFile(binaryFile, "r");
+				try {
+					ByteBuffer byteBuffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, offset, size);
+					field = byteBuffer.asFloatBuffer();
+				}
+				finally {
+					raf.close(); // the mapping stays valid after the channel is closed
+				}
+			}
+			else {
+				byte bytes[] = new byte[size];
 
-			// read the bytes as a block
-			dos.read(bytes);
-//			ByteBuffer byteBuffer = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
-//			field = byteBuffer.asFloatBuffer().asReadOnlyBuffer();
-			ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
-			field = byteBuffer.asFloatBuffer();
+				// read the bytes as a block
+				dos.readFully(bytes);
+				ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+				field = byteBuffer.asFloatBuffer();
+			}
 
 			computeMaxField();
 
@@ -655,6 +674,42 @@ public abstract class MagneticField implements IMagField {
 		System.out.println("Interpolating fields: " + _interpolate);
 	}
 
+	/**
+	 * Check whether field maps are memory mapped when read
+	 * 
+	 * @return the memory mapped flag
+	 */
+	public static final boolean isMemoryMapped() {
+		return _memoryMapped;
+	}
+
+	/**
+	 * Set whether field maps read afterwards are memory mapped (read-only) rather
+	 * than copied into the heap. The default can also be set with the system
+	 * property <code>magfield.mmap</code>.
+	 * 
+	 * @param memoryMapped
+	 *            the memory mapped flag to set
+	 */
+	public static final void setMemoryMapped(boolean memoryMapped) {
+		_memoryMapped = memoryMapped;
+		System.out.println("Memory mapped fields: " + _memoryMapped);
+	}
+
+	/**
+	 * Make sure the field values can be modified, copying a read-only (memory
+	 * mapped) map into the heap if necessary.
+	 */
+	protected final void makeFieldWritable() {
+		if (field.isReadOnly()) {
+			FloatBuffer copy = FloatBuffer.allocate(field.capacity());
+			field.rewind();
+			copy.put(field);
+			copy.rewind();
+			field = copy;
+		}
+	}
+
 
 	/**
 	 * @return the phiCoordinate
@@ -0,0 +1,446 @@
+package cnuphys.magfield;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * The rotated composite (torus + solenoid) field resampled on a regular
+ * Cartesian grid in the tilted sector coordinate system. A lookup is a
+ * trilinear interpolation in the grid, without the cylindrical coordinates,
+ * sector rotations and per-map interpolations of the native probes.
+ * <p>
+ * The grid is filled from sector 1 of the native maps. With the 12-fold
+ * symmetric torus and no transverse shift of the maps the field in the tilted
+ * sector system is the same in every sector, so the grid is used for all
+ * sectors; otherwise it is only used for sector 1 (see {@link #isSymmetric()}).
+ * <p>
+ * The grid is immutable once built or read, so one grid can be shared by the
+ * probes of all threads. Its key records the maps, scale factors and shifts
+ * it was built from, so a cached file is only used for the same configuration.
+ */
+public class SectorFieldGrid {
+
+	// magic number and version of the cache files
+	private static final int MAGICNUMBER = 0x53464752; // "SFGR"
+	private static final int VERSION = 1;
+
+	// default extent of the grid in the tilted sector system, in cm.
+	// It covers the drift chambers and the path from the target to them.
+	public static final double DEFAULT_XMIN = -350;
+	public static final double DEFAULT_XMAX = 550;
+	public static final double DEFAULT_YMIN = -350;
+	public static final double DEFAULT_YMAX = 350;
+	public static final double DEFAULT_ZMIN = 0;
+	public static final double DEFAULT_ZMAX = 750;
+
+	// the last grid handed out by getInstance, shared by all the probes
+	private static SectorFieldGrid _instance;
+
+	// the configuration the grid was built from
+	private final String _key;
+
+	private final boolean _symmetric;
+
+	// grid limits and spacing in cm
+	private final float _xmin, _ymin, _zmin;
+	private final float _spacing;
+	private final float _invSpacing;
+	private final int _nx, _ny, _nz;
+
+	// field in kG, interleaved bx, by, bz with z changing fastest
+	private final float _b[];
+
+	private SectorFieldGrid(String key, boolean symmetric, float xmin, float ymin, float zmin, float spacing, int nx,
+			int ny, int nz, float b[]) {
+		_key = key;
+		_symmetric = symmetric;
+		_xmin = xmin;
+		_ymin = ymin;
+		_zmin = zmin;
+		_spacing = spacing;
+		_invSpacing = 1f / spacing;
+		_nx = nx;
+		_ny = ny;
+		_nz = nz;
+		_b = b;
+	}
+
+	/**
+	 * Get the grid for the current rotated composite field with the default
+	 * extent. The grid is shared: it is only rebuilt (or read from the cache
+	 * file) when the field configuration or the spacing changed since the last
+	 * call.
+	 *
+	 * @param field the rotated composite field
+	 * @param spacing the grid spacing in cm
+	 * @param cacheFile the cache file, read if it matches the configuration and
+	 *            (re)written otherwise. May be <code>null</code>.
+	 * @return the grid
+	 */
+	public static synchronized SectorFieldGrid getInstance(RotatedCompositeField field, double spacing,
+			String cacheFile) {
+		String key = createKey(field, DEFAULT_XMIN, DEFAULT_XMAX, DEFAULT_YMIN, DEFAULT_YMAX, DEFAULT_ZMIN,
+				DEFAULT_ZMAX, spacing);
+		if ((_instance != null) && _instance._key.equals(key)) {
+			return _instance;
+		}
+
+		SectorFieldGrid grid = null;
+		if ((cacheFile != null) && new File(cacheFile).exists()) {
+			try {
+				grid = read(cacheFile);
+				if (!grid._key.equals(key)) {
+					System.out.println("Field grid cache " + cacheFile + " is for another configuration, rebuilding");
+					grid = null;
+				}
+			}
+			catch (IOException e) {
+				System.err.println("Could not read field grid cache " + cacheFile + ": " + e.getMessage());
+				grid = null;
+			}
+		}
+
+		if (grid == null) {
+			grid = build(field, DEFAULT_XMIN, DEFAULT_XMAX, DEFAULT_YMIN, DEFAULT_YMAX, DEFAULT_ZMIN, DEFAULT_ZMAX,
+					spacing);
+			if (cacheFile != null) {
+				try {
+					grid.write(cacheFile);
+				}
+				catch (IOException e) {
+					System.err.println("Could not write field grid cache " + cacheFile + ": " + e.getMessage());
+				}
+			}
+		}
+		_instance = grid;
+		return grid;
+	}
+
+	/**
+	 * Resample the rotated composite field on a grid in the tilted sector
+	 * system.
+	 *
+	 * @param field the rotated composite field
+	 * @param xmin the minimum tilted x in cm
+	 * @param xmax the maximum tilted x in cm
+	 * @param ymin the minimum tilted y in cm
+	 * @param ymax the maximum tilted y in cm
+	 * @param zmin the minimum tilted z in cm
+	 * @param zmax the maximum tilted z in cm
+	 * @param spacing the grid spacing in cm
+	 * @return the new grid
+	 */
+	public static SectorFieldGrid build(RotatedCompositeField field, double xmin, double xmax, double ymin,
+			double ymax, double zmin, double zmax, double spacing) {
+
+		if (!(spacing > 0)) {
+			throw new IllegalArgumentException("Bad field grid spacing: " + spacing);
+		}
+
+		long start = System.currentTimeMillis();
+		int nx = numPoints(xmin, xmax, spacing);
+		int ny = numPoints(ymin, ymax, spacing);
+		int nz = numPoints(zmin, zmax, spacing);
+		float b[] = new float[3 * nx * ny * nz];
+
+		RotatedCompositeProbe probe = new RotatedCompositeProbe(field);
+		float result[] = new float[3];
+		int index = 0;
+		for (int i = 0; i < nx; i++) {
+			float x = (float) (xmin + i * spacing);
+			for (int j = 0; j < ny; j++) {
+				float y = (float) (ymin + j * spacing);
+				for (int k = 0; k < nz; k++) {
+					float z = (float) (zmin + k * spacing);
+					probe.field(1, x, y, z, result);
+					b[index++] = result[0];
+					b[index++] = result[1];
+					b[index++] = result[2];
+				}
+			}
+		}
+
+		boolean symmetric = isSymmetric(field);
+		System.out.println(String.format("Built %d x %d x %d field grid with %.1f cm spacing in %d ms", nx, ny, nz,
+				spacing, System.currentTimeMillis() - start));
+		if (!symmetric) {
+			System.out.println("Field maps are not sector symmetric, the field grid is used for sector 1 only");
+		}
+
+		return new SectorFieldGrid(createKey(field, xmin, xmax, ymin, ymax, zmin, zmax, spacing), symmetric,
+				(float) xmin, (float) ymin, (float) zmin, (float) spacing, nx, ny, nz, b);
+	}
+
+	private static int numPoints(double min, double max, double spacing) {
+		return Math.max(2, (int) Math.ceil((max - min) / spacing - 1.0e-6) + 1);
+	}
+
+	// true if the field in the tilted sector system does not depend on the sector
+	private static boolean isSymmetric(RotatedCompositeField field) {
+		for (IMagField f : field) {
+			if ((f instanceof Torus) && ((Torus) f).isFullMap()) {
+				return false;
+			}
+			if (f instanceof MagneticField) {
+				MagneticField mf = (MagneticField) f;
+				if ((mf.getShiftX() != 0) || (mf.getShiftY() != 0)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	// description of the maps, scales, shifts and grid a grid is built from
+	private static String createKey(RotatedCompositeField field, double xmin, double xmax, double ymin,
+			double ymax, double zmin, double zmax, double spacing) {
+		StringBuilder sb = new StringBuilder();
+		for (IMagField f : field) {
+			if (f instanceof MagneticField) {
+				MagneticField mf = (MagneticField) f;
+				sb.append(String.format("%s[%s scale %g shift %g %g %g zero %b] ", f.getClass().getSimpleName(),
+						mf.getBaseFileName(), mf.getScaleFactor(), mf.getShiftX(), mf.getShiftY(), mf.getShiftZ(),
+						mf.isZeroField()));
+			}
+			else {
+				sb.append(f.getName()).append(" ");
+			}
+		}
+		sb.append(String.format("grid x [%g, %g] y [%g, %g] z [%g, %g] spacing %g", xmin, xmax, ymin, ymax, zmin,
+				zmax, spacing));
+		return sb.toString();
+	}
+
+	/**
+	 * Get the field by trilinear interpolation in the grid.
+	 *
+	 * @param x the tilted sector x coordinate in cm
+	 * @param y the tilted sector y coordinate in cm
+	 * @param z the tilted sector z coordinate in cm
+	 * @param result the field in kG in the tilted sector system
+	 * @return <code>false</code>, with result untouched, if the point is outside
+	 *         the grid
+	 */
+	public boolean field(float x, float y, float z, float result[]) {
+		float fx = (x - _xmin) * _invSpacing;
+		float fy = (y - _ymin) * _invSpacing;
+		float fz = (z - _zmin) * _invSpacing;
+
+		// the negated test also rejects NaN
+		if (!((fx >= 0) && (fy >= 0) && (fz >= 0) && (fx <= _nx - 1) && (fy <= _ny - 1) && (fz <= _nz - 1))) {
+			return false;
+		}
+
+		// clamp the cell on the upper faces so that the last cell is used
+		int i = Math.min((int) fx, _nx - 2);
+		int j = Math.min((int) fy, _ny - 2);
+		int k = Math.min((int) fz, _nz - 2);
+		float tx = fx - i;
+		float ty = fy - j;
+		float tz = fz - k;
+
+		int dz = 3;
+		int dy = 3 * _nz;
+		int dx = dy * _ny;
+		int i000 = i * dx + j * dy + k * dz;
+		int i100 = i000 + dx;
+		int i010 = i000 + dy;
+		int i110 = i100 + dy;
+
+		for (int c = 0; c < 3; c++) {
+			float b00 = _b[i000 + c] + tz * (_b[i000 + dz + c] - _b[i000 + c]);
+			float b01 = _b[i010 + c] + tz * (_b[i010 + dz + c] - _b[i010 + c]);
+			float b10 = _b[i100 + c] + tz * (_b[i100 + dz + c] - _b[i100 + c]);
+			float b11 = _b[i110 + c] + tz * (_b[i110 + dz + c] - _b[i110 + c]);
+			float b0 = b00 + ty * (b01 - b00);
+			float b1 = b10 + ty * (b11 - b10);
+			result[c] = b0 + tx * (b1 - b0);
+		}
+		return true;
+	}
+
+	/**
+	 * Check whether the grid holds the field of every sector
+	 *
+	 * @return <code>true</code> if the grid can be used for all the sectors,
+	 *         <code>false</code> if only for sector 1
+	 */
+	public boolean isSymmetric() {
+		return _symmetric;
+	}
+
+	/**
+	 * Get the description of the field configuration and grid
+	 *
+	 * @return the key of the grid
+	 */
+	public String getKey() {
+		return _key;
+	}
+
+	/**
+	 * Get the grid spacing
+	 *
+	 * @return the spacing in cm
+	 */
+	public float getSpacing() {
+		return _spacing;
+	}
+
+	/**
+	 * Get the number of grid points
+	 *
+	 * @return the number of grid points
+	 */
+	public int getNumPoints() {
+		return _nx * _ny * _nz;
+	}
+
+	/**
+	 * Write the grid to a cache file
+	 *
+	 * @param fileName the file name
+	 * @throws IOException
+	 */
+	public void write(String fileName) throws IOException {
+		DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)));
+		try {
+			dos.writeInt(MAGICNUMBER);
+			dos.writeInt(VERSION);
+			dos.writeUTF(_key);
+			dos.writeBoolean(_symmetric);
+			dos.writeFloat(_xmin);
+			dos.writeFloat(_ymin);
+			dos.writeFloat(_zmin);
+			dos.writeFloat(_spacing);
+			dos.writeInt(_nx);
+			dos.writeInt(_ny);
+			dos.writeInt(_nz);
+
+			ByteBuffer buffer = ByteBuffer.allocate(4 * _b.length);
+			buffer.asFloatBuffer().put(_b);
+			dos.write(buffer.array());
+		}
+		finally {
+			dos.close();
+		}
+	}
+
+	/**
+	 * Read a grid from a cache file
+	 *
+	 * @param fileName the file name
+	 * @return the grid
+	 * @throws IOException
+	 */
+	public static SectorFieldGrid read(String fileName) throws IOException {
+		DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)));
+		try {
+			if (dis.readInt() != MAGICNUMBER) {
+				throw new IOException("not a field grid file");
+			}
+			int version = dis.readInt();
+			if (version != VERSION) {
+				throw new IOException("unsupported field grid version " + version);
+			}
+			String key = dis.readUTF();
+			boolean symmetric = dis.readBoolean();
+			float xmin = dis.readFloat();
+			float ymin = dis.readFloat();
+			float zmin = dis.readFloat();
+			float spacing = dis.readFloat();
+			int nx = dis.readInt();
+			int ny = dis.readInt();
+			int nz = dis.readInt();
+
+			byte bytes[] = new byte[12 * nx * ny * nz];
+			dis.readFully(bytes);
+			float b[] = new float[3 * nx * ny * nz];
+			ByteBuffer.wrap(bytes).asFloatBuffer().get(b);
+			return new SectorFieldGrid(key, symmetric, xmin, ymin, zmin, spacing, nx, ny, nz, b);
+		}
+		finally {
+			dis.close();
+		}
+	}
+
+	/**
+	 * Compare the grid with the native maps at random points of the grid
+	 * volume, and print the largest and mean deviations of the field vector
+	 * in kG, absolute and relative to the native field magnitude (for a
+	 * native magnitude above 1 kG), for each sector.
+	 *
+	 * @param field the rotated composite field the grid was built from
+	 * @param npoints the number of random points per sector
+	 * @param seed the random seed
+	 * @return the largest absolute deviation in kG over all the sectors
+	 */
+	public double report(RotatedCompositeField field, int npoints, long seed) {
+		RotatedCompositeProbe probe = new RotatedCompositeProbe(field);
+		Random rand = new Random(seed);
+		float bnative[] = new float[3];
+		float bgrid[] = new float[3];
+		float xlen = (_nx - 1) * _spacing;
+		float ylen = (_ny - 1) * _spacing;
+		float zlen = (_nz - 1) * _spacing;
+
+		double largest = 0;
+		System.out.println("Field grid: " + _key);
+		System.out.println(String.format("%6s %12s %12s %12s %12s", "sector", "max dB (kG)", "mean dB (kG)",
+				"max dB/B", "at B (kG)"));
+
+		int nsect = _symmetric ? 6 : 1;
+		for (int sector = 1; sector <= nsect; sector++) {
+			double maxDiff = 0, sumDiff = 0, maxRel = 0, maxRelB = 0;
+			for (int n = 0; n < npoints; n++) {
+				float x = _xmin + xlen * rand.nextFloat();
+				float y = _ymin + ylen * rand.nextFloat();
+				float z = _zmin + zlen * rand.nextFloat();
+				probe.field(sector, x, y, z, bnative);
+				field(x, y, z, bgrid);
+
+				double dx = bgrid[0] - bnative[0];
+				double dy = bgrid[1] - bnative[1];
+				double dz = bgrid[2] - bnative[2];
+				double diff = Math.sqrt(dx * dx + dy * dy + dz * dz);
+				double bmag = Math.sqrt(bnative[0] * bnative[0] + bnative[1] * bnative[1] + bnative[2] * bnative[2]);
+				maxDiff = Math.max(maxDiff, diff);
+				sumDiff += diff;
+				if ((bmag > 1) && (diff / bmag > maxRel)) {
+					maxRel = diff / bmag;
+					maxRelB = bmag;
+				}
+			}
+			largest = Math.max(largest, maxDiff);
+			System.out.println(String.format("%6d %12.5f %12.5f %12.5f %12.3f", sector, maxDiff, sumDiff / npoints,
+					maxRel, maxRelB));
+		}
+		return largest;
+	}
+
+	/**
+	 * Build (or read) a grid for the current maps and print the deviation
+	 * report. Arguments: spacing in cm, number of random points per sector and
+	 * optionally the cache file.
+	 *
+	 * @param arg the arguments
+	 */
+	public static void main(String arg[]) {
+		double spacing = (arg.length > 0) ? Double.parseDouble(arg[0]) : 5;
+		int npoints = (arg.length > 1) ? Integer.parseInt(arg[1]) : 100000;
+		String cacheFile = (arg.length > 2) ? arg[2] : null;
+
+		MagneticFields.getInstance().initializeMagneticFields();
+		RotatedCompositeField field = MagneticFields.getInstance().getRotatedCompositeField();
+		SectorFieldGrid grid = getInstance(field, spacing, cacheFile);
+		grid.report(field, npoints, 12345L);
+	}
+}
@@ -0,0 +1,53 @@
+package cnuphys.magfield;
+
+/**
+ * A rotated composite probe that takes the field from a precomputed
+ * {@link SectorFieldGrid} and falls back on the native maps outside the grid
+ * (or for sectors other than 1 when the maps are not sector symmetric).
+ */
+public class SectorGridProbe extends RotatedCompositeProbe {
+
+	// the shared grid
+	private final SectorFieldGrid _grid;
+
+	/**
+	 * Create a probe using a field grid
+	 * @param field the rotated composite field the grid was built from
+	 * @param grid the field grid
+	 */
+	public SectorGridProbe(RotatedCompositeField field, SectorFieldGrid grid) {
+		super(field);
+		_grid = grid;
+	}
+
+	/**
+	 * Obtain the magnetic field at a given location expressed in Cartesian
+	 * coordinates of the tilted sector system. The field is returned as a Cartesian vector in kiloGauss.
+	 * @param sector the sector [1..6]
+	 * @param xs
+	 *            the tilted x coordinate in cm
+	 * @param ys
+	 *            the tilted y coordinate in cm
+	 * @param zs
+	 *            the tilted z coordinate in cm
+	 * @param result
+	 *            the result is a float array holding the retrieved field in
+	 *            kiloGauss. The 0,1 and 2 indices correspond to x, y, and z
+	 *            components.
+	 */
+	@Override
+	public void field(int sector, float xs, float ys, float zs, float[] result) {
+		if (((sector == 1) || _grid.isSymmetric()) && _grid.field(xs, ys, zs, result)) {
+			return;
+		}
+		super.field(sector, xs, ys, zs, result);
+	}
+
+	/**
+	 * Get the field grid
+	 * @return the grid used by the probe
+	 */
+	public SectorFieldGrid getGrid() {
+		return _grid;
+	}
+}
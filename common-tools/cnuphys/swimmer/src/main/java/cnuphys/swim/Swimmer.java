@@ -68,6 +68,14 @@ public final class Swimmer {
 		_probe = FieldProbe.factory();
 	}
 	
+	/**
+	 * Create a swimmer using the given probe
+	 * @param probe the field probe
+	 */
+	public Swimmer(FieldProbe probe) {
+		_probe = probe;
+	}
+	
 	/**
 	 * Create a swimmer specific to a magnetic field
 	 * @param magneticField the magnetic field
@@ -1898,6 +1906,302 @@ public final class Swimmer {
 		return traj;
 	}
 
+	/**
+	 * Endpoint mode of
+	 * {@link #swim(int, double, double, double, double, double, double, IStopper, double, double, double)}:
+	 * the particle is swum with the same uniform steps, but only the current
+	 * state is kept. The path length and the integral |B x dl| are
+	 * accumulated during the integration over the points the trajectory
+	 * would save, so the result is the last element of the trajectory after
+	 * {@link SwimTrajectory#computeBDL(FieldProbe)} with the same probe.
+	 * 
+	 * @param charge
+	 *            the charge: -1 for electron, 1 for proton, etc
+	 * @param xo
+	 *            the x vertex position in meters
+	 * @param yo
+	 *            the y vertex position in meters
+	 * @param zo
+	 *            the z vertex position in meters
+	 * @param momentum
+	 *            initial momentum in GeV/c
+	 * @param theta
+	 *            initial polar angle in degrees
+	 * @param phi
+	 *            initial azimuthal angle in degrees
+	 * @param stopper
+	 *            an optional object that can terminate the swimming based on
+	 *            some condition
+	 * @param maxPathLength
+	 *            in meters
+	 * @param stepSize
+	 *            the uniform step size in meters.
+	 * @param distanceBetweenSaves
+	 *            distance in meters between the points used for the integral
+	 *            B cross dl, as for the trajectory
+	 * @param bdlProbe
+	 *            the probe for the integral B cross dl (not a rotated probe)
+	 * @param result
+	 *            double[8], filled with [x, y, z, px/p, py/p, pz/p, l, bdl]
+	 *            at the end of the swim, in m and kG-m
+	 * @return the result array
+	 */
+	public double[] swimEndpoint(int charge, double xo, double yo, double zo, double momentum, double theta,
+			double phi, IStopper stopper, double maxPathLength, double stepSize, double distanceBetweenSaves,
+			FieldProbe bdlProbe, double result[]) {
+
+		// straight lines and skipped swims go through the trajectory
+		if ((_probe == null) || (charge == 0) || (momentum < MINMOMENTUM)) {
+			SwimTrajectory traj = swim(charge, xo, yo, zo, momentum, theta, phi, stopper, maxPathLength, stepSize,
+					distanceBetweenSaves);
+			return lastElement(traj, bdlProbe, result);
+		}
+
+		int cycle = (int) (distanceBetweenSaves / stepSize);
+		cycle = Math.max(2, cycle);
+		int ntotal = (int) (maxPathLength / stepSize);
+		double h = maxPathLength / (ntotal - 1);
+
+		double uo[] = initialState(xo, yo, zo, theta, phi);
+		EndpointListener listener = new EndpointListener(bdlProbe, cycle);
+		listener.start(uo);
+
+		DefaultDerivative deriv = new DefaultDerivative(charge, momentum, _probe);
+		(new RungeKutta()).uniformStep(uo, 0, maxPathLength, h, deriv, stopper, listener);
+		listener.finish();
+
+		return listener.getResult(result);
+	}
+
+	/**
+	 * Endpoint mode of
+	 * {@link #swim(int, double, double, double, double, double, double, Plane, double, double, double, double[], double[])}:
+	 * the particle is swum to the plane with the same adaptive steps and
+	 * corrections, but only the current and previous states are kept. The
+	 * path length and the integral |B x dl| are accumulated during the
+	 * integration, so the result is the last element of the trajectory after
+	 * {@link SwimTrajectory#computeBDL(FieldProbe)} with the same probe.
+	 * 
+	 * @param bdlProbe
+	 *            the probe for the integral B cross dl (not a rotated probe)
+	 * @param result
+	 *            double[8], filled with [x, y, z, px/p, py/p, pz/p, l, bdl]
+	 *            at the end of the swim, in m and kG-m
+	 * @return the result array
+	 * @throws RungeKuttaException
+	 */
+	public double[] swimEndpoint(int charge, double xo, double yo, double zo, double momentum, double theta,
+			double phi, Plane plane, double accuracy, double sMax, double stepSize, double relTolerance[],
+			double hdata[], FieldProbe bdlProbe, double result[]) throws RungeKuttaException {
+
+		// straight lines and skipped swims go through the trajectory
+		if ((momentum < MINMOMENTUM) || (charge == 0) || (getProbe().isZeroField())) {
+			SwimTrajectory traj = swim(charge, xo, yo, zo, momentum, theta, phi, plane, accuracy, sMax, stepSize,
+					relTolerance, hdata);
+			return lastElement(traj, bdlProbe, result);
+		}
+
+		EndpointListener listener = new EndpointListener(bdlProbe, 1);
+		DefaultPlaneStopper stopper = new DefaultPlaneStopper(0, sMax, plane, accuracy, 999);
+		swimLeg(charge, xo, yo, zo, momentum, theta, phi, stopper, 0, sMax, stepSize, relTolerance, hdata, listener);
+
+		double finalPathLength = stopper.getFinalT();
+		if (finalPathLength > sMax) {
+			return listener.getResult(result);
+		}
+
+		double lastY[] = listener.getCurrent();
+		double del = plane.distanceToPlane(lastY[0], lastY[1], lastY[2]);
+		int maxtry = 20;
+		int count = 0;
+
+		double oldHdata[] = new double[3];
+		oldHdata[0] = hdata[0];
+		oldHdata[1] = hdata[1] * listener.size(); // back to sum, not avg
+		oldHdata[2] = hdata[2];
+
+		while ((count < maxtry) && (del > accuracy)) {
+			// last point is beyond the plane, restart from the previous one
+			listener.removeLast();
+			lastY = listener.getCurrent();
+			xo = lastY[0];
+			yo = lastY[1];
+			zo = lastY[2];
+			double px = lastY[3];
+			double py = lastY[4];
+			double pz = lastY[5];
+
+			del = plane.distanceToPlane(lastY[0], lastY[1], lastY[2]);
+			stepSize = Math.max(accuracy, Math.abs(del / 10));
+
+			stopper = new DefaultPlaneStopper(finalPathLength, sMax, plane, accuracy, -stopper.getSide());
+
+			theta = FastMath.acos2Deg(pz);
+			phi = FastMath.atan2Deg(py, px);
+
+			int addSize = swimLeg(charge, xo, yo, zo, momentum, theta, phi, stopper, finalPathLength, sMax,
+					stepSize, relTolerance, hdata, listener);
+
+			finalPathLength = stopper.getFinalT();
+
+			hdata[0] = Math.min(oldHdata[0], hdata[0]);
+			hdata[1] = hdata[1] * addSize;
+			hdata[1] = oldHdata[1] + hdata[1];
+			hdata[2] = Math.max(oldHdata[2], hdata[2]);
+			oldHdata[0] = hdata[0];
+			oldHdata[1] = hdata[1];
+			oldHdata[2] = hdata[2];
+
+			lastY = listener.getCurrent();
+			del = plane.distanceToPlane(lastY[0], lastY[1], lastY[2]);
+			count++;
+		}
+
+		hdata[1] = hdata[1] / listener.size();
+		return listener.getResult(result);
+	}
+
+	// one adaptive leg of the endpoint plane swim, starting with a new point
+	// as the trajectory legs do. Returns the number of points of the leg.
+	private int swimLeg(int charge, double xo, double yo, double zo, double momentum, double theta, double phi,
+			IStopper stopper, double s0, double sMax, double stepSize, double relTolerance[], double hdata[],
+			EndpointListener listener) throws RungeKuttaException {
+		double uo[] = initialState(xo, yo, zo, theta, phi);
+		int size = listener.size();
+		if (size == 0) {
+			listener.start(uo);
+		}
+		else {
+			listener.nextStep(s0, uo, 0);
+		}
+		DefaultDerivative deriv = new DefaultDerivative(charge, momentum, _probe);
+		(new RungeKutta()).adaptiveStep(uo, s0, sMax, stepSize, deriv, stopper, listener, _defaultTableau,
+				relTolerance, hdata);
+		return listener.size() - size;
+	}
+
+	// last element of the trajectory with the integral B cross dl
+	private static double[] lastElement(SwimTrajectory traj, FieldProbe bdlProbe, double result[]) {
+		traj.computeBDL(bdlProbe);
+		double lastY[] = traj.lastElement();
+		for (int i = 0; i < 6; i++) {
+			result[i] = lastY[i];
+		}
+		result[6] = lastY.length > 6 ? lastY[6] : 0;
+		result[7] = lastY.length > 7 ? lastY[7] : 0;
+		return result;
+	}
+
+	/**
+	 * Keeps the last point of an endpoint swim, and the one before it, with
+	 * the cumulative path length and integral |B x dl| over the points a
+	 * trajectory would save: every cycle steps and the last step. The sums
+	 * are computed as in {@link Bxdl#accumulate}, so they are the same as the
+	 * ones of the trajectory.
+	 */
+	private static class EndpointListener implements IRkListener {
+
+		private final FieldProbe _bdlProbe;
+		private final int _cycle;
+		private final float _b[] = new float[3];
+
+		// last saved point and the one before it, [x, y, z, px/p, py/p, pz/p]
+		private double _current[] = new double[6];
+		private double _previous[] = new double[6];
+		private double _pathlength;
+		private double _bxdl;
+		private double _prevPathlength;
+		private double _prevBxdl;
+
+		// state after the last step, saved or not
+		private final double _state[] = new double[6];
+		private int _step;
+		private int _size;
+
+		EndpointListener(FieldProbe bdlProbe, int cycle) {
+			_bdlProbe = bdlProbe;
+			_cycle = cycle;
+		}
+
+		void start(double uo[]) {
+			System.arraycopy(uo, 0, _current, 0, 6);
+			_pathlength = 0;
+			_bxdl = 0;
+			_step = 0;
+			_size = 1;
+		}
+
+		@Override
+		public void nextStep(double newT, double newY[], double h) {
+			_step++;
+			System.arraycopy(newY, 0, _state, 0, 6);
+			if ((_step % _cycle) == 0) {
+				save(_state);
+			}
+		}
+
+		// saves the last step if it is not a save point
+		void finish() {
+			if ((_step % _cycle) != 0) {
+				save(_state);
+			}
+		}
+
+		private void save(double p[]) {
+			double p0[] = _current;
+			double dx = p[0] - p0[0];
+			double dy = p[1] - p0[1];
+			double dz = p[2] - p0[2];
+			double pathlength = Math.sqrt(dx * dx + dy * dy + dz * dz);
+
+			// use the average position (in cm) to compute B for b cross dl
+			float xavgcm = (float) (100. * (p0[0] + p[0]) / 2);
+			float yavgcm = (float) (100. * (p0[1] + p[1]) / 2);
+			float zavgcm = (float) (100. * (p0[2] + p[2]) / 2);
+			_bdlProbe.field(xavgcm, yavgcm, zavgcm, _b);
+
+			double cx = _b[1] * dz - _b[2] * dy;
+			double cy = _b[2] * dx - _b[0] * dz;
+			double cz = _b[0] * dy - _b[1] * dx;
+			double magbxdl = Math.sqrt(cx * cx + cy * cy + cz * cz);
+
+			_prevPathlength = _pathlength;
+			_prevBxdl = _bxdl;
+			_pathlength = pathlength + _pathlength;
+			_bxdl = magbxdl + _bxdl;
+
+			double tmp[] = _previous;
+			_previous = _current;
+			_current = tmp;
+			System.arraycopy(p, 0, _current, 0, 6);
+			_size++;
+		}
+
+		void removeLast() {
+			double tmp[] = _current;
+			_current = _previous;
+			_previous = tmp;
+			_pathlength = _prevPathlength;
+			_bxdl = _prevBxdl;
+			_size--;
+		}
+
+		double[] getCurrent() {
+			return _current;
+		}
+
+		int size() {
+			return _size;
+		}
+
+		double[] getResult(double result[]) {
+			System.arraycopy(_current, 0, result, 0, 6);
+			result[6] = _pathlength;
+			result[7] = _bxdl;
+			return result;
+		}
+	}
+
 	/**
 	 * Get the state vector from the speed and angles
 	 * 
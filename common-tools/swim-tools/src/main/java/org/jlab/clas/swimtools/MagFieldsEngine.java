@@ -47,6 +47,7 @@ public class MagFieldsEngine extends ReconstructionEngine {
         String mapDir = CLASResources.getResourcePath("etc")+"/data/magfield";
         try {
             MagneticFields.getInstance().initializeMagneticFields(mapDir,torusMap,solenoidMap);
+            Swimmer.invalidate();
         }
         catch (Exception e) {
             e.printStackTrace();
@@ -124,6 +125,20 @@ public class MagFieldsEngine extends ReconstructionEngine {
             System.out.println("["+this.getName()+"] run with torus z shift in tracking set to 0 cm");
             // this.solenoidShift = (float) 0;
         }
+        
+        // Cartesian field grid for the rotated composite field
+        String gridSpacing = this.getEngineConfigString("fieldGridSpacing");
+        if (gridSpacing==null) {
+            gridSpacing = System.getenv("FIELDGRIDSPACING");
+        }
+        if (gridSpacing!=null && Double.parseDouble(gridSpacing)>0) {
+            String gridCache = this.getEngineConfigString("fieldGridCache");
+            if (gridCache==null) {
+                gridCache = System.getenv("FIELDGRIDCACHE");
+            }
+            System.out.println("["+this.getName()+"] run with a "+gridSpacing+" cm Cartesian field grid, cache file: "+gridCache);
+            Swimmer.setFieldGrid(Double.parseDouble(gridSpacing), gridCache);
+        }
     }
     
     @Override
@@ -8,6 +8,8 @@ package org.jlab.clas.swimtools;
 import cnuphys.magfield.CompositeProbe;
 import cnuphys.magfield.MagneticFields;
 import cnuphys.magfield.RotatedCompositeProbe;
+import cnuphys.magfield.SectorFieldGrid;
+import cnuphys.magfield.SectorGridProbe;
 import cnuphys.swimZ.SwimZ;
 
 /**
@@ -24,10 +26,19 @@ public class ProbeCollection {
     public final RotatedCompositeProbe RCP;
     public final CompositeProbe CP; 
     /**
-     * Gets rotated composite and composite fields, get corresponding probes
+     * Gets rotated composite and composite fields, get corresponding probes.
+     * The rotated composite probe uses the Cartesian field grid if enabled
+     * with Swimmer.setFieldGrid().
      */
     public ProbeCollection() {
-        RCP =   new RotatedCompositeProbe(MagneticFields.getInstance().getRotatedCompositeField());
+        if (Swimmer.getFieldGridSpacing() > 0) {
+            SectorFieldGrid grid = SectorFieldGrid.getInstance(MagneticFields.getInstance().getRotatedCompositeField(),
+                    Swimmer.getFieldGridSpacing(), Swimmer.getFieldGridCache());
+            RCP =   new SectorGridProbe(MagneticFields.getInstance().getRotatedCompositeField(), grid);
+        }
+        else {
+            RCP =   new RotatedCompositeProbe(MagneticFields.getInstance().getRotatedCompositeField());
+        }
         CP  =   new CompositeProbe(MagneticFields.getInstance().getCompositeField());
         
         RCF_z   =   new SwimZ(MagneticFields.getInstance().getRotatedCompositeField());
@@ -30,7 +30,8 @@ public class Swim {
     private double _pTot;
     private final double _rMax = 5 + 3; // increase to allow swimming to outer
     // detectors
-    private double _maxPathLength = 9;
+    private static final double MAXPATHLENGTH = 9; // default in m
+    private double _maxPathLength = MAXPATHLENGTH;
     private boolean SwimUnPhys = false; //Flag to indicate if track is swimmable
     private int _charge;
 
@@ -41,15 +42,23 @@ public class Swim {
 
     private ProbeCollection PC;
     
+    // end point of the last swim, x,y,z,px/p,py/p,pz/p, pathlength, iBdl in m and kG.m
+    private final double[] endpoint = new double[8];
+    
     /**
      * Class for swimming to various surfaces.  The input and output units are cm and GeV/c
      */
     public Swim() {
-        PC = Swimmer.getProbeCollection(Thread.currentThread());
-        if (PC == null) {
-            PC = new ProbeCollection();
-            Swimmer.put(Thread.currentThread(), PC);
-        }
+        PC = Swimmer.getProbeCollection();
+    }
+    
+    /**
+     * Class for swimming to various surfaces using the given probe collection.
+     * Use {@link Swimmer#getSwim()} to get the instance owned by the calling thread.
+     * @param PC probe collection of the calling thread
+     */
+    Swim(ProbeCollection PC) {
+        this.PC = PC;
     }
 
     /**
@@ -66,6 +75,7 @@ public class Swim {
      */
     public void SetSwimParameters(int direction, double x0, double y0, double z0, double thx, double thy, double p,
                     int charge) {
+        this.reset();
         
         // x,y,z in m = swimmer units
         _x0 = x0 / 100;
@@ -97,6 +107,7 @@ public class Swim {
      */
     public void SetSwimParameters(int superlayerIdx, int layerIdx, double x0, double y0, double z0, double thx,
                     double thy, double p, int charge) {
+        this.reset();
         // z at a given DC plane in the tilted coordinate system
         // x,y,z in m = swimmer units
         _x0 = x0 / 100;
@@ -126,6 +137,7 @@ public class Swim {
      * @param charge
      */
     public void SetSwimParameters(double x0, double y0, double z0, double px, double py, double pz, int charge) {
+        this.reset();
         _x0 = x0 / 100;
         _y0 = y0 / 100;
         _z0 = z0 / 100;
@@ -151,7 +163,7 @@ public class Swim {
      */
     public void SetSwimParameters(double xcm, double ycm, double zcm, double phiDeg, double thetaDeg, double p,
                     int charge, double maxPathLength) {
-
+        this.reset();
         _maxPathLength = maxPathLength;
         _charge = charge;
         _phi = phiDeg;
@@ -327,6 +339,16 @@ public class Swim {
 
     }
 
+    /**
+     * The instance is reused for all the tracks of a thread (see
+     * Swimmer.getSwim()), so the state left by the previous track is
+     * cleared before setting new parameters.
+     */
+    private void reset() {
+        this.SwimUnPhys = false;
+        this._maxPathLength = MAXPATHLENGTH;
+    }
+
     private void checkR(double _x0, double _y0, double _z0) {
         if(Math.sqrt(_x0*_x0 + _y0*_y0)>this._rMax || 
                 Math.sqrt(_x0*_x0 + _y0*_y0 + _z0*_z0)>this._maxPathLength)
@@ -389,33 +411,27 @@ public class Swim {
      * @return state  x,y,z,px,py,pz, pathlength, iBdl at the surface 
      */
     public double[] SwimToCylinder(double Rad) {
+        return this.SwimToCylinder(Rad, new double[8]);
+    }
+    
+    /**
+     * Swims to the cylinder without storing the trajectory.
+     * @param Rad
+     * @param value filled with the state x,y,z,px,py,pz, pathlength, iBdl at the surface 
+     * @return value, or null if the track is not swimmable
+     */
+    public double[] SwimToCylinder(double Rad, double[] value) {
 
-        double[] value = new double[8];
         // using adaptive stepsize
         if(this.SwimUnPhys)
             return null;
         
         SphericalBoundarySwimStopper stopper = new SphericalBoundarySwimStopper(Rad);
 
-        SwimTrajectory st = PC.CF.swim(_charge, _x0, _y0, _z0, _pTot, _theta, _phi, stopper, _maxPathLength, stepSize,
-                        0.0005);
-        if(st==null)
-                    return null;
-        st.computeBDL(PC.CP);
-        // st.computeBDL(compositeField);
-
-        double[] lastY = st.lastElement();
-
-        value[0] = lastY[0] * 100; // convert back to cm
-        value[1] = lastY[1] * 100; // convert back to cm
-        value[2] = lastY[2] * 100; // convert back to cm
-        value[3] = lastY[3] * _pTot; // normalized values
-        value[4] = lastY[4] * _pTot;
-        value[5] = lastY[5] * _pTot;
-        value[6] = lastY[6] * 100;
-        value[7] = lastY[7] * 10; // Conversion from kG.m to T.cm
+        PC.CF.swimEndpoint(_charge, _x0, _y0, _z0, _pTot, _theta, _phi, stopper, _maxPathLength, stepSize,
+                        0.0005, PC.CP, endpoint);
 
-        return value;
+        return this.toLab(endpoint, value);
 
     }
 
@@ -473,22 +489,36 @@ public class Swim {
      * @return state  x,y,z,px,py,pz, pathlength, iBdl at the surface 
      */
     public double[] SwimToSphere(double Rad) {
+        return this.SwimToSphere(Rad, new double[8]);
+    }
+    
+    /**
+     * Swims to the sphere without storing the trajectory.
+     * @param Rad
+     * @param value filled with the state x,y,z,px,py,pz, pathlength, iBdl at the surface 
+     * @return value, or null if the track is not swimmable
+     */
+    public double[] SwimToSphere(double Rad, double[] value) {
 
-        double[] value = new double[8];
         // using adaptive stepsize
         if(this.SwimUnPhys==true)
             return null;
         SphericalBoundarySwimStopper stopper = new SphericalBoundarySwimStopper(Rad);
 
-        SwimTrajectory st = PC.CF.swim(_charge, _x0, _y0, _z0, _pTot, _theta, _phi, stopper, _maxPathLength, stepSize,
-                        0.0005);
-        if(st==null)
-            return null;
-        st.computeBDL(PC.CP);
-        // st.computeBDL(compositeField);
+        PC.CF.swimEndpoint(_charge, _x0, _y0, _z0, _pTot, _theta, _phi, stopper, _maxPathLength, stepSize,
+                        0.0005, PC.CP, endpoint);
 
-        double[] lastY = st.lastElement();
+        return this.toLab(endpoint, value);
 
+    }
+    
+    /**
+     * converts the end point of a swim to the units of the swim results.
+     * @param lastY x,y,z,px/p,py/p,pz/p, pathlength, iBdl in m and kG.m
+     * @param value filled with x,y,z,px,py,pz, pathlength, iBdl in cm, GeV/c and T.cm
+     * @return value
+     */
+    private double[] toLab(double[] lastY, double[] value) {
         value[0] = lastY[0] * 100; // convert back to cm
         value[1] = lastY[1] * 100; // convert back to cm
         value[2] = lastY[2] * 100; // convert back to cm
@@ -497,9 +527,7 @@ public class Swim {
         value[5] = lastY[5] * _pTot;
         value[6] = lastY[6] * 100;
         value[7] = lastY[7] * 10; // Conversion from kG.m to T.cm
-
         return value;
-
     }
 
     // added for swimming to outer detectors
@@ -565,8 +593,19 @@ public class Swim {
      * @return return state  x,y,z,px,py,pz, pathlength, iBdl at the plane surface in the lab frame
      */
     public double[] SwimToPlaneBoundary(double d_cm, Vector3D n, int dir) {
+        return this.SwimToPlaneBoundary(d_cm, n, dir, new double[8]);
+    }
+    
+    /**
+     * Swims to the plane without storing the trajectory.
+     * @param d_cm
+     * @param n
+     * @param dir
+     * @param value filled with the state x,y,z,px,py,pz, pathlength, iBdl at the plane surface in the lab frame
+     * @return value, or null if the track is not swimmable
+     */
+    public double[] SwimToPlaneBoundary(double d_cm, Vector3D n, int dir, double[] value) {
 
-        double[] value = new double[8];
         if(this.SwimUnPhys)
             return null;
         double d = d_cm / 100;
@@ -576,7 +615,6 @@ public class Swim {
 
         // the new swim to plane in swimmer
         Plane plane = new Plane(n.x(), n.y(), n.z(), d);
-        SwimTrajectory st;
         try {
 
             // swim backwards?
@@ -606,21 +644,10 @@ public class Swim {
             }
 
             else {
-                st = PC.CF.swim(_charge, _x0, _y0, _z0, _pTot, _theta, _phi, plane, accuracy, _maxPathLength, stepSize,
-                                cnuphys.swim.Swimmer.CLAS_Tolerance, hdata);
-
-                st.computeBDL(PC.CP);
+                PC.CF.swimEndpoint(_charge, _x0, _y0, _z0, _pTot, _theta, _phi, plane, accuracy, _maxPathLength, stepSize,
+                                cnuphys.swim.Swimmer.CLAS_Tolerance, hdata, PC.CP, endpoint);
 
-                double[] lastY = st.lastElement();
-
-                value[0] = lastY[0] * 100; // convert back to cm
-                value[1] = lastY[1] * 100; // convert back to cm
-                value[2] = lastY[2] * 100; // convert back to cm
-                value[3] = lastY[3] * _pTot; // normalized values
-                value[4] = lastY[4] * _pTot;
-                value[5] = lastY[5] * _pTot;
-                value[6] = lastY[6] * 100;
-                value[7] = lastY[7] * 10; // Conversion from kG.m to T.cm
+                this.toLab(endpoint, value);
 
                 // System.out.println("\nCOMPARE plane swims DIRECTION = " +
                 // dir);
@@ -0,0 +1,114 @@
+package org.jlab.clas.swimtools;
+
+import cnuphys.magfield.MagneticFields;
+import cnuphys.rk4.IStopper;
+import cnuphys.swim.SwimTrajectory;
+import java.util.Random;
+import org.jlab.utils.CLASResources;
+import org.jlab.utils.options.OptionParser;
+
+/**
+ * Compares the time of swimming to a sphere with the trajectory swim
+ * followed by computeBDL() and with the endpoint swim used by Swim, on the
+ * same random tracks, and the largest difference of the results.
+ */
+public class SwimBenchmark {
+
+    private static class RadiusStopper implements IStopper {
+
+        private final double rmax;
+        private double finalT = Double.NaN;
+
+        RadiusStopper(double rmax_cm) {
+            this.rmax = rmax_cm / 100.;
+        }
+
+        @Override
+        public boolean stopIntegration(double t, double[] y) {
+            return Math.sqrt(y[0] * y[0] + y[1] * y[1] + y[2] * y[2]) > rmax;
+        }
+
+        @Override
+        public double getFinalT() {
+            return finalT;
+        }
+
+        @Override
+        public void setFinalT(double finalPathLength) {
+            finalT = finalPathLength;
+        }
+    }
+
+    public static void main(String[] args) {
+
+        OptionParser parser = new OptionParser("swim-benchmark");
+        parser.addOption("-n", "20000", "number of tracks");
+        parser.addOption("-r", "50", "radius of the sphere in cm");
+        parser.addOption("-t", "Symm_torus_r2501_phi16_z251_24Apr2018.dat", "torus map");
+        parser.addOption("-s", "Symm_solenoid_r601_phi1_z1201_13June2018.dat", "solenoid map");
+        parser.parse(args);
+
+        int    ntracks = parser.getOption("-n").intValue();
+        double radius  = parser.getOption("-r").doubleValue();
+
+        String mapDir = CLASResources.getResourcePath("etc") + "/data/magfield";
+        try {
+            MagneticFields.getInstance().initializeMagneticFields(mapDir,
+                    parser.getOption("-t").stringValue(), parser.getOption("-s").stringValue());
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        Swimmer.invalidate();
+        ProbeCollection PC = Swimmer.getProbeCollection();
+
+        int[]    charge = new int[ntracks];
+        double[] p      = new double[ntracks];
+        double[] theta  = new double[ntracks];
+        double[] phi    = new double[ntracks];
+        Random rand = new Random(12345);
+        for (int i = 0; i < ntracks; i++) {
+            charge[i] = rand.nextBoolean() ? 1 : -1;
+            p[i]      = 0.3 + 2.7 * rand.nextDouble();
+            theta[i]  = 5 + 120 * rand.nextDouble();
+            phi[i]    = -180 + 360 * rand.nextDouble();
+        }
+
+        double[] result = new double[8];
+        double trajectoryTime = 0, endpointTime = 0, maxDiff = 0;
+        // the first pass warms up the JIT
+        for (int pass = 0; pass < 2; pass++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ntracks; i++) {
+                SwimTrajectory st = PC.CF.swim(charge[i], 0, 0, 0, p[i], theta[i], phi[i],
+                        new RadiusStopper(radius), 9, 5e-4, 5e-4);
+                st.computeBDL(PC.CP);
+            }
+            trajectoryTime = (System.nanoTime() - start) * 1.0e-9;
+
+            start = System.nanoTime();
+            for (int i = 0; i < ntracks; i++) {
+                PC.CF.swimEndpoint(charge[i], 0, 0, 0, p[i], theta[i], phi[i],
+                        new RadiusStopper(radius), 9, 5e-4, 5e-4, PC.CP, result);
+            }
+            endpointTime = (System.nanoTime() - start) * 1.0e-9;
+        }
+
+        for (int i = 0; i < Math.min(ntracks, 1000); i++) {
+            SwimTrajectory st = PC.CF.swim(charge[i], 0, 0, 0, p[i], theta[i], phi[i],
+                    new RadiusStopper(radius), 9, 5e-4, 5e-4);
+            st.computeBDL(PC.CP);
+            double[] lastY = st.lastElement();
+            PC.CF.swimEndpoint(charge[i], 0, 0, 0, p[i], theta[i], phi[i],
+                    new RadiusStopper(radius), 9, 5e-4, 5e-4, PC.CP, result);
+            for (int k = 0; k < 8; k++) {
+                maxDiff = Math.max(maxDiff, Math.abs(lastY[k] - result[k]));
+            }
+        }
+
+        System.out.println("\n swim benchmark, " + ntracks + " tracks to r = " + radius + " cm");
+        System.out.println(String.format(" %12s %10s %14s", "mode", "time (s)", "swims/sec"));
+        System.out.println(String.format(" %12s %10.3f %14.1f", "trajectory", trajectoryTime, ntracks / trajectoryTime));
+        System.out.println(String.format(" %12s %10.3f %14.1f", "endpoint", endpointTime, ntracks / endpointTime));
+        System.out.println(String.format(" speedup : %.2f, largest difference : %g", trajectoryTime / endpointTime, maxDiff));
+    }
+}
@@ -6,7 +6,7 @@
 package org.jlab.clas.swimtools;
 import cnuphys.magfield.MagneticFields;
 
-import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 /**
  *
  * @author ziegler, heddle
@@ -15,14 +15,125 @@ import java.util.HashMap;
 
 public class Swimmer {
     
-    private static HashMap<Thread, ProbeCollection> swimmers = new HashMap<>();
+    /**
+     * Probes and swimmers are not thread safe, each thread gets its own copy.
+     * The copies live in a ThreadLocal, so lookups do not lock or hash the
+     * thread, and the entries are released with the thread.
+     */
+    private static final ThreadLocal<ThreadSwimmers> swimmers = new ThreadLocal<>();
+    // incremented by invalidate(), copies from an older generation are rebuilt
+    private static final AtomicInteger generation = new AtomicInteger(0);
     
+    private static ThreadSwimmers getThreadSwimmers() {
+        ThreadSwimmers ts = swimmers.get();
+        if (ts == null || ts.generation != generation.get()) {
+            ts = new ThreadSwimmers(generation.get(), new ProbeCollection());
+            swimmers.set(ts);
+        }
+        return ts;
+    }
+    
+    /**
+     * @return the probe collection of the calling thread, created on first use
+     */
+    public static ProbeCollection getProbeCollection() {
+        return getThreadSwimmers().PC;
+    }
+    
+    /**
+     * @return a Swim instance owned by the calling thread, created on first use.
+     * It can be reused for every event processed by the thread.
+     */
+    public static Swim getSwim() {
+        ThreadSwimmers ts = getThreadSwimmers();
+        if (ts.swim == null) {
+            ts.swim = new Swim(ts.PC);
+        }
+        return ts.swim;
+    }
+    
+    /**
+     * @param thr the thread
+     * @return the probe collection of the given thread, only available for the calling thread
+     * @deprecated use {@link #getProbeCollection()}
+     */
+    @Deprecated
     public static ProbeCollection getProbeCollection(Thread thr){
-        return swimmers.get(thr);
+        if (thr != Thread.currentThread()) {
+            return null;
+        }
+        ThreadSwimmers ts = swimmers.get();
+        return (ts == null || ts.generation != generation.get()) ? null : ts.PC;
     }
+    
+    /**
+     * @param thr the thread, must be the calling thread
+     * @param PC the probe collection
+     * @deprecated probe collections are created on demand by {@link #getProbeCollection()}
+     */
+    @Deprecated
     public static void put(Thread thr, ProbeCollection PC) {
-        swimmers.put(thr, PC);
+        if (thr != Thread.currentThread()) {
+            throw new IllegalArgumentException("probe collection can only be set for the calling thread");
+        }
+        swimmers.set(new ThreadSwimmers(generation.get(), PC));
+    }
+    
+    /**
+     * Releases the probe collection and Swim instance of the calling thread.
+     * To be called when a worker thread is done with swimming (e.g. engine destroy).
+     */
+    public static void release() {
+        swimmers.remove();
+    }
+    
+    /**
+     * Invalidates the probe collections of all threads, they are rebuilt on
+     * the next use. To be called after the magnetic field maps are reloaded.
+     */
+    public static void invalidate() {
+        generation.incrementAndGet();
+    }
+    
+    // spacing in cm of the Cartesian field grid used for the rotated composite probe, 0 for the native maps;
+    // read by the threads without locking when they build their probes
+    private static volatile double fieldGridSpacing = 0;
+    private static volatile String fieldGridCache = null;
+    
+    /**
+     * Uses a precomputed Cartesian grid of the rotated composite field in the
+     * tilted sector system (see cnuphys.magfield.SectorFieldGrid) for the
+     * rotated composite probes, e.g. for the field lookups of DC tracking.
+     * The grid is built on first use, or read from the cache file when it was
+     * written for the same maps, scales and shifts.
+     * @param spacing grid spacing in cm, 0 to use the native maps
+     * @param cacheFile grid cache file, null for no cache
+     */
+    public static synchronized void setFieldGrid(double spacing, String cacheFile) {
+        fieldGridSpacing = spacing;
+        fieldGridCache = cacheFile;
+        invalidate();
+    }
+    
+    public static double getFieldGridSpacing() {
+        return fieldGridSpacing;
+    }
+    
+    public static String getFieldGridCache() {
+        return fieldGridCache;
+    }
+    
+    private static class ThreadSwimmers {
+        final int generation;
+        final ProbeCollection PC;
+        Swim swim;
+        
+        ThreadSwimmers(int generation, ProbeCollection PC) {
+            this.generation = generation;
+            this.PC = PC;
+        }
     }
+    
     private static float szShift = 0;
     public static synchronized void set_zShift(float shift){ //solenoid z shift
         szShift = shift;
@@ -73,6 +184,10 @@ public class Swimmer {
         //remove overlap for composite field
         //MagneticFields.getInstance().removeMapOverlap();
         FieldsLoaded = true;
+        if (fieldGridSpacing > 0) {
+            // the field grid is resampled with the new scales and shifts
+            invalidate();
+        }
         System.out.println(" TRACKING ***** ****** ****** THE TORUS IS BEING SCALED BY " + (TorusScale * 100) + "  %   *******  ****** **** ");
         System.out.println(" TRACKING ***** ****** ****** THE SOLENOID IS BEING SCALED BY " + (SolenoidScale * 100) + "  %   *******  ****** **** ");   
     }
@@ -98,6 +213,10 @@ public class Swimmer {
         //remove overlap for composite field
         //MagneticFields.getInstance().removeMapOverlap();
         FieldsLoaded = true;
+        if (fieldGridSpacing > 0) {
+            // the field grid is resampled with the new scales and shifts
+            invalidate();
+        }
         System.out.println(" TRACKING ***** ****** ****** THE TORUS IS BEING SCALED BY " + (TorusScale * 100) + "  %   *******  ****** **** ");
         System.out.println(" TRACKING ***** ****** ****** THE SOLENOID IS BEING SCALED BY " + (SolenoidScale * 100) + "  %   *******  ****** **** ");   
     }
@@ -0,0 +1,186 @@
+package org.jlab.clas.swimtools;
+
+import cnuphys.magfield.MagneticField;
+import cnuphys.magfield.MagneticFields;
+import cnuphys.magfield.RotatedCompositeField;
+import cnuphys.magfield.RotatedCompositeProbe;
+import cnuphys.magfield.SectorFieldGrid;
+import cnuphys.magfield.SectorGridProbe;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Compares the field of SectorGridProbe with the rotated composite field of
+ * the native maps at random points of the grid volume in every sector. The
+ * maps are smooth synthetic torus and solenoid maps written in the binary map
+ * format, so that the test does not depend on the field map files.
+ */
+public class SectorFieldGridTest {
+
+    private static final double SPACING = 5.0;    // cm
+    private static final int    NPOINTS = 20000;  // per sector
+
+    // measured with the synthetic maps: max |dB| 0.070 kG, mean 0.003 kG,
+    // max |dB|/|B| 0.0068 where |B| > 5 kG; the largest relative deviations
+    // are near the beam axis, where the torus field turns within a cell
+    private static final double TOLERANCE    = 0.1;   // kG
+    private static final double TOLERANCEREL = 0.01;  // for |B| > BMIN
+    private static final double BMIN         = 5.0;   // kG
+
+    private static File mapDir;
+
+    @BeforeClass
+    public static void createMaps() throws Exception {
+        mapDir = File.createTempFile("maps", "");
+        mapDir.delete();
+        mapDir.mkdir();
+        writeTorus(new File(mapDir, "torus.dat"));
+        writeSolenoid(new File(mapDir, "solenoid.dat"));
+        MagneticFields.getInstance().initializeMagneticFields(mapDir.getPath(), "torus.dat", "solenoid.dat");
+        Swimmer.invalidate();
+    }
+
+    @AfterClass
+    public static void deleteMaps() {
+        if (mapDir != null) {
+            new File(mapDir, "torus.dat").delete();
+            new File(mapDir, "solenoid.dat").delete();
+            mapDir.delete();
+        }
+        Swimmer.invalidate();
+    }
+
+    private static void writeHeader(DataOutputStream out, int fieldCS, float[] q1, float[] q2, float[] q3)
+            throws IOException {
+        out.writeInt(MagneticField.MAGICNUMBER);
+        out.writeInt(0);       // cylindrical grid
+        out.writeInt(fieldCS); // 0 cylindrical, 1 Cartesian field components
+        out.writeInt(0);       // cm
+        out.writeInt(0);       // degrees
+        out.writeInt(0);       // kG
+        for (float[] q : new float[][]{q1, q2, q3}) {
+            out.writeFloat(q[0]);
+            out.writeFloat(q[1]);
+            out.writeInt((int) q[2]);
+        }
+        for (int i = 0; i < 5; i++) {
+            out.writeInt(0);
+        }
+    }
+
+    private static double step(float[] q, int i) {
+        return q[2] > 1 ? q[0] + i * (q[1] - q[0]) / (q[2] - 1) : q[0];
+    }
+
+    /**
+     * 12-fold symmetric torus-like map, phi 0 to 30 deg: an azimuthal field
+     * and a radial field odd in phi, vanishing smoothly at the map edges.
+     */
+    private static void writeTorus(File file) throws IOException {
+        float[] phi = {0, 30, 31};
+        float[] rho = {0, 500, 251};
+        float[] z   = {100, 600, 251};
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            writeHeader(out, 1, phi, rho, z);
+            for (int i = 0; i < phi[2]; i++) {
+                double p = Math.toRadians(step(phi, i));
+                for (int j = 0; j < rho[2]; j++) {
+                    double r = step(rho, j);
+                    double sr = Math.sin(Math.PI * r / 500.);
+                    for (int k = 0; k < z[2]; k++) {
+                        double sz = Math.sin(Math.PI * (step(z, k) - 100.) / 500.);
+                        double env = sr * sr * sz * sz;
+                        double bphi = 30. * env * (1 + 0.3 * Math.cos(6 * p));
+                        double brho = 3. * env * Math.sin(6 * p);
+                        out.writeFloat((float) (brho * Math.cos(p) - bphi * Math.sin(p)));
+                        out.writeFloat((float) (brho * Math.sin(p) + bphi * Math.cos(p)));
+                        out.writeFloat((float) (2. * env * Math.sin(6 * p)));
+                    }
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * solenoid-like map, Gaussian in rho and z.
+     */
+    private static void writeSolenoid(File file) throws IOException {
+        float[] phi = {0, 0, 1};
+        float[] rho = {0, 300, 151};
+        float[] z   = {-300, 300, 301};
+        double s2 = 80. * 80.;
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            writeHeader(out, 0, phi, rho, z);
+            for (int j = 0; j < rho[2]; j++) {
+                double r = step(rho, j);
+                for (int k = 0; k < z[2]; k++) {
+                    double zz = step(z, k);
+                    double g = 50. * Math.exp(-(r * r + zz * zz) / (2 * s2));
+                    out.writeFloat(0f);
+                    out.writeFloat((float) (g * r * zz / (2 * s2)));
+                    out.writeFloat((float) g);
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    @Test
+    public void testGridAgainstMaps() {
+        RotatedCompositeField field = MagneticFields.getInstance().getRotatedCompositeField();
+        SectorFieldGrid grid = SectorFieldGrid.getInstance(field, SPACING, null);
+        assertTrue(grid.isSymmetric());
+
+        RotatedCompositeProbe maps = new RotatedCompositeProbe(field);
+        SectorGridProbe probe = new SectorGridProbe(field, grid);
+        Random rand = new Random(7);
+        float[] bmaps = new float[3];
+        float[] bgrid = new float[3];
+        double maxDiff = 0, maxRel = 0, sum = 0, maxB = 0;
+        for (int sector = 1; sector <= 6; sector++) {
+            for (int n = 0; n < NPOINTS; n++) {
+                float x = (float) (SectorFieldGrid.DEFAULT_XMIN + (SectorFieldGrid.DEFAULT_XMAX - SectorFieldGrid.DEFAULT_XMIN) * rand.nextDouble());
+                float y = (float) (SectorFieldGrid.DEFAULT_YMIN + (SectorFieldGrid.DEFAULT_YMAX - SectorFieldGrid.DEFAULT_YMIN) * rand.nextDouble());
+                float z = (float) (SectorFieldGrid.DEFAULT_ZMIN + (SectorFieldGrid.DEFAULT_ZMAX - SectorFieldGrid.DEFAULT_ZMIN) * rand.nextDouble());
+                maps.field(sector, x, y, z, bmaps);
+                probe.field(sector, x, y, z, bgrid);
+                double dx = bgrid[0] - bmaps[0];
+                double dy = bgrid[1] - bmaps[1];
+                double dz = bgrid[2] - bmaps[2];
+                double diff = Math.sqrt(dx * dx + dy * dy + dz * dz);
+                double bmag = Math.sqrt(bmaps[0] * bmaps[0] + bmaps[1] * bmaps[1] + bmaps[2] * bmaps[2]);
+                String where = String.format("sector %d at %.1f %.1f %.1f, B %.3f kG", sector, x, y, z, bmag);
+                assertTrue(where, diff < TOLERANCE);
+                if (bmag > BMIN) {
+                    assertTrue(where, diff / bmag < TOLERANCEREL);
+                    maxRel = Math.max(maxRel, diff / bmag);
+                }
+                maxDiff = Math.max(maxDiff, diff);
+                maxB = Math.max(maxB, bmag);
+                sum += diff;
+            }
+        }
+        // the maps must give a field in the grid volume
+        assertTrue(maxB > 20);
+        System.out.println(String.format("[SectorFieldGridTest] ---> max |dB| %.5f kG, mean %.5f kG, max |dB|/|B| %.5f, max |B| %.2f kG",
+                maxDiff, sum / (6 * NPOINTS), maxRel, maxB));
+
+        // outside the grid the probe falls back on the maps
+        maps.field(1, 0, 0, -100, bmaps);
+        probe.field(1, 0, 0, -100, bgrid);
+        assertArrayEquals(bmaps, bgrid, 0f);
+    }
+}
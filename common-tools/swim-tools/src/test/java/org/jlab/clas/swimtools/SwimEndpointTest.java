@@ -0,0 +1,141 @@
+package org.jlab.clas.swimtools;
+
+import cnuphys.magfield.FieldProbe;
+import cnuphys.rk4.IStopper;
+import cnuphys.swim.SwimTrajectory;
+import cnuphys.swim.util.Plane;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the endpoint swims give the same end state, path length and
+ * integral B dl as the trajectory swims followed by computeBDL().
+ */
+public class SwimEndpointTest {
+
+    /**
+     * smooth analytic field in kG, a solenoid-like and a toroidal-like part.
+     */
+    private static class AnalyticProbe extends FieldProbe {
+
+        AnalyticProbe() {
+            super(null);
+        }
+
+        @Override
+        public void field(float x, float y, float z, float[] result) {
+            double sol = 20.0 * Math.exp(-(z * z) / (100.0 * 100.0));
+            double tor = 0.05 * Math.exp(-((z - 300.0) * (z - 300.0)) / (150.0 * 150.0));
+            result[0] = (float) (-y * tor + 0.001 * x * sol);
+            result[1] = (float) (x * tor + 0.001 * y * sol);
+            result[2] = (float) sol;
+        }
+
+        @Override
+        public float fieldMagnitude(float x, float y, float z) {
+            float[] b = new float[3];
+            this.field(x, y, z, b);
+            return (float) Math.sqrt(b[0] * b[0] + b[1] * b[1] + b[2] * b[2]);
+        }
+
+        @Override
+        public float getMaxFieldMagnitude() {
+            return 25;
+        }
+
+        @Override
+        public boolean isZeroField() {
+            return false;
+        }
+
+        @Override
+        public boolean contains(double x, double y, double z) {
+            return true;
+        }
+    }
+
+    private static class RadiusStopper implements IStopper {
+
+        private final double rmax;
+        private double finalT = Double.NaN;
+
+        RadiusStopper(double rmax) {
+            this.rmax = rmax;
+        }
+
+        @Override
+        public boolean stopIntegration(double t, double[] y) {
+            return Math.sqrt(y[0] * y[0] + y[1] * y[1] + y[2] * y[2]) > rmax;
+        }
+
+        @Override
+        public double getFinalT() {
+            return finalT;
+        }
+
+        @Override
+        public void setFinalT(double finalPathLength) {
+            finalT = finalPathLength;
+        }
+    }
+
+    private static final int[]    CHARGE = { -1, 1, -1, 1, -1 };
+    private static final double[] P      = { 0.3, 0.8, 1.5, 2.5, 6.0 };
+    private static final double[] THETA  = { 12, 25, 40, 70, 100 };
+    private static final double[] PHI    = { 0, 35, -80, 150, 200 };
+
+    @Test
+    public void testUniformEndpoint() {
+        FieldProbe probe = new AnalyticProbe();
+        cnuphys.swim.Swimmer swimmer = new cnuphys.swim.Swimmer(probe);
+        double[] result = new double[8];
+        for (int i = 0; i < P.length; i++) {
+            for (double rmax : new double[]{ 0.3, 1.2, 4.0 }) {
+                SwimTrajectory traj = swimmer.swim(CHARGE[i], 0.001, -0.002, 0.01, P[i], THETA[i], PHI[i],
+                        new RadiusStopper(rmax), 9, 5e-4, 5e-4);
+                traj.computeBDL(probe);
+                double[] expected = traj.lastElement();
+
+                swimmer.swimEndpoint(CHARGE[i], 0.001, -0.002, 0.01, P[i], THETA[i], PHI[i],
+                        new RadiusStopper(rmax), 9, 5e-4, 5e-4, probe, result);
+                assertArrayEquals(expected, result, 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testPlaneEndpoint() throws Exception {
+        FieldProbe probe = new AnalyticProbe();
+        cnuphys.swim.Swimmer swimmer = new cnuphys.swim.Swimmer(probe);
+        double[] result = new double[8];
+        for (int i = 0; i < P.length; i++) {
+            double theta = Math.toRadians(THETA[i]);
+            double phi   = Math.toRadians(PHI[i]);
+            // plane facing the track, 2 m from the origin
+            Plane plane = new Plane(Math.sin(theta) * Math.cos(phi), Math.sin(theta) * Math.sin(phi),
+                    Math.cos(theta), 2.0);
+            double[] hdata = new double[3];
+            SwimTrajectory traj = swimmer.swim(CHARGE[i], 0, 0, 0.01, P[i], THETA[i], PHI[i], plane,
+                    20e-6, 9, 5e-4, cnuphys.swim.Swimmer.CLAS_Tolerance, hdata);
+            traj.computeBDL(probe);
+            double[] expected = traj.lastElement();
+
+            double[] hdataEndpoint = new double[3];
+            swimmer.swimEndpoint(CHARGE[i], 0, 0, 0.01, P[i], THETA[i], PHI[i], plane,
+                    20e-6, 9, 5e-4, cnuphys.swim.Swimmer.CLAS_Tolerance, hdataEndpoint, probe, result);
+            assertArrayEquals(expected, result, 0.0);
+            assertArrayEquals(hdata, hdataEndpoint, 0.0);
+        }
+    }
+
+    @Test
+    public void testNeutralEndpoint() {
+        FieldProbe probe = new AnalyticProbe();
+        cnuphys.swim.Swimmer swimmer = new cnuphys.swim.Swimmer(probe);
+        SwimTrajectory traj = swimmer.swim(0, 0, 0, 0, 1.0, 30, 45, new RadiusStopper(2.0), 9, 5e-4, 5e-4);
+        traj.computeBDL(probe);
+        double[] result = swimmer.swimEndpoint(0, 0, 0, 0, 1.0, 30, 45, new RadiusStopper(2.0), 9, 5e-4, 5e-4,
+                probe, new double[8]);
+        assertArrayEquals(traj.lastElement(), result, 0.0);
+    }
+}
@@ -0,0 +1,118 @@
+package org.jlab.clas.swimtools;
+
+import cnuphys.magfield.MagneticFields;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import org.jlab.utils.CLASResources;
+
+/**
+ * Checks that the per-thread probe collections and swimmers stay consistent
+ * when many threads start swimming at the same time.
+ */
+public class SwimmerTest {
+
+    private static final int NTHREADS = 64;
+    private static final int NSWIMS   = 20;
+
+    private static double[] swim(Swim swim, int i) {
+        swim.SetSwimParameters(0, 0, 0, 0.2 + 0.01 * i, 0.1, 0.8, -1);
+        return swim.SwimToCylinder(30);
+    }
+
+    private static void initFields() {
+        System.setProperty("CLAS12DIR", "../../");
+
+        String mapDir = CLASResources.getResourcePath("etc")+"/data/magfield";
+        try {
+            MagneticFields.getInstance().initializeMagneticFields(mapDir,
+                    "Symm_torus_r2501_phi16_z251_24Apr2018.dat","Symm_solenoid_r601_phi1_z1201_13June2018.dat");
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+        }
+        Swimmer.invalidate();
+    }
+
+    @Test
+    public void testThreadSwimmers() throws Exception {
+        initFields();
+
+        final List<double[]> reference = new ArrayList<>();
+        for (int i = 0; i < NSWIMS; i++) {
+            reference.add(swim(new Swim(), i));
+        }
+
+        final Set<ProbeCollection> collections = Collections.newSetFromMap(new IdentityHashMap<ProbeCollection, Boolean>());
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(NTHREADS);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int t = 0; t < NTHREADS; t++) {
+            results.add(pool.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    start.await();
+                    ProbeCollection PC = Swimmer.getProbeCollection();
+                    Swim swim = Swimmer.getSwim();
+                    synchronized (collections) {
+                        collections.add(PC);
+                    }
+                    for (int i = 0; i < NSWIMS; i++) {
+                        if (Swimmer.getProbeCollection() != PC || Swimmer.getSwim() != swim) {
+                            return false;
+                        }
+                        double[] value = swim(swim, i);
+                        if (reference.get(i) == null) {
+                            if (value != null) return false;
+                            continue;
+                        }
+                        for (int k = 0; k < value.length; k++) {
+                            if (value[k] != reference.get(i)[k]) return false;
+                        }
+                    }
+                    Swimmer.release();
+                    return Swimmer.getProbeCollection() != PC;
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<Boolean> result : results) {
+            assertTrue(result.get());
+        }
+        pool.shutdown();
+
+        assertEquals(NTHREADS, collections.size());
+    }
+
+    /**
+     * The thread's Swim is reused from track to track, an unphysical track
+     * or a short maximum path length must not affect the next track.
+     */
+    @Test
+    public void testSwimStateReset() {
+        initFields();
+        Swim swim = Swimmer.getSwim();
+
+        // starts 20 m away from the beam line
+        swim.SetSwimParameters(2000, 0, 0, 0.2, 0.1, 0.8, -1);
+        assertNull(swim.SwimToCylinder(30));
+        assertNotNull(swim(swim, 0));
+
+        // 10 cm maximum path length, then a track starting at z = 50 cm
+        swim.SetSwimParameters(0, 0, 0, 0, 20, 1.0, -1, 0.1);
+        swim.SetSwimParameters(0, 0, 50, 0.2, 0.1, 0.8, -1);
+        assertNotNull(swim.SwimToCylinder(60));
+
+        Swimmer.release();
+    }
+}
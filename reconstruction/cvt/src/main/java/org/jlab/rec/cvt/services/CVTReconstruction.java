@@ -4,6 +4,7 @@ import java.util.List;
 
 import org.jlab.clas.reco.ReconstructionEngine;
 import org.jlab.clas.swimtools.Swim;
+import org.jlab.clas.swimtools.Swimmer;
 import org.jlab.detector.calib.utils.DatabaseConstantProvider;
 import org.jlab.detector.geant4.v2.SVT.SVTConstants;
 import org.jlab.detector.geant4.v2.SVT.SVTStripFactory;
@@ -121,7 +122,7 @@ public class CVTReconstruction extends ReconstructionEngine {
         CVTRecHandler recHandler = new CVTRecHandler(SVTGeom,BMTGeom);
         setRunConditionsParameters(event, this.getFieldsConfig(), this.getRun(), false, "");
 
-        Swim swimmer = new Swim();
+        Swim swimmer = Swimmer.getSwim();
         
         RecoBankWriter rbc = new RecoBankWriter();
 
@@ -13,6 +13,7 @@ import org.jlab.rec.cvt.track.fit.StateVecs.StateVec;
 import org.jlab.rec.cvt.trajectory.Helix;
 
 import Jama.Matrix;
+import org.jlab.clas.clas.math.Kalman5x5;
 import org.jlab.clas.swimtools.Swim;
 import org.jlab.rec.cvt.Constants;
 
@@ -22,6 +23,7 @@ public class KFitter {
 
     StateVecs sv = new StateVecs();
     MeasVecs mv = new MeasVecs();
+    private final Kalman5x5 kernel = new Kalman5x5();
 
     public StateVec finalStateVec;
 
@@ -266,57 +268,10 @@ public class KFitter {
             double[] H = new double[5];
             H = mv.H(sv.trackTraj.get(k), sv, sgeo, bgeo, mv.measurements.get(k).type, swimmer);
 
-            double[][] HTGH = new double[][]{
-                {H[0] * H[0] / V, H[0] * H[1] / V, H[0] * H[2] / V, H[0] * H[3] / V, H[0] * H[4] / V},
-                {H[1] * H[0] / V, H[1] * H[1] / V, H[1] * H[2] / V, H[1] * H[3] / V, H[1] * H[4] / V},
-                {H[2] * H[0] / V, H[2] * H[1] / V, H[2] * H[2] / V, H[2] * H[3] / V, H[2] * H[4] / V},
-                {H[3] * H[0] / V, H[3] * H[1] / V, H[3] * H[2] / V, H[3] * H[3] / V, H[3] * H[4] / V},
-                {H[4] * H[0] / V, H[4] * H[1] / V, H[4] * H[2] / V, H[4] * H[3] / V, H[4] * H[4] / V}
-            };
-
-            Matrix Ci = null;
-            //this.printMatrix(new Matrix(HTGH));System.err.println("-------------------------------\n");
-            if (this.isNonsingular(sv.trackCov.get(k).covMat) == false) {
-                //System.err.println("Covariance Matrix is non-invertible - quit filter!");
-                //this.printMatrix(sv.trackCov.get(k).covMat);
-                return;
-            }
-            try {
-                Ci = sv.trackCov.get(k).covMat.inverse();
-            } catch (Exception e) {
-                return;
-            }
-
-            Matrix Ca = null;
-            try {
-                Ca = Ci.plus(new Matrix(HTGH));
-            } catch (Exception e) {
-                return;
-            }
-            if (Ca != null && this.isNonsingular(Ca) == false) {
-                //System.err.println("Covariance Matrix is non-invertible - quit filter!");
-                return;
-            }
-            if (Ca != null && this.isNonsingular(Ca) == true) {
-                if (Ca.inverse() != null) {
-                    Matrix CaInv = Ca.inverse();
-                    sv.trackCov.get(k).covMat = CaInv;
-                    //System.err.println("Error: e");
-                } else {
-                    return;
-                }
-            } else {
+            if (!kernel.filter(sv.trackCov.get(k).covMat.getArray(), H, V, K)) {
                 return;
             }
 
-            for (int j = 0; j < 5; j++) {
-                // the gain matrix
-                K[j] = 0;
-                for (int i = 0; i < 5; i++) {
-                    K[j] += H[i] * sv.trackCov.get(k).covMat.get(j, i) / V;
-                }
-
-            }
             double drho_filt = sv.trackTraj.get(k).d_rho;
             double phi0_filt = sv.trackTraj.get(k).phi0;
             double kappa_filt = sv.trackTraj.get(k).kappa;
@@ -397,24 +352,6 @@ public class KFitter {
         }
     }
 
-    private boolean isNonsingular(Matrix mat) {
-        double matDet = mat.det();
-        if (Math.abs(matDet) < 1.e-30) {
-            return false;
-        } else {
-            return true;
-        }
-        /*
-	      for (int j = 0; j < mat.getColumnDimension(); j++) {
-	        // if (Math.abs(mat.get(j, j)) < 0.00000000001) {
-	         if (Math.abs(mat.get(j, j)) < 0.0000000001) {
-	            return false;
-	         }
-	      }
-         */
-
-    }
-
     public class HitOnTrack {
 
         int layer;
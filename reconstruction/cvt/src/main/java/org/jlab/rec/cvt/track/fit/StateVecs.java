@@ -11,6 +11,7 @@ import org.jlab.rec.cvt.track.Seed;
 import org.jlab.rec.cvt.trajectory.Helix;
 
 import Jama.Matrix;
+import org.jlab.clas.clas.math.Kalman5x5;
 import org.jlab.clas.swimtools.Swim;
 import org.jlab.rec.cvt.svt.Constants;
 
@@ -25,6 +26,7 @@ public class StateVecs {
     public StateVec StateVec;
     public CovMat CovMat;
     public Matrix F;
+    private final Kalman5x5 kernel = new Kalman5x5();
 
     public List<Double> X0;
     public List<Double> Y0;
@@ -282,16 +284,15 @@ public class StateVecs {
         //StateVec = fVec;
         this.trackTraj.put(f, fVec);
         F = new Matrix(FMat);
-        Matrix FT = F.transpose();
-        Matrix Cpropagated = FT.times(icovMat.covMat).times(F);
+        Matrix Cpropagated = new Matrix(5, 5);
+        kernel.similarity(FMat, icovMat.covMat.getArray(), Cpropagated.getArray());
         //if(Z0.get(i)!=Z0.get(f))
         //	Cpropagated = icovMat.covMat;
-        if (Cpropagated != null) {
-            CovMat fCov = new CovMat(f);
-            fCov.covMat = Cpropagated.plus(this.Q(iVec, f - i));
-            //CovMat = fCov;
-            this.trackCov.put(f, fCov);
-        }
+        Kalman5x5.add(Cpropagated.getArray(), this.Q(iVec, f - i).getArray());
+        CovMat fCov = new CovMat(f);
+        fCov.covMat = Cpropagated;
+        //CovMat = fCov;
+        this.trackCov.put(f, fCov);
     }
 
     private double get_t_ov_X0(double radius) {
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.jlab.io.base.DataBank;
+import org.jlab.io.base.DataColumn;
 import org.jlab.io.base.DataEvent;
 import org.jlab.rec.dc.hit.FittedHit;
 import org.jlab.rec.dc.hit.Hit;
@@ -111,11 +112,15 @@ public class HitReader {
         int[] tdc = new int[rows];
         int[] useMChit = new int[rows];
 
+        DataColumn sectorColumn = bankDGTZ.getColumn("sector");
+        DataColumn layerColumn = bankDGTZ.getColumn("layer");
+        DataColumn componentColumn = bankDGTZ.getColumn("component");
+        DataColumn tdcColumn = bankDGTZ.getColumn("TDC");
         for (int i = 0; i < rows; i++) {
-            sector[i] = bankDGTZ.getByte("sector", i);
-            layer[i] = bankDGTZ.getByte("layer", i);
-            wire[i] = bankDGTZ.getShort("component", i);
-            tdc[i] = bankDGTZ.getInt("TDC", i);
+            sector[i] = sectorColumn.getByte(i);
+            layer[i] = layerColumn.getByte(i);
+            wire[i] = componentColumn.getShort(i);
+            tdc[i] = tdcColumn.getInt(i);
 
         }
 
@@ -123,8 +128,9 @@ public class HitReader {
         if (event.hasBank("DC::doca")) {
             DataBank bankD = event.getBank("DC::doca");
             int bd_rows = bankD.rows();
+            DataColumn stime = bankD.getColumn("stime");
             for (int i = 0; i < bd_rows; i++) {
-                if (bankD.getFloat("stime", i) < 0) {
+                if (stime.getFloat(i) < 0) {
                     useMChit[i] = -1;
                 }
             }
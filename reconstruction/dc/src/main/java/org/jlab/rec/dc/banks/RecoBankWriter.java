@@ -2,11 +2,10 @@ package org.jlab.rec.dc.banks;
 
 import java.util.ArrayList;
 import java.util.List;
-import org.jlab.jnp.hipo.data.HipoEvent;
 
 import org.jlab.io.base.DataBank;
+import org.jlab.io.base.DataBankWriter;
 import org.jlab.io.base.DataEvent;
-import org.jlab.io.hipo.HipoDataEvent;
 import org.jlab.rec.dc.cluster.FittedCluster;
 import org.jlab.rec.dc.cross.Cross;
 import org.jlab.rec.dc.hit.FittedHit;
@@ -25,6 +24,67 @@ import trackfitter.fitter.utilities.*;
  */
 public class RecoBankWriter {
 
+    // column layouts of the banks with one row per hit or trajectory point
+    private static final DataBankWriter HB_HITS = new DataBankWriter();
+    private static final int HB_ID           = HB_HITS.column("id");
+    private static final int HB_STATUS       = HB_HITS.column("status");
+    private static final int HB_SUPERLAYER   = HB_HITS.column("superlayer");
+    private static final int HB_LAYER        = HB_HITS.column("layer");
+    private static final int HB_SECTOR       = HB_HITS.column("sector");
+    private static final int HB_WIRE         = HB_HITS.column("wire");
+    private static final int HB_DOCAERROR    = HB_HITS.column("docaError");
+    private static final int HB_TRKDOCA      = HB_HITS.column("trkDoca");
+    private static final int HB_LOCX         = HB_HITS.column("LocX");
+    private static final int HB_LOCY         = HB_HITS.column("LocY");
+    private static final int HB_X            = HB_HITS.column("X");
+    private static final int HB_Z            = HB_HITS.column("Z");
+    private static final int HB_LR           = HB_HITS.column("LR");
+    private static final int HB_CLUSTERID    = HB_HITS.column("clusterID");
+    private static final int HB_TRKID        = HB_HITS.column("trkID");
+    private static final int HB_TDC          = HB_HITS.column("TDC");
+    private static final int HB_B            = HB_HITS.column("B");
+    private static final int HB_TPROP        = HB_HITS.column("TProp");
+    private static final int HB_TFLIGHT      = HB_HITS.column("TFlight");
+
+    private static final DataBankWriter TB_HITS = new DataBankWriter();
+    private static final int TB_ID           = TB_HITS.column("id");
+    private static final int TB_STATUS       = TB_HITS.column("status");
+    private static final int TB_SUPERLAYER   = TB_HITS.column("superlayer");
+    private static final int TB_LAYER        = TB_HITS.column("layer");
+    private static final int TB_SECTOR       = TB_HITS.column("sector");
+    private static final int TB_WIRE         = TB_HITS.column("wire");
+    private static final int TB_X            = TB_HITS.column("X");
+    private static final int TB_Z            = TB_HITS.column("Z");
+    private static final int TB_LR           = TB_HITS.column("LR");
+    private static final int TB_TIME         = TB_HITS.column("time");
+    private static final int TB_TBETA        = TB_HITS.column("tBeta");
+    private static final int TB_FITRESIDUAL  = TB_HITS.column("fitResidual");
+    private static final int TB_DOCA         = TB_HITS.column("doca");
+    private static final int TB_DOCAERROR    = TB_HITS.column("docaError");
+    private static final int TB_TRKDOCA      = TB_HITS.column("trkDoca");
+    private static final int TB_CLUSTERID    = TB_HITS.column("clusterID");
+    private static final int TB_TRKID        = TB_HITS.column("trkID");
+    private static final int TB_TIMERESIDUAL = TB_HITS.column("timeResidual");
+    private static final int TB_TDC          = TB_HITS.column("TDC");
+    private static final int TB_B            = TB_HITS.column("B");
+    private static final int TB_TPROP        = TB_HITS.column("TProp");
+    private static final int TB_TFLIGHT      = TB_HITS.column("TFlight");
+    private static final int TB_T0           = TB_HITS.column("T0");
+    private static final int TB_TSTART       = TB_HITS.column("TStart");
+    private static final int TB_BETA         = TB_HITS.column("beta");
+
+    private static final DataBankWriter TRAJECTORY = new DataBankWriter();
+    private static final int TRAJ_DID        = TRAJECTORY.column("did");
+    private static final int TRAJ_TID        = TRAJECTORY.column("tid");
+    private static final int TRAJ_X          = TRAJECTORY.column("x");
+    private static final int TRAJ_Y          = TRAJECTORY.column("y");
+    private static final int TRAJ_Z          = TRAJECTORY.column("z");
+    private static final int TRAJ_TX         = TRAJECTORY.column("tx");
+    private static final int TRAJ_TY         = TRAJECTORY.column("ty");
+    private static final int TRAJ_TZ         = TRAJECTORY.column("tz");
+    private static final int TRAJ_B          = TRAJECTORY.column("B");
+    private static final int TRAJ_L          = TRAJECTORY.column("L");
+
 //    /**
 //     *
 //     * Writes output banks
@@ -57,41 +117,44 @@ public class RecoBankWriter {
 
     private DataBank fillHBHitsBank(DataEvent event, List<FittedHit> hitlist) {
 
-        DataBank bank = event.createBank("HitBasedTrkg::HBHits", hitlist.size());
+        DataBankWriter.Rows bank = HB_HITS.create(event, "HitBasedTrkg::HBHits", hitlist.size());
+        boolean isMC = event.hasBank("MC::Particle");
 
         for (int i = 0; i < hitlist.size(); i++) {
-            if (hitlist.get(i).get_Id() == -1) {
+            FittedHit hit = hitlist.get(i);
+            if (hit.get_Id() == -1) {
                 continue;
             }
 
-            bank.setShort("id", i, (short) hitlist.get(i).get_Id());
-            bank.setShort("status", i, (short) 0);
-            bank.setByte("superlayer", i, (byte) hitlist.get(i).get_Superlayer());
-            bank.setByte("layer", i, (byte) hitlist.get(i).get_Layer());
-            bank.setByte("sector", i, (byte) hitlist.get(i).get_Sector());
-            bank.setShort("wire", i, (short) hitlist.get(i).get_Wire());
-            bank.setFloat("docaError", i, (float) hitlist.get(i).get_DocaErr());
-            bank.setFloat("trkDoca", i, (float) hitlist.get(i).get_ClusFitDoca());
-            bank.setFloat("LocX", i, (float) hitlist.get(i).get_lX());
-            bank.setFloat("LocY", i, (float) hitlist.get(i).get_lY());
-            bank.setFloat("X", i, (float) hitlist.get(i).get_X());
-            bank.setFloat("Z", i, (float) hitlist.get(i).get_Z());
-            bank.setByte("LR", i, (byte) hitlist.get(i).get_LeftRightAmb());
-            bank.setShort("clusterID", i, (short) hitlist.get(i).get_AssociatedClusterID());
-            bank.setByte("trkID", i, (byte) hitlist.get(i).get_AssociatedHBTrackID());
-
-            bank.setInt("TDC",i,hitlist.get(i).get_TDC());
-            bank.setFloat("B", i, (float) hitlist.get(i).getB());
-            bank.setFloat("TProp", i, (float) hitlist.get(i).getTProp());
-            bank.setFloat("TFlight", i, (float) hitlist.get(i).getTFlight());
-
-            if(hitlist.get(i).get_AssociatedHBTrackID()>-1 && !event.hasBank("MC::Particle")) {
-                bank.setFloat("TProp", i, (float) hitlist.get(i).getSignalPropagTimeAlongWire());
-                bank.setFloat("TFlight", i, (float) hitlist.get(i).getSignalTimeOfFlight());
+            bank.setShort(HB_ID, i, (short) hit.get_Id());
+            bank.setShort(HB_STATUS, i, (short) 0);
+            bank.setByte(HB_SUPERLAYER, i, (byte) hit.get_Superlayer());
+            bank.setByte(HB_LAYER, i, (byte) hit.get_Layer());
+            bank.setByte(HB_SECTOR, i, (byte) hit.get_Sector());
+            bank.setShort(HB_WIRE, i, (short) hit.get_Wire());
+            bank.setFloat(HB_DOCAERROR, i, (float) hit.get_DocaErr());
+            bank.setFloat(HB_TRKDOCA, i, (float) hit.get_ClusFitDoca());
+            bank.setFloat(HB_LOCX, i, (float) hit.get_lX());
+            bank.setFloat(HB_LOCY, i, (float) hit.get_lY());
+            bank.setFloat(HB_X, i, (float) hit.get_X());
+            bank.setFloat(HB_Z, i, (float) hit.get_Z());
+            bank.setByte(HB_LR, i, (byte) hit.get_LeftRightAmb());
+            bank.setShort(HB_CLUSTERID, i, (short) hit.get_AssociatedClusterID());
+            bank.setByte(HB_TRKID, i, (byte) hit.get_AssociatedHBTrackID());
+
+            bank.setInt(HB_TDC,i,hit.get_TDC());
+            bank.setFloat(HB_B, i, (float) hit.getB());
+            bank.setFloat(HB_TPROP, i, (float) hit.getTProp());
+            bank.setFloat(HB_TFLIGHT, i, (float) hit.getTFlight());
+
+            if(hit.get_AssociatedHBTrackID()>-1 && !isMC) {
+                bank.setFloat(HB_TPROP, i, (float) hit.getSignalPropagTimeAlongWire());
+                bank.setFloat(HB_TFLIGHT, i, (float) hit.getSignalTimeOfFlight());
             }
         }
 
-        return bank;
+        return bank.getBank();
+
 
     }
 
@@ -394,79 +457,75 @@ public class RecoBankWriter {
      */
      private DataBank fillTBHitsBank(DataEvent event, List<FittedHit> hitlist) {
         if(event.hasBank("TimeBasedTrkg::TBHits")) { // for second pass tracking
-                HipoDataEvent de = (HipoDataEvent) event;
-                HipoEvent dde = de.getHipoEvent();
-//                HipoGroup group = dde.getGroup("TimeBasedTrkg::TBHits");
-                ////event.show();
-                //group.show();
-                dde.removeGroup("TimeBasedTrkg::TBHits");
+                event.removeBank("TimeBasedTrkg::TBHits");
         }
-        DataBank bank = event.createBank("TimeBasedTrkg::TBHits", hitlist.size());
+        DataBankWriter.Rows bank = TB_HITS.create(event, "TimeBasedTrkg::TBHits", hitlist.size());
+        boolean isMC = event.hasBank("MC::Particle");
 
         for (int i = 0; i < hitlist.size(); i++) {
-            if (hitlist.get(i).get_Id() == -1) {
+            FittedHit hit = hitlist.get(i);
+            if (hit.get_Id() == -1) {
                 continue;
             }
-            if(hitlist.get(i).get_TrkResid()==999)
-                hitlist.get(i).set_AssociatedTBTrackID(-1);
-            bank.setShort("id", i, (short) hitlist.get(i).get_Id());
-            bank.setShort("status", i, (short) hitlist.get(i).get_QualityFac());
-            bank.setByte("superlayer", i, (byte) hitlist.get(i).get_Superlayer());
-            bank.setByte("layer", i, (byte) hitlist.get(i).get_Layer());
-            bank.setByte("sector", i, (byte) hitlist.get(i).get_Sector());
-            bank.setShort("wire", i, (short) hitlist.get(i).get_Wire());
+            if(hit.get_TrkResid()==999)
+                hit.set_AssociatedTBTrackID(-1);
+            bank.setShort(TB_ID, i, (short) hit.get_Id());
+            bank.setShort(TB_STATUS, i, (short) hit.get_QualityFac());
+            bank.setByte(TB_SUPERLAYER, i, (byte) hit.get_Superlayer());
+            bank.setByte(TB_LAYER, i, (byte) hit.get_Layer());
+            bank.setByte(TB_SECTOR, i, (byte) hit.get_Sector());
+            bank.setShort(TB_WIRE, i, (short) hit.get_Wire());
 
-            bank.setFloat("X", i, (float) hitlist.get(i).get_X());
-            bank.setFloat("Z", i, (float) hitlist.get(i).get_Z());
-            bank.setByte("LR", i, (byte) hitlist.get(i).get_LeftRightAmb());
+            bank.setFloat(TB_X, i, (float) hit.get_X());
+            bank.setFloat(TB_Z, i, (float) hit.get_Z());
+            bank.setByte(TB_LR, i, (byte) hit.get_LeftRightAmb());
 
             // checks the existing schema to fill the time
-            //System.out.println(" has entry "+bank.getDescriptor().hasEntry("time"));
             /*
             correctedTime = (this.get_Time() - this.get_DeltaTimeBeta());
             */
-            if(bank.getDescriptor().hasEntry("time")){
-               bank.setFloat("time", i, (float) (hitlist.get(i).get_Time() - hitlist.get(i).get_DeltaTimeBeta()));
-            }
-            if(bank.getDescriptor().hasEntry("tBeta")){
-               bank.setFloat("tBeta", i, (float) hitlist.get(i).get_DeltaTimeBeta());
-            }
-            if(bank.getDescriptor().hasEntry("fitResidual")){
-               bank.setFloat("fitResidual", i, (float) hitlist.get(i).get_TrkResid());
-            }
-            bank.setFloat("doca", i, (float) hitlist.get(i).get_Doca());
-            bank.setFloat("docaError", i, (float) hitlist.get(i).get_DocaErr());
-            bank.setFloat("trkDoca", i, (float) hitlist.get(i).get_ClusFitDoca());
-
-            bank.setShort("clusterID", i, (short) hitlist.get(i).get_AssociatedClusterID());
-            bank.setByte("trkID", i, (byte) hitlist.get(i).get_AssociatedTBTrackID());
-            bank.setFloat("timeResidual", i, (float) hitlist.get(i).get_TimeResidual());
-
-            bank.setInt("TDC",i,hitlist.get(i).get_TDC());
-            bank.setFloat("B", i, (float) hitlist.get(i).getB());
-            bank.setFloat("TProp", i, (float) hitlist.get(i).getTProp());
-            bank.setFloat("TFlight", i, (float) hitlist.get(i).getTFlight());
-            bank.setFloat("T0", i, (float) hitlist.get(i).getT0());
-            bank.setFloat("TStart", i, (float) hitlist.get(i).getTStart());
-            if(bank.getDescriptor().hasEntry("beta")){
-               bank.setFloat("beta", i, (float) hitlist.get(i).get_Beta());
-            }
-            if(hitlist.get(i).get_AssociatedTBTrackID()>-1 && !event.hasBank("MC::Particle")) {
-                if(hitlist.get(i).getSignalPropagTimeAlongWire()==0 || hitlist.get(i).get_AssociatedTBTrackID()<1) {
-                    bank.setFloat("TProp", i, (float) hitlist.get(i).getTProp()); //old value if track fit failed
+            if(bank.hasColumn(TB_TIME)){
+               bank.setFloat(TB_TIME, i, (float) (hit.get_Time() - hit.get_DeltaTimeBeta()));
+            }
+            if(bank.hasColumn(TB_TBETA)){
+               bank.setFloat(TB_TBETA, i, (float) hit.get_DeltaTimeBeta());
+            }
+            if(bank.hasColumn(TB_FITRESIDUAL)){
+               bank.setFloat(TB_FITRESIDUAL, i, (float) hit.get_TrkResid());
+            }
+            bank.setFloat(TB_DOCA, i, (float) hit.get_Doca());
+            bank.setFloat(TB_DOCAERROR, i, (float) hit.get_DocaErr());
+            bank.setFloat(TB_TRKDOCA, i, (float) hit.get_ClusFitDoca());
+
+            bank.setShort(TB_CLUSTERID, i, (short) hit.get_AssociatedClusterID());
+            bank.setByte(TB_TRKID, i, (byte) hit.get_AssociatedTBTrackID());
+            bank.setFloat(TB_TIMERESIDUAL, i, (float) hit.get_TimeResidual());
+
+            bank.setInt(TB_TDC,i,hit.get_TDC());
+            bank.setFloat(TB_B, i, (float) hit.getB());
+            bank.setFloat(TB_TPROP, i, (float) hit.getTProp());
+            bank.setFloat(TB_TFLIGHT, i, (float) hit.getTFlight());
+            bank.setFloat(TB_T0, i, (float) hit.getT0());
+            bank.setFloat(TB_TSTART, i, (float) hit.getTStart());
+            if(bank.hasColumn(TB_BETA)){
+               bank.setFloat(TB_BETA, i, (float) hit.get_Beta());
+            }
+            if(hit.get_AssociatedTBTrackID()>-1 && !isMC) {
+                if(hit.getSignalPropagTimeAlongWire()==0 || hit.get_AssociatedTBTrackID()<1) {
+                    bank.setFloat(TB_TPROP, i, (float) hit.getTProp()); //old value if track fit failed
                 } else {
-                    bank.setFloat("TProp", i, (float) hitlist.get(i).getSignalPropagTimeAlongWire()); //new calculated value
+                    bank.setFloat(TB_TPROP, i, (float) hit.getSignalPropagTimeAlongWire()); //new calculated value
                 }
-                if(hitlist.get(i).getSignalTimeOfFlight()==0 || hitlist.get(i).get_AssociatedTBTrackID()<1) {
-                    bank.setFloat("TFlight", i, (float) hitlist.get(i).getTFlight());
+                if(hit.getSignalTimeOfFlight()==0 || hit.get_AssociatedTBTrackID()<1) {
+                    bank.setFloat(TB_TFLIGHT, i, (float) hit.getTFlight());
                 } else {
-                    bank.setFloat("TFlight", i, (float) hitlist.get(i).getSignalTimeOfFlight());
+                    bank.setFloat(TB_TFLIGHT, i, (float) hit.getSignalTimeOfFlight());
                 }
             }
 
         }
-        //System.out.println(" Created Bank "); bank.show();
-        return bank;
+        return bank.getBank();
+
 
     }
 
@@ -477,12 +536,7 @@ public class RecoBankWriter {
      */
     private DataBank fillTBClustersBank(DataEvent event, List<FittedCluster> cluslist) {
         if(event.hasBank("TimeBasedTrkg::TBClusters")) { // for second pass tracking
-                HipoDataEvent de = (HipoDataEvent) event;
-                HipoEvent dde = de.getHipoEvent();
-//                HipoGroup group = dde.getGroup("TimeBasedTrkg::TBClusters");
-                ////event.show();
-                //group.show();
-                dde.removeGroup("TimeBasedTrkg::TBClusters");
+                event.removeBank("TimeBasedTrkg::TBClusters");
         }
         DataBank bank = event.createBank("TimeBasedTrkg::TBClusters", cluslist.size());
 
@@ -545,12 +599,7 @@ public class RecoBankWriter {
      */
     private DataBank fillTBSegmentsBank(DataEvent event, List<Segment> seglist) {
         if(event.hasBank("TimeBasedTrkg::TBSegments")) { // for second pass tracking
-                HipoDataEvent de = (HipoDataEvent) event;
-                HipoEvent dde = de.getHipoEvent();
-//                HipoGroup group = dde.getGroup("TimeBasedTrkg::TBSegments");
-                ////event.show();
-                //group.show();
-                dde.removeGroup("TimeBasedTrkg::TBSegments");
+                event.removeBank("TimeBasedTrkg::TBSegments");
         }
         DataBank bank = event.createBank("TimeBasedTrkg::TBSegments", seglist.size());
 
@@ -653,12 +702,7 @@ public class RecoBankWriter {
     private DataBank fillTBCrossesBank(DataEvent event, List<Cross> crosslist) {
 
         if(event.hasBank("TimeBasedTrkg::TBCrosses")) { // for second pass tracking
-                HipoDataEvent de = (HipoDataEvent) event;
-                HipoEvent dde = de.getHipoEvent();
-//                HipoGroup group = dde.getGroup("TimeBasedTrkg::TBCrosses");
-                ////event.show();
-                //group.show();
-                dde.removeGroup("TimeBasedTrkg::TBCrosses");
+                event.removeBank("TimeBasedTrkg::TBCrosses");
         }
         int banksize=0;
         for (Cross aCrosslist1 : crosslist) {
@@ -700,12 +744,7 @@ public class RecoBankWriter {
      */
     private DataBank fillTBTracksBank(DataEvent event, List<Track> candlist) {
         if(event.hasBank("TimeBasedTrkg::TBTracks")) { // for second pass tracking
-                HipoDataEvent de = (HipoDataEvent) event;
-                HipoEvent dde = de.getHipoEvent();
-//                HipoGroup group = dde.getGroup("TimeBasedTrkg::TBTracks");
-                ////event.show();
-                //group.show();
-                dde.removeGroup("TimeBasedTrkg::TBTracks");
+                event.removeBank("TimeBasedTrkg::TBTracks");
         }
         DataBank bank = event.createBank("TimeBasedTrkg::TBTracks", candlist.size());
 
@@ -769,7 +808,7 @@ public class RecoBankWriter {
     }
 
     private DataBank fillTrajectoryBank(DataEvent event, List<Track> tracks) {
-        DataBank bank = event.createBank("TimeBasedTrkg::Trajectory", tracks.size()*21);
+        DataBankWriter.Rows bank = TRAJECTORY.create(event, "TimeBasedTrkg::Trajectory", tracks.size()*21);
         int i1=0;
         for (Track track : tracks) {
             if (track == null)
@@ -781,20 +820,21 @@ public class RecoBankWriter {
                 if (track.trajectory.get(j).getDetName().startsWith("DC") && (j - 6) % 6 != 0)
                     continue;  // save the last layer in a superlayer
 
-                bank.setShort("did", i1, (short) track.trajectory.get(j).getDetId());
-                bank.setShort("tid", i1, (short) track.get_Id());
-                bank.setFloat("x", i1, (float) track.trajectory.get(j).getX());
-                bank.setFloat("y", i1, (float) track.trajectory.get(j).getY());
-                bank.setFloat("z", i1, (float) track.trajectory.get(j).getZ());
-                bank.setFloat("tx", i1, (float) ((float) track.trajectory.get(j).getpX() / track.get_P()));
-                bank.setFloat("ty", i1, (float) ((float) track.trajectory.get(j).getpY() / track.get_P()));
-                bank.setFloat("tz", i1, (float) ((float) track.trajectory.get(j).getpZ() / track.get_P()));
-                bank.setFloat("B", i1, (float) track.trajectory.get(j).getiBdl());
-                bank.setFloat("L", i1, (float) track.trajectory.get(j).getPathLen());
+                bank.setShort(TRAJ_DID, i1, (short) track.trajectory.get(j).getDetId());
+                bank.setShort(TRAJ_TID, i1, (short) track.get_Id());
+                bank.setFloat(TRAJ_X, i1, (float) track.trajectory.get(j).getX());
+                bank.setFloat(TRAJ_Y, i1, (float) track.trajectory.get(j).getY());
+                bank.setFloat(TRAJ_Z, i1, (float) track.trajectory.get(j).getZ());
+                bank.setFloat(TRAJ_TX, i1, (float) ((float) track.trajectory.get(j).getpX() / track.get_P()));
+                bank.setFloat(TRAJ_TY, i1, (float) ((float) track.trajectory.get(j).getpY() / track.get_P()));
+                bank.setFloat(TRAJ_TZ, i1, (float) ((float) track.trajectory.get(j).getpZ() / track.get_P()));
+                bank.setFloat(TRAJ_B, i1, (float) track.trajectory.get(j).getiBdl());
+                bank.setFloat(TRAJ_L, i1, (float) track.trajectory.get(j).getPathLen());
                 i1++;
             }
         }
-        return bank;
+        return bank.getBank();
+
     }
 
     public List<FittedHit> createRawHitList(List<Hit> hits) {
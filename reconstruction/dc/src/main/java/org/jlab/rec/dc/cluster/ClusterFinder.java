@@ -46,6 +46,9 @@ public class ClusterFinder {
     int nwire = Constants.NWIRE;
 
     private Hit[][][] HitArray = new Hit[nsect * nslay][nwire][nlayr];
+    // entries of HitArray set by the last fillHitArray() call, as (ssl*nwire+wire)*nlayr+layer
+    private int[] filled = new int[64];
+    private int nFilled = 0;
 
     /**
      *
@@ -64,17 +67,28 @@ public class ClusterFinder {
      */
     public void setHitArray(Hit[][][] hitArray) {
         HitArray = hitArray;
+        nFilled = 0;
     }
 
     /**
-     * Fills 3-dimentional array of hits from input hits
+     * Fills 3-dimentional array of hits from input hits. The array is reused
+     * from call to call, only the entries filled by the previous call are
+     * cleared.
      *
      * @param hits the unfitted hit
      */
     private void fillHitArray(List<Hit> hits, int rejectLayer) {
 
         // a Hit Array is used to identify clusters
-        Hit[][][] hitArray = new Hit[nsect * nslay][nwire][nlayr];
+        Hit[][][] hitArray = this.getHitArray();
+        for (int i = 0; i < nFilled; i++) {
+            int k = filled[i];
+            hitArray[k / (nwire * nlayr)][(k / nlayr) % nwire][k % nlayr] = null;
+        }
+        nFilled = 0;
+        if (filled.length < hits.size()) {
+            filled = new int[hits.size()];
+        }
 
         // initializing non-zero Hit Array entries
         // with valid hits
@@ -85,11 +99,13 @@ public class ClusterFinder {
                 int la = hit.get_Layer() - 1;
 
                 if (wi >= 0 && wi < nwire) {
+                    if (hitArray[ssl][wi][la] == null) {
+                        filled[nFilled++] = (ssl * nwire + wi) * nlayr + la;
+                    }
                     hitArray[ssl][wi][la] = hit;
                 }
             }
         }
-        this.setHitArray(hitArray);
 
     }
 
@@ -39,8 +39,10 @@ public class ClusterFitter {
     public void SetFitArray(FittedCluster clus, String system) {
 
         Collections.sort(clus);
-        for(int i =0; i<FitArray.size(); i++)
-            FitArray.get(i).clear();
+        x.clear();
+        ex.clear();
+        y.clear();
+        ey.clear();
         
         //double[][] fitArray = new double[4][clus.size()];
         //double[] x = new double[clus.size()];
@@ -67,10 +69,13 @@ public class ClusterFitter {
             }
 
         }
-        FitArray.add((ArrayList<Double>) x);
-        FitArray.add((ArrayList<Double>) ex);
-        FitArray.add((ArrayList<Double>) y);
-        FitArray.add((ArrayList<Double>) ey);
+        // the same lists are refilled for every cluster
+        if (FitArray.isEmpty()) {
+            FitArray.add((ArrayList<Double>) x);
+            FitArray.add((ArrayList<Double>) ex);
+            FitArray.add((ArrayList<Double>) y);
+            FitArray.add((ArrayList<Double>) ey);
+        }
         
     }
     /**
@@ -37,15 +37,43 @@ public class CrossListFinder  {
     SegmentFinder segFinder = new SegmentFinder();
 
     public CrossList candCrossLists(List<Cross> dccrosslist, boolean TimeBased, IndexedTable tab, DCGeant4Factory DcDetector, TimeToDistanceEstimator tde, Swim swimmer) {
+        return this.candCrossLists(dccrosslist, null, TimeBased, tab, DcDetector, tde, swimmer);
+    }
+
+    /**
+     * 
+     * @param dccrosslist the list of crosses in the event
+     * @param seeds lists of 3 crosses found by dictionary lookup, or null; the seeds pass the same selection as the
+     * road search lists, and the crosses of the selected seeds are not used again in the road search
+     * @return the seeds followed by the lists of crosses determined to be consistent with belonging to a track in the DC
+     */
+    public CrossList candCrossLists(List<Cross> dccrosslist, CrossList seeds, boolean TimeBased, IndexedTable tab, DCGeant4Factory DcDetector, TimeToDistanceEstimator tde, Swim swimmer) {
         //List<List<Cross>> trkCnds = new ArrayList<List<Cross>>();
         trkCnds.clear();
 
+        List<Cross> seededCrosses = new ArrayList<Cross>();
+        if(seeds!=null) {
+            for(List<Cross> seed : seeds) {
+                if(seed.size()!=3) {
+                    continue;
+                }
+                BaseCand bCand = this.fitCrossList(seed.get(0), seed.get(1), seed.get(2), tab, DcDetector, tde, swimmer);
+                if(bCand!=null) {
+                    trkCnds.add(bCand);
+                    seededCrosses.addAll(seed);
+                }
+            }
+        }
+
         if(dccrosslist.size()>0) {
             List<Cross> dccrosslistRg1 = new ArrayList<Cross>();
             List<Cross> dccrosslistRg2 = new ArrayList<Cross>();
             List<Cross> dccrosslistRg3 = new ArrayList<Cross>();
 
             for(Cross dc : dccrosslist) {
+                    if(this.containsCross(seededCrosses, dc)) {
+                        continue;
+                }
                     if(dc.get_Region()==1) {
                         dccrosslistRg1.add(dc);
                 }
@@ -65,75 +93,8 @@ public class CrossListFinder  {
                             if(c1.get_Sector()!=c2.get_Sector() || c1.get_Sector()!=c3.get_Sector()) {
                                 continue;
                             }
-
-                            double[] X = new double[3];
-                            double[] Y = new double[3];
-                            double[] Z = new double[3];
-                            double[] errX = new double[3];
-                            double[] errY = new double[3];
-
-                            Z[0] = c1.get_Point().z();
-                            Y[0] = c1.get_Point().y();
-                            X[0] = c1.get_Point().x();
-                            errX[0] = c1.get_PointErr().x();
-                            errY[0] = c1.get_PointErr().y();
-                            Z[1] = c2.get_Point().z();
-                            Y[1] = c2.get_Point().y();
-                            X[1] = c2.get_Point().x();
-                            errX[1] = c2.get_PointErr().x();
-                            errY[1] = c2.get_PointErr().y();
-                            Z[2] = c3.get_Point().z();
-                            Y[2] = c3.get_Point().y();
-                            X[2] = c3.get_Point().x();
-                            errX[2] = c3.get_PointErr().x();
-                            errY[2] = c3.get_PointErr().y();
-                            // ignore point errors and assume the track vertex is close to the origin
-                            TrajectoryParametriz qf1 = new TrajectoryParametriz();
-                            qf1.evaluate(Z, X, errX,Y,errY);
-
-                            Vector3D traj1 = new Vector3D(qf1.fitResult[3][0],qf1.fitResult[4][0],qf1.fitResult[5][0]);
-                            Vector3D traj2 = new Vector3D(qf1.fitResult[3][1],qf1.fitResult[4][1],qf1.fitResult[5][1]);
-                            Vector3D traj3 = new Vector3D(qf1.fitResult[3][2],qf1.fitResult[4][2],qf1.fitResult[5][2]);
-
-                            double cosTh1 = traj1.dot(c1.get_Dir().toVector3D());
-                            double cosTh2 = traj2.dot(c2.get_Dir().toVector3D());
-                            double cosTh3 = traj3.dot(c3.get_Dir().toVector3D());
-
-                            // require that the cross direction estimate be in the direction of the trajectory
-                            if(cosTh1<Constants.TRACKDIRTOCROSSDIRCOSANGLE || cosTh2<Constants.TRACKDIRTOCROSSDIRCOSANGLE || cosTh3<Constants.TRACKDIRTOCROSSDIRCOSANGLE) {
-                                continue;
-                            }
-
-                            double fitchsq=0;
-
-                            if(c1.isPseudoCross==false) {
-                                fitchsq+=((qf1.fitResult[1][0]-c1.get_Point().y())/c1.get_PointErr().y())*((qf1.fitResult[1][0]-c1.get_Point().y())/c1.get_PointErr().y());
-                            }
-                            if(c2.isPseudoCross==false) {
-                                fitchsq+=((qf1.fitResult[1][1]-c2.get_Point().y())/c2.get_PointErr().y())*((qf1.fitResult[1][1]-c2.get_Point().y())/c2.get_PointErr().y());
-                            }
-                            if(c3.isPseudoCross==false) {
-                                fitchsq+=((qf1.fitResult[1][2]-c3.get_Point().y())/c3.get_PointErr().y())*((qf1.fitResult[1][2]-c3.get_Point().y())/c3.get_PointErr().y());
-                            }
-
-                            // fit the  projection with a line -- the track is ~ constant in phi
-                            LineFitter linefit = new LineFitter();
-                            boolean linefitstatusOK = linefit.fitStatus(X, Y, errX, errY, Z.length);
-                            if(!linefitstatusOK) {
-                                continue; // fit failed
-                            }
-                            //if(TimeBased && tde!=null) {			
-                            this.updateBFittedHits(c1, tab, DcDetector, tde, swimmer);
-                            this.updateBFittedHits(c2, tab, DcDetector, tde, swimmer);
-                            this.updateBFittedHits(c3, tab, DcDetector, tde, swimmer);
-                            //}
-                            BaseCand bCand = new BaseCand();
-                            bCand.CrossesOnTrack.clear();
-                            bCand.CrossesOnTrack.add(c1);
-                            bCand.CrossesOnTrack.add(c2);
-                            bCand.CrossesOnTrack.add(c3);
-                            bCand.Chisq = fitchsq;
-                            if(bCand.Chisq<Constants.CROSSLISTSELECTQFMINCHSQ) {
+                            BaseCand bCand = this.fitCrossList(c1, c2, c3, tab, DcDetector, tde, swimmer);
+                            if(bCand!=null) {
                                 trkCnds.add(bCand);
                             }
                         }
@@ -148,6 +109,93 @@ public class CrossListFinder  {
         return crossList;
     }
 
+    private boolean containsCross(List<Cross> crosses, Cross c) {
+        for(Cross used : crosses) {
+            if(used==c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fits the crosses of the three regions with a trajectory and applies the cross direction and chi^2 selection.
+     * @return the candidate with its chi^2, or null if the crosses are not consistent with a track
+     */
+    private BaseCand fitCrossList(Cross c1, Cross c2, Cross c3, IndexedTable tab, DCGeant4Factory DcDetector, TimeToDistanceEstimator tde, Swim swimmer) {
+        double[] X = new double[3];
+        double[] Y = new double[3];
+        double[] Z = new double[3];
+        double[] errX = new double[3];
+        double[] errY = new double[3];
+
+        Z[0] = c1.get_Point().z();
+        Y[0] = c1.get_Point().y();
+        X[0] = c1.get_Point().x();
+        errX[0] = c1.get_PointErr().x();
+        errY[0] = c1.get_PointErr().y();
+        Z[1] = c2.get_Point().z();
+        Y[1] = c2.get_Point().y();
+        X[1] = c2.get_Point().x();
+        errX[1] = c2.get_PointErr().x();
+        errY[1] = c2.get_PointErr().y();
+        Z[2] = c3.get_Point().z();
+        Y[2] = c3.get_Point().y();
+        X[2] = c3.get_Point().x();
+        errX[2] = c3.get_PointErr().x();
+        errY[2] = c3.get_PointErr().y();
+        // ignore point errors and assume the track vertex is close to the origin
+        TrajectoryParametriz qf1 = new TrajectoryParametriz();
+        qf1.evaluate(Z, X, errX,Y,errY);
+
+        Vector3D traj1 = new Vector3D(qf1.fitResult[3][0],qf1.fitResult[4][0],qf1.fitResult[5][0]);
+        Vector3D traj2 = new Vector3D(qf1.fitResult[3][1],qf1.fitResult[4][1],qf1.fitResult[5][1]);
+        Vector3D traj3 = new Vector3D(qf1.fitResult[3][2],qf1.fitResult[4][2],qf1.fitResult[5][2]);
+
+        double cosTh1 = traj1.dot(c1.get_Dir().toVector3D());
+        double cosTh2 = traj2.dot(c2.get_Dir().toVector3D());
+        double cosTh3 = traj3.dot(c3.get_Dir().toVector3D());
+
+        // require that the cross direction estimate be in the direction of the trajectory
+        if(cosTh1<Constants.TRACKDIRTOCROSSDIRCOSANGLE || cosTh2<Constants.TRACKDIRTOCROSSDIRCOSANGLE || cosTh3<Constants.TRACKDIRTOCROSSDIRCOSANGLE) {
+            return null;
+        }
+
+        double fitchsq=0;
+
+        if(c1.isPseudoCross==false) {
+            fitchsq+=((qf1.fitResult[1][0]-c1.get_Point().y())/c1.get_PointErr().y())*((qf1.fitResult[1][0]-c1.get_Point().y())/c1.get_PointErr().y());
+        }
+        if(c2.isPseudoCross==false) {
+            fitchsq+=((qf1.fitResult[1][1]-c2.get_Point().y())/c2.get_PointErr().y())*((qf1.fitResult[1][1]-c2.get_Point().y())/c2.get_PointErr().y());
+        }
+        if(c3.isPseudoCross==false) {
+            fitchsq+=((qf1.fitResult[1][2]-c3.get_Point().y())/c3.get_PointErr().y())*((qf1.fitResult[1][2]-c3.get_Point().y())/c3.get_PointErr().y());
+        }
+
+        // fit the  projection with a line -- the track is ~ constant in phi
+        LineFitter linefit = new LineFitter();
+        boolean linefitstatusOK = linefit.fitStatus(X, Y, errX, errY, Z.length);
+        if(!linefitstatusOK) {
+            return null; // fit failed
+        }
+        //if(TimeBased && tde!=null) {			
+        this.updateBFittedHits(c1, tab, DcDetector, tde, swimmer);
+        this.updateBFittedHits(c2, tab, DcDetector, tde, swimmer);
+        this.updateBFittedHits(c3, tab, DcDetector, tde, swimmer);
+        //}
+        BaseCand bCand = new BaseCand();
+        bCand.CrossesOnTrack.clear();
+        bCand.CrossesOnTrack.add(c1);
+        bCand.CrossesOnTrack.add(c2);
+        bCand.CrossesOnTrack.add(c3);
+        bCand.Chisq = fitchsq;
+        if(bCand.Chisq<Constants.CROSSLISTSELECTQFMINCHSQ) {
+            return bCand;
+        }
+        return null;
+    }
+
 	
 	
 
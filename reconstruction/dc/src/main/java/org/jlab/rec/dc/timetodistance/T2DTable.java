@@ -0,0 +1,100 @@
+package org.jlab.rec.dc.timetodistance;
+
+import org.jlab.rec.dc.Constants;
+import org.jlab.utils.groups.IndexedTable;
+
+/**
+ * Time-to-distance grid for one run: the distance to the wire for each
+ * sector, superlayer, B field bin, local angle bin and 2 ns time bin,
+ * computed from the time2dist parameters of the run.
+ *
+ * The grid is filled in the constructor and never modified afterwards, so
+ * a table can be shared by all the threads processing events of the run
+ * without locking. Tables are built and cached by TableLoader.getT2DTable().
+ */
+public final class T2DTable {
+
+    private final int run;
+    private final double[][][][][] distFromTime = new double[6][6][8][6][TableLoader.nBinsT]; // sector slyr Bfield alpha time bins
+    private final int[][][][]      maxBinIdxT   = new int[6][6][8][6];
+
+    /**
+     * fills the grid from the time2dist constants.
+     * @param run run number the constants belong to
+     * @param tab /calibration/dc/time_to_distance/time2dist table
+     */
+    public T2DTable(int run, IndexedTable tab) {
+        this.run = run;
+        double stepSize = 0.0010;
+        for(int s = 0; s<6; s++ ){ // loop over sectors
+            for(int r = 0; r<6; r++ ){ //loop over slys
+                double dmax = 2.*Constants.wpdist[r];
+                double tmax = tab.getDoubleValue("tmax", s+1,r+1,0);
+
+                for(int ibfield =0; ibfield<8; ibfield++) {
+                    double bfield = (double)ibfield*0.5;
+                    // time at the edge of the cell, for alpha = 30 deg
+                    double tedge  = TableLoader.calc_Time( dmax,  dmax,  tmax,  30, bfield, s, r, tab);
+
+                    double maxdist =0;
+
+                    for(int icosalpha =0; icosalpha<6; icosalpha++) {
+
+                        double cos30minusalpha = Math.cos(Math.toRadians(30.)) + (double) (icosalpha)*(1. - Math.cos(Math.toRadians(30.)))/5.;
+
+                        double alpha = -(Math.toDegrees(Math.acos(cos30minusalpha)) - 30);
+
+                        int nxmax = (int) (dmax/stepSize);
+
+                        double[] dist = distFromTime[s][r][ibfield][icosalpha];
+
+                        for(int idist =0; idist<nxmax; idist++) {
+
+                            double x = (double)(idist+1)*stepSize;
+                            double timebfield = TableLoader.calc_Time( x,  dmax,  tmax,  alpha, bfield, s, r, tab) ;
+
+                            if(timebfield<=tedge)
+                                maxdist=x;
+
+                            if(timebfield>tedge)
+                                x=maxdist;
+
+                            int tbin = TableLoader.getTimeBin(timebfield);
+
+                            if(tbin<0)
+                                tbin=0;
+                            if(tbin>=TableLoader.nBinsT)
+                                tbin = TableLoader.nBinsT-1;
+                            if(tbin>maxBinIdxT[s][r][ibfield][icosalpha]) {
+                                maxBinIdxT[s][r][ibfield][icosalpha] = tbin;
+                            }
+                            if(dist[tbin]==0) {
+                                dist[tbin]=x;
+                            } else {
+                                dist[tbin]+=stepSize;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    public int getRun() {
+        return run;
+    }
+
+    /**
+     * @return distance to the wire (cm) in the given bin
+     */
+    public double getDistance(int sector, int superlayer, int ibfield, int icosalpha, int tbin) {
+        return distFromTime[sector][superlayer][ibfield][icosalpha][tbin];
+    }
+
+    /**
+     * @return index of the last filled time bin
+     */
+    public int getMaxTimeBin(int sector, int superlayer, int ibfield, int icosalpha) {
+        return maxBinIdxT[sector][superlayer][ibfield][icosalpha];
+    }
+}
@@ -1,7 +1,10 @@
 package org.jlab.rec.dc.timetodistance;
 
-import java.math.RoundingMode;
-import java.text.DecimalFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 import org.jlab.detector.calib.utils.DatabaseConstantProvider;
 import org.jlab.rec.dc.Constants;
 import org.jlab.utils.groups.IndexedTable;
@@ -13,34 +16,47 @@ public class TableLoader {
             // TODO Auto-generated constructor stub
     }
     static final protected int nBinsT=2000;
-    //public static double[][][][][] DISTFROMTIME = new double[6][6][6][6][850]; // sector slyr alpha Bfield time bins
-    public static double[][][][][] DISTFROMTIME = new double[6][6][8][6][nBinsT]; // sector slyr alpha Bfield time bins
-    static boolean T2DLOADED = false;
     static boolean T0LOADED = false;
     static int minBinIdxB = 0;
     static int maxBinIdxB = 7;
     static int minBinIdxAlpha = 0;
     static int maxBinIdxAlpha = 6;
     static int minBinIdxT  = 0;
-    static int[][][][] maxBinIdxT  = new int[6][6][8][6];
 
     public static double FracDmaxAtMinVel = 0.615;		// fraction of dmax corresponding to the point in the cell where the velocity is minimal
 
+    /** number of runs for which the time-to-distance tables are kept */
+    private static final int MAXRUNS = 4;
+
+    // tables by run, in least recently used order. The tables are built
+    // outside the lock, by the first thread asking for the run.
+    private static final Map<Integer,FutureTask<T2DTable>> T2DTABLES = 
+            new LinkedHashMap<Integer,FutureTask<T2DTable>>(16, 0.75f, true){
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer,FutureTask<T2DTable>> eldest){
+                    return size()>MAXRUNS;
+                }
+            };
+    // table of the last run asked for, and table used by estimators
+    // created without a table
+    private static volatile T2DTable lastTable = null;
+
     /*
      * 
      */
     public void test(){
-            TimeToDistanceEstimator tde = new TimeToDistanceEstimator();
+            T2DTable table = getT2DTable();
+            TimeToDistanceEstimator tde = new TimeToDistanceEstimator(table);
             for(int s = 0; s<1; s++ ){ // loop over sectors
                     for(int r = 2; r<3; r++ ){ //loop over slys
                             for(int ibfield =0; ibfield<8; ibfield++) {
                                     for(int icosalpha =0; icosalpha<6; icosalpha++) {
-                                            for (int tb = 0; tb< maxBinIdxT[s][r][ibfield][icosalpha]; tb++) {
+                                            for (int tb = 0; tb< table.getMaxTimeBin(s,r,ibfield,icosalpha); tb++) {
                                                 double Xalpha = -(Math.toDegrees(Math.acos(Math.cos(Math.toRadians(30.)) + (icosalpha)*(1. - Math.cos(Math.toRadians(30.)))/5.)) - 30.);
                                                 double Xtime=(2*tb+1);
                                                 double Xdoca=tde.interpolateOnGrid((double) ibfield*0.5, Xalpha, Xtime, s, r);
                                                     System.out.println("s "+(s+1)+" sl "+(r+1)+" time "+(2*tb+1)
-                                                            +" icosalpha "+icosalpha+" Xalpha "+Xalpha+" B "+ ibfield*0.5 + " dis "+ (float)DISTFROMTIME[s][r][ibfield][icosalpha][tb] +" "+
+                                                            +" icosalpha "+icosalpha+" Xalpha "+Xalpha+" B "+ ibfield*0.5 + " dis "+ (float)table.getDistance(s,r,ibfield,icosalpha,tb) +" "+
                                                           (float) Xdoca );
                                             }
 
@@ -50,7 +66,64 @@ public class TableLoader {
             }
     }
     
+    /**
+     * @param time time in ns
+     * @return the 2 ns bin of the time, before range checks
+     */
+    static int getTimeBin(double time) {
+        return (int) Math.ceil(time/2.) - 1;
+    }
+    
+    /**
+     * returns the time-to-distance table of the run, building it from the
+     * time2dist constants the first time the run is seen. Threads asking
+     * for a run being built wait for it, other runs are not blocked.
+     * @param run run number
+     * @param tab /calibration/dc/time_to_distance/time2dist table for the run
+     * @return the table
+     */
+    public static T2DTable getT2DTable(final int run, final IndexedTable tab) {
+        T2DTable table = lastTable;
+        if(table!=null && table.getRun()==run) return table;
+        
+        FutureTask<T2DTable> task;
+        boolean created = false;
+        synchronized(T2DTABLES) {
+            task = T2DTABLES.get(run);
+            if(task==null) {
+                task = new FutureTask<T2DTable>(new Callable<T2DTable>(){
+                    @Override
+                    public T2DTable call() {
+                        System.out.println(" T2D TABLE FILLED..... for Run "+run);
+                        return new T2DTable(run, tab);
+                    }
+                });
+                T2DTABLES.put(run, task);
+                created = true;
+            }
+        }
+        if(created) task.run();
+        try {
+            table = task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted building T2D table for run " + run, e);
+        } catch (ExecutionException e) {
+            synchronized(T2DTABLES) {
+                if(T2DTABLES.get(run)==task) T2DTABLES.remove(run);
+            }
+            throw new IllegalStateException("error building T2D table for run " + run, e.getCause());
+        }
+        lastTable = table;
+        return table;
+    }
     
+    /**
+     * @return the table of the last run asked for with getT2DTable(), or null
+     */
+    public static T2DTable getT2DTable() {
+        return lastTable;
+    }
     
     public static synchronized void FillT0Tables(int run, String variation) {
         if (T0LOADED) return;
@@ -82,70 +155,15 @@ public class TableLoader {
         T0LOADED = true;
     }
     
-    public static synchronized void Fill(IndexedTable tab) {
-        //CCDBTables 0 =  "/calibration/dc/signal_generation/doca_resolution";
-        //CCDBTables 1 =  "/calibration/dc/time_to_distance/t2d";
-        //CCDBTables 2 =  "/calibration/dc/time_corrections/T0_correction";	
-        if (T2DLOADED) return;
-        System.out.println(" T2D TABLE FILLED.....");
-        double stepSize = 0.0010;
-        DecimalFormat df = new DecimalFormat("#");
-        df.setRoundingMode(RoundingMode.CEILING);
-        for(int s = 0; s<6; s++ ){ // loop over sectors
-
-                for(int r = 0; r<6; r++ ){ //loop over slys
-                        double dmax = 2.*Constants.wpdist[r]; 
-                        //double tmax = CCDBConstants.getTMAXSUPERLAYER()[s][r];
-                        double tmax = tab.getDoubleValue("tmax", s+1,r+1,0);
-
-                        for(int ibfield =0; ibfield<8; ibfield++) {
-                            double bfield = (double)ibfield*0.5;
-
-                            double maxdist =0;
-
-                                for(int icosalpha =0; icosalpha<6; icosalpha++) {
-
-                                        double cos30minusalpha = Math.cos(Math.toRadians(30.)) + (double) (icosalpha)*(1. - Math.cos(Math.toRadians(30.)))/5.;
-
-                                        double alpha = -(Math.toDegrees(Math.acos(cos30minusalpha)) - 30);
-
-                                        int nxmax = (int) (dmax/stepSize); 
-
-                                        for(int idist =0; idist<nxmax; idist++) {
-
-                                                double x = (double)(idist+1)*stepSize;
-                                                double timebfield = calc_Time( x,  dmax,  tmax,  alpha, bfield, s, r, tab) ;
-
-                                                if(timebfield<=calc_Time( dmax,  dmax,  tmax,  30, bfield, s, r, tab))
-                                                        maxdist=x;
-
-                                                if(timebfield>calc_Time( dmax,  dmax,  tmax,  30, bfield, s, r, tab))
-                                                        x=maxdist;
-
-                                            int tbin = Integer.parseInt(df.format(timebfield/2.) ) -1;
-
-
-                                            if(tbin<0)
-                                                tbin=0;
-                                            if(tbin>=nBinsT)
-                                                tbin = nBinsT-1;
-                                            if(tbin>maxBinIdxT[s][r][ibfield][icosalpha]) {
-                                                maxBinIdxT[s][r][ibfield][icosalpha] = tbin; 
-                                            } //System.out.println("tbin "+tbin+" tmax "+tmax+ "s "+s+" sl "+r );
-                                            if(DISTFROMTIME[s][r][ibfield][icosalpha][tbin]==0) {
-                                                // firstbin = bin;
-                                                // bincount = 0;				    	 
-                                                DISTFROMTIME[s][r][ibfield][icosalpha][tbin]=x;
-                                            } else {
-                                                // bincount++;
-                                                DISTFROMTIME[s][r][ibfield][icosalpha][tbin]+=stepSize;
-                                            }
-                                        }
-                                }
-                        }
-                }
-        }	
-        T2DLOADED = true;
+    /**
+     * builds the time-to-distance table, if none was built yet, and makes
+     * it the default one. Use getT2DTable(run, tab) to get the table of a
+     * given run.
+     * @param tab time2dist constants
+     */
+    public static void Fill(IndexedTable tab) {
+        if (lastTable!=null) return;
+        getT2DTable(0, tab);
      }
 
     /**
@@ -159,7 +177,7 @@ public class TableLoader {
      * @param r superlayer idx
      * @return returns time (ns) when given inputs of distance x (cm), local angle alpha (degrees) and magnitude of bfield (Tesla).  
      */
-    public static synchronized double calc_Time(double x, double dmax, double tmax, double alpha, double bfield, int s, int r, IndexedTable tab) {
+    public static double calc_Time(double x, double dmax, double tmax, double alpha, double bfield, int s, int r, IndexedTable tab) {
 
         // Assume a functional form (time=x/v0+a*(x/dmax)**n+b*(x/dmax)**m)
         // for time as a function of x for theta = 30 deg.
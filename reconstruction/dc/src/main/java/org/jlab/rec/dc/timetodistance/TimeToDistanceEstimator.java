@@ -1,14 +1,33 @@
 package org.jlab.rec.dc.timetodistance;
 
-import java.math.RoundingMode;
-import java.text.DecimalFormat;
 import org.jlab.rec.dc.Constants;
 
 
 public class TimeToDistanceEstimator {
 
+    private final T2DTable table;
+
+    /**
+     * estimator using the table of the last run loaded by TableLoader.
+     */
     public TimeToDistanceEstimator() {
-            // TODO Auto-generated constructor stub
+        this.table = null;
+    }
+
+    /**
+     * estimator using the given table; the estimator holds no other state
+     * and can be shared between threads.
+     * @param table time-to-distance table of the run
+     */
+    public TimeToDistanceEstimator(T2DTable table) {
+        this.table = table;
+    }
+
+    /**
+     * @return the table used by the estimator
+     */
+    public T2DTable getTable() {
+        return this.table!=null ? this.table : TableLoader.getT2DTable();
     }
     /**
      * 
@@ -43,6 +62,7 @@ public class TimeToDistanceEstimator {
         if(B>3.0) {
             B=3.0;
         }
+        T2DTable tab = this.getTable();
         
         int binlowB  = this.getBIdx(B);
         int binhighB = binlowB + 1; 
@@ -69,11 +89,11 @@ public class TimeToDistanceEstimator {
         double alpha2 = this.getAlphaFromAlphaIdx(binhighAlpha);
 
         // get the time bin edges:
-        int binlowT = this.getTimeIdx(t, SecIdx, SlyrIdx, binlowB, binlowAlpha);  
+        int binlowT = this.getTimeIdx(tab, t, SecIdx, SlyrIdx, binlowB, binlowAlpha);  
         int binhighT = binlowT + 1; 
 
-        if(binhighT>TableLoader.maxBinIdxT[SecIdx][SlyrIdx][binlowB][binlowAlpha]-1) {
-            binhighT=TableLoader.maxBinIdxT[SecIdx][SlyrIdx][binlowB][binlowAlpha]-1;
+        if(binhighT>tab.getMaxTimeBin(SecIdx, SlyrIdx, binlowB, binlowAlpha)-1) {
+            binhighT=tab.getMaxTimeBin(SecIdx, SlyrIdx, binlowB, binlowAlpha)-1;
         }
 
         double t1 = binlowT*2.;
@@ -85,17 +105,17 @@ public class TimeToDistanceEstimator {
 
          // interpolate in B:
         double f_B_alpha1_t1 = interpolateLinear(B*B, B1*B1, B2*B2, 
-                    TableLoader.DISTFROMTIME[SecIdx][SlyrIdx][binlowB][binlowAlpha][this.getTimeIdx(t, SecIdx, SlyrIdx, binlowB, binlowAlpha)],
-                    TableLoader.DISTFROMTIME[SecIdx][SlyrIdx][binhighB][binlowAlpha][this.getTimeIdx(t, SecIdx, SlyrIdx, binhighB, binlowAlpha)]);
+                    tab.getDistance(SecIdx, SlyrIdx, binlowB, binlowAlpha, this.getTimeIdx(tab, t, SecIdx, SlyrIdx, binlowB, binlowAlpha)),
+                    tab.getDistance(SecIdx, SlyrIdx, binhighB, binlowAlpha, this.getTimeIdx(tab, t, SecIdx, SlyrIdx, binhighB, binlowAlpha)));
         double f_B_alpha2_t1 = interpolateLinear(B*B, B1*B1, B2*B2, 
-                    TableLoader.DISTFROMTIME[SecIdx][SlyrIdx][binlowB][binhighAlpha][this.getTimeIdx(t, SecIdx, SlyrIdx, binlowB, binhighAlpha)],
-                    TableLoader.DISTFROMTIME[SecIdx][SlyrIdx][binhighB][binhighAlpha][this.getTimeIdx(t, SecIdx, SlyrIdx, binhighB, binhighAlpha)]);
+                    tab.getDistance(SecIdx, SlyrIdx, binlowB, binhighAlpha, this.getTimeIdx(tab, t, SecIdx, SlyrIdx, binlowB, binhighAlpha)),
+                    tab.getDistance(SecIdx, SlyrIdx, binhighB, binhighAlpha, this.getTimeIdx(tab, t, SecIdx, SlyrIdx, binhighB, binhighAlpha)));
         double f_B_alpha1_t2 = interpolateLinear(B*B, B1*B1, B2*B2, 
-                    TableLoader.DISTFROMTIME[SecIdx][SlyrIdx][binlowB][binlowAlpha][this.getTimeIdx(t, SecIdx, SlyrIdx, binlowB, binlowAlpha)+1],
-                    TableLoader.DISTFROMTIME[SecIdx][SlyrIdx][binhighB][binlowAlpha][this.getTimeIdx(t, SecIdx, SlyrIdx, binhighB, binlowAlpha)+1]);
+                    tab.getDistance(SecIdx, SlyrIdx, binlowB, binlowAlpha, this.getTimeIdx(tab, t, SecIdx, SlyrIdx, binlowB, binlowAlpha)+1),
+                    tab.getDistance(SecIdx, SlyrIdx, binhighB, binlowAlpha, this.getTimeIdx(tab, t, SecIdx, SlyrIdx, binhighB, binlowAlpha)+1));
         double f_B_alpha2_t2 = interpolateLinear(B*B, B1*B1, B2*B2, 
-                    TableLoader.DISTFROMTIME[SecIdx][SlyrIdx][binlowB][binhighAlpha][this.getTimeIdx(t, SecIdx, SlyrIdx, binlowB, binhighAlpha)+1],
-                    TableLoader.DISTFROMTIME[SecIdx][SlyrIdx][binhighB][binhighAlpha][this.getTimeIdx(t, SecIdx, SlyrIdx, binhighB, binhighAlpha)+1]);
+                    tab.getDistance(SecIdx, SlyrIdx, binlowB, binhighAlpha, this.getTimeIdx(tab, t, SecIdx, SlyrIdx, binlowB, binhighAlpha)+1),
+                    tab.getDistance(SecIdx, SlyrIdx, binhighB, binhighAlpha, this.getTimeIdx(tab, t, SecIdx, SlyrIdx, binhighB, binhighAlpha)+1));
          // interpolate in d for 2 values of alpha:		 
         double f_B_alpha1_t = interpolateLinear(t, t1, t2, f_B_alpha1_t1, f_B_alpha1_t2);
         double f_B_alpha2_t = interpolateLinear(t, t1, t2, f_B_alpha2_t1, f_B_alpha2_t2);
@@ -133,6 +153,7 @@ public class TimeToDistanceEstimator {
     }
     /**
      * 
+     * @param tab time-to-distance table
      * @param t1 time value in ns
      * @param is sector index (0...5)
      * @param ir superlayer index (0...5)
@@ -140,15 +161,13 @@ public class TimeToDistanceEstimator {
      * @param icosalpha cosalpha bin (0...5)
      * @return time bin
      */
-    private int getTimeIdx(double t1, int is, int ir, int ibfield, int icosalpha) {
-        DecimalFormat df = new DecimalFormat("#");
-        df.setRoundingMode(RoundingMode.CEILING);
-        int binIdx = Integer.parseInt(df.format(t1/2.) ) -1; 
+    private int getTimeIdx(T2DTable tab, double t1, int is, int ir, int ibfield, int icosalpha) {
+        int binIdx = TableLoader.getTimeBin(t1); 
         if(binIdx<0) {
             binIdx = TableLoader.minBinIdxT;
         }
-        if(binIdx>TableLoader.maxBinIdxT[is][ir][ibfield][icosalpha]) {
-            binIdx = TableLoader.maxBinIdxT[is][ir][ibfield][icosalpha]-1;
+        if(binIdx>tab.getMaxTimeBin(is, ir, ibfield, icosalpha)) {
+            binIdx = tab.getMaxTimeBin(is, ir, ibfield, icosalpha)-1;
         }
 
         return binIdx;
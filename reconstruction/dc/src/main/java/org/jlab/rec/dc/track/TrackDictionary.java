@@ -0,0 +1,464 @@
+package org.jlab.rec.dc.track;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.List;
+import org.jlab.clas.physics.Particle;
+
+/**
+ * Read-only dictionary of DC roads: for each wire pattern, the charge,
+ * momentum, angles and vertex of the track that produced it. A pattern is
+ * the wire hit in the first layer of each of the 6 superlayers; the 6 wires
+ * are packed in one long key, 7 bits per superlayer, superlayer 1 in the
+ * most significant bits.
+ *
+ * The binary format is columnar: a header (magic, version, number of
+ * roads), the sorted keys, then charge, p, theta, phi, vz, FTOF paddle and
+ * PCAL U strip of each road. The file is memory mapped and queries are
+ * binary searches on the key column, so opening even a large dictionary
+ * takes no parse time and no heap; a dictionary file is limited to 2 GB
+ * (about 70 million roads). Queries only read the mapped buffers, so one
+ * dictionary can be shared by all reconstruction threads.
+ *
+ * Dictionaries in the text format produced by TrackDictionaryMaker are
+ * converted with readText() and write().
+ */
+public class TrackDictionary {
+
+    public static final int MAGIC   = 0x44435444; // DCTD
+    public static final int VERSION = 1;
+
+    public static final int NSUPERLAYERS = 6;
+    private static final int  WIREBITS   = 7;
+    private static final long WIREMASK   = (1L << WIREBITS) - 1;
+    private static final int  HEADERSIZE = 12;
+    private static final int  ROADSIZE   = 8 + 4 * 4 + 2 * 2 + 1;
+
+    private final int         size;
+    private final LongBuffer  keys;
+    private final FloatBuffer p;
+    private final FloatBuffer theta;
+    private final FloatBuffer phi;
+    private final FloatBuffer vz;
+    private final ShortBuffer paddle;
+    private final ShortBuffer pcal;
+    private final ByteBuffer  charge;
+
+    private TrackDictionary(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("not a binary track dictionary");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("unsupported track dictionary version " + buffer.getInt(4));
+        }
+        size = buffer.getInt(8);
+        int offset = HEADERSIZE;
+        keys   = slice(buffer, offset, 8 * size).asLongBuffer();
+        offset += 8 * size;
+        p      = slice(buffer, offset, 4 * size).asFloatBuffer();
+        offset += 4 * size;
+        theta  = slice(buffer, offset, 4 * size).asFloatBuffer();
+        offset += 4 * size;
+        phi    = slice(buffer, offset, 4 * size).asFloatBuffer();
+        offset += 4 * size;
+        vz     = slice(buffer, offset, 4 * size).asFloatBuffer();
+        offset += 4 * size;
+        paddle = slice(buffer, offset, 2 * size).asShortBuffer();
+        offset += 2 * size;
+        pcal   = slice(buffer, offset, 2 * size).asShortBuffer();
+        offset += 2 * size;
+        charge = slice(buffer, offset, size);
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer copy = buffer.duplicate();
+        copy.position(offset);
+        copy.limit(offset + length);
+        return copy.slice();
+    }
+
+    /**
+     * @param wires wire (1-112) in the first layer of each superlayer, 0 if missing
+     * @return the packed key of the pattern
+     */
+    public static long getKey(int[] wires) {
+        long key = 0;
+        for (int i = 0; i < NSUPERLAYERS; i++) {
+            key = (key << WIREBITS) | (wires[i] & WIREMASK);
+        }
+        return key;
+    }
+
+    private static int shift(int superlayer) {
+        return WIREBITS * (NSUPERLAYERS - 1 - superlayer);
+    }
+
+    /**
+     * opens a binary dictionary file, mapping it in memory.
+     * @param file the dictionary file
+     * @return the dictionary
+     * @throws IOException if the file can not be read or is not a dictionary
+     */
+    public static TrackDictionary read(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("track dictionary " + file + " is larger than 2 GB");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            TrackDictionary dictionary = new TrackDictionary(buffer);
+            if (channel.size() < HEADERSIZE + (long) ROADSIZE * dictionary.size) {
+                throw new IOException("track dictionary " + file + " is truncated");
+            }
+            return dictionary;
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * @param file the file to check
+     * @return true if the file starts with the magic word of the binary format
+     */
+    public static boolean isBinary(File file) {
+        try (FileInputStream in = new FileInputStream(file)) {
+            byte[] header = new byte[4];
+            return in.read(header) == 4 && ByteBuffer.wrap(header).getInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * reads dictionaries in the text format of TrackDictionaryMaker: charge,
+     * p, theta, phi, the 36 wires, FTOF paddle 1b, vz, FTOF paddle 2, PCAL U
+     * strip, tab separated. Roads without hits in all 6 superlayers are
+     * skipped, and for duplicated wire patterns the first road is kept.
+     * @param fileNames the text files
+     * @return the dictionary, held in heap buffers
+     * @throws IOException if a file can not be read
+     */
+    public static TrackDictionary readText(List<String> fileNames) throws IOException {
+        Columns columns = new Columns();
+        int[] wires = new int[NSUPERLAYERS];
+        for (String fileName : fileNames) {
+            System.out.println("\nReading dictionary from file " + fileName);
+            int nLines = 0;
+            try (BufferedReader txtreader = new BufferedReader(new FileReader(fileName))) {
+                String line = null;
+                while ((line = txtreader.readLine()) != null) {
+                    nLines++;
+                    String[] lineValues = line.split("\t");
+                    if (lineValues.length < 44) {
+                        System.out.println("WARNING: dictionary line " + nLines + " incomplete: skipping");
+                        continue;
+                    }
+                    int nwires = 0;
+                    for (int i = 0; i < NSUPERLAYERS; i++) {
+                        wires[i] = Integer.parseInt(lineValues[4 + i * 6]);
+                        if (wires[i] > 0) nwires++;
+                    }
+                    // keep only roads with 6 superlayers
+                    if (nwires != NSUPERLAYERS) continue;
+                    columns.add(getKey(wires),
+                            Integer.parseInt(lineValues[0]),
+                            Float.parseFloat(lineValues[1]),
+                            Float.parseFloat(lineValues[2]),
+                            Float.parseFloat(lineValues[3]),
+                            Float.parseFloat(lineValues[41]),
+                            Integer.parseInt(lineValues[40]),
+                            Integer.parseInt(lineValues[43]));
+                }
+            }
+            System.out.println("Read " + nLines + " roads");
+        }
+        TrackDictionary dictionary = new TrackDictionary(columns.toBuffer());
+        System.out.println("Found " + columns.size + " full roads and " + dictionary.size() + " distinct wire patterns");
+        return dictionary;
+    }
+
+    /**
+     * writes the dictionary in the binary format.
+     * @param file the output file
+     * @throws IOException if the file can not be written
+     */
+    public void write(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) out.writeLong(keys.get(i));
+            for (int i = 0; i < size; i++) out.writeFloat(p.get(i));
+            for (int i = 0; i < size; i++) out.writeFloat(theta.get(i));
+            for (int i = 0; i < size; i++) out.writeFloat(phi.get(i));
+            for (int i = 0; i < size; i++) out.writeFloat(vz.get(i));
+            for (int i = 0; i < size; i++) out.writeShort(paddle.get(i));
+            for (int i = 0; i < size; i++) out.writeShort(pcal.get(i));
+            for (int i = 0; i < size; i++) out.writeByte(charge.get(i));
+        }
+    }
+
+    /**
+     * @return the number of roads
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param wires wire in the first layer of each superlayer
+     * @return the index of the road with exactly this pattern, -1 if none
+     */
+    public int find(int[] wires) {
+        long key = getKey(wires);
+        int index = lowerBound(key, 0, size);
+        return index < size && keys.get(index) == key ? index : -1;
+    }
+
+    /**
+     * looks up the road closest to a wire pattern. Each wire may differ by
+     * up to smear wires from the road; superlayers with no wire (0) match
+     * any wire. The closest road is the one with the smallest sum of wire
+     * differences, ties are resolved by key order.
+     * @param wires wire in the first layer of each superlayer, 0 if missing
+     * @param smear the maximum difference per superlayer, in wires
+     * @param maxMissing the maximum number of missing superlayers
+     * @return the index of the closest road, -1 if none
+     */
+    public int findClosest(int[] wires, int smear, int maxMissing) {
+        int nmissing = 0;
+        for (int i = 0; i < NSUPERLAYERS; i++) {
+            if (wires[i] <= 0) nmissing++;
+        }
+        if (nmissing > maxMissing || size == 0) {
+            return -1;
+        }
+        if (nmissing == 0 && smear == 0) {
+            return this.find(wires);
+        }
+        int[] best = {-1, Integer.MAX_VALUE};
+        this.search(wires, smear, 0, 0, size, 0, best);
+        return best[0];
+    }
+
+    /**
+     * descends the sorted keys one superlayer at a time: [lo,hi) is the
+     * range of keys matching the constraints of the superlayers before
+     * the given one.
+     */
+    private void search(int[] wires, int smear, int superlayer, int lo, int hi, int score, int[] best) {
+        if (lo >= hi) {
+            return;
+        }
+        if (superlayer == NSUPERLAYERS) {
+            if (score < best[1]) {
+                best[0] = lo;
+                best[1] = score;
+            }
+            return;
+        }
+        int  shift  = shift(superlayer);
+        long prefix = keys.get(lo) & ~((1L << (shift + WIREBITS)) - 1);
+        if (wires[superlayer] > 0) {
+            for (int d = -smear; d <= smear; d++) {
+                int wire = wires[superlayer] + d;
+                int cost = score + Math.abs(d);
+                if (wire < 1 || wire > WIREMASK || cost >= best[1]) {
+                    continue;
+                }
+                long key  = prefix | ((long) wire << shift);
+                int first = this.lowerBound(key, lo, hi);
+                int last  = this.lowerBound(key + (1L << shift), first, hi);
+                this.search(wires, smear, superlayer + 1, first, last, cost, best);
+            }
+        } else {
+            // missing superlayer: visit each wire present in the range
+            int first = lo;
+            while (first < hi) {
+                long wire = (keys.get(first) >>> shift) & WIREMASK;
+                long key  = prefix | (wire << shift);
+                int last  = this.lowerBound(key + (1L << shift), first, hi);
+                this.search(wires, smear, superlayer + 1, first, last, score, best);
+                first = last;
+            }
+        }
+    }
+
+    private int lowerBound(long key, int lo, int hi) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys.get(mid) < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @param index road index
+     * @param wires filled with the wire in the first layer of each superlayer
+     */
+    public void getWires(int index, int[] wires) {
+        long key = keys.get(index);
+        for (int i = 0; i < NSUPERLAYERS; i++) {
+            wires[i] = (int) ((key >>> shift(i)) & WIREMASK);
+        }
+    }
+
+    public int getCharge(int index) {
+        return charge.get(index);
+    }
+
+    /**
+     * @return momentum (GeV)
+     */
+    public double getP(int index) {
+        return p.get(index);
+    }
+
+    /**
+     * @return polar angle (deg)
+     */
+    public double getTheta(int index) {
+        return theta.get(index);
+    }
+
+    /**
+     * @return azimuthal angle (deg)
+     */
+    public double getPhi(int index) {
+        return phi.get(index);
+    }
+
+    /**
+     * @return vertex z (cm)
+     */
+    public double getVz(int index) {
+        return vz.get(index);
+    }
+
+    /**
+     * @return FTOF panel 1b paddle, 0 if none
+     */
+    public int getPaddle(int index) {
+        return paddle.get(index);
+    }
+
+    /**
+     * @return PCAL U strip, 0 if none
+     */
+    public int getPcalStrip(int index) {
+        return pcal.get(index);
+    }
+
+    /**
+     * @return the road as a pion of the road charge, with vertex on the beam line
+     */
+    public Particle getParticle(int index) {
+        double mom = this.getP(index);
+        double th  = Math.toRadians(this.getTheta(index));
+        double ph  = Math.toRadians(this.getPhi(index));
+        return new Particle(211 * this.getCharge(index),
+                mom * Math.sin(th) * Math.cos(ph),
+                mom * Math.sin(th) * Math.sin(ph),
+                mom * Math.cos(th),
+                0, 0, this.getVz(index));
+    }
+
+    /**
+     * growable columns used to build a dictionary from text files.
+     */
+    private static class Columns {
+
+        int     size     = 0;
+        long[]  keys     = new long[1024];
+        float[] values   = new float[4 * 1024];
+        int[]   detector = new int[2 * 1024];
+        byte[]  charges  = new byte[1024];
+
+        void add(long key, int q, float mom, float th, float ph, float z, int paddle1b, int pcalu) {
+            if (size == keys.length) {
+                int capacity = 2 * size;
+                keys     = Arrays.copyOf(keys, capacity);
+                values   = Arrays.copyOf(values, 4 * capacity);
+                detector = Arrays.copyOf(detector, 2 * capacity);
+                charges  = Arrays.copyOf(charges, capacity);
+            }
+            keys[size] = key;
+            values[4 * size]     = mom;
+            values[4 * size + 1] = th;
+            values[4 * size + 2] = ph;
+            values[4 * size + 3] = z;
+            detector[2 * size]     = paddle1b;
+            detector[2 * size + 1] = pcalu;
+            charges[size] = (byte) q;
+            size++;
+        }
+
+        /**
+         * @return the roads sorted by key, without duplicates, in the binary layout
+         */
+        ByteBuffer toBuffer() {
+            int[] order = this.sort();
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || keys[order[i]] != keys[order[i - 1]]) order[n++] = order[i];
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(HEADERSIZE + ROADSIZE * n);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(n);
+            for (int i = 0; i < n; i++) buffer.putLong(keys[order[i]]);
+            for (int c = 0; c < 4; c++) {
+                for (int i = 0; i < n; i++) buffer.putFloat(values[4 * order[i] + c]);
+            }
+            for (int c = 0; c < 2; c++) {
+                for (int i = 0; i < n; i++) buffer.putShort((short) detector[2 * order[i] + c]);
+            }
+            for (int i = 0; i < n; i++) buffer.put(charges[order[i]]);
+            buffer.flip();
+            return buffer;
+        }
+
+        /**
+         * stable merge sort of the road indices by key, so that the first
+         * of duplicated roads comes first.
+         */
+        private int[] sort() {
+            int[] order = new int[size];
+            int[] work  = new int[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            for (int width = 1; width < size; width *= 2) {
+                for (int lo = 0; lo < size; lo += 2 * width) {
+                    int mid = Math.min(lo + width, size);
+                    int hi  = Math.min(lo + 2 * width, size);
+                    int i = lo, j = mid, k = lo;
+                    while (i < mid && j < hi) {
+                        work[k++] = keys[order[j]] < keys[order[i]] ? order[j++] : order[i++];
+                    }
+                    while (i < mid) work[k++] = order[i++];
+                    while (j < hi)  work[k++] = order[j++];
+                }
+                int[] swap = order;
+                order = work;
+                work  = swap;
+            }
+            return order;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.jlab.rec.dc.track;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.jlab.rec.dc.cross.Cross;
+import org.jlab.rec.dc.cross.CrossList;
+import org.jlab.rec.dc.hit.FittedHit;
+import org.jlab.rec.dc.segment.Segment;
+
+/**
+ * Finds track seeds by dictionary lookup: each combination of one cross per
+ * region in a sector whose wire pattern matches a road of the dictionary is
+ * a seed. Seeds are passed to CrossListFinder, which skips the combinatorial
+ * road search in the sectors with at least one seed.
+ *
+ * The seeder only reads the dictionary, one instance can be shared by all
+ * threads.
+ */
+public class TrackDictionarySeeder {
+
+    private final TrackDictionary dictionary;
+    private final int smear;
+    private final int maxMissing;
+
+    /**
+     * @param dictionary the road dictionary
+     * @param smear the wire tolerance per superlayer
+     * @param maxMissing the maximum number of superlayers without a first layer hit
+     */
+    public TrackDictionarySeeder(TrackDictionary dictionary, int smear, int maxMissing) {
+        this.dictionary = dictionary;
+        this.smear = smear;
+        this.maxMissing = maxMissing;
+    }
+
+    public TrackDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * @param crosses the crosses of the event
+     * @return the lists of 3 crosses, ordered by region, whose pattern is in the dictionary
+     */
+    public CrossList getSeeds(List<Cross> crosses) {
+        CrossList seeds = new CrossList();
+        List<List<List<Cross>>> bySector = new ArrayList<List<List<Cross>>>(6);
+        for (int s = 0; s < 6; s++) {
+            List<List<Cross>> byRegion = new ArrayList<List<Cross>>(3);
+            for (int r = 0; r < 3; r++) {
+                byRegion.add(new ArrayList<Cross>());
+            }
+            bySector.add(byRegion);
+        }
+        for (Cross c : crosses) {
+            bySector.get(c.get_Sector() - 1).get(c.get_Region() - 1).add(c);
+        }
+
+        int[] wires = new int[TrackDictionary.NSUPERLAYERS];
+        for (List<List<Cross>> byRegion : bySector) {
+            for (Cross c1 : byRegion.get(0)) {
+                for (Cross c2 : byRegion.get(1)) {
+                    for (Cross c3 : byRegion.get(2)) {
+                        Arrays.fill(wires, 0);
+                        this.fillWires(c1, wires);
+                        this.fillWires(c2, wires);
+                        this.fillWires(c3, wires);
+                        if (dictionary.findClosest(wires, smear, maxMissing) >= 0) {
+                            List<Cross> seed = new ArrayList<Cross>(3);
+                            seed.add(c1);
+                            seed.add(c2);
+                            seed.add(c3);
+                            seeds.add(seed);
+                        }
+                    }
+                }
+            }
+        }
+        return seeds;
+    }
+
+    private void fillWires(Cross c, int[] wires) {
+        this.fillWire(c.get_Segment1(), wires);
+        this.fillWire(c.get_Segment2(), wires);
+    }
+
+    /**
+     * sets the wire of the first layer hit of the segment, 0 if there is none.
+     */
+    private void fillWire(Segment seg, int[] wires) {
+        if (seg == null || seg.get_Superlayer() < 1 || seg.get_Superlayer() > wires.length) {
+            return;
+        }
+        int wire = 0;
+        for (FittedHit hit : seg) {
+            if (hit.get_Layer() == 1) {
+                wire = hit.get_Wire();
+                break;
+            }
+        }
+        wires[seg.get_Superlayer() - 1] = wire;
+    }
+}
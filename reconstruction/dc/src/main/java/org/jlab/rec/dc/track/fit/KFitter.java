@@ -1,10 +1,9 @@
 package org.jlab.rec.dc.track.fit;
 
-import Jama.Matrix;
-
 import java.util.ArrayList;
 import java.util.List;
 
+import org.jlab.clas.clas.math.Kalman5x5;
 import org.jlab.clas.swimtools.Swim;
 import org.jlab.detector.geant4.v2.DCGeant4Factory;
 import org.jlab.rec.dc.track.Track;
@@ -31,6 +30,7 @@ public class KFitter {
 
     public double chi2 = 0;
     private double chi2kf = 0;
+    private final Kalman5x5 kernel = new Kalman5x5();
     public int NDF = 0;
     public int ConvStatus = 1;
 
@@ -142,51 +142,10 @@ public class KFitter {
                     mv.measurements.get(k).wireMaxSag,
                     mv.measurements.get(k).wireLen);
 
-            double[][] HTGH = new double[][]{
-                    {H[0] * H[0] / V, H[0] * H[1] / V, 0, 0, 0},
-                    {H[0] * H[1] / V, H[1] * H[1] / V, 0, 0, 0},
-                    {0, 0, 0, 0, 0},
-                    {0, 0, 0, 0, 0},
-                    {0, 0, 0, 0, 0}
-            };
-
-            Matrix Ci;
-
-            if (!this.isNonsingular(sv.trackCov.get(k).covMat)) {
-                return;
-            }
-            try {
-                Ci = sv.trackCov.get(k).covMat.inverse();
-            } catch (Exception e) {
-                return;
-            }
-
-            Matrix Ca;
-            try {
-                Ca = Ci.plus(new Matrix(HTGH));
-            } catch (Exception e) {
-                return;
-            }
-            if (Ca != null && !this.isNonsingular(Ca)) {
-                return;
-            }
-            if (Ca != null) {
-                Matrix CaInv = Ca.inverse();
-                if (CaInv != null) {
-                    sv.trackCov.get(k).covMat = CaInv;
-                } else {
-                    return;
-                }
-            } else {
+            if (!kernel.filter(sv.trackCov.get(k).covMat.getArray(), H, V, K)) {
                 return;
             }
 
-            for (int j = 0; j < 5; j++) {
-                // the gain matrix
-                K[j] = (H[0] * sv.trackCov.get(k).covMat.get(j, 0) +
-                        H[1] * sv.trackCov.get(k).covMat.get(j, 1)) / V;
-            }
-
             double h = mv.h(new double[]{sv.trackTraj.get(k).x, sv.trackTraj.get(k).y},
                     mv.measurements.get(k).tilt,
                     mv.measurements.get(k).wireMaxSag,
@@ -269,9 +228,4 @@ public class KFitter {
         }
     }
 
-    private boolean isNonsingular(Matrix mat) {
-        double matDet = mat.det();
-        return Math.abs(matDet) >= 1.e-30;
-    }
-
 }
@@ -5,8 +5,6 @@
  */
 package org.jlab.rec.dc.track.fit;
 
-import Jama.Matrix;
-import java.util.ArrayList;
 import org.jlab.clas.swimtools.Swim;
 import org.jlab.rec.dc.Constants;
 
@@ -18,31 +16,31 @@ public class RungeKutta {
     
     private final float[] _b = new float[3];
     final double v = 0.0029979245;
-    private final ArrayList<Double> k1;
-    private final ArrayList<Double> k2;
-    private final ArrayList<Double> k3;
-    private final ArrayList<Double> k4;
-    private final ArrayList<Double> jk1;
-    private final ArrayList<Double> jk2;
-    private final ArrayList<Double> jk3;
-    private final ArrayList<Double> jk4;
+    // stage derivatives and work arrays, allocated once and reused for every step
+    private final double[] k1 = new double[4];
+    private final double[] k2 = new double[4];
+    private final double[] k3 = new double[4];
+    private final double[] k4 = new double[4];
+    private final double[] jk1 = new double[12];
+    private final double[] jk2 = new double[12];
+    private final double[] jk3 = new double[12];
+    private final double[] jk4 = new double[12];
+    private final double[][] u = new double[5][5];
     
     public RungeKutta() {
-        this.k1 = new ArrayList<Double>(4);
-        this.k2 = new ArrayList<Double>(4);
-        this.k3 = new ArrayList<Double>(4);
-        this.k4 = new ArrayList<Double>(4);
-        this.jk1 = new ArrayList<Double>(12);
-        this.jk2 = new ArrayList<Double>(12);
-        this.jk3 = new ArrayList<Double>(12);
-        this.jk4 = new ArrayList<Double>(12);
         
     }
+    /**
+     * Transports the state and the covariance matrix by one step h in z.
+     * The covariance matrix is written in place into fCov.covMat, which must be
+     * allocated by the caller; it may be the same matrix as covMat.covMat.
+     */
     void RK4transport(int sector, double q, double x0, double y0, double z0, double tx0, double ty0, double h, Swim swimmer, 
             StateVecs.CovMat covMat, StateVecs.StateVec fVec, StateVecs.CovMat fCov, double mass, double dPath) {
         // Jacobian:
-        double[][] u = new double[5][5];       
-        double[][] C = new double[5][5];
+        final double[][] u = this.u;
+        final double[][] cov = covMat.covMat.getArray();
+        final double[][] C = fCov.covMat.getArray();
         double deltx_deltx0_0 =1;
         double delty_deltx0_0 =0;
         double deltx_delty0_0 =0;
@@ -194,11 +192,11 @@ public class RungeKutta {
 
         //covMat = FCF^T; u = FC;
         for (int j1 = 0; j1 < 5; j1++) {
-            u[0][j1] = covMat.covMat.get(0,j1) + covMat.covMat.get(2,j1) * delx_deltx0 + covMat.covMat.get(3,j1)* delx_delty0 + covMat.covMat.get(4,j1) * delx_delq0;
-            u[1][j1] = covMat.covMat.get(1,j1) + covMat.covMat.get(2,j1) * dely_deltx0 + covMat.covMat.get(3,j1) * dely_delty0 + covMat.covMat.get(4,j1) * dely_delq0;
-            u[2][j1] = covMat.covMat.get(2,j1) + covMat.covMat.get(3,j1) * deltx_delty0 + covMat.covMat.get(4,j1) * deltx_delq0;
-            u[3][j1] = covMat.covMat.get(2,j1) * delty_deltx0 + covMat.covMat.get(3,j1) + covMat.covMat.get(4,j1) * delty_delq0;
-            u[4][j1] = covMat.covMat.get(4,j1);
+            u[0][j1] = cov[0][j1] + cov[2][j1] * delx_deltx0 + cov[3][j1]* delx_delty0 + cov[4][j1] * delx_delq0;
+            u[1][j1] = cov[1][j1] + cov[2][j1] * dely_deltx0 + cov[3][j1] * dely_delty0 + cov[4][j1] * dely_delq0;
+            u[2][j1] = cov[2][j1] + cov[3][j1] * deltx_delty0 + cov[4][j1] * deltx_delq0;
+            u[3][j1] = cov[2][j1] * delty_deltx0 + cov[3][j1] + cov[4][j1] * delty_delq0;
+            u[4][j1] = cov[4][j1];
         }
 
         for (int i1 = 0; i1 < 5; i1++) {
@@ -243,24 +241,15 @@ public class RungeKutta {
         fVec.Q = q;
         fVec.B = Math.sqrt(_b[0]*_b[0]+_b[1]*_b[1]+_b[2]*_b[2]);
         fVec.deltaPath = Math.sqrt((x0-x)*(x0-x)+(y0-y)*(y0-y)+h*h)+dPath;
-        fCov.covMat=new Matrix(C);
         
         
     }
     void RK4transport_2(int sector, double q, double x0, double y0, double z0, double tx0, double ty0, double h, Swim swimmer, 
             StateVecs.CovMat covMat, StateVecs.StateVec fVec, StateVecs.CovMat fCov, double mass) {
-        k1.clear();
-        k2.clear();
-        k3.clear();
-        k4.clear();
-        jk1.clear();
-        jk2.clear();
-        jk3.clear();
-        jk4.clear();
-        
         // Jacobian:
-        double[][] u = new double[5][5];       
-        double[][] C = new double[5][5];
+        final double[][] u = this.u;
+        final double[][] cov = covMat.covMat.getArray();
+        final double[][] C = fCov.covMat.getArray();
         double deltx_deltx0_0 =1;
         double delty_deltx0_0 =0;
         double deltx_delty0_0 =0;
@@ -275,10 +264,10 @@ public class RungeKutta {
         double tx1=q*v*Ax(tx0, ty0, _b[0], _b[1], _b[2]);
         double ty1=q*v*Ay(tx0, ty0, _b[0], _b[1], _b[2]);
         
-        k1.add(0, x1);
-        k1.add(1, y1);
-        k1.add(2, tx1);
-        k1.add(3, ty1);
+        k1[0] = x1;
+        k1[1] = y1;
+        k1[2] = tx1;
+        k1[3] = ty1;
         
         // Jacobian:
         double delx_deltx0_1 = deltx_deltx0_0;
@@ -305,68 +294,68 @@ public class RungeKutta {
                 + q*v*(delAy_deltx(tx0,ty0,_b[0],_b[1],_b[2])*deltx_delq0_0  
                     + delAy_delty(tx0,ty0,_b[0],_b[1],_b[2])*delty_delq0_0);
         
-        jk1.add(0, delx_deltx0_1 );  
-        jk1.add(1, dely_deltx0_1 );  
-        jk1.add(2, delx_delty0_1 );  
-        jk1.add(3, dely_delty0_1 );  
+        jk1[0] = delx_deltx0_1;  
+        jk1[1] = dely_deltx0_1;  
+        jk1[2] = delx_delty0_1;  
+        jk1[3] = dely_delty0_1;  
         
-        jk1.add(4, deltx_deltx0_1 );  
-        jk1.add(5, delty_deltx0_1 );  
-        jk1.add(6, deltx_delty0_1 );  
-        jk1.add(7, delty_delty0_1 );  
+        jk1[4] = deltx_deltx0_1;  
+        jk1[5] = delty_deltx0_1;  
+        jk1[6] = deltx_delty0_1;  
+        jk1[7] = delty_delty0_1;  
         
-        jk1.add(8, delx_delq0_1 );  
-        jk1.add(9, dely_delq0_1 );  
+        jk1[8] = delx_delq0_1;  
+        jk1[9] = dely_delq0_1;  
         
-        jk1.add(10, deltx_delq0_1 );  
-        jk1.add(11, delty_delq0_1 );  
+        jk1[10] = deltx_delq0_1;  
+        jk1[11] = delty_delq0_1;  
         
-        swimmer.Bfield(sector, x0+0.5*h*k1.get(0), y0+0.5*h*k1.get(1), z0+0.5*h, _b);
-        this.getRKn(sector, this.k1, this.k2, 0.5*h, x0, y0, z0, tx0, ty0, q, _b);
+        swimmer.Bfield(sector, x0+0.5*h*k1[0], y0+0.5*h*k1[1], z0+0.5*h, _b);
+        this.getRKn(sector, k1, k2, 0.5*h, x0, y0, z0, tx0, ty0, q, _b);
         // Jacobian:
-        this.getjRKn(sector, this.k1, this.jk1, this.jk2, 0.5*h, x0, y0, z0, tx0, ty0, q, _b,
+        this.getjRKn(sector, k1, jk1, jk2, 0.5*h, x0, y0, z0, tx0, ty0, q, _b,
                 deltx_deltx0_0, delty_deltx0_0, deltx_delty0_0, delty_delty0_0, deltx_delq0_0, delty_delq0_0);
         
-        swimmer.Bfield(sector, x0+0.5*h*k2.get(0), y0+0.5*h*k2.get(1), z0+0.5*h, _b);
-        this.getRKn(sector, this.k2, this.k3, 0.5*h, x0, y0, z0, tx0, ty0, q, _b);
+        swimmer.Bfield(sector, x0+0.5*h*k2[0], y0+0.5*h*k2[1], z0+0.5*h, _b);
+        this.getRKn(sector, k2, k3, 0.5*h, x0, y0, z0, tx0, ty0, q, _b);
         // Jacobian:
-        this.getjRKn(sector, this.k2, this.jk2, this.jk3, 0.5*h, x0, y0, z0, tx0, ty0, q, _b,
+        this.getjRKn(sector, k2, jk2, jk3, 0.5*h, x0, y0, z0, tx0, ty0, q, _b,
                 deltx_deltx0_0, delty_deltx0_0, deltx_delty0_0, delty_delty0_0, deltx_delq0_0, delty_delq0_0);
         
-        swimmer.Bfield(sector, x0+h*k3.get(0), y0+h*k3.get(1), z0+h, _b);
-        this.getRKn(sector, this.k3, this.k4, h, x0, y0, z0, tx0, ty0, q, _b);
+        swimmer.Bfield(sector, x0+h*k3[0], y0+h*k3[1], z0+h, _b);
+        this.getRKn(sector, k3, k4, h, x0, y0, z0, tx0, ty0, q, _b);
         // Jacobian:
-        this.getjRKn(sector, this.k3, this.jk3, this.jk4, h, x0, y0, z0, tx0, ty0, q, _b,
+        this.getjRKn(sector, k3, jk3, jk4, h, x0, y0, z0, tx0, ty0, q, _b,
                 deltx_deltx0_0, delty_deltx0_0, deltx_delty0_0, delty_delty0_0, deltx_delq0_0, delty_delq0_0);
         
         
-        double x  =  x0 + this.RK4(this.k1.get(0), this.k2.get(0), this.k3.get(0), this.k4.get(0), h);
-        double y  =  y0 + this.RK4(this.k1.get(1), this.k2.get(1), this.k3.get(1), this.k4.get(1), h);
-        double tx = tx0 + this.RK4(this.k1.get(2), this.k2.get(2), this.k3.get(2), this.k4.get(2), h);
-        double ty = ty0 + this.RK4(this.k1.get(3), this.k2.get(3), this.k3.get(3), this.k4.get(3), h);
+        double x  =  x0 + this.RK4(k1[0], k2[0], k3[0], k4[0], h);
+        double y  =  y0 + this.RK4(k1[1], k2[1], k3[1], k4[1], h);
+        double tx = tx0 + this.RK4(k1[2], k2[2], k3[2], k4[2], h);
+        double ty = ty0 + this.RK4(k1[3], k2[3], k3[3], k4[3], h);
         double z = z0+h;
         //System.out.println("RK "+x+","+y+","+z+";"+tx+","+ty+","+" z0 "+z0);
         // Jacobian:
-        double delx_deltx0  =       this.RK4(this.jk1.get(0), this.jk2.get(0), this.jk3.get(0), this.jk4.get(0), h);
-        double dely_deltx0  =       this.RK4(this.jk1.get(1), this.jk2.get(1), this.jk3.get(1), this.jk4.get(1), h);
-        double delx_delty0  =       this.RK4(this.jk1.get(2), this.jk2.get(2), this.jk3.get(2), this.jk4.get(2), h);
-        double dely_delty0  =       this.RK4(this.jk1.get(3), this.jk2.get(3), this.jk3.get(3), this.jk4.get(3), h);
-        double deltx_deltx0 = 1 +   this.RK4(this.jk1.get(4), this.jk2.get(4), this.jk3.get(4), this.jk4.get(4), h);
-        double delty_deltx0 =       this.RK4(this.jk1.get(5), this.jk2.get(5), this.jk3.get(5), this.jk4.get(5), h);
-        double deltx_delty0 =       this.RK4(this.jk1.get(6), this.jk2.get(6), this.jk3.get(6), this.jk4.get(6), h);
-        double delty_delty0 = 1 +   this.RK4(this.jk1.get(7), this.jk2.get(7), this.jk3.get(7), this.jk4.get(7), h);
-        double delx_delq0  =        this.RK4(this.jk1.get(8), this.jk2.get(8), this.jk3.get(8), this.jk4.get(8), h);
-        double dely_delq0  =        this.RK4(this.jk1.get(9), this.jk2.get(9), this.jk3.get(9), this.jk4.get(9), h);
-        double deltx_delq0 =        this.RK4(this.jk1.get(10), this.jk2.get(10), this.jk3.get(10), this.jk4.get(10), h);
-        double delty_delq0 =        this.RK4(this.jk1.get(11), this.jk2.get(11), this.jk3.get(11), this.jk4.get(11), h);
+        double delx_deltx0  =       this.RK4(jk1[0], jk2[0], jk3[0], jk4[0], h);
+        double dely_deltx0  =       this.RK4(jk1[1], jk2[1], jk3[1], jk4[1], h);
+        double delx_delty0  =       this.RK4(jk1[2], jk2[2], jk3[2], jk4[2], h);
+        double dely_delty0  =       this.RK4(jk1[3], jk2[3], jk3[3], jk4[3], h);
+        double deltx_deltx0 = 1 +   this.RK4(jk1[4], jk2[4], jk3[4], jk4[4], h);
+        double delty_deltx0 =       this.RK4(jk1[5], jk2[5], jk3[5], jk4[5], h);
+        double deltx_delty0 =       this.RK4(jk1[6], jk2[6], jk3[6], jk4[6], h);
+        double delty_delty0 = 1 +   this.RK4(jk1[7], jk2[7], jk3[7], jk4[7], h);
+        double delx_delq0  =        this.RK4(jk1[8], jk2[8], jk3[8], jk4[8], h);
+        double dely_delq0  =        this.RK4(jk1[9], jk2[9], jk3[9], jk4[9], h);
+        double deltx_delq0 =        this.RK4(jk1[10], jk2[10], jk3[10], jk4[10], h);
+        double delty_delq0 =        this.RK4(jk1[11], jk2[11], jk3[11], jk4[11], h);
 
         //covMat = FCF^T; u = FC;
         for (int j1 = 0; j1 < 5; j1++) {
-            u[0][j1] = covMat.covMat.get(0,j1) + covMat.covMat.get(2,j1) * delx_deltx0 + covMat.covMat.get(3,j1)* delx_delty0 + covMat.covMat.get(4,j1) * delx_delq0;
-            u[1][j1] = covMat.covMat.get(1,j1) + covMat.covMat.get(2,j1) * dely_deltx0 + covMat.covMat.get(3,j1) * dely_delty0 + covMat.covMat.get(4,j1) * dely_delq0;
-            u[2][j1] = covMat.covMat.get(2,j1) + covMat.covMat.get(3,j1) * deltx_delty0 + covMat.covMat.get(4,j1) * deltx_delq0;
-            u[3][j1] = covMat.covMat.get(2,j1) * delty_deltx0 + covMat.covMat.get(3,j1) + covMat.covMat.get(4,j1) * delty_delq0;
-            u[4][j1] = covMat.covMat.get(4,j1);
+            u[0][j1] = cov[0][j1] + cov[2][j1] * delx_deltx0 + cov[3][j1]* delx_delty0 + cov[4][j1] * delx_delq0;
+            u[1][j1] = cov[1][j1] + cov[2][j1] * dely_deltx0 + cov[3][j1] * dely_delty0 + cov[4][j1] * dely_delq0;
+            u[2][j1] = cov[2][j1] + cov[3][j1] * deltx_delty0 + cov[4][j1] * deltx_delq0;
+            u[3][j1] = cov[2][j1] * delty_deltx0 + cov[3][j1] + cov[4][j1] * delty_delq0;
+            u[4][j1] = cov[4][j1];
         }
 
         for (int i1 = 0; i1 < 5; i1++) {
@@ -408,7 +397,6 @@ public class RungeKutta {
         fVec.tx = tx;
         fVec.ty = ty;
         fVec.Q = q;
-        fCov.covMat=new Matrix(C);
     }
     
     private double RK4(double k1, double k2, double k3, double k4, double h) {
@@ -509,43 +497,43 @@ public class RungeKutta {
                     + delAy_delty(tx1, ty1,b0,b1,b2)*(delty_delq0_1));
     }
 
-    private void getRKn(int sector, ArrayList<Double> k1, ArrayList<Double> k2, double d, double x0, double y0, double z0, double tx0, double ty0, double q, float[] b) {
+    private void getRKn(int sector, double[] k1, double[] k2, double d, double x0, double y0, double z0, double tx0, double ty0, double q, float[] b) {
        
-        double tx1  = k1.get(2);
-        double ty1  = k1.get(3);
+        double tx1  = k1[2];
+        double ty1  = k1[3];
         
         double x2 = tx0+d*tx1;
         double y2 = ty0+d*ty1;
         double tx2=q*v*Ax((tx0+d*tx1), (ty0+d*ty1), b[0], b[1], b[2]);
         double ty2=q*v*Ay((tx0+d*tx1), (ty0+d*ty1), b[0], b[1], b[2]);
         
-        k2.add(0, x2);
-        k2.add(1, y2);
-        k2.add(2, tx2);
-        k2.add(3, ty2);
+        k2[0] = x2;
+        k2[1] = y2;
+        k2[2] = tx2;
+        k2[3] = ty2;
     }
 
-    private void getjRKn(int sector, ArrayList<Double> k1, ArrayList<Double> jk1, ArrayList<Double> jk2, double d, double x0, double y0, double z0, double tx0, double ty0, double q, float[] _b, 
+    private void getjRKn(int sector, double[] k1, double[] jk1, double[] jk2, double d, double x0, double y0, double z0, double tx0, double ty0, double q, float[] _b, 
             double deltx_deltx0_0, double delty_deltx0_0, double deltx_delty0_0, double delty_delty0_0, double deltx_delq0_0, double delty_delq0_0) {
         
-        double tx1  = k1.get(2);
-        double ty1  = k1.get(3);
+        double tx1  = k1[2];
+        double ty1  = k1[3];
         
-        double delx_deltx0_1 = jk1.get(0);
-        double dely_deltx0_1 = jk1.get(1);
-        double delx_delty0_1 = jk1.get(2);
-        double dely_delty0_1 = jk1.get(3);
+        double delx_deltx0_1 = jk1[0];
+        double dely_deltx0_1 = jk1[1];
+        double delx_delty0_1 = jk1[2];
+        double dely_delty0_1 = jk1[3];
         
-        double deltx_deltx0_1 = jk1.get(4);
-        double delty_deltx0_1 = jk1.get(5);
-        double deltx_delty0_1 = jk1.get(6);
-        double delty_delty0_1 = jk1.get(7);
+        double deltx_deltx0_1 = jk1[4];
+        double delty_deltx0_1 = jk1[5];
+        double deltx_delty0_1 = jk1[6];
+        double delty_delty0_1 = jk1[7];
         
-        double delx_delq0_1 = jk1.get(8);
-        double dely_delq0_1 = jk1.get(9);
+        double delx_delq0_1 = jk1[8];
+        double dely_delq0_1 = jk1[9];
         
-        double deltx_delq0_1 = jk1.get(10);
-        double delty_delq0_1 = jk1.get(11);
+        double deltx_delq0_1 = jk1[10];
+        double delty_delq0_1 = jk1[11];
         
         double delx_deltx0_2 = deltx_deltx0_0+d*deltx_deltx0_1;
         double dely_deltx0_2 = delty_deltx0_0+d*delty_deltx0_1;
@@ -569,21 +557,21 @@ public class RungeKutta {
         double delty_delq0_2 = this.delty_delq0_next(q,v,tx0+d*tx1,ty0+d*ty1,_b[0],_b[1],_b[2],
                 deltx_delq0_0+d*deltx_delq0_1,delty_delq0_0+d*delty_delq0_1);
         
-        jk2.add(0, delx_deltx0_2 );  
-        jk2.add(1, dely_deltx0_2 );  
-        jk2.add(2, delx_delty0_2 );  
-        jk2.add(3, dely_delty0_2 );  
+        jk2[0] = delx_deltx0_2;  
+        jk2[1] = dely_deltx0_2;  
+        jk2[2] = delx_delty0_2;  
+        jk2[3] = dely_delty0_2;  
         
-        jk2.add(4, deltx_deltx0_2 );  
-        jk2.add(5, delty_deltx0_2 );  
-        jk2.add(6, deltx_delty0_2 );  
-        jk2.add(7, delty_delty0_2 );  
+        jk2[4] = deltx_deltx0_2;  
+        jk2[5] = delty_deltx0_2;  
+        jk2[6] = deltx_delty0_2;  
+        jk2[7] = delty_delty0_2;  
         
-        jk2.add(8, delx_delq0_2 );  
-        jk2.add(9, dely_delq0_2 );  
+        jk2[8] = delx_delq0_2;  
+        jk2[9] = dely_delq0_2;  
         
-        jk2.add(10, deltx_delq0_2 );  
-        jk2.add(11, delty_delq0_2 );  
+        jk2[10] = deltx_delq0_2;  
+        jk2[11] = delty_delq0_2;  
     }
     
     
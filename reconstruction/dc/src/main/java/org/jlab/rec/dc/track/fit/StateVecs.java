@@ -66,6 +66,10 @@ public class StateVecs {
         fVec.Q = iVec.Q;
         fVec.B = iVec.B;
         fCov.covMat = covMat.covMat;
+        // the covariance is transported in place, alternating between two work matrices,
+        // so that the input of a step is never overwritten by its output
+        Matrix[] work = new Matrix[]{new Matrix(5, 5), new Matrix(5, 5)};
+        int w = 0;
         
         double s  = 0;
         double z = Z[i];
@@ -81,6 +85,8 @@ public class StateVecs {
             double Q =  fVec.Q;
             double dPath = fVec.deltaPath;
             covMat.covMat = fCov.covMat; 
+            fCov.covMat = work[w];
+            w = 1 - w;
             
             s= Math.signum(Z[f] - Z[i]) * stepSize;
            // System.out.println(" from "+(float)Z[i]+" to "+(float)Z[f]+" at "+(float)z+" By is "+bf[1]+" B is "+Math.sqrt(bf[0]*bf[0]+bf[1]*bf[1]+bf[2]*bf[2])/Bmax+" stepSize is "+s);
@@ -95,6 +101,9 @@ public class StateVecs {
                     
             BatMeas = fVec.B;
         }
+        // no step taken: do not share the initial matrix, the filter updates it in place
+        if(fCov.covMat == covMat.covMat)
+            fCov.covMat = covMat.covMat.copy();
         
         this.trackTraj.put(f, fVec);
         this.trackCov.put(f, fCov);
@@ -121,6 +130,8 @@ public class StateVecs {
         fVec.ty = iVec.ty;
         fVec.Q = iVec.Q;
         fCov.covMat = covMat.covMat;
+        Matrix[] work = new Matrix[]{new Matrix(5, 5), new Matrix(5, 5)};
+        int w = 0;
         int nSteps = (int) (Math.abs((Z[i] - Z[f]) / stepSize) + 1);
 
         double s  = (Z[f] - Z[i]) / (double) nSteps;
@@ -140,6 +151,8 @@ public class StateVecs {
             double Q =  fVec.Q;
             double dPath = fVec.deltaPath;
             covMat.covMat = fCov.covMat; 
+            fCov.covMat = work[w];
+            w = 1 - w;
             
             rk.RK4transport( sector, Q, x, y, z, tx, ty, s, dcSwim,
                         covMat, fVec, fCov, mass, dPath);
@@ -11,7 +11,9 @@ import java.util.List;
 import org.jlab.detector.geant4.v2.DCGeant4Factory;
 import org.jlab.detector.geant4.v2.FTOFGeant4Factory;
 import org.jlab.detector.geant4.v2.ECGeant4Factory;
+import org.jlab.detector.geant4.v2.GeometrySnapshot;
 import org.jlab.detector.geant4.v2.PCALGeant4Factory;
+import org.jlab.geom.prim.Plane3D;
 import org.jlab.geom.prim.Point3D;
 import org.jlab.geom.prim.Vector3D;
 /**
@@ -39,6 +41,41 @@ public class TrajectorySurfaces {
             FTOFGeant4Factory ftofDetector,
             ECGeant4Factory ecDetector,
             PCALGeant4Factory pcalDetector) {
+        Plane3D[][] ftofFaces = new Plane3D[6][3];
+        Plane3D[] pcalFaces = new Plane3D[6];
+        Plane3D[] ecFaces = new Plane3D[6];
+        for(int is =0; is<6; is++) {
+            for(int il =0; il<3; il++) {
+                ftofFaces[is][il] = ftofDetector.getFrontalFace(is+1, il+1);
+            }
+            pcalFaces[is] = pcalDetector.getFrontalFace(is+1);
+            ecFaces[is] = ecDetector.getFrontalFace(is+1);
+        }
+        this.LoadSurfaces(dcDetector, ftofFaces, pcalFaces, ecFaces);
+    }
+    
+    /**
+     * Creates the surfaces from a geometry snapshot, without the FTOF, PCAL and EC volumes.
+     * @param geometry the geometry snapshot
+     */
+    public void LoadSurfaces(GeometrySnapshot geometry) {
+        Plane3D[][] ftofFaces = new Plane3D[6][3];
+        Plane3D[] pcalFaces = new Plane3D[6];
+        Plane3D[] ecFaces = new Plane3D[6];
+        for(int is =0; is<6; is++) {
+            for(int il =0; il<3; il++) {
+                ftofFaces[is][il] = geometry.getFTOFFrontalFace(is+1, il+1);
+            }
+            pcalFaces[is] = geometry.getPCALFrontalFace(is+1);
+            ecFaces[is] = geometry.getECFrontalFace(is+1);
+        }
+        this.LoadSurfaces(geometry.getDCDetector(), ftofFaces, pcalFaces, ecFaces);
+    }
+    
+    private void LoadSurfaces(DCGeant4Factory dcDetector,
+            Plane3D[][] ftofFaces,
+            Plane3D[] pcalFaces,
+            Plane3D[] ecFaces) {
        
         int iw =0;
         
@@ -70,33 +107,33 @@ public class TrajectorySurfaces {
             this._DetectorPlanes.get(is).add(new Surface("LTCC", index++,1, 624.23, n.x(), n.y(), n.z())); 
             index=7; // end of MM + HTCC);       
              //FTOF 2 
-            Vector3D  P = ftofDetector.getFrontalFace(is+1, 3).point().toVector3D();
-            n = ftofDetector.getFrontalFace(is+1, 3).normal();
+            Vector3D  P = ftofFaces[is][2].point().toVector3D();
+            n = ftofFaces[is][2].normal();
             d = P.dot(n);
             this._DetectorPlanes.get(is).add(new Surface("FTOF2", index++, 3, -d, -n.x(), -n.y(), -n.z())); 
             index=7; // end of MM + HTCC);
             //FTOF 18
-            P = ftofDetector.getFrontalFace(is+1, 2).point().toVector3D();
-            n = ftofDetector.getFrontalFace(is+1, 2).normal();
+            P = ftofFaces[is][1].point().toVector3D();
+            n = ftofFaces[is][1].normal();
             d = P.dot(n);
             this._DetectorPlanes.get(is).add(new Surface("FTOF1b", index++, 2, -d, -n.x(), -n.y(), -n.z())); 
             index=7; // end of MM + HTCC);
             //FTOF 1A
-            P = ftofDetector.getFrontalFace(is+1, 1).point().toVector3D();
-            n = ftofDetector.getFrontalFace(is+1, 1).normal();
+            P = ftofFaces[is][0].point().toVector3D();
+            n = ftofFaces[is][0].normal();
             d = P.dot(n);
             this._DetectorPlanes.get(is).add(new Surface("FTOF1a", index++, 1, -d, -n.x(), -n.y(), -n.z())); 
             index=7; // end of MM + HTCC);
             //PCAL (3)
-            P = pcalDetector.getFrontalFace(is+1).point().toVector3D();
-            n = pcalDetector.getFrontalFace(is+1).normal();
+            P = pcalFaces[is].point().toVector3D();
+            n = pcalFaces[is].normal();
             d = P.dot(n);            
             this._DetectorPlanes.get(is).add(new Surface("PCAL", index++, 1, -d, -n.x(), -n.y(), -n.z())); 
             index=7; // end of MM + HTCC);
             //ECin (3)
             //U
-            P = ecDetector.getFrontalFace(is+1).point().toVector3D();
-            n = ecDetector.getFrontalFace(is+1).normal();
+            P = ecFaces[is].point().toVector3D();
+            n = ecFaces[is].normal();
             d = P.dot(n);
             this._DetectorPlanes.get(is).add(new Surface("EC", index++, 1, -d, -n.x(), -n.y(), -n.z())); 
             index=7; // end of MM + HTCC);
@@ -3,12 +3,9 @@ package org.jlab.service.dc;
 import java.util.Arrays;
 import java.util.Optional;
 import org.jlab.clas.reco.ReconstructionEngine;
-import org.jlab.detector.base.DetectorType;
-import org.jlab.detector.base.GeometryFactory;
 import org.jlab.detector.geant4.v2.DCGeant4Factory;
-import org.jlab.detector.geant4.v2.ECGeant4Factory;
 import org.jlab.detector.geant4.v2.FTOFGeant4Factory;
-import org.jlab.detector.geant4.v2.PCALGeant4Factory;
+import org.jlab.detector.geant4.v2.GeometrySnapshot;
 import org.jlab.geom.base.ConstantProvider;
 import org.jlab.io.base.DataEvent;
 import org.jlab.rec.dc.Constants;
@@ -21,8 +18,6 @@ public class DCEngine extends ReconstructionEngine {
     //AtomicInteger Run = new AtomicInteger(0);
     DCGeant4Factory dcDetector;
     FTOFGeant4Factory ftofDetector;
-    ECGeant4Factory ecDetector;
-    PCALGeant4Factory pcalDetector; 
     TrajectorySurfaces tSurf;
     String clasDictionaryPath ;
     String variationName;
@@ -105,26 +100,34 @@ public class DCEngine extends ReconstructionEngine {
             System.out.println("["+this.getName()+"] run with default geometry");
         }
         
-        // Load the geometry
-        ConstantProvider provider = GeometryFactory.getConstants(DetectorType.DC, 11, Optional.ofNullable(geomDBVar).orElse("default"));
-        dcDetector = new DCGeant4Factory(provider, DCGeant4Factory.MINISTAGGERON);
+        // Geometry snapshot directory, shared by the jobs running on the same node
+        String geomSnapshot = this.getEngineConfigString("geometrySnapshot");
+        if (geomSnapshot!=null) {
+            System.out.println("["+this.getName()+"] run with geometry snapshot directory based on yaml ="+geomSnapshot);
+        }
+        else {
+            geomSnapshot = System.getenv("GEOMSNAPSHOT");
+            if (geomSnapshot!=null) {
+                System.out.println("["+this.getName()+"] run with geometry snapshot directory chosen based on env ="+geomSnapshot);
+            }
+        }
+        
+        // Load the geometry, shared with the other DC engines of the JVM
+        GeometrySnapshot geometry = GeometrySnapshot.getInstance(11, Optional.ofNullable(geomDBVar).orElse("default"), 
+                "default", DCGeant4Factory.MINISTAGGERON, geomSnapshot);
+        ConstantProvider provider = geometry.getDCConstants();
+        dcDetector = geometry.getDCDetector();
         for(int l=0; l<6; l++) {
             Constants.wpdist[l] = provider.getDouble("/geometry/dc/superlayer/wpdist", l);
             System.out.println("****************** WPDIST READ *********FROM "+geomDBVar+"**** VARIATION ****** "+provider.getDouble("/geometry/dc/superlayer/wpdist", l));
         }
         // Load other geometries
-        ConstantProvider providerFTOF = GeometryFactory.getConstants(DetectorType.FTOF, 11, "default");
-        ftofDetector = new FTOFGeant4Factory(providerFTOF);
-        
-        ConstantProvider providerEC = GeometryFactory.getConstants(DetectorType.ECAL, 11, "default");
-        ecDetector = new ECGeant4Factory(providerEC);
-        pcalDetector = new PCALGeant4Factory(providerEC);
-        
+        ftofDetector = geometry.getFTOFDetector();
         
         System.out.println(" -- Det Geometry constants are Loaded " );
         // create the surfaces
         tSurf = new TrajectorySurfaces();
-        tSurf.LoadSurfaces(dcDetector, ftofDetector, ecDetector, pcalDetector);
+        tSurf.LoadSurfaces(geometry);
         
         // Get the constants for the correct variation
         String ccDBVar = this.getEngineConfigString("constantsDBVariation");
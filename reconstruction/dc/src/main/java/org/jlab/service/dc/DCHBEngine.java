@@ -4,6 +4,8 @@ import cnuphys.snr.NoiseReductionParameters;
 import cnuphys.snr.clas12.Clas12NoiseAnalysis;
 import cnuphys.snr.clas12.Clas12NoiseResult;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -33,6 +35,8 @@ import org.jlab.rec.dc.segment.SegmentFinder;
 import org.jlab.rec.dc.timetodistance.TableLoader;
 import org.jlab.rec.dc.track.Track;
 import org.jlab.rec.dc.track.TrackCandListFinder;
+import org.jlab.rec.dc.track.TrackDictionary;
+import org.jlab.rec.dc.track.TrackDictionarySeeder;
 import org.jlab.rec.dc.trajectory.RoadFinder;
 import org.jlab.rec.dc.trajectory.Road;
 import org.jlab.utils.groups.IndexedTable;
@@ -46,6 +50,14 @@ public class DCHBEngine extends DCEngine {
     private AtomicInteger Run = new AtomicInteger(0);
     private double triggerPhase;
     private int newRun = 0;
+    private TrackDictionarySeeder seeder = null;
+
+    private final ThreadLocal<DCWorkspace> workspace = new ThreadLocal<DCWorkspace>(){
+        @Override
+        protected DCWorkspace initialValue(){
+            return new DCWorkspace(Constants.HITBASE);
+        }
+    };
 
     public DCHBEngine() {
         super("DCHB");
@@ -57,6 +69,7 @@ public class DCHBEngine extends DCEngine {
         Constants.Load();
         super.setStartTimeOption();
         super.LoadTables();
+        this.loadTrackDictionary();
 //        newRun = 809;
 //        long timeStamp = 371468548086L;
 //        if (Run.get() == 0 || (Run.get() != 0 && Run.get() != newRun)) {
@@ -75,6 +88,50 @@ public class DCHBEngine extends DCEngine {
         return true;
     }
 
+    /**
+     * opens the binary road dictionary given by the trackDictionary yaml
+     * option or the DCDICTIONARY environment variable, if any. The wire
+     * tolerance per superlayer is set by dictionarySmear (DCDICTIONARYSMEAR),
+     * 1 by default, and the number of superlayers allowed without a hit in
+     * the first layer by dictionaryMaxMissing (DCDICTIONARYMAXMISSING), 2 by
+     * default.
+     */
+    private void loadTrackDictionary() {
+        String dictionaryFile = this.getEngineConfigString("trackDictionary");
+        if (dictionaryFile == null) {
+            dictionaryFile = System.getenv("DCDICTIONARY");
+        }
+        if (dictionaryFile == null) {
+            return;
+        }
+        int smear      = this.getDictionaryOption("dictionarySmear", "DCDICTIONARYSMEAR", 1);
+        int maxMissing = this.getDictionaryOption("dictionaryMaxMissing", "DCDICTIONARYMAXMISSING", 2);
+        try {
+            TrackDictionary dictionary = TrackDictionary.read(new File(dictionaryFile));
+            seeder = new TrackDictionarySeeder(dictionary, smear, maxMissing);
+            System.out.println("[" + this.getName() + "] seeding tracks with the " + dictionary.size() + " roads of dictionary " + dictionaryFile
+                    + ", smear = " + smear + ", max missing superlayers = " + maxMissing);
+        } catch (IOException e) {
+            System.out.println("[" + this.getName() + "] failed to open track dictionary " + dictionaryFile + ": " + e.getMessage());
+        }
+    }
+
+    private int getDictionaryOption(String yamlKey, String envKey, int defaultValue) {
+        String value = this.getEngineConfigString(yamlKey);
+        if (value == null) {
+            value = System.getenv(envKey);
+        }
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.out.println("[" + this.getName() + "] invalid " + yamlKey + " = " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
     @Override
     public boolean processDataEvent(DataEvent event) {
 //        long startTime = 0;
@@ -105,7 +162,7 @@ public class DCHBEngine extends DCEngine {
            if (cycles > 0) triggerPhase = period * ((timeStamp + phase) % cycles);
 
            TableLoader.FillT0Tables(newRun, super.variationName);
-           TableLoader.Fill(super.getConstantsManager().getConstants(newRun, Constants.TIME2DIST));
+           TableLoader.getT2DTable(newRun, super.getConstantsManager().getConstants(newRun, Constants.TIME2DIST));
 
            Run.set(newRun);
            if (event.hasBank("MC::Particle") && this.getEngineConfigString("wireDistort")==null) {
@@ -117,26 +174,24 @@ public class DCHBEngine extends DCEngine {
 
         /* 1 */
         // get Field
-        Swim dcSwim = new Swim();
+        Swim dcSwim = Swimmer.getSwim();
+        // finders and SNR structures of this thread, reused from event to event
+        DCWorkspace ws = workspace.get();
         /* 2 */
         // init SNR
-        Clas12NoiseResult results = new Clas12NoiseResult();
+        Clas12NoiseResult results = ws.getNoiseResult();
         /* 3 */
-        Clas12NoiseAnalysis noiseAnalysis = new Clas12NoiseAnalysis();
+        Clas12NoiseAnalysis noiseAnalysis = ws.getNoiseAnalysis();
         /* 4 */
-        NoiseReductionParameters parameters =
-                new NoiseReductionParameters(
-                        2,
-                        Constants.SNR_LEFTSHIFTS,
-                        Constants.SNR_RIGHTSHIFTS);
+        NoiseReductionParameters parameters = ws.getNoiseParameters();
         /* 5 */
-        ClusterFitter cf = new ClusterFitter();
+        ClusterFitter cf = ws.getClusterFitter();
         /* 6 */
-        ClusterCleanerUtilities ct = new ClusterCleanerUtilities();
+        ClusterCleanerUtilities ct = ws.getClusterCleaner();
         /* 7 */
-        RecoBankWriter rbc = new RecoBankWriter();
+        RecoBankWriter rbc = ws.getBankWriter();
         /* 8 */
-        HitReader hitRead = new HitReader();
+        HitReader hitRead = ws.getHitReader();
         /* 9 */
         hitRead.fetch_DCHits(event,
                 noiseAnalysis,
@@ -157,7 +212,7 @@ public class DCHBEngine extends DCEngine {
         }
         /* 11 */
         //2) find the clusters from these hits
-        ClusterFinder clusFinder = new ClusterFinder();
+        ClusterFinder clusFinder = ws.getClusterFinder();
         List<FittedCluster> clusters = clusFinder.FindHitBasedClusters(hits,
                 ct,
                 cf,
@@ -171,7 +226,7 @@ public class DCHBEngine extends DCEngine {
         rbc.updateListsListWithClusterInfo(fhits, clusters);
         /* 14 */
         //3) find the segments from the fitted clusters
-        SegmentFinder segFinder = new SegmentFinder();
+        SegmentFinder segFinder = ws.getSegmentFinder();
         List<Segment> segments = segFinder.get_Segments(clusters,
                 event,
                 dcDetector, false);
@@ -201,7 +256,7 @@ public class DCHBEngine extends DCEngine {
         }
         segments.removeAll(rmSegs);
         /* 16 */
-        CrossMaker crossMake = new CrossMaker();
+        CrossMaker crossMake = ws.getCrossMaker();
         List<Cross> crosses = crossMake.find_Crosses(segments, dcDetector);
         if (crosses.isEmpty()) {
             rbc.fillAllHBBanks(event,
@@ -214,9 +269,12 @@ public class DCHBEngine extends DCEngine {
             return true;
         }
         /* 17 */
-        CrossListFinder crossLister = new CrossListFinder();
+        CrossListFinder crossLister = ws.getCrossListFinder();
 
+        // crosses matching a dictionary road seed the track candidates of their sector
+        CrossList seeds = seeder == null ? null : seeder.getSeeds(crosses);
         CrossList crosslist = crossLister.candCrossLists(crosses,
+                seeds,
                 false,
                 super.getConstantsManager().getConstants(newRun, Constants.TIME2DIST),
                 dcDetector,
@@ -224,7 +282,7 @@ public class DCHBEngine extends DCEngine {
                 dcSwim);
         /* 18 */
         //6) find the list of  track candidates
-        TrackCandListFinder trkcandFinder = new TrackCandListFinder(Constants.HITBASE);
+        TrackCandListFinder trkcandFinder = ws.getTrackCandFinder();
         List<Track> trkcands = trkcandFinder.getTrackCands(crosslist,
                 dcDetector,
                 Swimmer.getTorScale(),
@@ -266,7 +324,7 @@ public class DCHBEngine extends DCEngine {
             if (!c.get_Segment2().isOnTrack)
                 crossSegsNotOnTrack.add(c.get_Segment2());
         }
-        RoadFinder rf = new RoadFinder();
+        RoadFinder rf = ws.getRoadFinder();
         List<Road> allRoads = rf.findRoads(segments, dcDetector);
         List<Segment> Segs2Road = new ArrayList<>();
         for (Road r : allRoads) {
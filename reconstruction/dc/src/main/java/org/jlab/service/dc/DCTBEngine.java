@@ -4,6 +4,7 @@ import Jama.Matrix;
 import java.util.ArrayList;
 import java.util.List;
 import org.jlab.clas.swimtools.Swim;
+import org.jlab.clas.swimtools.Swimmer;
 import org.jlab.geom.prim.Point3D;
 import org.jlab.geom.prim.Vector3D;
 import org.jlab.io.base.DataBank;
@@ -20,6 +21,7 @@ import org.jlab.rec.dc.cross.CrossMaker;
 import org.jlab.rec.dc.hit.FittedHit;
 import org.jlab.rec.dc.segment.Segment;
 import org.jlab.rec.dc.segment.SegmentFinder;
+import org.jlab.rec.dc.timetodistance.TableLoader;
 import org.jlab.rec.dc.timetodistance.TimeToDistanceEstimator;
 import org.jlab.rec.dc.track.Track;
 import org.jlab.rec.dc.track.TrackCandListFinder;
@@ -36,11 +38,17 @@ public class DCTBEngine extends DCEngine {
 //    PCALGeant4Factory pcalDetector; 
 //    TrajectorySurfaces tSurf;
     
-    private TimeToDistanceEstimator tde;
     private double tarCent=-1.942;
+
+    private final ThreadLocal<DCWorkspace> workspace = new ThreadLocal<DCWorkspace>(){
+        @Override
+        protected DCWorkspace initialValue(){
+            return new DCWorkspace("TimeBased");
+        }
+    };
+
     public DCTBEngine() {
         super("DCTB");
-        tde = new TimeToDistanceEstimator();
     }
     @Override
     public boolean init() {
@@ -78,10 +86,12 @@ public class DCTBEngine extends DCEngine {
             }
         }
         // get Field
-        Swim dcSwim = new Swim();        
+        Swim dcSwim = Swimmer.getSwim();        
         //System.out.println(" RUNNING TIME BASED....................................");
-        ClusterFitter cf = new ClusterFitter();
-        ClusterCleanerUtilities ct = new ClusterCleanerUtilities();
+        // finders of this thread, reused from event to event
+        DCWorkspace ws = workspace.get();
+        ClusterFitter cf = ws.getClusterFitter();
+        ClusterCleanerUtilities ct = ws.getClusterCleaner();
 
         List<FittedHit> fhits = new ArrayList<FittedHit>();	
         List<FittedCluster> clusters = new ArrayList<FittedCluster>();
@@ -90,9 +100,13 @@ public class DCTBEngine extends DCEngine {
         List<Track> trkcands = new ArrayList<Track>();
 
         //instantiate bank writer
-        RecoBankWriter rbc = new RecoBankWriter();
+        RecoBankWriter rbc = ws.getBankWriter();
+
+        // time-to-distance table of the run, shared by all threads
+        TimeToDistanceEstimator tde = new TimeToDistanceEstimator(TableLoader.getT2DTable(newRun,
+            super.getConstantsManager().getConstants(newRun, "/calibration/dc/time_to_distance/time2dist")));
 
-        HitReader hitRead = new HitReader();
+        HitReader hitRead = ws.getHitReader();
         hitRead.read_HBHits(event, 
             super.getConstantsManager().getConstants(newRun, "/calibration/dc/signal_generation/doca_resolution"),
             super.getConstantsManager().getConstants(newRun, "/calibration/dc/time_to_distance/time2dist"),
@@ -116,7 +130,7 @@ public class DCTBEngine extends DCEngine {
         }
 
         //2) find the clusters from these hits
-        ClusterFinder clusFinder = new ClusterFinder();
+        ClusterFinder clusFinder = ws.getClusterFinder();
 
         clusters = clusFinder.FindTimeBasedClusters(hits, cf, ct, super.getConstantsManager().getConstants(newRun, "/calibration/dc/time_to_distance/time2dist"), dcDetector, tde);
 
@@ -126,7 +140,7 @@ public class DCTBEngine extends DCEngine {
         }
 
         //3) find the segments from the fitted clusters
-        SegmentFinder segFinder = new SegmentFinder();
+        SegmentFinder segFinder = ws.getSegmentFinder();
 
         List<FittedCluster> pclusters = segFinder.selectTimeBasedSegments(clusters);
 
@@ -150,7 +164,7 @@ public class DCTBEngine extends DCEngine {
             }
         }
 
-        CrossMaker crossMake = new CrossMaker();
+        CrossMaker crossMake = ws.getCrossMaker();
         //crosses = crossMake.find_Crosses(segments, dcDetector);
 
         //if(crosses.isEmpty() ) {			
@@ -200,7 +214,7 @@ public class DCTBEngine extends DCEngine {
         }
         
         //6) find the list of  track candidates
-        TrackCandListFinder trkcandFinder = new TrackCandListFinder("TimeBased");
+        TrackCandListFinder trkcandFinder = ws.getTrackCandFinder();
         TrajectoryFinder trjFind = new TrajectoryFinder();
         for(int i = 0; i < TrackArray.length; i++) {
             if(TrackArray[i]==null || TrackArray[i].get_ListOfHBSegments()==null || TrackArray[i].get_ListOfHBSegments().size()<4)
@@ -0,0 +1,103 @@
+package org.jlab.service.dc;
+
+import cnuphys.snr.NoiseReductionParameters;
+import cnuphys.snr.clas12.Clas12NoiseAnalysis;
+import cnuphys.snr.clas12.Clas12NoiseResult;
+
+import org.jlab.rec.dc.Constants;
+import org.jlab.rec.dc.banks.HitReader;
+import org.jlab.rec.dc.banks.RecoBankWriter;
+import org.jlab.rec.dc.cluster.ClusterCleanerUtilities;
+import org.jlab.rec.dc.cluster.ClusterFinder;
+import org.jlab.rec.dc.cluster.ClusterFitter;
+import org.jlab.rec.dc.cross.CrossListFinder;
+import org.jlab.rec.dc.cross.CrossMaker;
+import org.jlab.rec.dc.segment.SegmentFinder;
+import org.jlab.rec.dc.track.TrackCandListFinder;
+import org.jlab.rec.dc.trajectory.RoadFinder;
+
+/**
+ * Per-thread workspace of the DC reconstruction: the noise reduction
+ * structures and the finders, fitters, readers and writers used to process
+ * one event. None of them keeps results from one event to the next, so each
+ * thread running a DC engine creates them once and reuses them for all its
+ * events instead of allocating them again for every event.
+ */
+public class DCWorkspace {
+
+    private final Clas12NoiseResult        results       = new Clas12NoiseResult();
+    private final Clas12NoiseAnalysis      noiseAnalysis = new Clas12NoiseAnalysis();
+    private final NoiseReductionParameters parameters    = new NoiseReductionParameters(
+                                                               2,
+                                                               Constants.SNR_LEFTSHIFTS,
+                                                               Constants.SNR_RIGHTSHIFTS);
+    private final ClusterFitter            clusterFitter = new ClusterFitter();
+    private final ClusterCleanerUtilities  clusterCleaner = new ClusterCleanerUtilities();
+    private final RecoBankWriter           bankWriter    = new RecoBankWriter();
+    private final HitReader                hitReader     = new HitReader();
+    private final ClusterFinder            clusterFinder = new ClusterFinder();
+    private final SegmentFinder            segmentFinder = new SegmentFinder();
+    private final CrossMaker               crossMaker    = new CrossMaker();
+    private final CrossListFinder          crossListFinder = new CrossListFinder();
+    private final TrackCandListFinder      trackCandFinder;
+    private final RoadFinder               roadFinder    = new RoadFinder();
+
+    /**
+     * @param trking the tracking status, hit-based or time-based
+     */
+    public DCWorkspace(String trking) {
+        this.trackCandFinder = new TrackCandListFinder(trking);
+    }
+
+    public Clas12NoiseResult getNoiseResult() {
+        return results;
+    }
+
+    public Clas12NoiseAnalysis getNoiseAnalysis() {
+        return noiseAnalysis;
+    }
+
+    public NoiseReductionParameters getNoiseParameters() {
+        return parameters;
+    }
+
+    public ClusterFitter getClusterFitter() {
+        return clusterFitter;
+    }
+
+    public ClusterCleanerUtilities getClusterCleaner() {
+        return clusterCleaner;
+    }
+
+    public RecoBankWriter getBankWriter() {
+        return bankWriter;
+    }
+
+    public HitReader getHitReader() {
+        return hitReader;
+    }
+
+    public ClusterFinder getClusterFinder() {
+        return clusterFinder;
+    }
+
+    public SegmentFinder getSegmentFinder() {
+        return segmentFinder;
+    }
+
+    public CrossMaker getCrossMaker() {
+        return crossMaker;
+    }
+
+    public CrossListFinder getCrossListFinder() {
+        return crossListFinder;
+    }
+
+    public TrackCandListFinder getTrackCandFinder() {
+        return trackCandFinder;
+    }
+
+    public RoadFinder getRoadFinder() {
+        return roadFinder;
+    }
+}
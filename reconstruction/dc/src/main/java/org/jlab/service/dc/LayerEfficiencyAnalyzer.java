@@ -14,6 +14,7 @@ import javax.swing.JTabbedPane;
 
 import org.jlab.clas.swimtools.MagFieldsEngine;
 import org.jlab.clas.swimtools.Swim;
+import org.jlab.clas.swimtools.Swimmer;
 
 import org.jlab.io.hipo.HipoDataSource;
 import org.jlab.rec.dc.Constants;
@@ -36,6 +37,7 @@ import org.jlab.rec.dc.cluster.FittedCluster;
 import org.jlab.rec.dc.hit.FittedHit;
 import org.jlab.rec.dc.segment.Segment;
 import org.jlab.rec.dc.segment.SegmentFinder;
+import org.jlab.rec.dc.timetodistance.TableLoader;
 import org.jlab.rec.dc.timetodistance.TimeToDistanceEstimator;
 import org.jlab.rec.dc.trajectory.SegmentTrajectory;
 
@@ -44,7 +46,6 @@ public class LayerEfficiencyAnalyzer extends DCEngine implements IDataEventListe
 
     public LayerEfficiencyAnalyzer(){
         super("LE");
-        tde = new TimeToDistanceEstimator();
         //plotting stuff
         mainPanel = new JPanel();	
         mainPanel.setLayout(new BorderLayout());
@@ -59,7 +60,6 @@ public class LayerEfficiencyAnalyzer extends DCEngine implements IDataEventListe
 
         //this.processorPane.addEventListener(this);
     }
-    private TimeToDistanceEstimator tde;
     //plotting stuff
     JPanel                  mainPanel 	= null;
     DataSourceProcessorPane processorPane 	= null;
@@ -302,7 +302,7 @@ public class LayerEfficiencyAnalyzer extends DCEngine implements IDataEventListe
             }
         }
         // get Field
-        Swim dcSwim = new Swim();        
+        Swim dcSwim = Swimmer.getSwim();        
         //System.out.println(" RUNNING TIME BASED....................................");
         ClusterFitter cf = new ClusterFitter();
         ClusterCleanerUtilities ct = new ClusterCleanerUtilities();
@@ -313,6 +313,10 @@ public class LayerEfficiencyAnalyzer extends DCEngine implements IDataEventListe
         //instantiate bank writer
         RecoBankWriter rbc = new RecoBankWriter();
 
+        // time-to-distance table of the run, shared by all threads
+        TimeToDistanceEstimator tde = new TimeToDistanceEstimator(TableLoader.getT2DTable(newRun,
+            super.getConstantsManager().getConstants(newRun, "/calibration/dc/time_to_distance/time2dist")));
+
         HitReader hitRead = new HitReader();
         hitRead.read_HBHits(event, 
             super.getConstantsManager().getConstants(newRun, "/calibration/dc/signal_generation/doca_resolution"),
@@ -0,0 +1,39 @@
+package org.jlab.service.dc;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import org.jlab.rec.dc.track.TrackDictionary;
+import org.jlab.utils.options.OptionParser;
+
+/**
+ * Converts road dictionaries from the text format of TrackDictionaryMaker
+ * to the binary format read by TrackDictionary. Several text files can be
+ * merged in one binary dictionary.
+ */
+public class TrackDictionaryConverter {
+
+    public static void main(String[] args) {
+
+        OptionParser parser = new OptionParser("dict-convert");
+        parser.addRequired("-o", "output binary dictionary file");
+        parser.parse(args);
+
+        List<String> inputList = parser.getInputList();
+        if(inputList.isEmpty()==true){
+            parser.printUsage();
+            System.out.println("\n >>>> error : no input file is specified....\n");
+            System.exit(0);
+        }
+        String outputFile = parser.getOption("-o").stringValue();
+
+        try {
+            TrackDictionary dictionary = TrackDictionary.readText(inputList);
+            dictionary.write(new File(outputFile));
+            System.out.println("Written " + dictionary.size() + " roads to " + outputFile);
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
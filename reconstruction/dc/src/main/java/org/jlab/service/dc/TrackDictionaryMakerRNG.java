@@ -1,9 +1,12 @@
 package org.jlab.service.dc;
 
 import eu.mihosoft.vrl.v3d.Vector3d;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,7 +35,15 @@ import org.jlab.rec.dc.Constants;
 import org.jlab.utils.options.OptionParser;
 
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.jlab.detector.hits.PCALDetHit;
+import org.jlab.rec.dc.track.TrackDictionary;
+import org.jlab.utils.benchmark.BenchmarkTimer;
 
 public class TrackDictionaryMakerRNG extends DCEngine{
 
@@ -62,6 +73,15 @@ public class TrackDictionaryMakerRNG extends DCEngine{
     }
     public void processFile(float torScale, float solScale, int charge, int n, long seed,
             float pMin, float pMax, float thMin, float thMax, float phiMin, float phiMax, float vzMin, float vzMax) {
+        this.processFile(torScale, solScale, charge, n, seed, pMin, pMax, thMin, thMax, phiMin, phiMax, vzMin, vzMax, 1);
+    }
+    
+    /**
+     * generates the dictionary with the given number of threads; with one
+     * thread the tracks are generated serially, as in previous versions.
+     */
+    public void processFile(float torScale, float solScale, int charge, int n, long seed,
+            float pMin, float pMax, float thMin, float thMax, float phiMin, float phiMax, float vzMin, float vzMax, int nThreads) {
         
         Swimmer.setMagneticFieldsScales(torScale, solScale, -1.9);
         Swim sw = new Swim();
@@ -80,7 +100,8 @@ public class TrackDictionaryMakerRNG extends DCEngine{
                     +"\n VzMinDeg:\t"  +String.valueOf(vzMin)
                     +"\n VzMaxDeg:\t"  +String.valueOf(vzMax)
                     +"\n Seed:\t\t"    +String.valueOf(seed)
-                    +"\n NTracks:\t"   +String.valueOf(n));
+                    +"\n NTracks:\t"   +String.valueOf(n)
+                    +"\n NThreads:\t"  +String.valueOf(nThreads));
             String fileName = "TracksDicTorus"+String.valueOf(torScale)+"Solenoid"+String.valueOf(solScale)
                     +"Charge"+String.valueOf(charge)+"n"+String.valueOf(n)+"Seed"+String.valueOf(seed)
                     +"PMinGev" +String.valueOf(pMin)+"PMaxGeV" +String.valueOf(pMax)
@@ -91,9 +112,13 @@ public class TrackDictionaryMakerRNG extends DCEngine{
             this.r.setSeed(seed);
             System.out.println("\n Random generator seed set to: " + seed);
             System.out.println("\n Dictionary file name: " + fileName + "\n");
-            this.ProcessTracks(pw, dcDetector, ftofDetector, pcalDetector, sw, charge, n, pMin, pMax, thMin, thMax, phiMin, phiMax, vzMin, vzMax);
+            if(nThreads>1) {
+                this.ProcessTracks(pw, nThreads, dcDetector, ftofDetector, pcalDetector, charge, n, seed, pMin, pMax, thMin, thMax, phiMin, phiMax, vzMin, vzMax);
+            } else {
+                this.ProcessTracks(pw, dcDetector, ftofDetector, pcalDetector, sw, charge, n, pMin, pMax, thMin, thMax, phiMin, phiMax, vzMin, vzMax);
+            }
             pw.close();
-        } catch (FileNotFoundException ex) {
+        } catch (IOException | InterruptedException ex) {
             Logger.getLogger(TrackDictionaryMakerRNG.class.getName()).log(Level.SEVERE, null, ex);
         } finally {
             //pwi.close();
@@ -223,11 +248,14 @@ public class TrackDictionaryMakerRNG extends DCEngine{
     
     
     private double randomDouble(double min, double max) {
+        return randomDouble(r, min, max);
+    }
+    private static double randomDouble(Random rng, double min, double max) {
         if (min >= max) {
             throw new IllegalArgumentException("max must be greater than min");
         }
         
-        return min + (max - min) * r.nextDouble();
+        return min + (max - min) * rng.nextDouble();
     }
     private void Clear(int[] wireArray) {
         for(int i=0; i<wireArray.length; i++) {
@@ -241,9 +269,8 @@ public class TrackDictionaryMakerRNG extends DCEngine{
             float ThMin, float ThMax, 
             float PhiMin, float PhiMax, 
             float VzMin, float VzMax) {
-        double[] swimVal = new double[8];
         Map<ArrayList<Integer>, Integer> newDictionary = new HashMap<>();
-        int[] wireArray = new int[36];
+        Road road = new Road();
         
         double invP     =1;
         double phiDeg   =1;
@@ -253,165 +280,278 @@ public class TrackDictionaryMakerRNG extends DCEngine{
             
         for (int i = 0; i < numRandoms; i++) {
             if(i%10000 == 0) System.out.println("\t" + i + " tracks generated, " + newDictionary.size() + " roads found");
-            Clear(wireArray);
             invP     =this.randomDouble((double)(1./PMax), (double) (1./PMin));
             phiDeg   =this.randomDouble((double) PhiMin, (double) PhiMax);
             thetaDeg =this.randomDouble(ThMin, ThMax);
             vzCm     =this.randomDouble(VzMin, VzMax);
             double p = 1. / invP;
             
-            double px = p * Math.cos(Math.toRadians(phiDeg)) * Math.sin(Math.toRadians(thetaDeg));
-            double py = p * Math.sin(Math.toRadians(phiDeg)) * Math.sin(Math.toRadians(thetaDeg));
-            double pz = p * Math.cos(Math.toRadians(thetaDeg));
-            sw.SetSwimParameters(0, 0, vzCm, px, py, pz, q);
-            swimVal = sw.SwimToPlaneLab(175.);
-            int sector = this.getSector(swimVal[0], swimVal[1], swimVal[2]);
-
-            //Point3D rotatedP = tw.rotateToTiltedCoordSys(new Point3D(px, py, pz));
-            Point3D rotatedP = this.rotateToTiltedCoordSys(new Point3D(swimVal[3], swimVal[4], swimVal[5]));
-            Point3D rotatedX = this.rotateToTiltedCoordSys(new Point3D(swimVal[0], swimVal[1], swimVal[2]));
-
-            //List<Integer> Wi = new ArrayList<Integer>();
-            //List<Integer> Wf = new ArrayList<Integer>();
-            this.Wl1.clear();
-            this.Wl2.clear();
-            this.Wl3.clear();
-            this.Wl4.clear();
-            this.Wl5.clear();
-            this.Wl6.clear();
-            this.entry = "";
-            for (int sl = 0; sl < 6; sl++) {
-                sw.SetSwimParameters(rotatedX.x(), rotatedX.y(), rotatedX.z(), rotatedP.x(), rotatedP.y(), rotatedP.z(), q);
-                this.swimtoLayer(sector, 0, sl, Wl1, dcDetector, sw);        
-                sw.SetSwimParameters(rotatedX.x(), rotatedX.y(), rotatedX.z(), rotatedP.x(), rotatedP.y(), rotatedP.z(), q);
-                this.swimtoLayer(sector, 1, sl, Wl2, dcDetector, sw);        
-                sw.SetSwimParameters(rotatedX.x(), rotatedX.y(), rotatedX.z(), rotatedP.x(), rotatedP.y(), rotatedP.z(), q);
-                this.swimtoLayer(sector, 2, sl, Wl3, dcDetector, sw);        
-                sw.SetSwimParameters(rotatedX.x(), rotatedX.y(), rotatedX.z(), rotatedP.x(), rotatedP.y(), rotatedP.z(), q);
-                this.swimtoLayer(sector, 3, sl, Wl4, dcDetector, sw);        
-                sw.SetSwimParameters(rotatedX.x(), rotatedX.y(), rotatedX.z(), rotatedP.x(), rotatedP.y(), rotatedP.z(), q);
-                this.swimtoLayer(sector, 4, sl, Wl5, dcDetector, sw);        
-                sw.SetSwimParameters(rotatedX.x(), rotatedX.y(), rotatedX.z(), rotatedP.x(), rotatedP.y(), rotatedP.z(), q);
-                this.swimtoLayer(sector, 5, sl, Wl6, dcDetector, sw);
+            this.findRoad(dcDetector, ftofDetector, pcalDetector, sw, q, p, thetaDeg, phiDeg, vzCm, road);
+            if (road.nLayer3 >=3) {
+                ArrayList<Integer> wires = new ArrayList<Integer>();
+                for (int k = 0; k < 6; k++) {
+                    wires.add(road.wires[k*6]);
+                }
+                if(newDictionary.containsKey(wires))  {
+                        int nRoad = newDictionary.get(wires) + 1;
+                        newDictionary.replace(wires, nRoad);
+                       // System.out.println(" Number of duplicate roads "+nRoad+" p "+p+" theta "+thetaDeg+" phi "+phiDeg+" vz "+vzCm);
+                }
+                else {
+                    newDictionary.put(wires, 1);
+                    pw.print(road.format(q, p, thetaDeg, phiDeg, vzCm));
+                }   
+            }
+        }
+        System.out.println("\t" + numRandoms + " tracks generated, " + newDictionary.size() + " roads found");
+    }
 
-                            /*
-                            double[] trk = sw.SwimToPlane(dcDetector.getSector(0).getSuperlayer(sl).getLayer(2).getComponent(0).getMidpoint().z());
-                            Line3D trkLine = new Line3D(new Point3D(trk[0], trk[1], trk[2]), new Vector3D(trk[3], trk[4], trk[5]));
-                            double wMax = Math.abs(dcDetector.getSector(0).getSuperlayer(sl).getLayer(0).getComponent(0).getMidpoint().x()
-                                    - dcDetector.getSector(0).getSuperlayer(sl).getLayer(0).getComponent(1).getMidpoint().x()) / 2.;
+    /**
+     * Generates the roads with several threads. The tracks are generated in
+     * chunks of CHUNKSIZE, each with its own random generator seeded from the
+     * seed and the chunk index, so the generated tracks do not depend on the
+     * number of threads. Each thread swims with its own Swim and probe
+     * collection; duplicated roads are removed as they are found with a
+     * set shared by the threads, and the roads are written as the chunks
+     * complete. When several tracks give the same road, which one is kept
+     * depends on the order in which the chunks complete.
+     * @param out the output dictionary
+     * @param nThreads the number of threads
+     * @return the number of roads written
+     */
+    public int ProcessTracks(Writer out, int nThreads, 
+            final DCGeant4Factory dcDetector, final FTOFGeant4Factory ftofDetector, final PCALGeant4Factory pcalDetector, 
+            final int q, int numRandoms, final long seed,
+            final float PMin, final float PMax, 
+            final float ThMin, final float ThMax, 
+            final float PhiMin, final float PhiMax, 
+            final float VzMin, final float VzMax) throws IOException, InterruptedException {
+        
+        final ShardedLongSet roads = new ShardedLongSet(64);
+        ExecutorService pool = Executors.newFixedThreadPool(nThreads);
+        CompletionService<String> chunks = new ExecutorCompletionService<String>(pool);
+        int nChunks = (numRandoms + CHUNKSIZE - 1) / CHUNKSIZE;
+        for (int c = 0; c < nChunks; c++) {
+            final int chunk  = c;
+            final int nTracks = Math.min(CHUNKSIZE, numRandoms - c * CHUNKSIZE);
+            chunks.submit(new Callable<String>() {
+                @Override
+                public String call() {
+                    Random rng = new Random(seed + chunk * 0x9E3779B97F4A7C15L);
+                    Swim sw = Swimmer.getSwim();
+                    Road road = new Road();
+                    StringBuilder lines = new StringBuilder();
+                    for (int i = 0; i < nTracks; i++) {
+                        double invP     = randomDouble(rng, (double)(1./PMax), (double) (1./PMin));
+                        double phiDeg   = randomDouble(rng, (double) PhiMin, (double) PhiMax);
+                        double thetaDeg = randomDouble(rng, ThMin, ThMax);
+                        double vzCm     = randomDouble(rng, VzMin, VzMax);
+                        double p = 1. / invP;
+                        findRoad(dcDetector, ftofDetector, pcalDetector, sw, q, p, thetaDeg, phiDeg, vzCm, road);
+                        if (road.nLayer3 >= 3 && roads.add(road.getKey())) {
+                            lines.append(road.format(q, p, thetaDeg, phiDeg, vzCm));
+                        }
+                    }
+                    return lines.toString();
+                }
+            });
+        }
+        try {
+            for (int c = 0; c < nChunks; c++) {
+                out.write(chunks.take().get());
+                if ((c + 1) % 10 == 0) {
+                    System.out.println("\t" + Math.min((c + 1) * CHUNKSIZE, numRandoms) + " tracks generated, " + roads.size() + " roads found");
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("road generation failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        out.flush();
+        System.out.println("\t" + numRandoms + " tracks generated, " + roads.size() + " roads found");
+        return roads.size();
+    }
 
-                            double min = 1000;
-                            int w = -1;
-                            for (int i = 0; i < 112; i++) {
-                                Line3D wl = dcDetector.getSector(0).getSuperlayer(sl).getLayer(2).getComponent(i).getLine();
-                                if (trkLine.distance(wl).length() < min) {
-                                    min = trkLine.distance(wl).length();
-                                    w = i;
-                                }
-                            }
+    /**
+     * swims one track through the 36 DC layers and to the FTOF and PCAL.
+     * @param road filled with the wires hit and the FTOF and PCAL hits
+     */
+    void findRoad(DCGeant4Factory dcDetector, FTOFGeant4Factory ftofDetector, PCALGeant4Factory pcalDetector, 
+            Swim sw, int q, double p, double thetaDeg, double phiDeg, double vzCm, Road road) {
+        double px = p * Math.cos(Math.toRadians(phiDeg)) * Math.sin(Math.toRadians(thetaDeg));
+        double py = p * Math.sin(Math.toRadians(phiDeg)) * Math.sin(Math.toRadians(thetaDeg));
+        double pz = p * Math.cos(Math.toRadians(thetaDeg));
+        sw.SetSwimParameters(0, 0, vzCm, px, py, pz, q);
+        double[] swimVal = sw.SwimToPlaneLab(175.);
+        int sector = this.getSector(swimVal[0], swimVal[1], swimVal[2]);
 
-                            if (min < wMax) {
-                                Wi.add(w + 1);
-                            }
-                            */
-            }
-            double[] trkTOF = sw.SwimToPlaneTiltSecSys(sector, 668.1);
-            double[] trkPCAL = sw.SwimToPlaneTiltSecSys(sector, 698.8);
+        Point3D rotatedP = this.rotateToTiltedCoordSys(new Point3D(swimVal[3], swimVal[4], swimVal[5]));
+        Point3D rotatedX = this.rotateToTiltedCoordSys(new Point3D(swimVal[0], swimVal[1], swimVal[2]));
 
+        road.nLayer3 = 0;
+        for (int sl = 0; sl < 6; sl++) {
+            for (int l = 0; l < 6; l++) {
+                road.wl.clear();
+                sw.SetSwimParameters(rotatedX.x(), rotatedX.y(), rotatedX.z(), rotatedP.x(), rotatedP.y(), rotatedP.z(), q);
+                swimtoLayer(sector, l, sl, road.wl, dcDetector, sw);
+                road.wires[sl*6+l] = road.wl.get(0);
+            }
+            if(road.wires[sl*6+2]>0) road.nLayer3++;
+        }
+        double[] trkTOF = sw.SwimToPlaneTiltSecSys(sector, 668.1);
+        double[] trkPCAL = sw.SwimToPlaneTiltSecSys(sector, 698.8);
 
-            Line3d trkLine = new Line3d(rotateToSectorCoordSys(trkTOF[0],trkTOF[1],trkTOF[2]), rotateToSectorCoordSys(trkPCAL[0], trkPCAL[1], trkPCAL[2])) ;
+        Line3d trkLine = new Line3d(rotateToSectorCoordSys(trkTOF[0],trkTOF[1],trkTOF[2]), rotateToSectorCoordSys(trkPCAL[0], trkPCAL[1], trkPCAL[2])) ;
 
-            List<DetHit> hits = ftofDetector.getIntersections(trkLine);
-            List<DetHit> hits2 = pcalDetector.getIntersections(trkLine);
+        // the geometry factories are not known to be thread safe
+        List<DetHit> hits;
+        List<DetHit> hits2;
+        synchronized (ftofDetector) {
+            hits  = ftofDetector.getIntersections(trkLine);
+            hits2 = pcalDetector.getIntersections(trkLine);
+        }
 
-            if(hits.size()==0) {
-                for(int ii =0; ii<3; ii++)
-                    trkTOF[ii]=0;
+        road.paddle1b = 0; road.paddle2 = 0; road.pcalU =0;
+        if (hits != null && hits.size() > 0) {
+            for (DetHit hit : hits) {
+                FTOFDetHit fhit = new FTOFDetHit(hit);
+                if(fhit.getLayer()==2)
+                    road.paddle1b = fhit.getPaddle();
+                if(fhit.getLayer()==3)
+                    road.paddle2 = fhit.getPaddle();
             }
-            if(hits2.size()==0) {
-                for(int ii =0; ii<3; ii++)
-                    trkPCAL[ii]=0;
+        }
+        if (hits2 != null && hits2.size() > 0) {
+            for (DetHit hit2 : hits2) {
+                PCALDetHit phit = new PCALDetHit(hit2);
+                if(phit.getLayer()==1)
+                    road.pcalU = phit.getPaddle();
             }
+        }
+    }
 
-            int paddle1b = 0; int paddle2 = 0; int pcalU =0;
-            if (hits != null && hits.size() > 0) {
-                for (DetHit hit : hits) {
-                    FTOFDetHit fhit = new FTOFDetHit(hit);
-                    if(fhit.getLayer()==2)
-                        paddle1b = fhit.getPaddle();
-                    if(fhit.getLayer()==3)
-                        paddle2 = fhit.getPaddle();
-                }
-            }
-            if (hits2 != null && hits2.size() > 0) {
-                for (DetHit hit2 : hits2) {
-                    PCALDetHit phit = new PCALDetHit(hit2);
-                    if(phit.getLayer()==1)
-                        pcalU = phit.getPaddle();
-                }
-            }
-            //Wl1.get(0)= wire in SL1, L1;  Wl2.get(0)= wire in SL1, L2; Wl1.get(5)= wire in SL6, L1;  Wl2.get(5)= wire in SL6, L2; 
-            //wireArray[0]=Wl1.get(0); wireArray[1]=Wl2.get(0); wireArray[2]=Wl3.get(0); wireArray[3]=Wl4.get(0); wireArray[4]=Wl5.get(0); wireArray[5]=Wl6.get(0); 
-            for( int j =0; j<6; j++) {
-                wireArray[0+6*j]=Wl1.get(j); wireArray[1+6*j]=Wl2.get(j); wireArray[2+6*j]=Wl3.get(j); wireArray[3+6*j]=Wl4.get(j); wireArray[4+6*j]=Wl5.get(j); wireArray[5+6*j]=Wl6.get(j); 
-            }
-            if (count(Wl3) >=3) {
-                ArrayList<Integer> wires = new ArrayList<Integer>();
-                    for (int k = 0; k < 6; k++) {
-                        for (int l=0; l<6; l++) {
-                            if(wireArray[k*6 +l] != -1) {
-                               wires.add(wireArray[k*6+l]);
-                               break;
-                            }
-                        }
-                    }
-                if(newDictionary.containsKey(wires))  {
-                        int nRoad = newDictionary.get(wires) + 1;
-                        newDictionary.replace(wires, nRoad);
-                       // System.out.println(" Number of duplicate roads "+nRoad+" p "+p+" theta "+thetaDeg+" phi "+phiDeg+" vz "+vzCm);
-                }
-                else {
-                    newDictionary.put(wires, 1);
-                /*    System.out.printf("%d\t%.1f\t %.1f\t %.1f\t "
-                    + "%d\t %d\t %d\t %d\t %d\t %d\t "
-                    + "%d\t %d\t %d\t %d\t %d\t %d\t "
-                    + "%d\t %d\t %d\t %d\t %d\t %d\t "
-                    + "%d\t %d\t %d\t %d\t %d\t %d\t "
-                    + "%d\t %d\t %d\t %d\t %d\t %d\t "
-                    + "%d\t %d\t %d\t %d\t %d\t %d\t "
-                    +"%d\t %.1f\t\n",
-                    //+ "%.1f\t %.1f\t %.1f\t %.1f\t %.1f\t %.1f\t\n", 
-                    q, p, thetaDeg, phiDeg,
-                    Wl1.get(0), Wl2.get(0), Wl3.get(0), Wl4.get(0), Wl5.get(0), Wl6.get(0), 
-                    Wl1.get(1), Wl2.get(1), Wl3.get(1), Wl4.get(1), Wl5.get(1), Wl6.get(1), 
-                    Wl1.get(2), Wl2.get(2), Wl3.get(2), Wl4.get(2), Wl5.get(2), Wl6.get(2), 
-                    Wl1.get(3), Wl2.get(3), Wl3.get(3), Wl4.get(3), Wl5.get(3), Wl6.get(3), 
-                    Wl1.get(4), Wl2.get(4), Wl3.get(4), Wl4.get(4), Wl5.get(4), Wl6.get(4), 
-                    Wl1.get(5), Wl2.get(5), Wl3.get(5), Wl4.get(5), Wl5.get(5), Wl6.get(5), 
-                    //trkTOF[0], trkTOF[1], trkTOF[2], trkPCAL[0], trkPCAL[1], trkPCAL[2]);
-                    paddle, vzCm);  */
-                    pw.printf("%d\t%.2f\t%.2f\t%.2f\t"
+    /**
+     * the wires and the FTOF and PCAL hits of one track.
+     */
+    static class Road {
+        // wire in layer l of superlayer sl at sl*6+l, 0 if none
+        final int[] wires = new int[36];
+        final List<Integer> wl = new ArrayList<Integer>(1);
+        int nLayer3;
+        int paddle1b;
+        int paddle2;
+        int pcalU;
+
+        /**
+         * @return the dictionary key, packing the first layer wire of each superlayer
+         */
+        long getKey() {
+            int[] first = new int[6];
+            for (int sl = 0; sl < 6; sl++) first[sl] = wires[sl*6];
+            return TrackDictionary.getKey(first);
+        }
+
+        /**
+         * @return the road in the dictionary text format
+         */
+        String format(int q, double p, double thetaDeg, double phiDeg, double vzCm) {
+            Object[] values = new Object[44];
+            values[0] = q;
+            values[1] = p;
+            values[2] = thetaDeg;
+            values[3] = phiDeg;
+            for (int i = 0; i < 36; i++) values[4 + i] = wires[i];
+            values[40] = paddle1b;
+            values[41] = vzCm;
+            values[42] = paddle2;
+            values[43] = pcalU;
+            return String.format(ROADFORMAT, values);
+        }
+    }
+
+    private static final int CHUNKSIZE = 10000;
+    private static final String ROADFORMAT = "%d\t%.2f\t%.2f\t%.2f\t"
                     + "%d\t%d\t%d\t%d\t%d\t%d\t"
                     + "%d\t%d\t%d\t%d\t%d\t%d\t"
                     + "%d\t%d\t%d\t%d\t%d\t%d\t"
                     + "%d\t%d\t%d\t%d\t%d\t%d\t"
                     + "%d\t%d\t%d\t%d\t%d\t%d\t"
                     + "%d\t%d\t%d\t%d\t%d\t%d\t"
-                    + "%d\t%.2f\t%d\t%d\n",
-                    //+ "%.1f\t %.1f\t %.1f\t %.1f\t %.1f\t %.1f\t\n", 
-                    q, p, thetaDeg, phiDeg,
-                    Wl1.get(0), Wl2.get(0), Wl3.get(0), Wl4.get(0), Wl5.get(0), Wl6.get(0), 
-                    Wl1.get(1), Wl2.get(1), Wl3.get(1), Wl4.get(1), Wl5.get(1), Wl6.get(1), 
-                    Wl1.get(2), Wl2.get(2), Wl3.get(2), Wl4.get(2), Wl5.get(2), Wl6.get(2), 
-                    Wl1.get(3), Wl2.get(3), Wl3.get(3), Wl4.get(3), Wl5.get(3), Wl6.get(3), 
-                    Wl1.get(4), Wl2.get(4), Wl3.get(4), Wl4.get(4), Wl5.get(4), Wl6.get(4), 
-                    Wl1.get(5), Wl2.get(5), Wl3.get(5), Wl4.get(5), Wl5.get(5), Wl6.get(5), 
-                    //trkTOF[0], trkTOF[1], trkTOF[2], trkPCAL[0], trkPCAL[1], trkPCAL[2]);
-                    paddle1b, vzCm, paddle2, pcalU);
-                }   
+                    + "%d\t%.2f\t%d\t%d\n";
+
+    /**
+     * Set of non-negative longs split in shards, each an open addressing
+     * table with its own lock, so that threads adding different keys
+     * rarely wait for each other.
+     */
+    static class ShardedLongSet {
+
+        private final Shard[] shards;
+
+        ShardedLongSet(int nShards) {
+            shards = new Shard[Integer.highestOneBit(Math.max(1, nShards))];
+            for (int i = 0; i < shards.length; i++) shards[i] = new Shard();
+        }
+
+        private static long mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return h ^ (h >>> 29);
+        }
+
+        /**
+         * @return true if the key was not in the set
+         */
+        boolean add(long key) {
+            long h = mix(key);
+            Shard shard = shards[(int) (h >>> 40) & (shards.length - 1)];
+            synchronized (shard) {
+                return shard.add(key, h);
+            }
+        }
+
+        int size() {
+            int size = 0;
+            for (Shard shard : shards) {
+                synchronized (shard) {
+                    size += shard.size;
+                }
+            }
+            return size;
+        }
+
+        private static class Shard {
+            long[] keys = Shard.create(1024);
+            int    size = 0;
+
+            private static long[] create(int capacity) {
+                long[] table = new long[capacity];
+                Arrays.fill(table, -1L);
+                return table;
+            }
+
+            boolean add(long key, long h) {
+                if (2 * (size + 1) > keys.length) this.grow();
+                int mask = keys.length - 1;
+                int i = (int) h & mask;
+                while (keys[i] != -1L) {
+                    if (keys[i] == key) return false;
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+                size++;
+                return true;
+            }
+
+            private void grow() {
+                long[] old = keys;
+                keys = Shard.create(2 * old.length);
+                size = 0;
+                for (long key : old) {
+                    if (key != -1L) this.add(key, mix(key));
+                }
             }
         }
-        System.out.println("\t" + numRandoms + " tracks generated, " + newDictionary.size() + " roads found");
     }
 
     public static void ProcessCosmics(PrintWriter pw, DCGeant4Factory dcDetector, TrackDictionaryMakerRNG tw, Swim sw) {
@@ -659,6 +799,34 @@ public class TrackDictionaryMakerRNG extends DCEngine{
         }
         
     }
+    /**
+     * generates the same tracks with 1, 2, 4... up to maxThreads threads,
+     * discarding the roads, and prints the time and speedup for each.
+     */
+    public void benchmark(float torScale, float solScale, int charge, int n, long seed,
+            float pMin, float pMax, float thMin, float thMax, float phiMin, float phiMax, float vzMin, float vzMax, int maxThreads) {
+        
+        Swimmer.setMagneticFieldsScales(torScale, solScale, -1.9);
+        double serial = 0;
+        for(int nThreads = 1; ; nThreads = Math.min(2*nThreads, maxThreads)) {
+            BenchmarkTimer timer = new BenchmarkTimer("threads " + nThreads);
+            timer.resume();
+            int nRoads = 0;
+            try {
+                nRoads = this.ProcessTracks(new StringWriter(), nThreads, dcDetector, ftofDetector, pcalDetector, 
+                        charge, n, seed, pMin, pMax, thMin, thMax, phiMin, phiMax, vzMin, vzMax);
+            } catch (IOException | InterruptedException ex) {
+                Logger.getLogger(TrackDictionaryMakerRNG.class.getName()).log(Level.SEVERE, null, ex);
+                return;
+            }
+            timer.pause();
+            if(nThreads==1) serial = timer.getSeconds();
+            System.out.println(String.format(" BENCHMARK threads %3d  roads %9d  time %9.2f s  speedup %6.2f", 
+                    nThreads, nRoads, timer.getSeconds(), serial/timer.getSeconds()));
+            if(nThreads>=maxThreads) break;
+        }
+    }
+    
     public static void main(String[] args) {
     
         
@@ -678,6 +846,8 @@ public class TrackDictionaryMakerRNG extends DCEngine{
         parser.addOption("-var","default");
         parser.addOption("-vzmin","-5.0");
         parser.addOption("-vzmax","5.0");
+        parser.addOption("-threads","1");
+        parser.addOption("-bench","0");
         parser.parse(args);
         
 
@@ -700,7 +870,12 @@ public class TrackDictionaryMakerRNG extends DCEngine{
 //            tm.r.setSeed(seed);
             String dcVar = parser.getOption("-var").stringValue();
             tm.resetGeom(dcVar);
-            tm.processFile(torus, solenoid, charge, n, seed, pMin, pMax, thMin, thMax, phiMin, phiMax, vzMin, vzMax);
+            int nThreads = parser.getOption("-threads").intValue();
+            if(nThreads<1) nThreads = Runtime.getRuntime().availableProcessors();
+            if(parser.getOption("-bench").intValue()>0) 
+                tm.benchmark(torus, solenoid, charge, n, seed, pMin, pMax, thMin, thMax, phiMin, phiMax, vzMin, vzMax, nThreads);
+            else
+                tm.processFile(torus, solenoid, charge, n, seed, pMin, pMax, thMin, thMax, phiMin, phiMax, vzMin, vzMax, nThreads);
         } else {
             System.out.println(" FIELDS NOT SET");
         }
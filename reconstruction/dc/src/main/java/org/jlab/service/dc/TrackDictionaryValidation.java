@@ -19,6 +19,7 @@ import org.jlab.groot.group.DataGroup;
 import org.jlab.io.base.DataBank;
 import org.jlab.io.base.DataEvent;
 import org.jlab.io.hipo.HipoDataSource;
+import org.jlab.rec.dc.track.TrackDictionary;
 import org.jlab.utils.groups.IndexedList;
 
 import org.jlab.utils.options.OptionParser;
@@ -26,6 +27,7 @@ import org.jlab.utils.options.OptionParser;
 public class TrackDictionaryValidation {
 
     private Map<ArrayList<Integer>, Particle> dictionary = null;
+    private TrackDictionary                   roads      = null;
     private IndexedList<DataGroup>           dataGroups = new IndexedList<DataGroup>(1);
     private EmbeddedCanvasTabbed             canvas     = new EmbeddedCanvasTabbed("Dictionary", "Matched Roads", "Matched Tracks", "Efficiency");
             
@@ -245,6 +247,12 @@ public class TrackDictionaryValidation {
     }
     
     private Particle findRoad(ArrayList<Integer> wires, int smear) {
+        if(this.roads != null) {
+            int[] pattern = new int[wires.size()];
+            for(int i=0; i<pattern.length; i++) pattern[i] = wires.get(i);
+            int index = this.roads.findClosest(pattern, smear, 0);
+            return index>=0 ? this.roads.getParticle(index) : null;
+        }
         Particle foundRoad = null;
         if(smear>0) {
             for(int k1=-smear; k1<=smear; k1++) {
@@ -452,6 +460,10 @@ public class TrackDictionaryValidation {
     
     public void readDictionary(String fileName) {
         
+        if(TrackDictionary.isBinary(new File(fileName))) {
+            this.readBinaryDictionary(fileName);
+            return;
+        }
         this.dictionary = new HashMap<>();
         
         System.out.println("\nReading dictionary from file " + fileName);
@@ -530,6 +542,37 @@ public class TrackDictionaryValidation {
         } 
    }
     
+    private void readBinaryDictionary(String fileName) {
+        
+        System.out.println("\nReading binary dictionary from file " + fileName);
+        try {
+            this.roads = TrackDictionary.read(new File(fileName));
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        for(int i=0; i<this.roads.size(); i++) {
+            Particle road = this.roads.getParticle(i);
+            int paddle1b  = this.roads.getPaddle(i);
+            int pcalu     = this.roads.getPcalStrip(i);
+            double phiSec = (Math.toDegrees(road.phi())+180+30)%60-30;
+            if(road.charge()<0) {
+                this.dataGroups.getItem(0).getH2F("hi_ptheta_neg_road").fill(road.p(), Math.toDegrees(road.theta()));
+                this.dataGroups.getItem(0).getH2F("hi_phitheta_neg_road").fill(phiSec, Math.toDegrees(road.theta()));
+                this.dataGroups.getItem(0).getH2F("hi_vztheta_neg_road").fill(road.vz(), Math.toDegrees(road.theta()));
+                if(paddle1b>0) this.dataGroups.getItem(0).getH2F("hi_pcalftof_neg_road").fill(paddle1b, pcalu);
+            }
+            else {
+                this.dataGroups.getItem(0).getH2F("hi_ptheta_pos_road").fill(road.p(), Math.toDegrees(road.theta()));
+                this.dataGroups.getItem(0).getH2F("hi_phitheta_pos_road").fill(phiSec, Math.toDegrees(road.theta()));
+                this.dataGroups.getItem(0).getH2F("hi_vztheta_pos_road").fill(road.vz(), Math.toDegrees(road.theta()));
+                if(paddle1b>0) this.dataGroups.getItem(0).getH2F("hi_pcalftof_pos_road").fill(paddle1b, pcalu);
+            }
+        }
+        System.out.println("Found " + this.roads.size() + " roads");
+    }
+    
     private void setDictionary(Map<ArrayList<Integer>, Particle> newDictionary) {
         this.dictionary = newDictionary;
     }
@@ -538,7 +581,7 @@ public class TrackDictionaryValidation {
     public static void main(String[] args) {
         
         OptionParser parser = new OptionParser("dict-validation");
-        parser.addOption("-d","dictionary.txt", "read dictionary from file");
+        parser.addOption("-d","dictionary.txt", "read dictionary from file, text or binary");
         parser.addOption("-c","input.hipo", "create dictionary from event file");
         parser.addOption("-i","set event file for dictionary validation");
         parser.addOption("-w", "0", "wire smearing in road finding");
@@ -0,0 +1,96 @@
+package org.jlab.rec.dc.timetodistance;
+
+import org.jlab.rec.dc.Constants;
+import org.jlab.utils.groups.IndexedTable;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the tabulated time-to-distance, read back through
+ * TimeToDistanceEstimator, inverts the analytic distance-to-time function
+ * TableLoader.calc_Time() at the B field and local angle nodes of the grid.
+ * The table holds for each 2 ns time bin the distance at the end of the bin
+ * and the estimator reads it at the start of the bin, so the distance read
+ * back is larger than the true one by up to one bin of drift.
+ */
+public class T2DTableTest {
+
+    // nominal wire plane distances and time2dist parameters by superlayer
+    private static final double[] WPDIST = {0.386160, 0.404220, 0.621906, 0.658597, 0.935140, 0.977982};
+    private static final double[] TMAX   = {160, 170, 300, 320, 600, 650};
+
+    // 120 microns, one time bin at the largest drift velocity of the test
+    // parameters is about 100 microns
+    private static final double TOLERANCE = 0.012;
+
+    private static IndexedTable createTable() {
+        IndexedTable tab = new IndexedTable(3, new String[]{"v0/F", "deltanm/F", "tmax/F", "distbeta/F",
+            "delta_bfield_coefficient/F", "b1/F", "b2/F", "b3/F", "b4/F", "delta_T0/F"});
+        for (int s = 0; s < 6; s++) {
+            for (int r = 0; r < 6; r++) {
+                tab.addEntry(s + 1, r + 1, 0);
+                tab.setDoubleValue(0.0053, "v0", s + 1, r + 1, 0);
+                tab.setDoubleValue(1.5, "deltanm", s + 1, r + 1, 0);
+                // small sector dependence, so the sectors do not share a table
+                tab.setDoubleValue(TMAX[r] + 2.0 * s, "tmax", s + 1, r + 1, 0);
+                tab.setDoubleValue(0.05, "distbeta", s + 1, r + 1, 0);
+                tab.setDoubleValue(0.15, "delta_bfield_coefficient", s + 1, r + 1, 0);
+                tab.setDoubleValue(0.4, "b1", s + 1, r + 1, 0);
+                tab.setDoubleValue(-1.0, "b2", s + 1, r + 1, 0);
+                tab.setDoubleValue(1.0, "b3", s + 1, r + 1, 0);
+                tab.setDoubleValue(-0.2, "b4", s + 1, r + 1, 0);
+                tab.setDoubleValue(0.0, "delta_T0", s + 1, r + 1, 0);
+            }
+        }
+        return tab;
+    }
+
+    @Test
+    public void testTableAgainstFunction() {
+        for (int r = 0; r < 6; r++) {
+            Constants.wpdist[r] = WPDIST[r];
+        }
+        IndexedTable tab = createTable();
+        T2DTable table = new T2DTable(1, tab);
+        TimeToDistanceEstimator tde = new TimeToDistanceEstimator(table);
+
+        double maxdev = 0;
+        int npoints = 0;
+        for (int s = 0; s < 6; s++) {
+            for (int r = 0; r < 6; r++) {
+                double dmax = 2. * Constants.wpdist[r];
+                double tmax = tab.getDoubleValue("tmax", s + 1, r + 1, 0);
+                // B nodes up to 2.5 T, the 3 T bin is only used as the upper
+                // node of the interpolation
+                for (int ibfield = 0; ibfield < 6; ibfield++) {
+                    double bfield = ibfield * 0.5;
+                    double tedge = TableLoader.calc_Time(dmax, dmax, tmax, 30, bfield, s, r, tab);
+                    for (int icosalpha = 0; icosalpha < 6; icosalpha++) {
+                        double cos30minusalpha = Math.cos(Math.toRadians(30.)) + icosalpha * (1. - Math.cos(Math.toRadians(30.))) / 5.;
+                        double alpha = -(Math.toDegrees(Math.acos(cos30minusalpha)) - 30);
+                        // inside the cell, away from the first time bin and
+                        // from the edge where the table is clipped
+                        for (int i = 1; i < 20; i++) {
+                            double x = 0.05 * dmax + i * 0.04 * dmax;
+                            double t = TableLoader.calc_Time(x, dmax, tmax, alpha, bfield, s, r, tab);
+                            if (t >= tedge) {
+                                continue;
+                            }
+                            double doca = tde.interpolateOnGrid(bfield, alpha, t, s, r);
+                            String where = String.format("sector %d superlayer %d B %.1f alpha %.2f x %.4f", s + 1,
+                                    r + 1, bfield, alpha, x);
+                            assertEquals(where, x, doca, TOLERANCE);
+                            // the estimator never reads back a smaller distance
+                            assertTrue(where, doca > x - 0.001);
+                            maxdev = Math.max(maxdev, Math.abs(doca - x));
+                            npoints++;
+                        }
+                    }
+                }
+            }
+        }
+        assertTrue(npoints > 6 * 6 * 6 * 6 * 10);
+        System.out.println(String.format("[T2DTableTest] ---> %d points, largest deviation %.2f um", npoints,
+                maxdev * 1e4));
+    }
+}
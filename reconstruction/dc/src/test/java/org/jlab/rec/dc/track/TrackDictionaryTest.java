@@ -0,0 +1,96 @@
+package org.jlab.rec.dc.track;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the conversion of a text road dictionary to the binary format and
+ * the exact and fuzzy lookups.
+ */
+public class TrackDictionaryTest {
+
+    /**
+     * @return a road in the text format: charge, p, theta, phi, 36 wires,
+     * FTOF paddle 1b, vz, FTOF paddle 2, PCAL U strip
+     */
+    private static String road(int charge, double p, int[] wires) {
+        StringBuilder line = new StringBuilder();
+        line.append(charge).append('\t').append(p).append('\t').append(20.0).append('\t').append(5.0);
+        for (int sl = 0; sl < 6; sl++) {
+            for (int l = 0; l < 6; l++) {
+                line.append('\t').append(wires[sl] > 0 ? wires[sl] + l % 2 : 0);
+            }
+        }
+        line.append('\t').append(12).append('\t').append(-1.5).append('\t').append(0).append('\t').append(30);
+        return line.toString();
+    }
+
+    private static TrackDictionary createDictionary() throws IOException {
+        File text = File.createTempFile("roads", ".txt");
+        text.deleteOnExit();
+        try (PrintWriter writer = new PrintWriter(text)) {
+            writer.println(road(-1, 2.0, new int[]{10, 12, 20, 22, 40, 42}));
+            writer.println(road( 1, 3.0, new int[]{50, 52, 60, 62, 80, 82}));
+            writer.println(road( 1, 4.0, new int[]{10, 12, 20, 22, 40, 44}));
+            // duplicate pattern, the first road is kept
+            writer.println(road( 1, 5.0, new int[]{10, 12, 20, 22, 40, 42}));
+            // incomplete road, skipped
+            writer.println(road(-1, 6.0, new int[]{10,  0, 20, 22, 40, 42}));
+        }
+        TrackDictionary dictionary = TrackDictionary.readText(Arrays.asList(text.getPath()));
+
+        File binary = File.createTempFile("roads", ".bin");
+        binary.deleteOnExit();
+        dictionary.write(binary);
+        assertTrue(TrackDictionary.isBinary(binary));
+        assertFalse(TrackDictionary.isBinary(text));
+        return TrackDictionary.read(binary);
+    }
+
+    @Test
+    public void testLookup() throws IOException {
+        TrackDictionary dictionary = createDictionary();
+        assertEquals(3, dictionary.size());
+
+        int index = dictionary.find(new int[]{10, 12, 20, 22, 40, 42});
+        assertTrue(index >= 0);
+        assertEquals(-1, dictionary.getCharge(index));
+        assertEquals(2.0, dictionary.getP(index), 1E-6);
+        assertEquals(-1.5, dictionary.getVz(index), 1E-6);
+        assertEquals(12, dictionary.getPaddle(index));
+        assertEquals(30, dictionary.getPcalStrip(index));
+        assertEquals(2.0, dictionary.getParticle(index).p(), 1E-6);
+        int[] wires = new int[6];
+        dictionary.getWires(index, wires);
+        assertArrayEquals(new int[]{10, 12, 20, 22, 40, 42}, wires);
+
+        assertEquals(-1, dictionary.find(new int[]{10, 12, 20, 22, 40, 43}));
+    }
+
+    @Test
+    public void testFuzzyLookup() throws IOException {
+        TrackDictionary dictionary = createDictionary();
+
+        // one wire off
+        assertEquals(-1, dictionary.findClosest(new int[]{51, 52, 60, 62, 80, 82}, 0, 0));
+        int index = dictionary.findClosest(new int[]{51, 52, 60, 62, 80, 82}, 1, 0);
+        assertEquals(3.0, dictionary.getP(index), 1E-6);
+
+        // the closest road is chosen
+        index = dictionary.findClosest(new int[]{11, 12, 20, 22, 40, 44}, 2, 0);
+        assertEquals(4.0, dictionary.getP(index), 1E-6);
+
+        // missing superlayers
+        index = dictionary.findClosest(new int[]{0, 52, 60, 0, 80, 82}, 0, 2);
+        assertEquals(3.0, dictionary.getP(index), 1E-6);
+        assertEquals(-1, dictionary.findClosest(new int[]{0, 52, 60, 0, 80, 82}, 0, 1));
+        index = dictionary.findClosest(new int[]{10, 12, 20, 22, 40, 0}, 0, 1);
+        assertEquals(2.0, dictionary.getP(index), 1E-6);
+        index = dictionary.findClosest(new int[]{11, 12, 20, 22, 0, 44}, 1, 1);
+        assertEquals(4.0, dictionary.getP(index), 1E-6);
+    }
+}
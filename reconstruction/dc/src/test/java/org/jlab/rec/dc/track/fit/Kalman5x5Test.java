@@ -0,0 +1,185 @@
+package org.jlab.rec.dc.track.fit;
+
+import Jama.Matrix;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import org.jlab.clas.clas.math.Kalman5x5;
+import org.jlab.utils.benchmark.BenchmarkTimer;
+
+/**
+ * Compares the 5x5 Kalman kernel with the Jama operations previously used
+ * by the DC and CVT fitters.
+ */
+public class Kalman5x5Test {
+
+    private static final int NMATRICES = 200;
+
+    /**
+     * @return a random symmetric positive definite matrix with a spread of
+     * scales similar to a track covariance
+     */
+    private static double[][] covariance(Random rnd) {
+        double[] scale = {1.0, 1.0, 1.e-3, 1.e-3, 1.e-4};
+        double[][] a = new double[5][5];
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < 5; j++) {
+                a[i][j] = rnd.nextGaussian() * scale[i];
+            }
+        }
+        Matrix A = new Matrix(a);
+        Matrix C = A.times(A.transpose());
+        for (int i = 0; i < 5; i++) {
+            C.set(i, i, C.get(i, i) + scale[i] * scale[i]);
+        }
+        return C.getArrayCopy();
+    }
+
+    private static double[] projector(Random rnd, int n) {
+        double[] H = new double[n];
+        for (int i = 0; i < n; i++) {
+            H[i] = rnd.nextGaussian();
+        }
+        return H;
+    }
+
+    /**
+     * the filter update as written in the fitters before the kernel
+     * @return updated covariance, or null if the matrices were singular
+     */
+    private static Matrix jamaFilter(Matrix cov, double[] H, double V, double[] K) {
+        double[][] HTGH = new double[5][5];
+        for (int i = 0; i < H.length; i++) {
+            for (int j = 0; j < H.length; j++) {
+                HTGH[i][j] = H[i] * H[j] / V;
+            }
+        }
+        if (Math.abs(cov.det()) < 1.e-30) {
+            return null;
+        }
+        Matrix Ca = cov.inverse().plus(new Matrix(HTGH));
+        if (Math.abs(Ca.det()) < 1.e-30) {
+            return null;
+        }
+        Matrix CaInv = Ca.inverse();
+        for (int j = 0; j < 5; j++) {
+            K[j] = 0;
+            for (int i = 0; i < H.length; i++) {
+                K[j] += H[i] * CaInv.get(j, i);
+            }
+            K[j] /= V;
+        }
+        return CaInv;
+    }
+
+    private static void assertClose(double expected, double actual) {
+        assertEquals(expected, actual, 1.e-9 * Math.max(1.e-12, Math.abs(expected)));
+    }
+
+    @Test
+    public void testInverse() {
+        Random rnd = new Random(11);
+        Kalman5x5 kernel = new Kalman5x5();
+        for (int n = 0; n < NMATRICES; n++) {
+            double[][] c = covariance(rnd);
+            Matrix ref = new Matrix(c).inverse();
+            double[][] inv = new double[5][5];
+            assertTrue(kernel.invert(c, inv));
+            assertEquals(new Matrix(c).det(), kernel.det(c), 0.0);
+            for (int i = 0; i < 5; i++) {
+                for (int j = 0; j < 5; j++) {
+                    assertEquals(ref.get(i, j), inv[i][j], 0.0);
+                }
+            }
+        }
+        assertFalse(kernel.invert(new double[5][5], new double[5][5]));
+    }
+
+    @Test
+    public void testSimilarity() {
+        Random rnd = new Random(12);
+        Kalman5x5 kernel = new Kalman5x5();
+        for (int n = 0; n < NMATRICES; n++) {
+            double[][] c = covariance(rnd);
+            double[][] f = covariance(rnd);
+            Matrix F = new Matrix(f);
+            Matrix ref = F.transpose().times(new Matrix(c)).times(F);
+            kernel.similarity(f, c, c);
+            for (int i = 0; i < 5; i++) {
+                for (int j = 0; j < 5; j++) {
+                    assertEquals(ref.get(i, j), c[i][j], 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFilter() {
+        Random rnd = new Random(13);
+        Kalman5x5 kernel = new Kalman5x5();
+        for (int n = 0; n < NMATRICES; n++) {
+            // DC projectors have two entries, CVT projectors five
+            double[] H = projector(rnd, n % 2 == 0 ? 2 : 5);
+            double V = 0.01 + rnd.nextDouble();
+            double[][] c = covariance(rnd);
+            double[] Kref = new double[5];
+            double[] K = new double[5];
+            Matrix ref = jamaFilter(new Matrix(c), H, V, Kref);
+            assertNotNull(ref);
+            assertTrue(kernel.filter(c, H, V, K));
+            for (int i = 0; i < 5; i++) {
+                assertClose(Kref[i], K[i]);
+                for (int j = 0; j < 5; j++) {
+                    assertClose(ref.get(i, j), c[i][j]);
+                }
+            }
+        }
+        double[][] singular = new double[5][5];
+        double[] K = new double[5];
+        assertFalse(kernel.filter(singular, new double[]{1, 1}, 1, K));
+    }
+
+    public static void main(String[] args) {
+        Random rnd = new Random(14);
+        double[][][] covs = new double[NMATRICES][][];
+        double[][] projectors = new double[NMATRICES][];
+        for (int n = 0; n < NMATRICES; n++) {
+            covs[n] = covariance(rnd);
+            projectors[n] = projector(rnd, 5);
+        }
+        Kalman5x5 kernel = new Kalman5x5();
+        double[][] c = new double[5][5];
+        double[] K = new double[5];
+        int nloops = 5000;
+        double sum = 0;
+        BenchmarkTimer timerJama   = new BenchmarkTimer("jama");
+        BenchmarkTimer timerKernel = new BenchmarkTimer("kernel");
+        for (int iter = 0; iter < 3; iter++) {
+            timerJama.reset();
+            timerKernel.reset();
+            timerJama.resume();
+            for (int l = 0; l < nloops; l++) {
+                for (int n = 0; n < NMATRICES; n++) {
+                    Matrix r = jamaFilter(new Matrix(covs[n]), projectors[n], 0.1, K);
+                    sum += r.get(0, 0);
+                }
+            }
+            timerJama.pause();
+            timerKernel.resume();
+            for (int l = 0; l < nloops; l++) {
+                for (int n = 0; n < NMATRICES; n++) {
+                    for (int i = 0; i < 5; i++) {
+                        System.arraycopy(covs[n][i], 0, c[i], 0, 5);
+                    }
+                    kernel.filter(c, projectors[n], 0.1, K);
+                    sum += c[0][0];
+                }
+            }
+            timerKernel.pause();
+        }
+        System.out.println(timerJama.toString());
+        System.out.println(timerKernel.toString());
+        System.out.println("checksum " + sum);
+    }
+}
@@ -0,0 +1,194 @@
+package org.jlab.rec.dc.track.fit;
+
+import Jama.Matrix;
+import cnuphys.magfield.MagneticFields;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import org.jlab.clas.swimtools.Swim;
+import org.jlab.clas.swimtools.Swimmer;
+import org.jlab.utils.CLASResources;
+import org.jlab.utils.benchmark.BenchmarkTimer;
+
+/**
+ * Compares the covariance transport of StateVecs/RungeKutta with the
+ * previous implementation (LegacyRungeKutta) on DC track states.
+ */
+public class RungeKuttaTest {
+
+    // x, y, z, tx, ty, q/p in the tilted sector frame, taken from time-based
+    // tracks of the DC test event and of a few forward tracks at higher momentum
+    private static final double[][] TRACKS = {
+        {-10.82, -0.12, 229.2, -0.056, -0.0011, -1/2.525},
+        {-18.50,  2.34, 229.0, -0.112,  0.0160, -1/1.220},
+        { 35.61, -4.02, 230.1,  0.195, -0.0230,  1/0.835},
+        { 60.20, 11.70, 231.5,  0.331,  0.0610,  1/3.900},
+        {-42.33, -8.81, 228.7, -0.245, -0.0480, -1/0.610}
+    };
+    private static final double[] PLANES = {229.0, 245.0, 260.0, 340.0, 365.0, 380.0, 470.0, 495.0, 510.0};
+
+    private static boolean fieldsLoaded = false;
+
+    private static void loadFields() {
+        if (fieldsLoaded) return;
+        System.setProperty("CLAS12DIR", "../../");
+        String mapDir = CLASResources.getResourcePath("etc")+"/data/magfield";
+        try {
+            MagneticFields.getInstance().initializeMagneticFields(mapDir,
+                    "Symm_torus_r2501_phi16_z251_24Apr2018.dat","Symm_solenoid_r601_phi1_z1201_13June2018.dat");
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+        }
+        Swimmer.invalidate();
+        fieldsLoaded = true;
+    }
+
+    private static Matrix initialCovariance(double[] track) {
+        double epSq = 0.001 / (track[5] * track[5]);
+        return new Matrix(new double[][]{
+            {0.04,  0.002, 1e-4,  0,     0},
+            {0.002, 0.36,  0,     2e-4,  0},
+            {1e-4,  0,     4e-5,  0,     1e-6},
+            {0,     2e-4,  0,     9e-5,  0},
+            {0,     0,     1e-6,  0,     epSq}
+        });
+    }
+
+    private static StateVecs init(Swim swim, double[] track) {
+        StateVecs sv = new StateVecs(swim);
+        sv.Z = PLANES.clone();
+        sv.Z[0] = track[2];
+        StateVecs.StateVec iVec = sv.new StateVec(0);
+        iVec.x  = track[0];
+        iVec.y  = track[1];
+        iVec.z  = track[2];
+        iVec.tx = track[3];
+        iVec.ty = track[4];
+        iVec.Q  = track[5];
+        StateVecs.CovMat iCov = sv.new CovMat(0);
+        iCov.covMat = initialCovariance(track);
+        sv.trackTraj.put(0, iVec);
+        sv.trackCov.put(0, iCov);
+        return sv;
+    }
+
+    /**
+     * Copy of StateVecs.transport using the legacy Runge-Kutta step.
+     */
+    private static void legacyTransport(StateVecs sv, LegacyRungeKutta rk, Swim swim, int sector, int i, int f,
+            StateVecs.StateVec iVec, StateVecs.CovMat covMat, double mass) {
+        double[] Z = sv.Z;
+        double stepSize = 1.0;
+        StateVecs.StateVec fVec = sv.new StateVec(f);
+        StateVecs.CovMat fCov = sv.new CovMat(f);
+        fVec.x = iVec.x;
+        fVec.y = iVec.y;
+        fVec.z = iVec.z;
+        fVec.tx = iVec.tx;
+        fVec.ty = iVec.ty;
+        fVec.Q = iVec.Q;
+        fVec.B = iVec.B;
+        fCov.covMat = covMat.covMat;
+        double s  = 0;
+        double z = Z[i];
+        double BatMeas = iVec.B;
+        while(Math.signum(Z[f] - Z[i]) *z<Math.signum(Z[f] - Z[i]) *Z[f]) {
+            double x =  fVec.x;
+            double y =  fVec.y;
+            z = fVec.z;
+            double tx = fVec.tx;
+            double ty = fVec.ty;
+            double Q =  fVec.Q;
+            double dPath = fVec.deltaPath;
+            covMat.covMat = fCov.covMat;
+            s= Math.signum(Z[f] - Z[i]) * stepSize;
+            if(Math.signum(Z[f] - Z[i]) *(z+s)>Math.signum(Z[f] - Z[i]) *Z[f])
+                s=Math.signum(Z[f] - Z[i]) *Math.abs(Z[f]-z);
+            rk.RK4transport(sector, Q, x, y, z, tx, ty, s, swim, covMat, fVec, fCov, mass, dPath);
+            if( Math.abs(fVec.B - BatMeas)<0.0001)
+                stepSize*=2;
+            BatMeas = fVec.B;
+        }
+        sv.trackTraj.put(f, fVec);
+        sv.trackCov.put(f, fCov);
+    }
+
+    private static void assertIdentical(StateVecs.StateVec a, StateVecs.StateVec b) {
+        assertEquals(a.x,  b.x,  0.0);
+        assertEquals(a.y,  b.y,  0.0);
+        assertEquals(a.z,  b.z,  0.0);
+        assertEquals(a.tx, b.tx, 0.0);
+        assertEquals(a.ty, b.ty, 0.0);
+        assertEquals(a.Q,  b.Q,  0.0);
+        assertEquals(a.B,  b.B,  0.0);
+        assertEquals(a.deltaPath, b.deltaPath, 0.0);
+    }
+
+    private static void assertIdentical(Matrix a, Matrix b) {
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < 5; j++) {
+                assertEquals(a.get(i, j), b.get(i, j), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testTransport() {
+        loadFields();
+        Swim swim = Swimmer.getSwim();
+        LegacyRungeKutta legacy = new LegacyRungeKutta();
+        double mass = 0.13957018;
+        for (double[] track : TRACKS) {
+            StateVecs sv  = init(swim, track);
+            StateVecs ref = init(swim, track);
+            int last = sv.Z.length - 1;
+            // forward through all planes, then back to the first one as in KFitter.runFitter
+            for (int k = 0; k < last; k++) {
+                sv.transport(1, k, k + 1, sv.trackTraj.get(k), sv.trackCov.get(k));
+                legacyTransport(ref, legacy, swim, 1, k, k + 1, ref.trackTraj.get(k), ref.trackCov.get(k), mass);
+            }
+            sv.transport(1, last, 0, sv.trackTraj.get(last), sv.trackCov.get(last));
+            legacyTransport(ref, legacy, swim, 1, last, 0, ref.trackTraj.get(last), ref.trackCov.get(last), mass);
+
+            for (int k = 0; k <= last; k++) {
+                assertIdentical(ref.trackTraj.get(k), sv.trackTraj.get(k));
+                assertIdentical(ref.trackCov.get(k).covMat, sv.trackCov.get(k).covMat);
+            }
+        }
+    }
+
+    /**
+     * Timing of the preallocated transport against the legacy one.
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        loadFields();
+        Swim swim = Swimmer.getSwim();
+        LegacyRungeKutta legacy = new LegacyRungeKutta();
+        int nloops = 20000;
+        BenchmarkTimer timerLegacy = new BenchmarkTimer("legacy");
+        BenchmarkTimer timerNew    = new BenchmarkTimer("preallocated");
+        for (int iter = 0; iter < 2; iter++) {
+            timerLegacy.reset();
+            timerNew.reset();
+            for (int n = 0; n < nloops; n++) {
+                double[] track = TRACKS[n % TRACKS.length];
+                StateVecs ref = init(swim, track);
+                timerLegacy.resume();
+                for (int k = 0; k < ref.Z.length - 1; k++) {
+                    legacyTransport(ref, legacy, swim, 1, k, k + 1, ref.trackTraj.get(k), ref.trackCov.get(k), 0.13957018);
+                }
+                timerLegacy.pause();
+                StateVecs sv = init(swim, track);
+                timerNew.resume();
+                for (int k = 0; k < sv.Z.length - 1; k++) {
+                    sv.transport(1, k, k + 1, sv.trackTraj.get(k), sv.trackCov.get(k));
+                }
+                timerNew.pause();
+            }
+        }
+        System.out.println(timerLegacy.toString());
+        System.out.println(timerNew.toString());
+    }
+}
@@ -0,0 +1,150 @@
+package org.jlab.rec.dc.trajectory;
+
+import eu.mihosoft.vrl.v3d.Vector3d;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.jlab.detector.base.DetectorType;
+import org.jlab.detector.base.GeometryFactory;
+import org.jlab.detector.geant4.v2.DCGeant4Factory;
+import org.jlab.detector.geant4.v2.ECGeant4Factory;
+import org.jlab.detector.geant4.v2.FTOFGeant4Factory;
+import org.jlab.detector.geant4.v2.GeometrySnapshot;
+import org.jlab.detector.geant4.v2.PCALGeant4Factory;
+import org.jlab.geom.base.ConstantProvider;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Saves a geometry snapshot, reads it back and compares the restored DC wires
+ * and trajectory surfaces with the ones built from the database, and checks
+ * that a snapshot made for another configuration is not used.
+ */
+public class GeometrySnapshotTest {
+
+    private static final int RUN = 11;
+
+    private static File directory;
+
+    @BeforeClass
+    public static void createDirectory() throws Exception {
+        System.setProperty("CLAS12DIR", "../../");
+        directory = Files.createTempDirectory("geometry").toFile();
+    }
+
+    @AfterClass
+    public static void deleteDirectory() {
+        if (directory != null) {
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    private static void assertVector(String message, Vector3d expected, Vector3d actual) {
+        assertEquals(message, expected.x, actual.x, 0.0);
+        assertEquals(message, expected.y, actual.y, 0.0);
+        assertEquals(message, expected.z, actual.z, 0.0);
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        GeometrySnapshot created = GeometrySnapshot.create(RUN, "default", "default", DCGeant4Factory.MINISTAGGERON);
+        File file = new File(directory, created.getKey() + ".bin");
+        created.write(file);
+        GeometrySnapshot restored = GeometrySnapshot.read(file);
+        assertEquals(created.getKey(), restored.getKey());
+        assertEquals(created.getDatabase(), restored.getDatabase());
+        assertEquals(created.getConstantsHash(), restored.getConstantsHash());
+
+        // freshly built geometry
+        ConstantProvider providerDC = GeometryFactory.getConstants(DetectorType.DC, RUN, "default");
+        ConstantProvider providerFTOF = GeometryFactory.getConstants(DetectorType.FTOF, RUN, "default");
+        ConstantProvider providerEC = GeometryFactory.getConstants(DetectorType.ECAL, RUN, "default");
+        DCGeant4Factory dcDetector = new DCGeant4Factory(providerDC, DCGeant4Factory.MINISTAGGERON);
+        FTOFGeant4Factory ftofDetector = new FTOFGeant4Factory(providerFTOF);
+        ECGeant4Factory ecDetector = new ECGeant4Factory(providerEC);
+        PCALGeant4Factory pcalDetector = new PCALGeant4Factory(providerEC);
+
+        DCGeant4Factory dcRestored = restored.getDCDetector();
+        int nwires = 0;
+        for (int isec = 0; isec < 6; isec++) {
+            for (int ireg = 0; ireg < 3; ireg++) {
+                assertVector("region " + ireg, dcDetector.getRegionMidpoint(isec, ireg), dcRestored.getRegionMidpoint(isec, ireg));
+            }
+            for (int isuper = 0; isuper < 6; isuper++) {
+                assertEquals(dcDetector.getNumberOfLayers(isec, isuper), dcRestored.getNumberOfLayers(isec, isuper));
+                for (int ilayer = 0; ilayer < dcDetector.getNumberOfLayers(isec, isuper); ilayer++) {
+                    assertVector("layer " + ilayer, dcDetector.getLayerMidpoint(isec, isuper, ilayer),
+                            dcRestored.getLayerMidpoint(isec, isuper, ilayer));
+                    assertEquals(dcDetector.getNumberOfWires(isec, isuper, ilayer), dcRestored.getNumberOfWires(isec, isuper, ilayer));
+                    for (int iwire = 0; iwire < dcDetector.getNumberOfWires(isec, isuper, ilayer); iwire++) {
+                        String wire = String.format("sector %d superlayer %d layer %d wire %d", isec, isuper, ilayer, iwire);
+                        assertVector(wire, dcDetector.getWireMidpoint(isec, isuper, ilayer, iwire),
+                                dcRestored.getWireMidpoint(isec, isuper, ilayer, iwire));
+                        assertVector(wire, dcDetector.getWireDirection(isec, isuper, ilayer, iwire),
+                                dcRestored.getWireDirection(isec, isuper, ilayer, iwire));
+                        assertVector(wire, dcDetector.getWireLeftend(isec, isuper, ilayer, iwire),
+                                dcRestored.getWireLeftend(isec, isuper, ilayer, iwire));
+                        assertVector(wire, dcDetector.getWireRightend(isec, isuper, ilayer, iwire),
+                                dcRestored.getWireRightend(isec, isuper, ilayer, iwire));
+                        nwires++;
+                    }
+                }
+            }
+        }
+        assertTrue(nwires >= 6 * 6 * 6 * 112);
+
+        TrajectorySurfaces expected = new TrajectorySurfaces();
+        expected.LoadSurfaces(dcDetector, ftofDetector, ecDetector, pcalDetector);
+        TrajectorySurfaces surfaces = new TrajectorySurfaces();
+        surfaces.LoadSurfaces(restored);
+        List<ArrayList<Surface>> expectedPlanes = expected.getDetectorPlanes();
+        List<ArrayList<Surface>> planes = surfaces.getDetectorPlanes();
+        assertEquals(expectedPlanes.size(), planes.size());
+        for (int isec = 0; isec < expectedPlanes.size(); isec++) {
+            assertEquals(expectedPlanes.get(isec).size(), planes.get(isec).size());
+            for (int i = 0; i < planes.get(isec).size(); i++) {
+                Surface e = expectedPlanes.get(isec).get(i);
+                Surface s = planes.get(isec).get(i);
+                String surface = "sector " + isec + " surface " + e.getDetectorName();
+                assertEquals(surface, e.getDetectorName(), s.getDetectorName());
+                assertEquals(surface, e.getDetectorIndex(), s.getDetectorIndex());
+                assertEquals(surface, e.getDetectorLayer(), s.getDetectorLayer());
+                assertEquals(surface, e.get_d(), s.get_d(), 0.0);
+                assertEquals(surface, e.get_nx(), s.get_nx(), 0.0);
+                assertEquals(surface, e.get_ny(), s.get_ny(), 0.0);
+                assertEquals(surface, e.get_nz(), s.get_nz(), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testOtherConfiguration() throws Exception {
+        // a snapshot with ministagger on, saved under the name of the one without
+        GeometrySnapshot other = GeometrySnapshot.create(RUN, "default", "default", DCGeant4Factory.MINISTAGGERON);
+        GeometrySnapshot expected = GeometrySnapshot.create(RUN, "default", "default", DCGeant4Factory.MINISTAGGEROFF);
+        File file = new File(directory, expected.getKey() + ".bin");
+        File tmp = new File(directory, "other.tmp");
+        other.write(tmp);
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        assertNotEquals(expected.getKey(), GeometrySnapshot.read(file).getKey());
+
+        GeometrySnapshot snapshot = GeometrySnapshot.getInstance(RUN, "default", "default",
+                DCGeant4Factory.MINISTAGGEROFF, directory.getPath());
+        assertEquals(expected.getKey(), snapshot.getKey());
+        assertEquals(expected.getConstantsHash(), snapshot.getConstantsHash());
+        // the file is replaced by the snapshot for this configuration
+        assertEquals(expected.getKey(), GeometrySnapshot.read(file).getKey());
+        for (int isuper = 0; isuper < 6; isuper++) {
+            assertVector("superlayer " + isuper, expected.getDCDetector().getWireMidpoint(0, isuper, 0, 10),
+                    snapshot.getDCDetector().getWireMidpoint(0, isuper, 0, 10));
+        }
+    }
+}
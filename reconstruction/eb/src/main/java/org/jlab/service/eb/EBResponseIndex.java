@@ -0,0 +1,195 @@
+package org.jlab.service.eb;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jlab.clas.detector.DetectorResponse;
+import org.jlab.detector.base.DetectorType;
+import org.jlab.geom.prim.Line3D;
+
+/**
+ * Index of the detector responses of one event, used to match tracks to
+ * responses without scanning all responses for each particle and layer.
+ *
+ * Responses are bucketed by detector type and layer (layer 0 holds all the
+ * layers of the detector), and inside each bucket by a grid in polar and
+ * azimuthal angle of the response position.  Each grid cell keeps the box
+ * bounding its responses, and a cell is skipped when the box is farther from
+ * the track than the matching threshold or than the best response found so
+ * far.  The distance is computed with the same arithmetic as
+ * DetectorParticle.getDetectorHit(), and among responses at the same distance
+ * the first one in the list is chosen, so the matching is identical to the
+ * linear scan.
+ *
+ * The index is built from the response positions and reads the response
+ * associations at query time; it must be rebuilt if responses are added.
+ */
+public class EBResponseIndex {
+
+    // same starting distance as DetectorParticle.getDetectorHit():
+    private static final double MAXDISTANCE = 500.0;
+
+    // margin on the cell distance bound, for rounding:
+    private static final double TOLERANCE = 1e-6;
+
+    private static final int NTHETA = 18;
+    private static final int NPHI   = 24;
+
+    private final List<DetectorResponse> responses;
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    private final Map<Integer,Bucket> buckets = new HashMap<Integer,Bucket>();
+
+    public EBResponseIndex(List<DetectorResponse> responses) {
+        this.responses = responses;
+        final int n = responses.size();
+        x = new double[n];
+        y = new double[n];
+        z = new double[n];
+        for (int ii=0; ii<n; ii++) {
+            DetectorResponse r = responses.get(ii);
+            x[ii] = r.getPosition().x();
+            y[ii] = r.getPosition().y();
+            z[ii] = r.getPosition().z();
+            final DetectorType type = r.getDescriptor().getType();
+            final int layer = r.getDescriptor().getLayer();
+            this.getBucket(type,0).add(ii);
+            if (layer>0) this.getBucket(type,layer).add(ii);
+        }
+    }
+
+    public List<DetectorResponse> getResponses() {
+        return responses;
+    }
+
+    private static int key(DetectorType type,int layer) {
+        return type.getDetectorId()*1000 + layer;
+    }
+
+    private Bucket getBucket(DetectorType type,int layer) {
+        Bucket bucket = buckets.get(key(type,layer));
+        if (bucket==null) {
+            bucket = new Bucket();
+            buckets.put(key(type,layer),bucket);
+        }
+        return bucket;
+    }
+
+    /**
+     * Find the closest unassociated response of given detector type and layer
+     * within given distance of the trajectory, same as
+     * DetectorParticle.getDetectorHit().
+     *
+     * @param trajectory the track line
+     * @param type detector type to find
+     * @param layer detector layer to find, 0 for any layer
+     * @param distanceThreshold maximum distance between trajectory and hit
+     * @return the index of the response in the list, or -1 if none
+     */
+    public int getDetectorHit(Line3D trajectory,DetectorType type,int layer,double distanceThreshold) {
+        final Bucket bucket = buckets.get(key(type,layer<=0 ? 0 : layer));
+        if (bucket==null) return -1;
+
+        final double x0 = trajectory.origin().x();
+        final double y0 = trajectory.origin().y();
+        final double z0 = trajectory.origin().z();
+        final double x1 = trajectory.end().x();
+        final double y1 = trajectory.end().y();
+        final double z1 = trajectory.end().z();
+
+        double minimumDistance = MAXDISTANCE;
+        int    bestIndex       = -1;
+        for (Cell cell : bucket.cells) {
+            final double bound = distance(x0,y0,z0,x1,y1,z1,
+                    (cell.xmin+cell.xmax)/2,(cell.ymin+cell.ymax)/2,(cell.zmin+cell.zmax)/2)
+                    - cell.radius() - TOLERANCE;
+            if (bound>=distanceThreshold || bound>minimumDistance) continue;
+            for (int jj=0; jj<cell.size; jj++) {
+                final int ii = cell.members[jj];
+                if (responses.get(ii).getAssociation()>=0) continue;
+                final double hitdistance = distance(x0,y0,z0,x1,y1,z1,x[ii],y[ii],z[ii]);
+                if (hitdistance<distanceThreshold &&
+                   (hitdistance<minimumDistance || (hitdistance==minimumDistance && ii<bestIndex))) {
+                    minimumDistance = hitdistance;
+                    bestIndex       = ii;
+                }
+            }
+        }
+        return bestIndex;
+    }
+
+    /**
+     * Distance between the line through the first two points and the third
+     * point, computed as Line3D.distance(Point3D).length().
+     */
+    static double distance(double x0,double y0,double z0,double x1,double y1,double z1,
+            double px,double py,double pz) {
+        final double vx = x1-x0;
+        final double vy = y1-y0;
+        final double vz = z1-z0;
+        final double c1 = (px-x0)*vx + (py-y0)*vy + (pz-z0)*vz;
+        final double c2 = vx*vx + vy*vy + vz*vz;
+        final double b = c1/c2;
+        final double lx = x0+(x1-x0)*b;
+        final double ly = y0+(y1-y0)*b;
+        final double lz = z0+(z1-z0)*b;
+        return Math.sqrt((px-lx)*(px-lx) + (py-ly)*(py-ly) + (pz-lz)*(pz-lz));
+    }
+
+    /**
+     * The responses of one detector type and layer, on a theta/phi grid.
+     */
+    private class Bucket {
+        private final Cell[] grid = new Cell[NTHETA*NPHI];
+        private final List<Cell> cells = new ArrayList<Cell>();
+
+        private void add(int ii) {
+            final double theta = Math.atan2(Math.sqrt(x[ii]*x[ii]+y[ii]*y[ii]),z[ii]);
+            final double phi = Math.atan2(y[ii],x[ii]);
+            int itheta = (int)(theta/Math.PI*NTHETA);
+            int iphi = (int)((phi+Math.PI)/(2*Math.PI)*NPHI);
+            itheta = Math.max(0,Math.min(NTHETA-1,itheta));
+            iphi = Math.max(0,Math.min(NPHI-1,iphi));
+            Cell cell = grid[itheta*NPHI+iphi];
+            if (cell==null) {
+                cell = new Cell();
+                grid[itheta*NPHI+iphi] = cell;
+                cells.add(cell);
+            }
+            cell.add(ii,x[ii],y[ii],z[ii]);
+        }
+    }
+
+    /**
+     * Response indices in one grid cell, in list order, and their bounding box.
+     */
+    private static class Cell {
+        private int[] members = new int[4];
+        private int size = 0;
+        private double xmin = Double.POSITIVE_INFINITY, xmax = Double.NEGATIVE_INFINITY;
+        private double ymin = Double.POSITIVE_INFINITY, ymax = Double.NEGATIVE_INFINITY;
+        private double zmin = Double.POSITIVE_INFINITY, zmax = Double.NEGATIVE_INFINITY;
+
+        private void add(int ii,double x,double y,double z) {
+            if (size==members.length) {
+                int[] larger = new int[2*size];
+                System.arraycopy(members,0,larger,0,size);
+                members = larger;
+            }
+            members[size++] = ii;
+            xmin = Math.min(xmin,x); xmax = Math.max(xmax,x);
+            ymin = Math.min(ymin,y); ymax = Math.max(ymax,y);
+            zmin = Math.min(zmin,z); zmax = Math.max(zmax,z);
+        }
+
+        private double radius() {
+            final double dx = xmax-xmin;
+            final double dy = ymax-ymin;
+            final double dz = zmax-zmin;
+            return Math.sqrt(dx*dx+dy*dy+dz*dz)/2;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 import org.jlab.detector.base.DetectorType;
 import org.jlab.io.base.DataBank;
+import org.jlab.io.base.DataColumn;
 import org.jlab.io.base.DataEvent;
 import org.jlab.io.evio.EvioDataBank;
 import org.jlab.io.evio.EvioFactory;
@@ -75,46 +76,55 @@ public class EBio {
         List<DetectorParticle> dpList = new ArrayList<DetectorParticle>();
     
         if(event.hasBank(bankName)==true){
-            EvioDataBank bank = (EvioDataBank) event.getBank(bankName);
+            DataBank bank = event.getBank(bankName);
             
             int nrows = bank.rows();
             
+            // columns are looked up once for all rows
+            DataColumn status = bank.getColumn("status");
+            DataColumn p0x  = bank.getColumn("p0_x");
+            DataColumn p0y  = bank.getColumn("p0_y");
+            DataColumn p0z  = bank.getColumn("p0_z");
+            DataColumn vtxx = bank.getColumn("Vtx0_x");
+            DataColumn vtxy = bank.getColumn("Vtx0_y");
+            DataColumn vtxz = bank.getColumn("Vtx0_z");
+            DataColumn c3x  = bank.getColumn("c3_x");
+            DataColumn c3y  = bank.getColumn("c3_y");
+            DataColumn c3z  = bank.getColumn("c3_z");
+            DataColumn c3ux = bank.getColumn("c3_ux");
+            DataColumn c3uy = bank.getColumn("c3_uy");
+            DataColumn c3uz = bank.getColumn("c3_uz");
+            DataColumn c1x  = bank.getColumn("c1_x");
+            DataColumn c1y  = bank.getColumn("c1_y");
+            DataColumn c1z  = bank.getColumn("c1_z");
+            DataColumn c1ux = bank.getColumn("c1_ux");
+            DataColumn c1uy = bank.getColumn("c1_uy");
+            DataColumn c1uz = bank.getColumn("c1_uz");
+            DataColumn path = bank.getColumn("pathlength");
+            DataColumn q    = bank.getColumn("q");
+            
             for(int i = 0; i < nrows; i++){
                 
                 DetectorParticle p = new DetectorParticle();
                 
-                int trStatus = bank.getInt("status", i);
+                int trStatus = status.getInt(i);
                 
                 p.setStatus(100+10*trStatus);
-                p.vector().setXYZ(
-                        bank.getDouble("p0_x",i),
-                        bank.getDouble("p0_y",i),
-                        bank.getDouble("p0_z",i));
+                p.vector().setXYZ(p0x.getDouble(i), p0y.getDouble(i), p0z.getDouble(i));
                 
-                p.vertex().setXYZ(
-                        bank.getDouble("Vtx0_x",i),
-                        bank.getDouble("Vtx0_y",i),
-                        bank.getDouble("Vtx0_z",i));
+                p.vertex().setXYZ(vtxx.getDouble(i), vtxy.getDouble(i), vtxz.getDouble(i));
                 
                 p.setCross( 
-                        bank.getDouble("c3_x", i),
-                        bank.getDouble("c3_y", i),
-                        bank.getDouble("c3_z", i),
-                        bank.getDouble("c3_ux", i),
-                        bank.getDouble("c3_uy", i),
-                        bank.getDouble("c3_uz", i)
+                        c3x.getDouble(i),  c3y.getDouble(i),  c3z.getDouble(i),
+                        c3ux.getDouble(i), c3uy.getDouble(i), c3uz.getDouble(i)
                 );
                 p.setLowerCross(
-                        bank.getDouble("c1_x", i),
-                        bank.getDouble("c1_y", i),
-                        bank.getDouble("c1_z", i),
-                        bank.getDouble("c1_ux", i),
-                        bank.getDouble("c1_uy", i),
-                        bank.getDouble("c1_uz", i)
+                        c1x.getDouble(i),  c1y.getDouble(i),  c1z.getDouble(i),
+                        c1ux.getDouble(i), c1uy.getDouble(i), c1uz.getDouble(i)
                 );         
                 //   System.out.println(p.getLowerCross());
-                p.setPath(bank.getDouble("pathlength", i));
-                p.setCharge(bank.getInt("q", i));
+                p.setPath(path.getDouble(i));
+                p.setCharge(q.getInt(i));
                 dpList.add(p);
             }
         }
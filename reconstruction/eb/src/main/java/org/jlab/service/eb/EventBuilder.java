@@ -90,6 +90,10 @@ public class EventBuilder {
      */
     public void processHitMatching(){
         
+        // index of the responses, to avoid scanning all of them for each
+        // particle, detector and layer:
+        EBResponseIndex index = new EBResponseIndex(detectorResponses);
+
         int np = detectorEvent.getParticles().size();
         for(int n = 0; n < np; n++){
             DetectorParticle  p = this.detectorEvent.getParticle(n);
@@ -104,14 +108,14 @@ public class EventBuilder {
             if (p.getTrackDetectorID()==DetectorType.DC.getDetectorId()) {
 
                 // FTOF:
-                findMatchingHit(n,p,detectorResponses,DetectorType.FTOF, 1, ccdb.getDouble(EBCCDBEnum.FTOF_MATCHING_1A));
-                findMatchingHit(n,p,detectorResponses,DetectorType.FTOF, 2, ccdb.getDouble(EBCCDBEnum.FTOF_MATCHING_1B));
-                findMatchingHit(n,p,detectorResponses,DetectorType.FTOF, 3, ccdb.getDouble(EBCCDBEnum.FTOF_MATCHING_2));
+                findMatchingHit(n,p,index,DetectorType.FTOF, 1, ccdb.getDouble(EBCCDBEnum.FTOF_MATCHING_1A));
+                findMatchingHit(n,p,index,DetectorType.FTOF, 2, ccdb.getDouble(EBCCDBEnum.FTOF_MATCHING_1B));
+                findMatchingHit(n,p,index,DetectorType.FTOF, 3, ccdb.getDouble(EBCCDBEnum.FTOF_MATCHING_2));
                 
                 // ECAL:
-                findMatchingHit(n,p,detectorResponses,DetectorType.ECAL, 1, ccdb.getDouble(EBCCDBEnum.PCAL_MATCHING));
-                findMatchingHit(n,p,detectorResponses,DetectorType.ECAL, 4, ccdb.getDouble(EBCCDBEnum.ECIN_MATCHING));
-                findMatchingHit(n,p,detectorResponses,DetectorType.ECAL, 7, ccdb.getDouble(EBCCDBEnum.ECOUT_MATCHING));
+                findMatchingHit(n,p,index,DetectorType.ECAL, 1, ccdb.getDouble(EBCCDBEnum.PCAL_MATCHING));
+                findMatchingHit(n,p,index,DetectorType.ECAL, 4, ccdb.getDouble(EBCCDBEnum.ECIN_MATCHING));
+                findMatchingHit(n,p,index,DetectorType.ECAL, 7, ccdb.getDouble(EBCCDBEnum.ECOUT_MATCHING));
 
 // Treat HTCC specially below, leave this here for now.
 //                // HTCC:
@@ -123,45 +127,27 @@ public class EventBuilder {
 //                } 
 
                 // LTCC:
-                int index = p.getCherenkovSignal(this.detectorResponses,DetectorType.LTCC);
-                if(index>=0){
-                    p.addResponse(detectorResponses.get(index));
-                    detectorResponses.get(index).setAssociation(n);
+                int ltcc = p.getCherenkovSignal(this.detectorResponses,DetectorType.LTCC);
+                if(ltcc>=0){
+                    p.addResponse(detectorResponses.get(ltcc));
+                    detectorResponses.get(ltcc).setAssociation(n);
                 }
             }
 
             // only match with CTOF/CND if it's a central track:
             else if (p.getTrackDetectorID()==DetectorType.CVT.getDetectorId()) {
                 // NOTE:  Should we do 2-d matching in cylindrical coordinates for CD?
-                findMatchingHit(n,p,detectorResponses,DetectorType.CTOF,0, ccdb.getDouble(EBCCDBEnum.CTOF_DZ));
-                findMatchingHit(n,p,detectorResponses,DetectorType.CND, 0, ccdb.getDouble(EBCCDBEnum.CND_DZ));
+                findMatchingHit(n,p,index,DetectorType.CTOF,0, ccdb.getDouble(EBCCDBEnum.CTOF_DZ));
+                findMatchingHit(n,p,index,DetectorType.CND, 0, ccdb.getDouble(EBCCDBEnum.CND_DZ));
             }
 
         }
 
         // Special treatment for HTCC, with coarse resolution.
         // Try all combos of HTCC clusters and particle to find best matches.
-        while (true) {
-            int bestPart=-1;
-            int bestRes=-1;
-            CherenkovResponse.TrackResidual bestTR=null;
-            for (int ires=0; ires<this.detectorResponses.size(); ires++) {
-                if (this.detectorResponses.get(ires).getDescriptor().getType() != DetectorType.HTCC) continue;
-                if (this.detectorResponses.get(ires).getAssociation()>=0) continue;
-                CherenkovResponse che=(CherenkovResponse)this.detectorResponses.get(ires);
-                int ipart = che.findClosestTrack(this.detectorEvent.getParticles());
-                if (ipart < 0) continue;
-                CherenkovResponse.TrackResidual tr = che.getTrackResidual(this.detectorEvent.getParticle(ipart));
-                if (bestTR==null || tr.compareTo(bestTR)<0) {
-                    bestPart = ipart;
-                    bestRes = ires;
-                    bestTR = tr;
-                }
-            }
-            if (bestTR==null) break;
-            this.detectorEvent.getParticle(bestPart).addResponse(this.detectorResponses.get(bestRes),true);
-            this.detectorResponses.get(bestRes).setAssociation(bestPart);
-        }
+        // The residuals depend only on the cluster and the track, they are
+        // computed once and reused until all clusters are matched.
+        processCherenkovMatching(DetectorType.HTCC);
        /* 
         // Special treatment for HTCC, with coarse resolution.
         // Find matching particle for each cluster.
@@ -205,6 +191,101 @@ public class EventBuilder {
         return false;
     }
     
+    /**
+     * Find closest matching response of given detector type and layer within given distance,
+     * using the event's response index.  Same as findMatchingHit with the list of responses.
+     *
+     * @param pindex the particle's index
+     * @param particle the particle
+     * @param index the index of the responses
+     * @param type detector type to find
+     * @param layer detector layer to find
+     * @param distance maximum distance between trajectory and hit
+     *
+     * @return whether match was found
+     */
+    public boolean findMatchingHit(
+            final int pindex, DetectorParticle particle, EBResponseIndex index,
+            DetectorType type, final int layer, final double distance) {
+        final int ii = index.getDetectorHit(particle.getLastCross(),type,layer,distance);
+        if (ii>=0) {
+            final DetectorResponse response = index.getResponses().get(ii);
+            particle.addResponse(response,true);
+            response.setAssociation(pindex);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Match Cherenkov clusters and tracks, best residual first, until no
+     * unmatched cluster has a matching track.  Each step chooses the same
+     * pair as CherenkovResponse.findClosestTrack() looped over all clusters,
+     * with the residuals of each cluster-track pair computed only once.
+     *
+     * @param type the Cherenkov detector type
+     */
+    private void processCherenkovMatching(DetectorType type) {
+
+        List<DetectorParticle> particles = this.detectorEvent.getParticles();
+        List<Integer> clusters = new ArrayList<Integer>();
+        for (int ires=0; ires<this.detectorResponses.size(); ires++) {
+            if (this.detectorResponses.get(ires).getDescriptor().getType() != type) continue;
+            clusters.add(ires);
+        }
+        if (clusters.isEmpty()) return;
+
+        // whether each particle can still be matched:
+        boolean[] open = new boolean[particles.size()];
+        for (int ipart=0; ipart<particles.size(); ipart++) {
+            DetectorParticle p = particles.get(ipart);
+            open[ipart] = p.getCharge()!=0 &&
+                          p.getTrackDetectorID()==DetectorType.DC.getDetectorId() &&
+                          p.countResponses(type)==0;
+        }
+
+        CherenkovResponse.TrackResidual[][] residuals =
+                new CherenkovResponse.TrackResidual[clusters.size()][particles.size()];
+
+        while (true) {
+            int bestPart=-1;
+            int bestRes=-1;
+            CherenkovResponse.TrackResidual bestTR=null;
+            for (int icl=0; icl<clusters.size(); icl++) {
+                final int ires = clusters.get(icl);
+                if (this.detectorResponses.get(ires).getAssociation()>=0) continue;
+                CherenkovResponse che=(CherenkovResponse)this.detectorResponses.get(ires);
+                // closest track, as in CherenkovResponse.findClosestTrack():
+                int ipart=-1;
+                CherenkovResponse.TrackResidual tr=null;
+                for (int jpart=0; jpart<particles.size(); jpart++) {
+                    if (!open[jpart]) continue;
+                    if (residuals[icl][jpart]==null) {
+                        residuals[icl][jpart] = che.getTrackResidual(particles.get(jpart));
+                    }
+                    CherenkovResponse.TrackResidual trj = residuals[icl][jpart];
+                    if (tr == null || trj.compareTo(tr)<0) {
+                        if (trj.getDeltaTheta() < che.getDeltaTheta() &&
+                            trj.getDeltaPhi() < che.getDeltaPhi()) {
+                            tr=trj;
+                            ipart=jpart;
+                        }
+                    }
+                }
+                if (ipart < 0) continue;
+                if (bestTR==null || tr.compareTo(bestTR)<0) {
+                    bestPart = ipart;
+                    bestRes = ires;
+                    bestTR = tr;
+                }
+            }
+            if (bestTR==null) break;
+            this.detectorEvent.getParticle(bestPart).addResponse(this.detectorResponses.get(bestRes),true);
+            this.detectorResponses.get(bestRes).setAssociation(bestPart);
+            open[bestPart] = false;
+        }
+    }
+
     public void forwardTaggerIDMatching() {
         int np = this.detectorEvent.getParticles().size();
         if(this.ftIndices.size()>0 && this.detectorEvent.getParticles().size()>0) {
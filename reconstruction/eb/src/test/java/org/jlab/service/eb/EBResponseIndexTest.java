@@ -0,0 +1,80 @@
+package org.jlab.service.eb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import org.jlab.clas.detector.DetectorParticle;
+import org.jlab.clas.detector.DetectorResponse;
+import org.jlab.clas.detector.DetectorTrack;
+import org.jlab.detector.base.DetectorType;
+
+/**
+ * Checks that the response index chooses the same responses as
+ * DetectorParticle.getDetectorHit().
+ */
+public class EBResponseIndexTest {
+
+    private static List<DetectorResponse> createResponses(Random rand) {
+        List<DetectorResponse> responses = new ArrayList<DetectorResponse>();
+        for (int ii=0; ii<400; ii++) {
+            DetectorResponse r = new DetectorResponse(1+rand.nextInt(6),1+rand.nextInt(3),1);
+            r.getDescriptor().setType(ii%2==0 ? DetectorType.FTOF : DetectorType.ECAL);
+            double theta = Math.toRadians(5+30*rand.nextDouble());
+            double phi = Math.toRadians(360*rand.nextDouble()-180);
+            double dist = 650+60*rand.nextDouble();
+            r.setPosition(dist*Math.sin(theta)*Math.cos(phi),
+                          dist*Math.sin(theta)*Math.sin(phi),
+                          dist*Math.cos(theta));
+            if (rand.nextInt(10)==0) r.setAssociation(0);
+            responses.add(r);
+        }
+        // responses at the same position, the first one is chosen:
+        for (int ii=0; ii<20; ii++) {
+            DetectorResponse copy = new DetectorResponse(1,1,1);
+            DetectorResponse r = responses.get(ii);
+            copy.getDescriptor().setType(r.getDescriptor().getType());
+            copy.getDescriptor().setSectorLayerComponent(r.getSector(),r.getDescriptor().getLayer(),2);
+            copy.setPosition(r.getPosition().x(),r.getPosition().y(),r.getPosition().z());
+            responses.add(copy);
+        }
+        return responses;
+    }
+
+    @Test
+    public void testMatching() {
+        Random rand = new Random(12345);
+        List<DetectorResponse> responses = createResponses(rand);
+        EBResponseIndex index = new EBResponseIndex(responses);
+        int nMatched = 0;
+        for (int ii=0; ii<responses.size(); ii++) {
+            DetectorTrack track = new DetectorTrack(-1);
+            DetectorResponse r = responses.get(rand.nextInt(responses.size()));
+            // line towards a response, slightly off:
+            double ux = r.getPosition().x()+10*rand.nextGaussian();
+            double uy = r.getPosition().y()+10*rand.nextGaussian();
+            double uz = r.getPosition().z()+10*rand.nextGaussian();
+            double norm = Math.sqrt(ux*ux+uy*uy+uz*uz);
+            track.addCross(0.3*ux,0.3*uy,0.3*uz,ux/norm,uy/norm,uz/norm);
+            DetectorParticle particle = new DetectorParticle(track);
+            for (DetectorType type : new DetectorType[]{DetectorType.FTOF,DetectorType.ECAL}) {
+                for (int layer=0; layer<=3; layer++) {
+                    for (double threshold : new double[]{5,30,100,1000}) {
+                        int expected = particle.getDetectorHit(responses,type,layer,threshold);
+                        assertEquals(expected,index.getDetectorHit(particle.getLastCross(),type,layer,threshold));
+                        if (expected>=0) nMatched++;
+                    }
+                }
+            }
+        }
+        assertTrue(nMatched>0);
+
+        // no responses of this type:
+        DetectorTrack track = new DetectorTrack(1);
+        track.addCross(0,0,300,0,0,1);
+        assertEquals(-1,index.getDetectorHit(track.getLastCross(),DetectorType.HTCC,0,1000));
+    }
+}
@@ -23,79 +23,33 @@ import org.jlab.utils.groups.IndexedTable;
 
 public class ECCommon {
     
-    public static List<ECStrip>     myStrips = new ArrayList<ECStrip>();
-    public static List<ECPeak>       myPeaks = new ArrayList<ECPeak>();
-    public static List<ECCluster> myClusters = new ArrayList<ECCluster>();
-    
     public static int[]  stripThreshold = new int[3];
     public static int[]   peakThreshold = new int[3]; 
     public static float[]  clusterError = new float[3];
 	public static float[] clusterDeltaT = new float[3];
     public static Boolean         debug = false;
-    public static Boolean isSingleThreaded = false;
-    public static Boolean      singleEvent = false;
     public static String         variation = "default";
     
     private static double[] AtoE  = {15,10,10};   // SCALED ADC to Energy in MeV
     private static double[] AtoE5 = {15,5,5};     // For Sector 5 ECAL
     
-    public static DetectorCollection<H1F> H1_ecEng = new DetectorCollection<H1F>();
-    
     static int ind[]  = {0,0,0,1,1,1,2,2,2}; 
     static float               tps = 0.02345f;
     public static float       veff = 18.1f;
     
-    public  static void initHistos() {
-       
-        for (int is=1; is<7; is++){
-            for (int il=1; il<4; il++) {             
-                H1_ecEng.add(is,il,0, new H1F("Cluster Errors",55,-10.,100.));
-                H1_ecEng.add(is,il,1, new H1F("Cluster Errors",55,-10.,100.));
-            }
-        }
-    }
-    
-    public static void resetHistos() {
-        
-        for (int is=1; is<7; is++){
-            for (int il=1; il<4; il++) {             
-                H1_ecEng.get(is,il,0).reset();
-                H1_ecEng.get(is,il,1).reset();
-            }
-        }       
-    }
-    
     public static void setDebug(boolean val) {
     	debug = val;
     }
     
-    public static void setisSingleThreaded(boolean val) {
-        isSingleThreaded = val;
-    }
-    
-    public static void setSingleEvent(boolean val) {
-    	singleEvent = val;
-    }
-    
-    public static void clearMyStructures() {
-    	getMyStrips().clear();
-    	getMyPeaks().clear();
-    	getMyClusters().clear();
-    }
-    
-    public static List<ECStrip> getMyStrips() {
-    	return myStrips;
-    }
-    
-    public static List<ECPeak> getMyPeaks() {
-    	return myPeaks;
-    }
-    
-    public static List<ECCluster> getMyClusters() {
-    	return myClusters;
+    public static List<ECStrip>  initEC(DataEvent event, Detector detector, ConstantsManager manager, int run){
+        return ECCommon.initEC(event, detector, manager, run, new ECContext());
     }
     
-    public static List<ECStrip>  initEC(DataEvent event, Detector detector, ConstantsManager manager, int run){
+    /**
+     * reads the strips of the event and sets their calibration constants.
+     * The strips are stored in the context (which is cleared first).
+     */
+    public static List<ECStrip>  initEC(DataEvent event, Detector detector, ConstantsManager manager, int run, ECContext context){
     	
         manager.setVariation(variation);
 
@@ -105,13 +59,12 @@ public class ECCommon {
 		IndexedTable    shift = manager.getConstants(run, "/calibration/ec/global_gain_shift");
 		IndexedTable       ev = manager.getConstants(run, "/calibration/ec/effective_velocity");
     
-        if (singleEvent) resetHistos();        
+        context.clear();
+        if (context.isSingleEvent()) context.resetHistograms();
         
-        List<ECStrip>  ecStrips = null;
+        List<ECStrip>  ecStrips = context.getStrips();
         
-        if(event instanceof HipoDataEvent) ecStrips = ECCommon.readStripsHipo(event, run, manager);
-        
-        if(ecStrips==null) return new ArrayList<ECStrip>();
+        if(event instanceof HipoDataEvent) ECCommon.readStripsHipo(event, run, manager, context);
         
         Collections.sort(ecStrips);
         
@@ -148,9 +101,18 @@ public class ECCommon {
     }
         
     public static List<ECStrip>  readStripsHipo(DataEvent event, int run, ConstantsManager manager){ 
+        ECContext context = new ECContext();
+        return ECCommon.readStripsHipo(event, run, manager, context);
+    }
+    
+    /**
+     * reads the strips passing the threshold into the context, matching
+     * them with the TDC hits.
+     */
+    public static List<ECStrip>  readStripsHipo(DataEvent event, int run, ConstantsManager manager, ECContext context){ 
     	
-      	List<ECStrip>  strips = new ArrayList<ECStrip>();
-        IndexedList<List<Integer>>  tdcs = new IndexedList<List<Integer>>(3);  
+      	List<ECStrip>  strips = context.getStrips();
+        IndexedList<List<Integer>>  tdcs = context.getTDCs();  
         
 		IndexedTable   jitter = manager.getConstants(run, "/calibration/ec/time_jitter");
 		IndexedTable   offset = manager.getConstants(run, "/calibration/ec/fadc_offset");
@@ -176,10 +138,7 @@ public class ECCommon {
                 int  il = bank.getByte("layer",i);
                 int  ip = bank.getShort("component",i);    
                 int tdc = bank.getInt("TDC",i);
-                if(tdc>0) {                       
-                    if(!tdcs.hasItem(is,il,ip)) tdcs.add(new ArrayList<Integer>(),is,il,ip);
-                        tdcs.getItem(is,il,ip).add(tdc);       
-                }
+                if(tdc>0) context.addTDC(tdc,is,il,ip);
             }
         }        
         
@@ -201,14 +160,14 @@ public class ECCommon {
                 if (variation=="clas6") sca = 1.0;               
                 if(strip.getADC()>sca*ECCommon.stripThreshold[ind[il-1]]) strips.add(strip); 
                 
-                Integer[] tdcc; float  tmax = 1000; int tdc = 0;
+                float  tmax = 1000; int tdc = 0;
                 
-                if (tdcs.hasItem(is,il,ip)) {
-                    List<Integer> list = new ArrayList<Integer>();
-                    list = tdcs.getItem(is,il,ip); tdcc=new Integer[list.size()]; list.toArray(tdcc);       
-                    for (int ii=0; ii<tdcc.length; ii++) {
-                    	    float tdif = (tps*tdcc[ii]-triggerPhase-TOFFSET)-t; 
-                    	    if (Math.abs(tdif)<30&&tdif<tmax) {tmax = tdif; tdc = tdcc[ii];}
+                List<Integer> list = tdcs.getItem(is,il,ip);
+                if (list!=null) {
+                    for (int ii=0; ii<list.size(); ii++) {
+                    	    int tdcc = list.get(ii);
+                    	    float tdif = (tps*tdcc-triggerPhase-TOFFSET)-t; 
+                    	    if (Math.abs(tdif)<30&&tdif<tmax) {tmax = tdif; tdc = tdcc;}
                     }
                     strip.setTDC(tdc); 
                 }              
@@ -295,6 +254,17 @@ public class ECCommon {
     }
     
     public static List<ECCluster>   createClusters(List<ECPeak>  peaks, int startLayer){
+        return ECCommon.createClusters(peaks, startLayer, null);
+    }
+    
+    /**
+     * creates the clusters from the peaks of the three views starting at
+     * startLayer, filling the histograms of the context if enabled.
+     */
+    public static List<ECCluster>   createClusters(List<ECPeak>  peaks, int startLayer, ECContext context){
+
+        boolean fill = context!=null&&context.hasHistograms();
+        DetectorCollection<H1F> histos = fill ? context.getHistograms() : null;
 
         List<ECCluster>   clusters = new ArrayList<ECCluster>();
         
@@ -322,9 +292,9 @@ public class ECCommon {
                             pV.get(bV).redoPeakLine();
                             pW.get(bW).redoPeakLine();
                             ECCluster cluster = new ECCluster(pU.get(bU),pV.get(bV),pW.get(bW));
-                            if(isSingleThreaded)H1_ecEng.get(sector,ind[startLayer-1]+1,0).fill(cluster.getHitPositionError());
+                            if(fill)histos.get(sector,ind[startLayer-1]+1,0).fill(cluster.getHitPositionError());
                             if(cluster.getHitPositionError()<ECCommon.clusterError[ind[startLayer-1]]) {
-                                if(isSingleThreaded)H1_ecEng.get(sector,ind[startLayer-1]+1,1).fill(cluster.getHitPositionError());
+                                if(fill)histos.get(sector,ind[startLayer-1]+1,1).fill(cluster.getHitPositionError());
 //								double tU = cluster.getTime(0);
 //								double tV = cluster.getTime(1);
 //								double tW = cluster.getTime(2);
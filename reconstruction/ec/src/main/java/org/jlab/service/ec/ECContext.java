@@ -0,0 +1,128 @@
+package org.jlab.service.ec;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jlab.detector.base.DetectorCollection;
+import org.jlab.groot.data.H1F;
+import org.jlab.utils.groups.IndexedList;
+
+/**
+ * Per-thread state of the EC reconstruction: the strips, peaks and clusters
+ * of the last event, the TDC lookup used to match TDC to ADC hits, and the
+ * cluster error histograms. Each thread running ECEngine gets its own
+ * context, the containers are cleared and reused from event to event, so
+ * that events processed concurrently do not share anything.
+ */
+
+public class ECContext {
+
+    private final List<ECStrip>     strips   = new ArrayList<ECStrip>();
+    private final List<ECPeak>      peaks    = new ArrayList<ECPeak>();
+    private final List<ECCluster>   clusters = new ArrayList<ECCluster>();
+
+    private final IndexedList<List<Integer>>  tdcs = new IndexedList<List<Integer>>(3);
+    private final List<List<Integer>>      tdcPool = new ArrayList<List<Integer>>();
+    private int                           tdcUsed  = 0;
+
+    private DetectorCollection<H1F>  histos = null;
+    private boolean           fillHistos    = false;
+    private boolean           singleEvent   = false;
+
+    public ECContext(){
+
+    }
+
+    /**
+     * clears the results and the TDC lookup of the previous event.
+     */
+    public void clear(){
+        this.strips.clear();
+        this.peaks.clear();
+        this.clusters.clear();
+        this.tdcs.clear();
+        for(int i = 0; i < tdcUsed; i++) tdcPool.get(i).clear();
+        this.tdcUsed = 0;
+    }
+
+    public List<ECStrip> getStrips() {
+        return strips;
+    }
+
+    public List<ECPeak> getPeaks() {
+        return peaks;
+    }
+
+    public List<ECCluster> getClusters() {
+        return clusters;
+    }
+
+    /**
+     * @return the TDC lookup, indexed by sector, layer and component
+     */
+    public IndexedList<List<Integer>> getTDCs() {
+        return tdcs;
+    }
+
+    /**
+     * adds a TDC value to the lookup, reusing the lists of previous events.
+     */
+    public void addTDC(int tdc, int sector, int layer, int component){
+        List<Integer> list = tdcs.getItem(sector, layer, component);
+        if(list==null){
+            if(tdcUsed==tdcPool.size()) tdcPool.add(new ArrayList<Integer>());
+            list = tdcPool.get(tdcUsed++);
+            tdcs.add(list, sector, layer, component);
+        }
+        list.add(tdc);
+    }
+
+    /**
+     * enables filling of the cluster error histograms.
+     */
+    public void setHistograms(boolean flag){
+        this.fillHistos = flag;
+    }
+
+    public boolean hasHistograms(){
+        return this.fillHistos;
+    }
+
+    /**
+     * if set, histograms are reset at the start of every event.
+     */
+    public void setSingleEvent(boolean flag){
+        this.singleEvent = flag;
+    }
+
+    public boolean isSingleEvent(){
+        return this.singleEvent;
+    }
+
+    /**
+     * @return the cluster error histograms of this context (sector, view, 0 for
+     * all combinations or 1 for the accepted clusters), created when first used
+     */
+    public DetectorCollection<H1F> getHistograms(){
+        if(histos==null){
+            histos = new DetectorCollection<H1F>();
+            for (int is=1; is<7; is++){
+                for (int il=1; il<4; il++) {
+                    histos.add(is,il,0, new H1F("Cluster Errors",55,-10.,100.));
+                    histos.add(is,il,1, new H1F("Cluster Errors",55,-10.,100.));
+                }
+            }
+        }
+        return histos;
+    }
+
+    public void resetHistograms(){
+        if(histos==null) return;
+        for (int is=1; is<7; is++){
+            for (int il=1; il<4; il++) {
+                histos.get(is,il,0).reset();
+                histos.get(is,il,1).reset();
+            }
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package org.jlab.service.ec;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -34,6 +33,17 @@ public class ECEngine extends ReconstructionEngine {
     public Boolean              isMC = false;
     int                       calrun = 2;
     
+    /**
+     * reconstruction state of the calling thread, so that the engine can
+     * process events on several threads at the same time.
+     */
+    private final ThreadLocal<ECContext>  context = new ThreadLocal<ECContext>(){
+        @Override
+        protected ECContext initialValue(){
+            return new ECContext();
+        }
+    };
+    
     public ECEngine(){
         super("EC","gavalian","1.0");
     }
@@ -42,8 +52,9 @@ public class ECEngine extends ReconstructionEngine {
     public boolean processDataEvent(DataEvent de) {
            
         ECCommon.setDebug(debug);
-        ECCommon.setisSingleThreaded(isSingleThreaded);
-        ECCommon.setSingleEvent(singleEvent);
+        ECContext ctx = context.get();
+        ctx.setHistograms(isSingleThreaded);
+        ctx.setSingleEvent(singleEvent);
 
         int runNo = 10;
         
@@ -56,12 +67,13 @@ public class ECEngine extends ReconstructionEngine {
             }
         }
                 
-        List<ECStrip>     ecStrips = ECCommon.initEC(de,  ecDetector, this.getConstantsManager(), runNo); // thresholds, ADC/TDC match        
-        List<ECPeak>      ecPeaks  = ECCommon.processPeaks(ECCommon.createPeaks(ecStrips)); // thresholds, split peaks -> update peak-lines          
-        List<ECCluster> ecClusters = new ArrayList<ECCluster>();
-        ecClusters.addAll(ECCommon.createClusters(ecPeaks,1)); //PCAL
-        ecClusters.addAll(ECCommon.createClusters(ecPeaks,4)); //ECinner
-        ecClusters.addAll(ECCommon.createClusters(ecPeaks,7)); //ECouter
+        List<ECStrip>     ecStrips = ECCommon.initEC(de,  ecDetector, this.getConstantsManager(), runNo, ctx); // thresholds, ADC/TDC match        
+        List<ECPeak>      ecPeaks  = ctx.getPeaks();
+        ecPeaks.addAll(ECCommon.processPeaks(ECCommon.createPeaks(ecStrips))); // thresholds, split peaks -> update peak-lines          
+        List<ECCluster> ecClusters = ctx.getClusters();
+        ecClusters.addAll(ECCommon.createClusters(ecPeaks,1,ctx)); //PCAL
+        ecClusters.addAll(ECCommon.createClusters(ecPeaks,4,ctx)); //ECinner
+        ecClusters.addAll(ECCommon.createClusters(ecPeaks,7,ctx)); //ECouter
         
         ECCommon.shareClustersEnergy(ecClusters);  // Repair 2 clusters which share the same peaks
        
@@ -76,26 +88,28 @@ public class ECEngine extends ReconstructionEngine {
 	    
         if(de instanceof HipoDataEvent) this.writeHipoBanks(de,ecStrips,ecPeaks,ecClusters);
         
-        if (isSingleThreaded) {
-        	ECCommon.clearMyStructures();
-        	getStrips().addAll(ecStrips);
-        	getPeaks().addAll(ecPeaks);
-        	getClusters().addAll(ecClusters);
-        }
-        
         return true;
     }
     
+    /**
+     * @return strips of the last event processed by the calling thread
+     */
     public List<ECStrip> getStrips() {
-	    return ECCommon.getMyStrips();    		
+	    return context.get().getStrips();    		
     }
     
+    /**
+     * @return peaks of the last event processed by the calling thread
+     */
     public List<ECPeak> getPeaks() {
-	    return ECCommon.getMyPeaks();    
+	    return context.get().getPeaks();    
     }
     
+    /**
+     * @return clusters of the last event processed by the calling thread
+     */
     public List<ECCluster> getClusters() {
-	    return ECCommon.getMyClusters();    
+	    return context.get().getClusters();    
     }    
         
     private void writeHipoBanks(DataEvent de, 
@@ -218,8 +232,12 @@ public class ECEngine extends ReconstructionEngine {
         ECCommon.clusterError[2] = err2;
     }
     
+    /**
+     * @return cluster error histograms filled by the calling thread
+     * (when isSingleThreaded is set)
+     */
     public DetectorCollection<H1F>  getHist() {
-        return ECCommon.H1_ecEng;
+        return context.get().getHistograms();
     }
     
     @Override
@@ -246,7 +264,6 @@ public class ECEngine extends ReconstructionEngine {
         setPeakThresholds(18,20,15);
         setClusterCuts(7,15,20);
         
-        if (isSingleThreaded) ECCommon.initHistos();
         return true;
     }
     
@@ -0,0 +1,108 @@
+package org.jlab.service.ec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import org.jlab.analysis.physics.TestEvent;
+import org.jlab.io.base.DataBank;
+import org.jlab.io.base.DataEvent;
+
+/**
+ * Checks that ECEngine gives the same output when the events are processed
+ * by several threads sharing one engine as when processed one at a time.
+ */
+public class ECMultiThreadTest {
+
+    private static final String[]   BANKS   = {"ECAL::hits","ECAL::peaks","ECAL::clusters","ECAL::calib"};
+    private static final String[][] COLUMNS = {
+        {"energy","time"},
+        {"energy","time","xo","yo","zo","xe","ye","ze"},
+        {"energy","time","x","y","z","widthU","widthV","widthW"},
+        {"energy","rawEU","rawEV","rawEW","recEU","recEV","recEW"}
+    };
+    private static final int CLUSTERS = 2; // ECAL::clusters in BANKS
+
+    private static DataEvent createEvent(int n){
+        return n%2==0 ? TestEvent.getECSector1PhotonEvent() : TestEvent.getDCSector1ElectronEvent();
+    }
+
+    /**
+     * @return the content of the EC output banks, [bank][row][column],
+     * null for a bank missing from the event
+     */
+    private static float[][][] contents(DataEvent event){
+        float[][][] content = new float[BANKS.length][][];
+        for(int b = 0; b < BANKS.length; b++){
+            if(event.hasBank(BANKS[b])==false) continue;
+            DataBank bank = event.getBank(BANKS[b]);
+            content[b] = new float[bank.rows()][COLUMNS[b].length];
+            for(int r = 0; r < bank.rows(); r++){
+                for(int c = 0; c < COLUMNS[b].length; c++){
+                    content[b][r][c] = bank.getFloat(COLUMNS[b][c], r);
+                }
+            }
+        }
+        return content;
+    }
+
+    @Test
+    public void testDeterminism() throws Exception {
+        System.setProperty("CLAS12DIR", "../../");
+
+        int nevents  = 64;
+        int nthreads = 4;
+
+        ECEngine single = new ECEngine();
+        single.init();
+        List<float[][][]> expected = new ArrayList<float[][][]>();
+        int nclusters = 0;
+        for(int n = 0; n < nevents; n++){
+            DataEvent event = createEvent(n);
+            single.processDataEvent(event);
+            float[][][] content = contents(event);
+            if(content[CLUSTERS]!=null) nclusters += content[CLUSTERS].length;
+            expected.add(content);
+        }
+        // the comparison below is only meaningful if clusters were found
+        assertTrue(nclusters>0);
+
+        final ECEngine engine = new ECEngine();
+        engine.init();
+        ExecutorService service = Executors.newFixedThreadPool(nthreads);
+        List<Future<float[][][]>> results = new ArrayList<Future<float[][][]>>();
+        for(int n = 0; n < nevents; n++){
+            final int order = n;
+            results.add(service.submit(new Callable<float[][][]>(){
+                @Override
+                public float[][][] call(){
+                    DataEvent event = createEvent(order);
+                    engine.processDataEvent(event);
+                    return contents(event);
+                }
+            }));
+        }
+        for(int n = 0; n < nevents; n++){
+            float[][][] serial   = expected.get(n);
+            float[][][] parallel = results.get(n).get();
+            for(int b = 0; b < BANKS.length; b++){
+                String where = "event " + n + " " + BANKS[b];
+                assertEquals(where, serial[b]==null, parallel[b]==null);
+                if(serial[b]==null) continue;
+                assertEquals(where + " rows", serial[b].length, parallel[b].length);
+                for(int r = 0; r < serial[b].length; r++){
+                    for(int c = 0; c < COLUMNS[b].length; c++){
+                        assertEquals(where + " row " + r + " " + COLUMNS[b][c],
+                                serial[b][r][c], parallel[b][r][c], 0.0f);
+                    }
+                }
+            }
+        }
+        service.shutdown();
+    }
+}
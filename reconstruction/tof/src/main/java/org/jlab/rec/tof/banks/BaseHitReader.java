@@ -8,6 +8,7 @@ import java.util.Map;
 import java.util.Set;
 
 import org.jlab.io.base.DataBank;
+import org.jlab.io.base.DataColumn;
 import org.jlab.io.base.DataEvent;
 import org.jlab.utils.groups.IndexedTable;
 
@@ -95,14 +96,21 @@ public class BaseHitReader {
             ADCIdx1 = new int[bankSize];
             ADCIdx2 = new int[bankSize];
 
+            DataColumn sectorColumn = bank.getColumn("sector");
+            DataColumn layerColumn = bank.getColumn("layer");
+            DataColumn componentColumn = bank.getColumn("component");
+            DataColumn orderColumn = bank.getColumn("order");
+            DataColumn adcColumn = bank.getColumn("ADC");
+            DataColumn timeColumn = bank.getColumn("time");
+            DataColumn pedColumn = bank.getColumn("ped");
             for (int i = 0; i < bankSize; i++) {
-                sectorADC[i] = bank.getByte("sector", i);
-                layerADC[i] = bank.getByte("layer", i);
-                componentADC[i] = bank.getShort("component", i);
-                int order = bank.getByte("order", i);
-                int ADC = bank.getInt("ADC", i);
-                double time = bank.getFloat("time", i);
-                int pedestalADC = bank.getShort("ped", i);
+                sectorADC[i] = sectorColumn.getByte(i);
+                layerADC[i] = layerColumn.getByte(i);
+                componentADC[i] = componentColumn.getShort(i);
+                int order = orderColumn.getByte(i);
+                int ADC = adcColumn.getInt(i);
+                double time = timeColumn.getFloat(i);
+                int pedestalADC = pedColumn.getShort(i);
 
                 ADC1[i] = -1;
                 ADC2[i] = -1;
@@ -155,12 +163,17 @@ public class BaseHitReader {
             TDCIdx1 = new int[bankSize];
             TDCIdx2 = new int[bankSize];
 
+            DataColumn sectorColumn = bank.getColumn("sector");
+            DataColumn layerColumn = bank.getColumn("layer");
+            DataColumn componentColumn = bank.getColumn("component");
+            DataColumn orderColumn = bank.getColumn("order");
+            DataColumn tdcColumn = bank.getColumn("TDC");
             for (int i = 0; i < bankSize; i++) {
-                sectorTDC[i] = bank.getByte("sector", i);
-                layerTDC[i] = bank.getByte("layer", i);
-                componentTDC[i] = bank.getShort("component", i);
-                int order = bank.getByte("order", i);
-                int TDC = bank.getInt("TDC", i);
+                sectorTDC[i] = sectorColumn.getByte(i);
+                layerTDC[i] = layerColumn.getByte(i);
+                componentTDC[i] = componentColumn.getShort(i);
+                int order = orderColumn.getByte(i);
+                int TDC = tdcColumn.getInt(i);
 
                 TDC1[i] = -1;
                 TDC2[i] = -1;
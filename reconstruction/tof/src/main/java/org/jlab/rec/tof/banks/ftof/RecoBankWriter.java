@@ -5,9 +5,6 @@ import java.util.List;
 
 import org.jlab.io.base.DataBank;
 import org.jlab.io.base.DataEvent;
-import org.jlab.io.hipo.HipoDataEvent;
-import org.jlab.jnp.hipo.data.HipoEvent;
-import org.jlab.jnp.hipo.data.HipoGroup;
 import org.jlab.rec.tof.cluster.Cluster;
 import org.jlab.rec.tof.hit.ftof.Hit;
 
@@ -23,12 +20,7 @@ public class RecoBankWriter {
     }
     public DataBank CreateOutputBank(DataEvent event, String bankName, int bankSize) {
         if(event.hasBank(bankName)) { // for second pass tracking
-            HipoDataEvent de = (HipoDataEvent) event;
-            HipoEvent dde = de.getHipoEvent();
-            HipoGroup group = dde.getGroup(bankName);
-            ////event.show();
-            //group.show();
-            dde.removeGroup(bankName);
+            event.removeBank(bankName);
             return null;
         }
         DataBank bank = event.createBank(bankName, bankSize);